@@ -0,0 +1,31 @@
+package com.sca.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AnalysisExecutorConfig {
+
+    /**
+     * Ограниченный пул для стадий анализа. Стадии большую часть времени ждут Docker,
+     * поэтому они не должны занимать общий ForkJoinPool.
+     * При переполнении очереди задача отклоняется, а не выполняется в вызывающем потоке.
+     */
+    @Bean(name = "analysisExecutor")
+    public ThreadPoolTaskExecutor analysisExecutor(AnalysisProperties analysisProperties) {
+        AnalysisProperties.Executor settings = analysisProperties.getExecutor();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(settings.getCoreSize());
+        executor.setMaxPoolSize(settings.getMaxSize());
+        executor.setQueueCapacity(settings.getQueueCapacity());
+        executor.setThreadNamePrefix(settings.getThreadNamePrefix());
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
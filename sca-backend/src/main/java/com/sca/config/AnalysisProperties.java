@@ -0,0 +1,674 @@
+package com.sca.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+@ConfigurationProperties(prefix = "analysis")
+public class AnalysisProperties {
+
+    private Executor executor = new Executor();
+    private Images images = new Images();
+    private Pool pool = new Pool();
+    private Incremental incremental = new Incremental();
+    private Embedded embedded = new Embedded();
+    private Cache cache = new Cache();
+    private Jobs jobs = new Jobs();
+    private Analyzers analyzers = new Analyzers();
+    private OnSave onSave = new OnSave();
+    private Ast ast = new Ast();
+    private Dependencies dependencies = new Dependencies();
+    private Clones clones = new Clones();
+    private Sonar sonar = new Sonar();
+
+    /**
+     * Где запускается инструмент: в JVM бэкенда или в изолированном контейнере
+     */
+    public enum Backend {
+        EMBEDDED, CONTAINER
+    }
+
+    /**
+     * Пул потоков, на котором выполняются стадии анализа
+     */
+    public static class Executor {
+        private int coreSize = 4;
+        private int maxSize = 8;
+        private int queueCapacity = 32;
+        private String threadNamePrefix = "analysis-";
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public String getThreadNamePrefix() {
+            return threadNamePrefix;
+        }
+
+        public void setThreadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+    }
+
+    /**
+     * Образы анализаторов с заранее установленными инструментами
+     */
+    public static class Images {
+        private boolean prepareOnStartup = true;
+        private String tarballDir;
+        private Map<String, String> versions = new HashMap<>();
+
+        public boolean isPrepareOnStartup() {
+            return prepareOnStartup;
+        }
+
+        public void setPrepareOnStartup(boolean prepareOnStartup) {
+            this.prepareOnStartup = prepareOnStartup;
+        }
+
+        public String getTarballDir() {
+            return tarballDir;
+        }
+
+        public void setTarballDir(String tarballDir) {
+            this.tarballDir = tarballDir;
+        }
+
+        public Map<String, String> getVersions() {
+            return versions;
+        }
+
+        public void setVersions(Map<String, String> versions) {
+            this.versions = versions;
+        }
+    }
+
+    /**
+     * Пул заранее запущенных контейнеров анализаторов
+     */
+    public static class Pool {
+        private int minIdle = 1;
+        private int maxSize = 4;
+        private long idleTimeoutSeconds = 600;
+        private long leaseTimeoutSeconds = 120;
+        // Демоны PMD и Checkstyle в контейнерах песочницы
+        private boolean daemons = true;
+
+        public int getMinIdle() {
+            return minIdle;
+        }
+
+        public void setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getIdleTimeoutSeconds() {
+            return idleTimeoutSeconds;
+        }
+
+        public void setIdleTimeoutSeconds(long idleTimeoutSeconds) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+        }
+
+        public long getLeaseTimeoutSeconds() {
+            return leaseTimeoutSeconds;
+        }
+
+        public void setLeaseTimeoutSeconds(long leaseTimeoutSeconds) {
+            this.leaseTimeoutSeconds = leaseTimeoutSeconds;
+        }
+
+        public boolean isDaemons() {
+            return daemons;
+        }
+
+        public void setDaemons(boolean daemons) {
+            this.daemons = daemons;
+        }
+    }
+
+    /**
+     * Инкрементальный анализ по снимку хешей файлов
+     */
+    public static class Incremental {
+        private boolean enabled = true;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
+    /**
+     * Очередь заданий анализа: ограничения числа одновременно выполняемых и ожидающих заданий
+     */
+    public static class Jobs {
+        private int maxRunning = 2;
+        private int maxRunningPerUser = 1;
+        private int maxQueued = 100;
+        private int retainFinished = 200;
+
+        public int getMaxRunning() {
+            return maxRunning;
+        }
+
+        public void setMaxRunning(int maxRunning) {
+            this.maxRunning = maxRunning;
+        }
+
+        public int getMaxRunningPerUser() {
+            return maxRunningPerUser;
+        }
+
+        public void setMaxRunningPerUser(int maxRunningPerUser) {
+            this.maxRunningPerUser = maxRunningPerUser;
+        }
+
+        public int getMaxQueued() {
+            return maxQueued;
+        }
+
+        public void setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+        }
+
+        public int getRetainFinished() {
+            return retainFinished;
+        }
+
+        public void setRetainFinished(int retainFinished) {
+            this.retainFinished = retainFinished;
+        }
+    }
+
+    /**
+     * Кэш результатов анализаторов в Redis по хешу содержимого файла
+     */
+    public static class Cache {
+        private boolean enabled = true;
+        private String keyPrefix = "sca:result";
+        private long ttlHours = 168;
+        private long maxEntries = 200000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getKeyPrefix() {
+            return keyPrefix;
+        }
+
+        public void setKeyPrefix(String keyPrefix) {
+            this.keyPrefix = keyPrefix;
+        }
+
+        public long getTtlHours() {
+            return ttlHours;
+        }
+
+        public void setTtlHours(long ttlHours) {
+            this.ttlHours = ttlHours;
+        }
+
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Встроенные (in-process) движки PMD и Checkstyle
+     */
+    public static class Embedded {
+        private Backend pmd = Backend.EMBEDDED;
+        private Backend checkstyle = Backend.EMBEDDED;
+        private int threads = 4;
+        private String pmdRuleset = "rulesets/java/quickstart.xml";
+        private String checkstyleConfig = "/google_checks.xml";
+
+        public Backend getPmd() {
+            return pmd;
+        }
+
+        public void setPmd(Backend pmd) {
+            this.pmd = pmd;
+        }
+
+        public Backend getCheckstyle() {
+            return checkstyle;
+        }
+
+        public void setCheckstyle(Backend checkstyle) {
+            this.checkstyle = checkstyle;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public String getPmdRuleset() {
+            return pmdRuleset;
+        }
+
+        public void setPmdRuleset(String pmdRuleset) {
+            this.pmdRuleset = pmdRuleset;
+        }
+
+        public String getCheckstyleConfig() {
+            return checkstyleConfig;
+        }
+
+        public void setCheckstyleConfig(String checkstyleConfig) {
+            this.checkstyleConfig = checkstyleConfig;
+        }
+    }
+
+    /**
+     * Набор анализаторов и оценки их стоимости для планирования стадий
+     */
+    public static class Analyzers {
+        // Имена отключенных стадий: sonarqube, pmd, checkstyle, spotbugs
+        private Set<String> disabled = new HashSet<>();
+        // Переопределение стоимости анализа тысячи строк, мс, по имени стадии
+        private Map<String, Double> costPerKloc = new HashMap<>();
+        // Предельное время стадии, после него стадия завершается с ошибкой
+        private long timeoutSeconds = 900;
+        // Переопределение предельного времени по имени стадии
+        private Map<String, Long> timeouts = new HashMap<>();
+
+        /**
+         * Предельное время стадии с учетом переопределения
+         */
+        public long getTimeoutSeconds(String stage) {
+            return timeouts.getOrDefault(stage, timeoutSeconds);
+        }
+
+        public Set<String> getDisabled() {
+            return disabled;
+        }
+
+        public void setDisabled(Set<String> disabled) {
+            this.disabled = disabled;
+        }
+
+        public Map<String, Double> getCostPerKloc() {
+            return costPerKloc;
+        }
+
+        public void setCostPerKloc(Map<String, Double> costPerKloc) {
+            this.costPerKloc = costPerKloc;
+        }
+
+        public long getTimeoutSeconds() {
+            return timeoutSeconds;
+        }
+
+        public void setTimeoutSeconds(long timeoutSeconds) {
+            this.timeoutSeconds = timeoutSeconds;
+        }
+
+        public Map<String, Long> getTimeouts() {
+            return timeouts;
+        }
+
+        public void setTimeouts(Map<String, Long> timeouts) {
+            this.timeouts = timeouts;
+        }
+    }
+
+    /**
+     * Анализ файла после сохранения: только быстрые правила в JVM бэкенда, серия сохранений
+     * одного файла в пределах debounce-millis дает один анализ
+     */
+    public static class OnSave {
+        private boolean enabled = false;
+        private long debounceMillis = 300;
+        private int threads = 2;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getDebounceMillis() {
+            return debounceMillis;
+        }
+
+        public void setDebounceMillis(long debounceMillis) {
+            this.debounceMillis = debounceMillis;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    /**
+     * Встроенный анализатор Java по синтаксическому дереву
+     */
+    public static class Ast {
+        // Потоков ForkJoinPool, 0 - по числу процессоров
+        private int parallelism = 0;
+        // Сколько разобранных файлов хранится в кэше деревьев; меньше числа Java файлов проекта - полный анализ разбирает их заново
+        private int cacheMaxEntries = 10000;
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public int getCacheMaxEntries() {
+            return cacheMaxEntries;
+        }
+
+        public void setCacheMaxEntries(int cacheMaxEntries) {
+            this.cacheMaxEntries = cacheMaxEntries;
+        }
+    }
+
+    /**
+     * Поиск уязвимых зависимостей по локальной базе OSV
+     */
+    public static class Dependencies {
+        // Индекс уязвимостей, создается импортом
+        private String databasePath = "/tmp/sca-advisories/advisories.idx";
+        // Выгрузка OSV (каталог JSON или zip), импортируется при старте, если новее индекса
+        private String importPath = "";
+
+        public String getDatabasePath() {
+            return databasePath;
+        }
+
+        public void setDatabasePath(String databasePath) {
+            this.databasePath = databasePath;
+        }
+
+        public String getImportPath() {
+            return importPath;
+        }
+
+        public void setImportPath(String importPath) {
+            this.importPath = importPath;
+        }
+    }
+
+    /**
+     * Поиск повторяющегося кода
+     */
+    public static class Clones {
+        // Наименьший клон в токенах
+        private int minTokens = 100;
+        // Потоков разбора файлов, 0 - по числу процессоров
+        private int parallelism = 0;
+        // Сколько токенов хранится для проверки кандидатов, около 8 байт на токен
+        private long tokenCacheSize = 2_000_000;
+        // Считать одинаковыми все строковые и числовые литералы
+        private boolean ignoreLiterals = false;
+
+        public int getMinTokens() {
+            return minTokens;
+        }
+
+        public void setMinTokens(int minTokens) {
+            this.minTokens = minTokens;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public long getTokenCacheSize() {
+            return tokenCacheSize;
+        }
+
+        public void setTokenCacheSize(long tokenCacheSize) {
+            this.tokenCacheSize = tokenCacheSize;
+        }
+
+        public boolean isIgnoreLiterals() {
+            return ignoreLiterals;
+        }
+
+        public void setIgnoreLiterals(boolean ignoreLiterals) {
+            this.ignoreLiterals = ignoreLiterals;
+        }
+    }
+
+    /**
+     * Сервер SonarQube: сканер отправляет отчет, проблемы забираются через Web API
+     */
+    public static class Sonar {
+        // Адрес сервера для бэкенда
+        private String hostUrl = "http://localhost:9000";
+        // Адрес сервера для сканера в контейнере песочницы, пусто - hostUrl
+        private String scannerHostUrl = "";
+        private String token = "";
+        // Проблем на странице /api/issues/search, не больше 500
+        private int pageSize = 500;
+        // Страниц, загружаемых одновременно
+        private int concurrency = 4;
+        private long pollIntervalMillis = 2000;
+        private long requestTimeoutSeconds = 30;
+
+        public String getHostUrl() {
+            return hostUrl;
+        }
+
+        public void setHostUrl(String hostUrl) {
+            this.hostUrl = hostUrl;
+        }
+
+        public String getScannerHostUrl() {
+            return scannerHostUrl == null || scannerHostUrl.isBlank() ? hostUrl : scannerHostUrl;
+        }
+
+        public void setScannerHostUrl(String scannerHostUrl) {
+            this.scannerHostUrl = scannerHostUrl;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public void setToken(String token) {
+            this.token = token;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public void setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public long getPollIntervalMillis() {
+            return pollIntervalMillis;
+        }
+
+        public void setPollIntervalMillis(long pollIntervalMillis) {
+            this.pollIntervalMillis = pollIntervalMillis;
+        }
+
+        public long getRequestTimeoutSeconds() {
+            return requestTimeoutSeconds;
+        }
+
+        public void setRequestTimeoutSeconds(long requestTimeoutSeconds) {
+            this.requestTimeoutSeconds = requestTimeoutSeconds;
+        }
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Images getImages() {
+        return images;
+    }
+
+    public void setImages(Images images) {
+        this.images = images;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Incremental getIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(Incremental incremental) {
+        this.incremental = incremental;
+    }
+
+    public Embedded getEmbedded() {
+        return embedded;
+    }
+
+    public void setEmbedded(Embedded embedded) {
+        this.embedded = embedded;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public Analyzers getAnalyzers() {
+        return analyzers;
+    }
+
+    public void setAnalyzers(Analyzers analyzers) {
+        this.analyzers = analyzers;
+    }
+
+    public OnSave getOnSave() {
+        return onSave;
+    }
+
+    public void setOnSave(OnSave onSave) {
+        this.onSave = onSave;
+    }
+
+    public Ast getAst() {
+        return ast;
+    }
+
+    public void setAst(Ast ast) {
+        this.ast = ast;
+    }
+
+    public Dependencies getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(Dependencies dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public Clones getClones() {
+        return clones;
+    }
+
+    public void setClones(Clones clones) {
+        this.clones = clones;
+    }
+
+    public Sonar getSonar() {
+        return sonar;
+    }
+
+    public void setSonar(Sonar sonar) {
+        this.sonar = sonar;
+    }
+}
@@ -11,6 +11,7 @@ public class WebSocketProperties {
 
     private String endpoint;
     private List<String> allowedOrigins;
+    private int resultChunkSize = 200;
 
     public String getEndpoint() {
         return endpoint;
@@ -27,4 +28,15 @@ public class WebSocketProperties {
     public void setAllowedOrigins(List<String> allowedOrigins) {
         this.allowedOrigins = allowedOrigins;
     }
+
+    /**
+     * Максимальное число проблем в одном сообщении /queue/analysis-results
+     */
+    public int getResultChunkSize() {
+        return resultChunkSize;
+    }
+
+    public void setResultChunkSize(int resultChunkSize) {
+        this.resultChunkSize = resultChunkSize;
+    }
 }
@@ -1,5 +1,7 @@
 package com.sca.controller;
 
+import com.sca.model.CodeProblem;
+import com.sca.model.ProblemQuery;
 import com.sca.model.Project;
 import com.sca.model.User;
 import com.sca.service.ProjectService;
@@ -16,6 +18,7 @@ import org.springframework.web.servlet.HandlerMapping;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/projects")
@@ -151,6 +154,47 @@ public class ProjectController {
         }
     }
 
+    /**
+     * Получить страницу проблем проекта.
+     * Следующая страница запрашивается с cursor = nextCursor из предыдущего ответа
+     * и с теми же фильтрами и сортировкой, иначе запрос отклоняется с 400.
+     */
+    @GetMapping("/{id}/problems")
+    public ResponseEntity<?> getProblems(@PathVariable Long id,
+                                         @RequestParam(required = false) Set<CodeProblem.ProblemSeverity> severity,
+                                         @RequestParam(required = false) Set<CodeProblem.ProblemType> type,
+                                         @RequestParam(required = false) String file,
+                                         @RequestParam(required = false) String rule,
+                                         @RequestParam(required = false, defaultValue = "false") String resolved,
+                                         @RequestParam(required = false) ProblemQuery.Sort sort,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false, defaultValue = "100") int limit,
+                                         @AuthenticationPrincipal User user) {
+        Project project;
+        try {
+            project = projectService.getProjectById(id, user);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            ProblemQuery query = new ProblemQuery();
+            query.setSeverities(severity);
+            query.setTypes(type);
+            query.setFilePath(file);
+            query.setRuleId(rule);
+            // resolved=any - проблемы в любом состоянии
+            query.setResolved("any".equalsIgnoreCase(resolved) ? null : Boolean.valueOf(resolved));
+            query.setSort(sort);
+            query.setCursor(cursor);
+            query.setLimit(limit);
+            return ResponseEntity.ok(projectService.getProblems(project, query));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     /**
      * Создать файл в проекте
      */
@@ -1,17 +1,31 @@
 package com.sca.controller;
 
+import com.sca.config.WebSocketProperties;
 import com.sca.model.CodeProblem;
+import com.sca.model.ProblemPage;
+import com.sca.model.ProblemQuery;
 import com.sca.model.Project;
-import com.sca.service.CodeAnalysisService;
+import com.sca.service.AnalysisJobScheduler;
 import com.sca.service.ProjectService;
+import com.sca.service.analysis.AnalysisJob;
+import com.sca.service.analysis.AnalysisJobEvent;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.FileDiagnosticsEvent;
+import com.sca.service.analysis.ProblemDelta;
+import com.sca.service.analysis.ProblemMerger;
+import com.sca.service.analysis.StageResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Controller
 public class WebSocketController {
@@ -20,13 +34,18 @@ public class WebSocketController {
     private SimpMessagingTemplate messagingTemplate;
 
     @Autowired
-    private CodeAnalysisService codeAnalysisService;
+    private ProjectService projectService;
 
     @Autowired
-    private ProjectService projectService;
+    private AnalysisJobScheduler analysisJobScheduler;
+
+    @Autowired
+    private WebSocketProperties webSocketProperties;
 
     /**
-     * Обработка запроса на анализ кода
+     * Обработка запроса на анализ кода.
+     * Анализ ставится в очередь AnalysisJobScheduler; если для проекта уже есть
+     * незавершенное задание, запрос присоединяется к нему.
      */
     @MessageMapping("/analyze")
     @SendTo("/topic/analysis")
@@ -35,44 +54,20 @@ public class WebSocketController {
             // Получаем проект
             Project project = projectService.getProjectById(request.getProjectId(), request.getUser());
             
-            // Запускаем анализ асинхронно
-            CompletableFuture<List<CodeProblem>> analysisFuture = codeAnalysisService.analyzeProject(project);
+            AnalysisJob.Priority priority = request.getPriority() != null ? request.getPriority() : AnalysisJob.Priority.NORMAL;
+            AnalysisJob job = request.getHeadRef() != null && request.getBaseRef() != null
+                    ? analysisJobScheduler.submitBranchDiff(
+                            project, request.getUser().getUsername(), request.getBaseRef(), request.getHeadRef(), priority)
+                    : analysisJobScheduler.submit(
+                            project, request.getUser().getUsername(), !request.isFullAnalysis(), priority);
             
-            // Отправляем уведомление о начале анализа
+            // Отправляем id задания, по нему клиент может подписаться на /topic/analysis-jobs/{jobId}
             messagingTemplate.convertAndSendToUser(
                     request.getUser().getUsername(),
                     "/queue/analysis-status",
-                    new AnalysisStatus("STARTED", "Analysis started")
+                    new AnalysisStatus(job.getState().name(), "Analysis job " + job.getId() + " accepted", job.getId())
             );
             
-            // Обрабатываем результаты
-            analysisFuture.thenAccept(problems -> {
-                // Сохраняем проблемы в БД
-                projectService.saveProblems(project, problems);
-                
-                // Отправляем результаты
-                messagingTemplate.convertAndSendToUser(
-                        request.getUser().getUsername(),
-                        "/queue/analysis-results",
-                        new AnalysisResults(problems, project.getId())
-                );
-                
-                // Отправляем уведомление о завершении
-                messagingTemplate.convertAndSendToUser(
-                        request.getUser().getUsername(),
-                        "/queue/analysis-status",
-                        new AnalysisStatus("COMPLETED", "Analysis completed")
-                );
-            }).exceptionally(throwable -> {
-                // Отправляем уведомление об ошибке
-                messagingTemplate.convertAndSendToUser(
-                        request.getUser().getUsername(),
-                        "/queue/analysis-status",
-                        new AnalysisStatus("ERROR", "Analysis failed: " + throwable.getMessage())
-                );
-                return null;
-            });
-            
         } catch (Exception e) {
             messagingTemplate.convertAndSendToUser(
                     request.getUser().getUsername(),
@@ -83,19 +78,206 @@ public class WebSocketController {
     }
 
     /**
-     * Обработка запроса на получение проблем проекта
+     * Подписка на задание анализа по id: пользователь начинает получать его уведомления
+     * и сразу получает текущее состояние
+     */
+    @MessageMapping("/analysis-jobs/subscribe")
+    public void subscribeToJob(JobSubscriptionRequest request) {
+        String username = request.getUser().getUsername();
+        try {
+            Optional<AnalysisJob> job = analysisJobScheduler.getJob(request.getJobId());
+            if (job.isEmpty()) {
+                throw new RuntimeException("Analysis job not found: " + request.getJobId());
+            }
+            // Проверяем доступ к проекту задания
+            projectService.getProjectById(job.get().getProjectId(), request.getUser());
+            analysisJobScheduler.subscribe(request.getJobId(), username);
+            messagingTemplate.convertAndSendToUser(username, "/queue/analysis-jobs", toJobUpdate(job.get(), null));
+        } catch (Exception e) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/error",
+                    new ErrorResponse("Failed to subscribe to analysis job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Отмена задания анализа пользователем с доступом к проекту.
+     * Итог приходит событием CANCELLED; если задание уже завершилось, отправляется ошибка.
+     */
+    @MessageMapping("/analysis-jobs/cancel")
+    public void cancelJob(JobSubscriptionRequest request) {
+        String username = request.getUser().getUsername();
+        try {
+            Optional<AnalysisJob> job = analysisJobScheduler.getJob(request.getJobId());
+            if (job.isEmpty()) {
+                throw new RuntimeException("Analysis job not found: " + request.getJobId());
+            }
+            // Проверяем доступ к проекту задания
+            projectService.getProjectById(job.get().getProjectId(), request.getUser());
+            if (!analysisJobScheduler.cancel(request.getJobId(), username)) {
+                throw new RuntimeException("Analysis job is already finished: " + request.getJobId());
+            }
+        } catch (Exception e) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/error",
+                    new ErrorResponse("Failed to cancel analysis job: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Рассылает изменения состояния заданий анализа: в топик задания
+     * и подписавшимся пользователям.
+     * В /queue/analysis-results отправляются только изменения относительно предыдущего анализа:
+     * новые проблемы - частями сразу по завершении каждой стадии, решенные (resolved = true) -
+     * частями стадии "fixed" после сохранения результатов.
+     * Каждая часть имеет порядковый номер sequence; последнее сообщение задания имеет last = true
+     * и totalChunks - по нему клиент проверяет, что получил все части.
+     */
+    @EventListener
+    public void onAnalysisJobEvent(AnalysisJobEvent event) {
+        AnalysisJob job = event.getJob();
+        AnalysisJobUpdate update = toJobUpdate(job, event.getStage());
+        update.setEvent(event.getType().name());
+        messagingTemplate.convertAndSend("/topic/analysis-jobs/" + job.getId(), update);
+
+        switch (event.getType()) {
+            case STARTED:
+                sendStatus(job, new AnalysisStatus("STARTED", "Analysis started", job.getId()));
+                break;
+            case STAGE_COMPLETED:
+                sendResultChunks(job, event.getStage().getStage(), newProblems(job, event.getStage()));
+                break;
+            case COMPLETED:
+                AnalysisReport report = event.getReport();
+                ProblemDelta delta = report.getDelta() != null ? report.getDelta() : ProblemDelta.empty();
+                sendResultChunks(job, "fixed", delta.getFixed());
+                sendFinalChunk(job, report.getRetainedProblems().size() + delta.getUnchanged() + delta.getAdded().size(), delta);
+                AnalysisStatus completed = new AnalysisStatus("COMPLETED",
+                        "Analysis completed in " + report.getTotalMillis() + " ms", report.getStageTimings());
+                completed.setPhaseTimings(report.getPhaseTimings());
+                completed.setJobId(job.getId());
+                sendStatus(job, completed);
+                break;
+            case FAILED:
+                sendFinalChunk(job, 0, ProblemDelta.empty());
+                sendStatus(job, new AnalysisStatus("ERROR", "Analysis failed: " + job.getError(), job.getId()));
+                break;
+            case CANCELLED:
+                sendFinalChunk(job, 0, ProblemDelta.empty());
+                sendStatus(job, new AnalysisStatus("CANCELLED", "Analysis cancelled: " + job.getError(), job.getId()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Отправляет диагностику файла после сохранения пользователям, которые его сохраняли.
+     * Сообщение содержит все проблемы файла и заменяет предыдущую диагностику этого файла.
+     */
+    @EventListener
+    public void onFileDiagnostics(FileDiagnosticsEvent event) {
+        FileDiagnostics diagnostics = new FileDiagnostics(event.getProject().getId(), event.getFilePath(),
+                event.getProblems(), event.getDurationMillis());
+        for (String username : event.getRecipients()) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/file-diagnostics", diagnostics);
+        }
+    }
+
+    private void sendStatus(AnalysisJob job, AnalysisStatus status) {
+        for (String username : job.getSubscribers()) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/analysis-status", status);
+        }
+    }
+
+    private void sendResultChunks(AnalysisJob job, String stage, List<CodeProblem> problems) {
+        int chunkSize = Math.max(1, webSocketProperties.getResultChunkSize());
+        for (int from = 0; from < problems.size(); from += chunkSize) {
+            AnalysisResults chunk = new AnalysisResults(
+                    problems.subList(from, Math.min(from + chunkSize, problems.size())), job.getProjectId());
+            chunk.setJobId(job.getId());
+            chunk.setStage(stage);
+            chunk.setSequence(job.nextResultSequence());
+            sendResults(job, chunk);
+        }
+    }
+
+    /**
+     * Проблемы стадии, которых не было среди открытых проблем проекта до запуска.
+     * Проблема, которую в той же строке уже нашел другой инструмент предыдущей стадии,
+     * не отправляется повторно (см. ProblemMerger).
+     */
+    private List<CodeProblem> newProblems(AnalysisJob job, StageResult stage) {
+        Set<String> known = job.getKnownFingerprints();
+        List<CodeProblem> problems = new ArrayList<>();
+        for (CodeProblem problem : stage.getProblems()) {
+            if (problem.getFingerprint() != null && known.contains(problem.getFingerprint())) {
+                continue;
+            }
+            String key = ProblemMerger.lineKey(problem);
+            if (key == null || job.markStreamed(key, problem.getSources())) {
+                problems.add(problem);
+            }
+        }
+        return problems;
+    }
+
+    private void sendFinalChunk(AnalysisJob job, int totalProblems, ProblemDelta delta) {
+        AnalysisResults marker = new AnalysisResults(List.of(), job.getProjectId());
+        marker.setJobId(job.getId());
+        marker.setSequence(job.nextResultSequence());
+        marker.setLast(true);
+        marker.setTotalChunks(marker.getSequence() + 1);
+        marker.setTotalProblems(totalProblems);
+        marker.setAddedProblems(delta.getAdded().size());
+        marker.setFixedProblems(delta.getFixed().size());
+        marker.setUnchangedProblems(delta.getUnchanged());
+        sendResults(job, marker);
+    }
+
+    private void sendResults(AnalysisJob job, AnalysisResults results) {
+        for (String username : job.getSubscribers()) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/analysis-results", results);
+        }
+    }
+
+    private AnalysisJobUpdate toJobUpdate(AnalysisJob job, StageResult stage) {
+        AnalysisJobUpdate update = new AnalysisJobUpdate();
+        update.setJobId(job.getId());
+        update.setProjectId(job.getProjectId());
+        update.setState(job.getState().name());
+        update.setPriority(job.getPriority().name());
+        update.setIncremental(job.isIncremental());
+        update.setBaseRef(job.getBaseRef());
+        update.setHeadRef(job.getHeadRef());
+        update.setQueuePosition(analysisJobScheduler.getQueuePosition(job));
+        update.setCompletedStages(job.getCompletedStages());
+        update.setError(job.getError());
+        if (stage != null) {
+            update.setStage(stage.getStage());
+            update.setStageDurationMillis(stage.getDurationMillis());
+            update.setStageProblems(stage.getProblems().size());
+            update.setStageError(stage.getError());
+        }
+        return update;
+    }
+
+    /**
+     * Обработка запроса на получение проблем проекта.
+     * Отправляется одна страница; следующая запрашивается с nextCursor из ответа.
      */
     @MessageMapping("/problems")
     @SendTo("/topic/problems")
     public void getProblems(ProblemsRequest request) {
         try {
             Project project = projectService.getProjectById(request.getProjectId(), request.getUser());
-            List<CodeProblem> problems = projectService.getProblemsByProject(project);
+            ProblemQuery query = request.getQuery() != null ? request.getQuery() : new ProblemQuery();
+            ProblemPage page = projectService.getProblems(project, query);
             
+            ProblemsResponse response = new ProblemsResponse(page.getProblems(), project.getId());
+            response.setNextCursor(page.getNextCursor());
             messagingTemplate.convertAndSendToUser(
                     request.getUser().getUsername(),
                     "/queue/problems",
-                    new ProblemsResponse(problems, project.getId())
+                    response
             );
             
         } catch (Exception e) {
@@ -136,11 +318,24 @@ public class WebSocketController {
     // Внутренние классы для сообщений
     public static class AnalysisRequest {
         private Long projectId;
+        private boolean fullAnalysis;
+        private AnalysisJob.Priority priority;
+        // Анализ ветки: только изменения headRef относительно baseRef
+        private String baseRef;
+        private String headRef;
         private com.sca.model.User user;
         
         // Getters and setters
         public Long getProjectId() { return projectId; }
         public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public boolean isFullAnalysis() { return fullAnalysis; }
+        public void setFullAnalysis(boolean fullAnalysis) { this.fullAnalysis = fullAnalysis; }
+        public AnalysisJob.Priority getPriority() { return priority; }
+        public void setPriority(AnalysisJob.Priority priority) { this.priority = priority; }
+        public String getBaseRef() { return baseRef; }
+        public void setBaseRef(String baseRef) { this.baseRef = baseRef; }
+        public String getHeadRef() { return headRef; }
+        public void setHeadRef(String headRef) { this.headRef = headRef; }
         public com.sca.model.User getUser() { return user; }
         public void setUser(com.sca.model.User user) { this.user = user; }
     }
@@ -148,22 +343,144 @@ public class WebSocketController {
     public static class AnalysisStatus {
         private String status;
         private String message;
+        private Map<String, Long> stageTimings;
+        private Map<String, Long> phaseTimings;
+        private String jobId;
         
         public AnalysisStatus(String status, String message) {
             this.status = status;
             this.message = message;
         }
         
+        public AnalysisStatus(String status, String message, String jobId) {
+            this.status = status;
+            this.message = message;
+            this.jobId = jobId;
+        }
+        
+        public AnalysisStatus(String status, String message, Map<String, Long> stageTimings) {
+            this.status = status;
+            this.message = message;
+            this.stageTimings = stageTimings;
+        }
+        
         // Getters and setters
         public String getStatus() { return status; }
         public void setStatus(String status) { this.status = status; }
         public String getMessage() { return message; }
         public void setMessage(String message) { this.message = message; }
+        public Map<String, Long> getStageTimings() { return stageTimings; }
+        public void setStageTimings(Map<String, Long> stageTimings) { this.stageTimings = stageTimings; }
+        public Map<String, Long> getPhaseTimings() { return phaseTimings; }
+        public void setPhaseTimings(Map<String, Long> phaseTimings) { this.phaseTimings = phaseTimings; }
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+    }
+
+    public static class JobSubscriptionRequest {
+        private String jobId;
+        private com.sca.model.User user;
+        
+        // Getters and setters
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+        public com.sca.model.User getUser() { return user; }
+        public void setUser(com.sca.model.User user) { this.user = user; }
+    }
+
+    public static class AnalysisJobUpdate {
+        private String jobId;
+        private Long projectId;
+        private String event;
+        private String state;
+        private String priority;
+        private boolean incremental;
+        private String baseRef;
+        private String headRef;
+        private int queuePosition;
+        private int completedStages;
+        private String error;
+        private String stage;
+        private Long stageDurationMillis;
+        private Integer stageProblems;
+        private String stageError;
+        
+        // Getters and setters
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+        public Long getProjectId() { return projectId; }
+        public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public String getEvent() { return event; }
+        public void setEvent(String event) { this.event = event; }
+        public String getState() { return state; }
+        public void setState(String state) { this.state = state; }
+        public String getPriority() { return priority; }
+        public void setPriority(String priority) { this.priority = priority; }
+        public boolean isIncremental() { return incremental; }
+        public void setIncremental(boolean incremental) { this.incremental = incremental; }
+        public String getBaseRef() { return baseRef; }
+        public void setBaseRef(String baseRef) { this.baseRef = baseRef; }
+        public String getHeadRef() { return headRef; }
+        public void setHeadRef(String headRef) { this.headRef = headRef; }
+        public int getQueuePosition() { return queuePosition; }
+        public void setQueuePosition(int queuePosition) { this.queuePosition = queuePosition; }
+        public int getCompletedStages() { return completedStages; }
+        public void setCompletedStages(int completedStages) { this.completedStages = completedStages; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+        public String getStage() { return stage; }
+        public void setStage(String stage) { this.stage = stage; }
+        public Long getStageDurationMillis() { return stageDurationMillis; }
+        public void setStageDurationMillis(Long stageDurationMillis) { this.stageDurationMillis = stageDurationMillis; }
+        public Integer getStageProblems() { return stageProblems; }
+        public void setStageProblems(Integer stageProblems) { this.stageProblems = stageProblems; }
+        public String getStageError() { return stageError; }
+        public void setStageError(String stageError) { this.stageError = stageError; }
+    }
+
+    /**
+     * Проблемы одного файла по быстрым правилам после его сохранения
+     */
+    public static class FileDiagnostics {
+        private Long projectId;
+        private String filePath;
+        private List<CodeProblem> problems;
+        private long durationMillis;
+
+        public FileDiagnostics(Long projectId, String filePath, List<CodeProblem> problems, long durationMillis) {
+            this.projectId = projectId;
+            this.filePath = filePath;
+            this.problems = problems;
+            this.durationMillis = durationMillis;
+        }
+
+        // Getters and setters
+        public Long getProjectId() { return projectId; }
+        public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public String getFilePath() { return filePath; }
+        public void setFilePath(String filePath) { this.filePath = filePath; }
+        public List<CodeProblem> getProblems() { return problems; }
+        public void setProblems(List<CodeProblem> problems) { this.problems = problems; }
+        public long getDurationMillis() { return durationMillis; }
+        public void setDurationMillis(long durationMillis) { this.durationMillis = durationMillis; }
     }
 
+    /**
+     * Часть результатов анализа. Сообщение с last = true завершает поток частей задания
+     * и содержит число новых, решенных и оставшихся без изменений проблем.
+     */
     public static class AnalysisResults {
         private List<CodeProblem> problems;
         private Long projectId;
+        private String jobId;
+        private String stage;
+        private int sequence;
+        private boolean last;
+        private Integer totalChunks;
+        private Integer totalProblems;
+        private Integer addedProblems;
+        private Integer fixedProblems;
+        private Integer unchangedProblems;
         
         public AnalysisResults(List<CodeProblem> problems, Long projectId) {
             this.problems = problems;
@@ -175,15 +492,36 @@ public class WebSocketController {
         public void setProblems(List<CodeProblem> problems) { this.problems = problems; }
         public Long getProjectId() { return projectId; }
         public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+        public String getStage() { return stage; }
+        public void setStage(String stage) { this.stage = stage; }
+        public int getSequence() { return sequence; }
+        public void setSequence(int sequence) { this.sequence = sequence; }
+        public boolean isLast() { return last; }
+        public void setLast(boolean last) { this.last = last; }
+        public Integer getTotalChunks() { return totalChunks; }
+        public void setTotalChunks(Integer totalChunks) { this.totalChunks = totalChunks; }
+        public Integer getTotalProblems() { return totalProblems; }
+        public void setTotalProblems(Integer totalProblems) { this.totalProblems = totalProblems; }
+        public Integer getAddedProblems() { return addedProblems; }
+        public void setAddedProblems(Integer addedProblems) { this.addedProblems = addedProblems; }
+        public Integer getFixedProblems() { return fixedProblems; }
+        public void setFixedProblems(Integer fixedProblems) { this.fixedProblems = fixedProblems; }
+        public Integer getUnchangedProblems() { return unchangedProblems; }
+        public void setUnchangedProblems(Integer unchangedProblems) { this.unchangedProblems = unchangedProblems; }
     }
 
     public static class ProblemsRequest {
         private Long projectId;
+        private ProblemQuery query;
         private com.sca.model.User user;
         
         // Getters and setters
         public Long getProjectId() { return projectId; }
         public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public ProblemQuery getQuery() { return query; }
+        public void setQuery(ProblemQuery query) { this.query = query; }
         public com.sca.model.User getUser() { return user; }
         public void setUser(com.sca.model.User user) { this.user = user; }
     }
@@ -191,6 +529,7 @@ public class WebSocketController {
     public static class ProblemsResponse {
         private List<CodeProblem> problems;
         private Long projectId;
+        private String nextCursor;
         
         public ProblemsResponse(List<CodeProblem> problems, Long projectId) {
             this.problems = problems;
@@ -202,6 +541,8 @@ public class WebSocketController {
         public void setProblems(List<CodeProblem> problems) { this.problems = problems; }
         public Long getProjectId() { return projectId; }
         public void setProjectId(Long projectId) { this.projectId = projectId; }
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
     }
 
     public static class FileUpdateRequest {
@@ -1,5 +1,6 @@
 package com.sca.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,11 +9,18 @@ import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "code_problems")
+@Table(name = "code_problems", indexes = {
+        @Index(name = "idx_code_problems_project_fingerprint", columnList = "project_id, fingerprint"),
+        // Порядок столбцов совпадает с сортировками ProblemQuery - страницы читаются по индексу
+        @Index(name = "idx_code_problems_severity_location", columnList = "project_id, severity_rank DESC, file_path, start_line, id"),
+        @Index(name = "idx_code_problems_location", columnList = "project_id, file_path, start_line, id")
+})
 public class CodeProblem {
     
+    // Идентификаторы из последовательности выделяются блоками, что позволяет Hibernate пакетно вставлять строки
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "code_problems_seq")
+    @SequenceGenerator(name = "code_problems_seq", sequenceName = "code_problems_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -44,6 +52,11 @@ public class CodeProblem {
     @Enumerated(EnumType.STRING)
     private ProblemSeverity severity = ProblemSeverity.WARNING;
     
+    // Числовая важность для сортировки: строковое значение severity сортируется по алфавиту
+    @JsonIgnore
+    @Column(name = "severity_rank")
+    private Integer severityRank;
+    
     @Enumerated(EnumType.STRING)
     private ProblemType type = ProblemType.CODE_SMELL;
     
@@ -53,6 +66,15 @@ public class CodeProblem {
     @Size(max = 100)
     private String category;
     
+    // Инструменты, нашедшие проблему, через запятую, см. ProblemMerger
+    @Size(max = 255)
+    private String sources;
+    
+    // Отпечаток для сопоставления проблемы между запусками анализа, см. ProblemFingerprint
+    @Size(max = 64)
+    @Column(length = 64)
+    private String fingerprint;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
@@ -64,6 +86,12 @@ public class CodeProblem {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        onUpdate();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        severityRank = severity != null ? severity.getRank() : null;
     }
     
     // Constructors
@@ -163,6 +191,10 @@ public class CodeProblem {
         this.severity = severity;
     }
     
+    public Integer getSeverityRank() {
+        return severityRank;
+    }
+    
     public ProblemType getType() {
         return type;
     }
@@ -187,6 +219,22 @@ public class CodeProblem {
         this.category = category;
     }
     
+    public String getSources() {
+        return sources;
+    }
+    
+    public void setSources(String sources) {
+        this.sources = sources;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -215,7 +263,14 @@ public class CodeProblem {
     }
     
     public enum ProblemSeverity {
-        INFO, WARNING, ERROR, CRITICAL
+        INFO, WARNING, ERROR, CRITICAL;
+        
+        /**
+         * Важность: чем больше, тем серьезнее проблема
+         */
+        public int getRank() {
+            return ordinal();
+        }
     }
     
     public enum ProblemType {
@@ -0,0 +1,103 @@
+package com.sca.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Счетчики одного файла проекта. Строка остается, пока у удаленного файла
+ * есть нерешенные проблемы, но в итог проекта такой файл не входит.
+ */
+@Entity
+@Table(name = "file_statistics", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_file_statistics_project_path", columnNames = {"project_id", "file_path"})
+}, indexes = {
+        @Index(name = "idx_file_statistics_project_problems", columnList = "project_id, open_problems DESC")
+})
+public class FileStatistics {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(name = "file_path", nullable = false, length = 255)
+    private String filePath;
+
+    private long lines;
+
+    @Column(name = "open_problems")
+    private long openProblems;
+
+    // Файл существует в рабочей директории
+    private boolean present;
+
+    // Хеш содержимого из манифеста анализа, по которому строки пересчитываются только у измененных файлов
+    @Column(length = 64)
+    private String contentHash;
+
+    // Constructors
+    public FileStatistics() {}
+
+    public FileStatistics(Long projectId, String filePath) {
+        this.projectId = projectId;
+        this.filePath = filePath;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+
+    public long getOpenProblems() {
+        return openProblems;
+    }
+
+    public void setOpenProblems(long openProblems) {
+        this.openProblems = openProblems;
+    }
+
+    public boolean isPresent() {
+        return present;
+    }
+
+    public void setPresent(boolean present) {
+        this.present = present;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+}
@@ -0,0 +1,37 @@
+package com.sca.model;
+
+import java.util.List;
+
+/**
+ * Страница проблем проекта. nextCursor передается в следующий запрос, null - страниц больше нет.
+ */
+public class ProblemPage {
+
+    private List<CodeProblem> problems;
+    private String nextCursor;
+
+    public ProblemPage(List<CodeProblem> problems, String nextCursor) {
+        this.problems = problems;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CodeProblem> getProblems() {
+        return problems;
+    }
+
+    public void setProblems(List<CodeProblem> problems) {
+        this.problems = problems;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,193 @@
+package com.sca.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Фильтры, сортировка и позиция страницы при чтении проблем проекта.
+ * Страницы читаются по ключу (keyset): следующая страница начинается строго после
+ * последней проблемы предыдущей, поэтому стоимость не растет с номером страницы.
+ */
+public class ProblemQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    public enum Sort {
+        // Сначала самые серьезные, внутри - по файлу и строке
+        SEVERITY,
+        // По файлу и строке
+        LOCATION
+    }
+
+    private Set<CodeProblem.ProblemSeverity> severities;
+    private Set<CodeProblem.ProblemType> types;
+    private String filePath;
+    private String ruleId;
+    private Boolean resolved = false;
+    private Sort sort = Sort.SEVERITY;
+    private String cursor;
+    private int limit = DEFAULT_LIMIT;
+
+    public Set<CodeProblem.ProblemSeverity> getSeverities() {
+        return severities;
+    }
+
+    public void setSeverities(Set<CodeProblem.ProblemSeverity> severities) {
+        this.severities = severities;
+    }
+
+    public Set<CodeProblem.ProblemType> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Set<CodeProblem.ProblemType> types) {
+        this.types = types;
+    }
+
+    /**
+     * Путь файла; значение, оканчивающееся на "/", выбирает все файлы каталога
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public void setFilePath(String filePath) {
+        this.filePath = filePath;
+    }
+
+    public String getRuleId() {
+        return ruleId;
+    }
+
+    public void setRuleId(String ruleId) {
+        this.ruleId = ruleId;
+    }
+
+    /**
+     * По умолчанию возвращаются только нерешенные проблемы, null - все
+     */
+    public Boolean getResolved() {
+        return resolved;
+    }
+
+    public void setResolved(Boolean resolved) {
+        this.resolved = resolved;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public void setSort(Sort sort) {
+        this.sort = sort != null ? sort : Sort.SEVERITY;
+    }
+
+    /**
+     * Значение nextCursor предыдущей страницы, null - первая страница
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Хеш фильтров запроса. Строится по именам значений, а не по hashCode перечислений,
+     * поэтому не меняется после перезапуска сервера.
+     */
+    String filterHash() {
+        String filters = (severities != null ? new TreeSet<>(severities.stream().map(Enum::name).toList()) : "-")
+                + "|" + (types != null ? new TreeSet<>(types.stream().map(Enum::name).toList()) : "-")
+                + "|" + filePath + "|" + ruleId + "|" + resolved;
+        return Integer.toHexString(filters.hashCode());
+    }
+
+    /**
+     * Ключ последней проблемы страницы в порядке сортировки
+     */
+    public static class Cursor {
+        private final Integer severityRank;
+        private final String filePath;
+        private final Integer startLine;
+        private final long id;
+
+        public Cursor(Integer severityRank, String filePath, Integer startLine, long id) {
+            this.severityRank = severityRank;
+            this.filePath = filePath;
+            this.startLine = startLine;
+            this.id = id;
+        }
+
+        public static Cursor of(CodeProblem problem) {
+            return new Cursor(problem.getSeverityRank(), problem.getFilePath(), problem.getStartLine(), problem.getId());
+        }
+
+        public Integer getSeverityRank() {
+            return severityRank;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public Integer getStartLine() {
+            return startLine;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        /**
+         * Непрозрачная для клиента строка: sort|filters|rank|line|id|path, путь последним - в нем может быть '|'.
+         * Сортировка и хеш фильтров запроса привязывают курсор к запросу, в котором он получен.
+         */
+        public String encode(ProblemQuery query) {
+            String value = query.getSort() + "|" + query.filterHash()
+                    + "|" + (severityRank != null ? severityRank : "") + "|" + (startLine != null ? startLine : "")
+                    + "|" + id + "|" + (filePath != null ? "/" + filePath : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Разбирает курсор; курсор другой сортировки или других фильтров отклоняется
+         */
+        public static Cursor decode(String cursor, ProblemQuery query) {
+            String[] parts;
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                parts = value.split("\\|", 6);
+                if (parts.length < 6) {
+                    throw new IllegalArgumentException(value);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid problems cursor");
+            }
+            if (!parts[0].equals(query.getSort().name()) || !parts[1].equals(query.filterHash())) {
+                throw new RuntimeException("Problems cursor does not match the sort or filters of the query");
+            }
+            try {
+                return new Cursor(
+                        parts[2].isEmpty() ? null : Integer.valueOf(parts[2]),
+                        parts[5].isEmpty() ? null : parts[5].substring(1),
+                        parts[3].isEmpty() ? null : Integer.valueOf(parts[3]),
+                        Long.parseLong(parts[4]));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid problems cursor");
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.sca.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Счетчики проекта для страницы статистики. Обновляются изменениями
+ * при сохранении результатов анализа и при изменении файлов, а не пересчетом.
+ */
+@Entity
+@Table(name = "project_statistics")
+public class ProjectStatistics {
+
+    @Id
+    @Column(name = "project_id")
+    private Long projectId;
+
+    private long totalFiles;
+
+    private long totalLines;
+
+    private long openProblems;
+
+    private long infoCount;
+
+    private long warningCount;
+
+    private long errorCount;
+
+    private long criticalCount;
+
+    private long bugCount;
+
+    private long vulnerabilityCount;
+
+    private long codeSmellCount;
+
+    private long securityHotspotCount;
+
+    // Счетчики еще не вычислены: изменения не применяются до полного пересчета
+    @Column(name = "rebuild_required")
+    private boolean rebuildRequired;
+
+    @Column(name = "last_analysis_at")
+    private LocalDateTime lastAnalysisAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Constructors
+    public ProjectStatistics() {}
+
+    public ProjectStatistics(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    /**
+     * Учесть появление (delta > 0) или решение (delta < 0) проблем
+     */
+    public void addProblems(CodeProblem.ProblemSeverity severity, CodeProblem.ProblemType type, long delta) {
+        openProblems += delta;
+        if (severity != null) {
+            switch (severity) {
+                case INFO -> infoCount += delta;
+                case WARNING -> warningCount += delta;
+                case ERROR -> errorCount += delta;
+                case CRITICAL -> criticalCount += delta;
+            }
+        }
+        if (type != null) {
+            switch (type) {
+                case BUG -> bugCount += delta;
+                case VULNERABILITY -> vulnerabilityCount += delta;
+                case CODE_SMELL -> codeSmellCount += delta;
+                case SECURITY_HOTSPOT -> securityHotspotCount += delta;
+            }
+        }
+    }
+
+    public void addFiles(long files, long lines) {
+        totalFiles += files;
+        totalLines += lines;
+    }
+
+    /**
+     * Обнулить счетчики перед полным пересчетом
+     */
+    public void reset() {
+        totalFiles = 0;
+        totalLines = 0;
+        openProblems = 0;
+        infoCount = 0;
+        warningCount = 0;
+        errorCount = 0;
+        criticalCount = 0;
+        bugCount = 0;
+        vulnerabilityCount = 0;
+        codeSmellCount = 0;
+        securityHotspotCount = 0;
+    }
+
+    // Getters and Setters
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    public void setProjectId(Long projectId) {
+        this.projectId = projectId;
+    }
+
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+
+    public void setTotalFiles(long totalFiles) {
+        this.totalFiles = totalFiles;
+    }
+
+    public long getTotalLines() {
+        return totalLines;
+    }
+
+    public void setTotalLines(long totalLines) {
+        this.totalLines = totalLines;
+    }
+
+    public long getOpenProblems() {
+        return openProblems;
+    }
+
+    public void setOpenProblems(long openProblems) {
+        this.openProblems = openProblems;
+    }
+
+    public long getInfoCount() {
+        return infoCount;
+    }
+
+    public void setInfoCount(long infoCount) {
+        this.infoCount = infoCount;
+    }
+
+    public long getWarningCount() {
+        return warningCount;
+    }
+
+    public void setWarningCount(long warningCount) {
+        this.warningCount = warningCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public void setErrorCount(long errorCount) {
+        this.errorCount = errorCount;
+    }
+
+    public long getCriticalCount() {
+        return criticalCount;
+    }
+
+    public void setCriticalCount(long criticalCount) {
+        this.criticalCount = criticalCount;
+    }
+
+    public long getBugCount() {
+        return bugCount;
+    }
+
+    public void setBugCount(long bugCount) {
+        this.bugCount = bugCount;
+    }
+
+    public long getVulnerabilityCount() {
+        return vulnerabilityCount;
+    }
+
+    public void setVulnerabilityCount(long vulnerabilityCount) {
+        this.vulnerabilityCount = vulnerabilityCount;
+    }
+
+    public long getCodeSmellCount() {
+        return codeSmellCount;
+    }
+
+    public void setCodeSmellCount(long codeSmellCount) {
+        this.codeSmellCount = codeSmellCount;
+    }
+
+    public long getSecurityHotspotCount() {
+        return securityHotspotCount;
+    }
+
+    public void setSecurityHotspotCount(long securityHotspotCount) {
+        this.securityHotspotCount = securityHotspotCount;
+    }
+
+    public boolean isRebuildRequired() {
+        return rebuildRequired;
+    }
+
+    public void setRebuildRequired(boolean rebuildRequired) {
+        this.rebuildRequired = rebuildRequired;
+    }
+
+    public LocalDateTime getLastAnalysisAt() {
+        return lastAnalysisAt;
+    }
+
+    public void setLastAnalysisAt(LocalDateTime lastAnalysisAt) {
+        this.lastAnalysisAt = lastAnalysisAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.sca.repository;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CodeProblemRepository extends JpaRepository<CodeProblem, Long>, CodeProblemRepositoryCustom {
+
+    /**
+     * Найти все проблемы проекта
+     */
+    List<CodeProblem> findByProject(Project project);
+
+    /**
+     * Найти нерешенные проблемы проекта
+     */
+    List<CodeProblem> findByProjectAndResolvedFalse(Project project);
+
+    /**
+     * Найти нерешенные проблемы проекта в указанных файлах
+     */
+    List<CodeProblem> findByProjectAndResolvedFalseAndFilePathIn(Project project, Collection<String> filePaths);
+
+    /**
+     * Отпечатки нерешенных проблем проекта
+     */
+    @Query("SELECT p.fingerprint FROM CodeProblem p WHERE p.project = :project AND p.resolved = false AND p.fingerprint IS NOT NULL")
+    List<String> findOpenFingerprints(@Param("project") Project project);
+
+    /**
+     * Число нерешенных проблем проекта по важности и типу
+     */
+    @Query("SELECT p.severity, p.type, COUNT(p) FROM CodeProblem p WHERE p.project = :project AND p.resolved = false "
+            + "GROUP BY p.severity, p.type")
+    List<Object[]> countOpenBySeverityAndType(@Param("project") Project project);
+
+    /**
+     * Число нерешенных проблем проекта по файлам
+     */
+    @Query("SELECT p.filePath, COUNT(p) FROM CodeProblem p WHERE p.project = :project AND p.resolved = false "
+            + "AND p.filePath IS NOT NULL GROUP BY p.filePath")
+    List<Object[]> countOpenByFile(@Param("project") Project project);
+}
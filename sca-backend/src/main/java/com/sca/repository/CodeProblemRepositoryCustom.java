@@ -0,0 +1,24 @@
+package com.sca.repository;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.model.ProblemQuery;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CodeProblemRepositoryCustom {
+
+    /**
+     * Сохранить проблемы пакетами по analysis.persistence.batch-size строк.
+     * После каждого пакета контекст персистентности очищается, поэтому память
+     * не растет с числом проблем. Должен вызываться внутри транзакции.
+     */
+    void insertInBatches(Collection<CodeProblem> problems);
+
+    /**
+     * Прочитать не больше limit проблем проекта, следующих за курсором в порядке сортировки запроса.
+     * Фильтры и сортировка выполняются в БД по индексам code_problems.
+     */
+    List<CodeProblem> findPage(Project project, ProblemQuery query, ProblemQuery.Cursor after, int limit);
+}
@@ -0,0 +1,180 @@
+package com.sca.repository;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.model.ProblemQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CodeProblemRepositoryImpl implements CodeProblemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${analysis.persistence.batch-size:1000}")
+    private int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CodeProblemRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional
+    public void insertInBatches(Collection<CodeProblem> problems) {
+        int pending = 0;
+        for (CodeProblem problem : problems) {
+            entityManager.persist(problem);
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CodeProblem> findPage(Project project, ProblemQuery query, ProblemQuery.Cursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT p FROM CodeProblem p WHERE p.project = :project");
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("project", project);
+
+        if (query.getResolved() != null) {
+            jpql.append(" AND p.resolved = :resolved");
+            parameters.put("resolved", query.getResolved());
+        }
+        if (query.getSeverities() != null && !query.getSeverities().isEmpty()) {
+            jpql.append(" AND p.severity IN :severities");
+            parameters.put("severities", query.getSeverities());
+        }
+        if (query.getTypes() != null && !query.getTypes().isEmpty()) {
+            jpql.append(" AND p.type IN :types");
+            parameters.put("types", query.getTypes());
+        }
+        if (query.getRuleId() != null && !query.getRuleId().isBlank()) {
+            jpql.append(" AND p.ruleId = :ruleId");
+            parameters.put("ruleId", query.getRuleId());
+        }
+        if (query.getFilePath() != null && !query.getFilePath().isBlank()) {
+            if (query.getFilePath().endsWith("/")) {
+                jpql.append(" AND p.filePath LIKE :filePath ESCAPE '\\'");
+                parameters.put("filePath", escapeLike(query.getFilePath()) + "%");
+            } else {
+                jpql.append(" AND p.filePath = :filePath");
+                parameters.put("filePath", query.getFilePath());
+            }
+        }
+
+        boolean bySeverity = query.getSort() == ProblemQuery.Sort.SEVERITY;
+        if (after != null) {
+            jpql.append(" AND (");
+            if (bySeverity) {
+                jpql.append("p.severityRank < :afterRank OR (p.severityRank = :afterRank AND ");
+                parameters.put("afterRank", after.getSeverityRank() != null ? after.getSeverityRank() : 0);
+            }
+            appendAfterLocation(jpql, parameters, after);
+            if (bySeverity) {
+                jpql.append(")");
+            }
+            jpql.append(")");
+        }
+
+        // NULLS LAST совпадает с порядком PostgreSQL по умолчанию - индекс используется для сортировки
+        jpql.append(" ORDER BY ");
+        if (bySeverity) {
+            jpql.append("p.severityRank DESC, ");
+        }
+        jpql.append("p.filePath ASC NULLS LAST, p.startLine ASC NULLS LAST, p.id ASC");
+
+        TypedQuery<CodeProblem> typedQuery = entityManager.createQuery(jpql.toString(), CodeProblem.class);
+        parameters.forEach(typedQuery::setParameter);
+        return typedQuery.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Условие "после (filePath, startLine, id)" с учетом того, что пустые значения идут последними
+     */
+    private static void appendAfterLocation(StringBuilder jpql, Map<String, Object> parameters, ProblemQuery.Cursor after) {
+        String afterLine;
+        if (after.getStartLine() != null) {
+            afterLine = "(p.startLine > :afterLine OR p.startLine IS NULL OR (p.startLine = :afterLine AND p.id > :afterId))";
+            parameters.put("afterLine", after.getStartLine());
+        } else {
+            afterLine = "(p.startLine IS NULL AND p.id > :afterId)";
+        }
+        parameters.put("afterId", after.getId());
+
+        if (after.getFilePath() != null) {
+            jpql.append("(p.filePath > :afterFile OR p.filePath IS NULL OR (p.filePath = :afterFile AND ")
+                    .append(afterLine).append("))");
+            parameters.put("afterFile", after.getFilePath());
+        } else {
+            jpql.append("(p.filePath IS NULL AND ").append(afterLine).append(")");
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Раньше id проблем генерировались через IDENTITY. Последовательность, созданная поверх
+     * существующей таблицы, начинается с 1 - сдвигаем её за максимальный id, никогда не уменьшая.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alignIdSequence() {
+        try {
+            if (!isPostgres()) {
+                return;
+            }
+            jdbcTemplate.queryForObject("SELECT setval('code_problems_seq', GREATEST("
+                    + "(SELECT COALESCE(MAX(id), 1) FROM code_problems), "
+                    + "(SELECT last_value FROM code_problems_seq)))", Long.class);
+        } catch (Exception e) {
+            System.err.println("Failed to align code_problems_seq: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Проблемы, сохраненные до появления severity_rank, получают его при старте
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSeverityRank() {
+        try {
+            int updated = 0;
+            for (CodeProblem.ProblemSeverity severity : CodeProblem.ProblemSeverity.values()) {
+                updated += jdbcTemplate.update("UPDATE code_problems SET severity_rank = ? "
+                        + "WHERE severity_rank IS NULL AND severity = ?", severity.getRank(), severity.name());
+            }
+            if (updated > 0) {
+                System.out.println("Backfilled severity_rank for " + updated + " problems");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to backfill severity_rank: " + e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() throws SQLException {
+        try (Connection connection = jdbcTemplate.getDataSource().getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+}
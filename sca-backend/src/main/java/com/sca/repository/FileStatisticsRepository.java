@@ -0,0 +1,44 @@
+package com.sca.repository;
+
+import com.sca.model.FileStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FileStatisticsRepository extends JpaRepository<FileStatistics, Long> {
+
+    /**
+     * Найти статистику всех файлов проекта
+     */
+    List<FileStatistics> findByProjectId(Long projectId);
+
+    /**
+     * Найти статистику указанных файлов проекта
+     */
+    List<FileStatistics> findByProjectIdAndFilePathIn(Long projectId, Collection<String> filePaths);
+
+    /**
+     * Найти статистику файла или всех файлов каталога
+     */
+    @Query("SELECT f FROM FileStatistics f WHERE f.projectId = :projectId "
+            + "AND (f.filePath = :path OR f.filePath LIKE CONCAT(:path, '/%'))")
+    List<FileStatistics> findUnderPath(@Param("projectId") Long projectId, @Param("path") String path);
+
+    /**
+     * Файлы с наибольшим числом нерешенных проблем
+     */
+    List<FileStatistics> findTop10ByProjectIdAndOpenProblemsGreaterThanOrderByOpenProblemsDesc(Long projectId, long openProblems);
+
+    /**
+     * Удалить статистику файлов проекта
+     */
+    @Modifying
+    @Query("DELETE FROM FileStatistics f WHERE f.projectId = :projectId")
+    int deleteByProjectId(@Param("projectId") Long projectId);
+}
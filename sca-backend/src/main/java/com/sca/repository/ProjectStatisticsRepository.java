@@ -0,0 +1,23 @@
+package com.sca.repository;
+
+import com.sca.model.ProjectStatistics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProjectStatisticsRepository extends JpaRepository<ProjectStatistics, Long>, ProjectStatisticsRepositoryCustom {
+
+    /**
+     * Найти статистику проекта с блокировкой строки до конца транзакции.
+     * Все изменения статистики проекта, включая статистику его файлов, выполняются под этой блокировкой.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ProjectStatistics s WHERE s.projectId = :projectId")
+    Optional<ProjectStatistics> findForUpdate(@Param("projectId") Long projectId);
+}
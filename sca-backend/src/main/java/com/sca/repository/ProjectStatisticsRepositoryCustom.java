@@ -0,0 +1,11 @@
+package com.sca.repository;
+
+public interface ProjectStatisticsRepositoryCustom {
+
+    /**
+     * Вставить строку статистики проекта, требующую пересчета, если ее еще нет.
+     * Выполняется в отдельной транзакции, чтобы строку сразу можно было заблокировать.
+     * При одновременной вставке другой транзакцией бросает DataIntegrityViolationException.
+     */
+    void insertIfAbsent(Long projectId);
+}
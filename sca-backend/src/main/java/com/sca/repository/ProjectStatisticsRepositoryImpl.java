@@ -0,0 +1,25 @@
+package com.sca.repository;
+
+import com.sca.model.ProjectStatistics;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+public class ProjectStatisticsRepositoryImpl implements ProjectStatisticsRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertIfAbsent(Long projectId) {
+        if (entityManager.find(ProjectStatistics.class, projectId) != null) {
+            return;
+        }
+        ProjectStatistics statistics = new ProjectStatistics(projectId);
+        statistics.setRebuildRequired(true);
+        entityManager.persist(statistics);
+        entityManager.flush();
+    }
+}
@@ -0,0 +1,233 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Пул заранее запущенных контейнеров для анализа, отдельный для каждого образа.
+ * Контейнер выдается в аренду, после возврата очищается и снова попадает в пул,
+ * поэтому стадия анализа не тратит время на создание и остановку контейнера.
+ */
+@Service
+public class AnalysisContainerPool {
+
+    private static final String[] RESET_COMMAND = {
+            "sh", "-c", "rm -rf /workspace/* /workspace/.[!.]* /workspace/..?* /tmp/* && mkdir -p /workspace"
+    };
+
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private AnalyzerImageRegistry imageRegistry;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private final Map<String, ImagePool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * Берет в аренду контейнер песочницы анализа со всеми инструментами. Ждет свободного места
+     * в пуле не дольше analysis.pool.lease-timeout-seconds.
+     */
+    public ContainerLease leaseSandbox() {
+        return lease(imageRegistry.getSandboxImage());
+    }
+
+    public ContainerLease lease(String image) {
+        ImagePool pool = getPool(image);
+        AnalysisProperties.Pool settings = analysisProperties.getPool();
+
+        try {
+            if (!pool.permits.tryAcquire(settings.getLeaseTimeoutSeconds(), TimeUnit.SECONDS)) {
+                throw new RuntimeException("No analysis container available for " + image);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for analysis container", e);
+        }
+
+        try {
+            PooledContainer container;
+            while ((container = pool.idle.pollFirst()) != null) {
+                if (dockerService.isContainerRunning(container.id)) {
+                    return new ContainerLease(pool, container.id);
+                }
+                destroy(container.id);
+            }
+            return new ContainerLease(pool, createContainer(image));
+        } catch (RuntimeException e) {
+            pool.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Периодическое обслуживание: удаляет лишние простаивающие контейнеры
+     * и догоняет пулы до min-idle для уже готовых образов
+     */
+    @Scheduled(fixedDelayString = "${analysis.pool.maintenance-interval-ms:30000}")
+    public void maintain() {
+        imageRegistry.findReadySandboxImage().ifPresent(this::getPool);
+        for (ImagePool pool : pools.values()) {
+            try {
+                evictIdle(pool);
+                fillToMinIdle(pool);
+            } catch (Exception e) {
+                System.err.println("Analysis container pool maintenance failed for " + pool.image + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Количество простаивающих контейнеров по образам
+     */
+    public Map<String, Integer> getIdleCounts() {
+        Map<String, Integer> counts = new ConcurrentHashMap<>();
+        pools.forEach((image, pool) -> counts.put(image, pool.idle.size()));
+        return counts;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ImagePool pool : pools.values()) {
+            PooledContainer container;
+            while ((container = pool.idle.pollFirst()) != null) {
+                destroy(container.id);
+            }
+        }
+    }
+
+    private ImagePool getPool(String image) {
+        return pools.computeIfAbsent(image, key -> new ImagePool(key, analysisProperties.getPool().getMaxSize()));
+    }
+
+    private void evictIdle(ImagePool pool) {
+        AnalysisProperties.Pool settings = analysisProperties.getPool();
+        long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(settings.getIdleTimeoutSeconds());
+        long now = System.currentTimeMillis();
+
+        List<PooledContainer> kept = new ArrayList<>();
+        PooledContainer container;
+        while ((container = pool.idle.pollFirst()) != null) {
+            boolean expired = now - container.returnedAt > idleTimeoutMillis
+                    && pool.idle.size() + kept.size() >= settings.getMinIdle();
+            if (expired || !dockerService.isContainerRunning(container.id)) {
+                destroy(container.id);
+            } else {
+                kept.add(container);
+            }
+        }
+        kept.forEach(pool.idle::offerLast);
+    }
+
+    private void fillToMinIdle(ImagePool pool) {
+        int leased = pool.maxSize - pool.permits.availablePermits();
+        int missing = Math.min(
+                analysisProperties.getPool().getMinIdle() - pool.idle.size(),
+                pool.maxSize - leased - pool.idle.size());
+        for (int i = 0; i < missing; i++) {
+            pool.idle.offerLast(new PooledContainer(createContainer(pool.image), System.currentTimeMillis()));
+        }
+    }
+
+    private String createContainer(String image) {
+        String name = "sca-pool-" + image.replaceAll("[^a-zA-Z0-9_.-]", "-") + "-"
+                + UUID.randomUUID().toString().substring(0, 8);
+        return dockerService.createAnalysisContainer(image, name,
+                "SCA_DAEMONS=" + (analysisProperties.getPool().isDaemons() ? "on" : "off"));
+    }
+
+    private void giveBack(ImagePool pool, String containerId, boolean broken) {
+        try {
+            if (!broken && dockerService.executeCommandSucceeds(containerId, RESET_COMMAND)) {
+                pool.idle.offerFirst(new PooledContainer(containerId, System.currentTimeMillis()));
+                return;
+            }
+            destroy(containerId);
+        } catch (Exception e) {
+            System.err.println("Failed to reset analysis container " + containerId + ": " + e.getMessage());
+            destroy(containerId);
+        } finally {
+            pool.permits.release();
+        }
+    }
+
+    private void destroy(String containerId) {
+        try {
+            dockerService.forceRemoveContainer(containerId);
+        } catch (Exception e) {
+            System.err.println("Failed to remove analysis container " + containerId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Арендованный контейнер. Возвращается в пул при закрытии.
+     */
+    public class ContainerLease implements AutoCloseable {
+        private final ImagePool pool;
+        private final String containerId;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private volatile boolean broken;
+
+        private ContainerLease(ImagePool pool, String containerId) {
+            this.pool = pool;
+            this.containerId = containerId;
+        }
+
+        public String getContainerId() {
+            return containerId;
+        }
+
+        /**
+         * Помечает контейнер как неисправный - при возврате он будет удален, а не переиспользован
+         */
+        public void invalidate() {
+            this.broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                giveBack(pool, containerId, broken);
+            }
+        }
+    }
+
+    private static class ImagePool {
+        private final String image;
+        private final int maxSize;
+        private final LinkedBlockingDeque<PooledContainer> idle = new LinkedBlockingDeque<>();
+        // Один permit на арендованный контейнер
+        private final Semaphore permits;
+
+        private ImagePool(String image, int maxSize) {
+            this.image = image;
+            this.maxSize = maxSize;
+            this.permits = new Semaphore(maxSize, true);
+        }
+    }
+
+    private static class PooledContainer {
+        private final String id;
+        private final long returnedAt;
+
+        private PooledContainer(String id, long returnedAt) {
+            this.id = id;
+            this.returnedAt = returnedAt;
+        }
+    }
+}
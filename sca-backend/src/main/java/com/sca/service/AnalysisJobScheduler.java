@@ -0,0 +1,314 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisJob;
+import com.sca.service.analysis.AnalysisJobEvent;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.ProblemDelta;
+import com.sca.service.analysis.StageResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Очередь заданий анализа.
+ * На каждый проект существует не больше одного незавершенного задания: повторный запрос
+ * присоединяется к нему, повышая приоритет и переключая на полный анализ, если это запрошено.
+ * Задания запускаются по приоритету, а при равном приоритете - в порядке постановки,
+ * с ограничением общего числа выполняемых заданий и числа заданий одного пользователя.
+ * Задание можно отменить как в очереди, так и во время выполнения.
+ * Анализ ветки - отдельное задание, объединяются только запросы той же пары веток.
+ */
+@Service
+public class AnalysisJobScheduler {
+
+    private static final Comparator<AnalysisJob> QUEUE_ORDER = Comparator
+            .comparing(AnalysisJob::getPriority)
+            .thenComparingLong(AnalysisJob::getSequence);
+
+    @Autowired
+    private CodeAnalysisService codeAnalysisService;
+
+    @Autowired
+    private ProjectService projectService;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private Executor analysisExecutor;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Все поля ниже защищены монитором this
+    private final TreeSet<AnalysisJob> queue = new TreeSet<>(QUEUE_ORDER);
+    private final Map<String, AnalysisJob> activeByKey = new HashMap<>();
+    private final Map<String, AnalysisJob> jobsById = new HashMap<>();
+    private final Map<String, Integer> runningByUser = new HashMap<>();
+    private final LinkedHashMap<String, AnalysisJob> finished = new LinkedHashMap<>();
+    private int running;
+
+    /**
+     * Ставит анализ проекта в очередь или присоединяет запрос к уже существующему заданию проекта
+     */
+    public AnalysisJob submit(Project project, String username, boolean incremental, AnalysisJob.Priority priority) {
+        return enqueue(project, username, incremental, priority, null, null);
+    }
+
+    /**
+     * Ставит в очередь анализ изменений headRef относительно baseRef (CodeAnalysisService.runBranchAnalysis)
+     */
+    public AnalysisJob submitBranchDiff(Project project, String username, String baseRef, String headRef,
+                                        AnalysisJob.Priority priority) {
+        return enqueue(project, username, true, priority, baseRef, headRef);
+    }
+
+    private AnalysisJob enqueue(Project project, String username, boolean incremental, AnalysisJob.Priority priority,
+                                String baseRef, String headRef) {
+        String key = AnalysisJob.coalesceKey(project.getId(), baseRef, headRef);
+        AnalysisJob job;
+        boolean created = false;
+        synchronized (this) {
+            job = activeByKey.get(key);
+            if (job != null) {
+                coalesce(job, username, incremental, priority);
+            } else {
+                if (queue.size() >= analysisProperties.getJobs().getMaxQueued()) {
+                    throw new RuntimeException("Analysis queue is full, try again later");
+                }
+                job = new AnalysisJob(sequence.incrementAndGet(), project, username, incremental, priority, baseRef, headRef);
+                queue.add(job);
+                activeByKey.put(key, job);
+                jobsById.put(job.getId(), job);
+                created = true;
+            }
+        }
+
+        if (created) {
+            System.out.println("Analysis job " + job.getId() + " queued for project " + project.getId()
+                    + " (" + priority + ", " + (job.isBranchDiff() ? baseRef + "..." + headRef
+                    : incremental ? "incremental" : "full") + ")");
+            eventPublisher.publishEvent(AnalysisJobEvent.of(job, AnalysisJobEvent.Type.QUEUED));
+        }
+        dispatch();
+        return job;
+    }
+
+    /**
+     * Задание по id: незавершенное или одно из недавно завершенных
+     */
+    public synchronized Optional<AnalysisJob> getJob(String jobId) {
+        AnalysisJob job = jobsById.get(jobId);
+        return Optional.ofNullable(job != null ? job : finished.get(jobId));
+    }
+
+    /**
+     * Подписывает пользователя на уведомления о задании
+     */
+    public Optional<AnalysisJob> subscribe(String jobId, String username) {
+        Optional<AnalysisJob> job = getJob(jobId);
+        job.ifPresent(found -> found.getSubscribers().add(username));
+        return job;
+    }
+
+    /**
+     * Позиция задания в очереди начиная с 0, -1 если задание уже запущено или завершено
+     */
+    public synchronized int getQueuePosition(AnalysisJob job) {
+        int position = 0;
+        for (AnalysisJob queued : queue) {
+            if (queued == job) {
+                return position;
+            }
+            position++;
+        }
+        return -1;
+    }
+
+    /**
+     * Отменяет задание: ожидающее снимается с очереди, у выполняющегося прерываются стадии
+     * и удаляется контейнер песочницы, результаты не сохраняются.
+     * Возвращает false, если задание не найдено или уже завершено.
+     */
+    public boolean cancel(String jobId, String username) {
+        AnalysisJob job;
+        boolean dequeued = false;
+        synchronized (this) {
+            job = jobsById.get(jobId);
+            if (job == null) {
+                return false;
+            }
+            if (job.getState() == AnalysisJob.State.QUEUED) {
+                queue.remove(job);
+                job.setError("Cancelled by " + username);
+                retire(job, AnalysisJob.State.CANCELLED);
+                dequeued = true;
+            }
+        }
+
+        if (dequeued) {
+            System.out.println("Analysis job " + job.getId() + " cancelled in queue by " + username);
+            job.getResult().completeExceptionally(new CancellationException(job.getError()));
+            eventPublisher.publishEvent(AnalysisJobEvent.of(job, AnalysisJobEvent.Type.CANCELLED));
+            return true;
+        }
+        // Задание завершится через finish, когда прерванные стадии освободят потоки
+        System.out.println("Analysis job " + job.getId() + " cancellation requested by " + username);
+        return job.getCancellation().cancel("Cancelled by " + username);
+    }
+
+    private void coalesce(AnalysisJob job, String username, boolean incremental, AnalysisJob.Priority priority) {
+        job.getSubscribers().add(username);
+        if (job.getState() != AnalysisJob.State.QUEUED) {
+            // Запущенное задание не меняется, подписчик получит его результат
+            return;
+        }
+        if (!incremental) {
+            job.setIncremental(false);
+        }
+        if (priority.compareTo(job.getPriority()) < 0) {
+            // Позиция в TreeSet зависит от приоритета - переставляем задание
+            queue.remove(job);
+            job.setPriority(priority);
+            queue.add(job);
+        }
+    }
+
+    /**
+     * Запускает ожидающие задания, пока есть свободные слоты
+     */
+    private void dispatch() {
+        List<AnalysisJob> toStart = new ArrayList<>();
+        synchronized (this) {
+            AnalysisProperties.Jobs limits = analysisProperties.getJobs();
+            Iterator<AnalysisJob> iterator = queue.iterator();
+            while (running < limits.getMaxRunning() && iterator.hasNext()) {
+                AnalysisJob job = iterator.next();
+                int userRunning = runningByUser.getOrDefault(job.getOwner(), 0);
+                if (userRunning >= limits.getMaxRunningPerUser()) {
+                    continue;
+                }
+                iterator.remove();
+                running++;
+                runningByUser.put(job.getOwner(), userRunning + 1);
+                job.setState(AnalysisJob.State.RUNNING);
+                job.setStartedAt(LocalDateTime.now());
+                toStart.add(job);
+            }
+        }
+        // Слот занят под блокировкой, а запуск (чтение БД, сканирование рабочей директории, git)
+        // идет в analysisExecutor - не в потоке запроса и не в потоке завершения предыдущего задания
+        for (AnalysisJob job : toStart) {
+            try {
+                analysisExecutor.execute(() -> start(job));
+            } catch (RejectedExecutionException e) {
+                finish(job, null, new RuntimeException("Analysis capacity exceeded", e));
+            }
+        }
+    }
+
+    private void start(AnalysisJob job) {
+        eventPublisher.publishEvent(AnalysisJobEvent.of(job, AnalysisJobEvent.Type.STARTED));
+        try {
+            Consumer<StageResult> stageListener = stage -> {
+                synchronized (job) {
+                    job.setCompletedStages(job.getCompletedStages() + 1);
+                }
+                eventPublisher.publishEvent(AnalysisJobEvent.stageCompleted(job, stage));
+            };
+            CompletableFuture<AnalysisReport> result;
+            if (job.isBranchDiff()) {
+                // Проблемы ветки не сохраняются: все найденные на измененных строках считаются новыми
+                result = codeAnalysisService.runBranchAnalysis(job.getProject(), job.getBaseRef(), job.getHeadRef(),
+                        stageListener, job.getCancellation()).thenApply(report -> {
+                    report.setDelta(new ProblemDelta(report.getNewProblems(), List.of(), 0));
+                    return report;
+                });
+            } else {
+                job.setKnownFingerprints(projectService.getOpenFingerprints(job.getProject()));
+                result = codeAnalysisService.runAnalysis(job.getProject(), job.isIncremental(), stageListener,
+                        job.getCancellation()).thenApply(report -> {
+                    ProblemDelta delta = projectService.saveAnalysisReport(job.getProject(), report);
+                    // Снимок - только после сохранения: иначе несохраненные файлы считались бы проанализированными
+                    codeAnalysisService.commitManifest(report);
+                    System.out.println("Analysis job " + job.getId() + " saved " + delta);
+                    return report;
+                });
+            }
+            result.whenComplete((report, throwable) -> finish(job, report, throwable));
+        } catch (Exception e) {
+            finish(job, null, e);
+        }
+    }
+
+    private void finish(AnalysisJob job, AnalysisReport report, Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        boolean cancelled = cause instanceof CancellationException;
+        if (cause != null) {
+            job.setError(cause.getMessage());
+        }
+        synchronized (this) {
+            running--;
+            runningByUser.computeIfPresent(job.getOwner(), (user, count) -> count > 1 ? count - 1 : null);
+            retire(job, cause == null ? AnalysisJob.State.COMPLETED
+                    : cancelled ? AnalysisJob.State.CANCELLED : AnalysisJob.State.FAILED);
+        }
+
+        if (cause == null) {
+            System.out.println("Analysis job " + job.getId() + " completed: " + report);
+            job.getResult().complete(report);
+            eventPublisher.publishEvent(AnalysisJobEvent.completed(job, report));
+        } else if (cancelled) {
+            System.out.println("Analysis job " + job.getId() + " cancelled: " + cause.getMessage());
+            job.getResult().completeExceptionally(cause);
+            eventPublisher.publishEvent(AnalysisJobEvent.of(job, AnalysisJobEvent.Type.CANCELLED));
+        } else {
+            System.err.println("Analysis job " + job.getId() + " failed: " + cause.getMessage());
+            job.getResult().completeExceptionally(cause);
+            eventPublisher.publishEvent(AnalysisJobEvent.of(job, AnalysisJobEvent.Type.FAILED));
+        }
+        dispatch();
+    }
+
+    /**
+     * Переносит задание в завершенные. Вызывается под монитором this.
+     */
+    private void retire(AnalysisJob job, AnalysisJob.State state) {
+        activeByKey.remove(job.getCoalesceKey(), job);
+        jobsById.remove(job.getId());
+        finished.put(job.getId(), job);
+        int retain = analysisProperties.getJobs().getRetainFinished();
+        Iterator<String> oldest = finished.keySet().iterator();
+        while (finished.size() > retain && oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+        job.setFinishedAt(LocalDateTime.now());
+        job.setState(state);
+    }
+}
@@ -0,0 +1,275 @@
+package com.sca.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.dependency.AdvisoryDatabase;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Хранит для каждого проекта снимок хешей файлов на момент последнего успешного анализа
+ * и по нему определяет, какие файлы нужно проанализировать заново.
+ */
+@Service
+public class AnalysisManifestService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdvisoryDatabase advisoryDatabase;
+
+    @Value("${filesystem.manifests.path:/tmp/sca-manifests}")
+    private String manifestsPath;
+
+    @Value("${filesystem.temp.path:/tmp/sca-temp}")
+    private String tempPath;
+
+    /**
+     * Строит область анализа. Если предыдущего снимка нет или incremental = false,
+     * анализируется весь проект.
+     */
+    public AnalysisScope createScope(Project project, boolean incremental) {
+        Path root = Paths.get(project.getWorkspacePath());
+        AnalysisManifest previous = load(project.getId());
+        AnalysisManifest current = scan(root, previous);
+        current.setAdvisoriesImportedAt(advisoryDatabase.getImportedAt());
+
+        if (!incremental || previous == null) {
+            return AnalysisScope.full(project, current);
+        }
+
+        Set<String> changed = current.changedSince(previous);
+        Set<String> deleted = current.deletedSince(previous);
+        Set<String> affected = new HashSet<>(changed);
+        affected.addAll(findDependents(root, current, changed, deleted));
+        if (current.getAdvisoriesImportedAt() != previous.getAdvisoriesImportedAt()) {
+            // После импорта новой базы уязвимостей неизмененные манифесты зависимостей проверяются заново
+            for (String path : current.getFiles().keySet()) {
+                if (SourceLanguage.isDependencyManifest(path)) {
+                    affected.add(path);
+                }
+            }
+        }
+
+        Path stagingRoot = stage(root, affected);
+        System.out.println("Incremental analysis of project " + project.getId() + ": " + changed.size()
+                + " changed, " + (affected.size() - changed.size()) + " dependent, " + deleted.size() + " deleted files");
+        return AnalysisScope.incremental(project, stagingRoot, affected, deleted, current);
+    }
+
+    /**
+     * Область анализа, ограниченная частью файлов исходной области.
+     * Файлы копируются во временный каталог, его нужно удалить через release.
+     */
+    public AnalysisScope narrow(AnalysisScope scope, Set<String> files) {
+        Path stagingRoot = stage(scope.getWorkspaceRoot(), files);
+        return AnalysisScope.incremental(scope.getProject(), stagingRoot, files, Set.of(), scope.getManifest());
+    }
+
+    /**
+     * Сохраняет снимок после успешного анализа
+     */
+    public void commit(AnalysisScope scope) {
+        Path manifestFile = getManifestFile(scope.getProject().getId());
+        try {
+            Files.createDirectories(manifestFile.getParent());
+            Path tmp = Files.createTempFile(manifestFile.getParent(), "manifest", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), scope.getManifest());
+            Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save analysis manifest for project " + scope.getProject().getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет временный каталог с копиями файлов инкрементального анализа
+     */
+    public void release(AnalysisScope scope) {
+        if (scope.isIncremental()) {
+            deleteRecursively(scope.getSourceRoot().getParent());
+        }
+    }
+
+    /**
+     * Удаляет снимок, следующий анализ будет полным
+     */
+    public void invalidate(Long projectId) {
+        try {
+            Files.deleteIfExists(getManifestFile(projectId));
+        } catch (IOException e) {
+            System.err.println("Failed to delete analysis manifest for project " + projectId + ": " + e.getMessage());
+        }
+    }
+
+    private AnalysisManifest load(Long projectId) {
+        Path manifestFile = getManifestFile(projectId);
+        if (!Files.isRegularFile(manifestFile)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(manifestFile.toFile(), AnalysisManifest.class);
+        } catch (IOException e) {
+            System.err.println("Corrupted analysis manifest " + manifestFile + ", running full analysis: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Обходит рабочую директорию. Хеш пересчитывается только для файлов,
+     * у которых изменились размер или время модификации.
+     */
+    AnalysisManifest scan(Path root, AnalysisManifest previous) {
+        Map<String, AnalysisManifest.Entry> previousFiles = previous != null ? previous.getFiles() : Map.of();
+        Map<String, AnalysisManifest.Entry> files = new HashMap<>();
+
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && AnalysisScope.IGNORED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (!attrs.isRegularFile()) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String relativePath = root.relativize(file).toString().replace('\\', '/');
+                    long size = attrs.size();
+                    long modified = attrs.lastModifiedTime().toMillis();
+
+                    AnalysisManifest.Entry old = previousFiles.get(relativePath);
+                    if (old != null && old.getSize() == size && old.getModified() == modified) {
+                        files.put(relativePath, old);
+                    } else {
+                        files.put(relativePath, new AnalysisManifest.Entry(hash(file), size, modified));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan workspace " + root, e);
+        }
+
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(files);
+        return manifest;
+    }
+
+    /**
+     * Java файлы, которые упоминают классы из измененных или удаленных файлов.
+     * Их результаты у компилирующих анализаторов могут измениться, поэтому они анализируются повторно.
+     */
+    private Set<String> findDependents(Path root, AnalysisManifest manifest, Set<String> changed, Set<String> deleted) {
+        Set<String> typeNames = new HashSet<>();
+        for (String path : changed) {
+            addJavaTypeName(path, typeNames);
+        }
+        for (String path : deleted) {
+            addJavaTypeName(path, typeNames);
+        }
+        if (typeNames.isEmpty()) {
+            return Set.of();
+        }
+
+        Pattern reference = Pattern.compile("\\b(" + String.join("|", typeNames) + ")\\b");
+        Set<String> dependents = new HashSet<>();
+        for (String path : manifest.getFiles().keySet()) {
+            if (!path.endsWith(".java") || changed.contains(path)) {
+                continue;
+            }
+            try {
+                String content = Files.readString(root.resolve(path), StandardCharsets.UTF_8);
+                if (reference.matcher(content).find()) {
+                    dependents.add(path);
+                }
+            } catch (IOException e) {
+                // Файл с нечитаемым содержимым просто не считается зависимым
+            }
+        }
+        return dependents;
+    }
+
+    private static void addJavaTypeName(String path, Set<String> typeNames) {
+        if (path.endsWith(".java")) {
+            String fileName = path.substring(path.lastIndexOf('/') + 1);
+            typeNames.add(Pattern.quote(fileName.substring(0, fileName.length() - ".java".length())));
+        }
+    }
+
+    /**
+     * Копирует затронутые файлы во временный каталог с тем же именем, что и у рабочей директории,
+     * чтобы пути в отчетах инструментов совпадали с путями полного анализа
+     */
+    private Path stage(Path root, Set<String> files) {
+        try {
+            Files.createDirectories(Paths.get(tempPath));
+            Path stagingRoot = Files.createTempDirectory(Paths.get(tempPath), "incremental").resolve(root.getFileName());
+            Files.createDirectories(stagingRoot);
+            for (String file : files) {
+                Path target = stagingRoot.resolve(file);
+                Files.createDirectories(target.getParent());
+                Files.copy(root.resolve(file), target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return stagingRoot;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stage changed files", e);
+        }
+    }
+
+    private Path getManifestFile(Long projectId) {
+        return Paths.get(manifestsPath, "project-" + projectId + ".json");
+    }
+
+    private static String hash(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + dir + ": " + e.getMessage());
+        }
+    }
+}
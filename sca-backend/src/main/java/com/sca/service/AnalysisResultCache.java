@@ -0,0 +1,355 @@
+package com.sca.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кэш результатов анализаторов в Redis. Ключ - хеш содержимого файла, инструмент
+ * и версия инструмента вместе с набором правил, поэтому результат переиспользуется
+ * для неизмененного файла в любом проекте и ветке.
+ * Записи живут analysis.cache.ttl-hours, а их число ограничено analysis.cache.max-entries:
+ * индекс в sorted set хранит время последнего обращения, и при переполнении удаляются самые старые записи.
+ * Недоступность Redis не ломает анализ - все файлы считаются промахами.
+ */
+@Service
+public class AnalysisResultCache {
+
+    private static final TypeReference<List<CachedProblem>> CACHED_PROBLEMS = new TypeReference<>() {};
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return analysisProperties.getCache().isEnabled();
+    }
+
+    /**
+     * Ищет в кэше результаты для файлов. Возвращает найденные проблемы по относительному пути файла;
+     * файл без проблем присутствует в результате с пустым списком.
+     */
+    public Map<String, List<CodeProblem>> lookup(AnalyzerTool tool, String configVersion,
+                                                 AnalysisScope scope, Collection<String> files) {
+        Map<String, List<CodeProblem>> hits = new HashMap<>();
+        if (files.isEmpty()) {
+            return hits;
+        }
+
+        Map<String, String> keys = keysFor(tool, configVersion, scope.getManifest(), files);
+        List<String> paths = new ArrayList<>(keys.keySet());
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(new ArrayList<>(keys.values()));
+        } catch (DataAccessException e) {
+            System.err.println("Analysis cache unavailable: " + e.getMessage());
+            count(tool, "miss", files.size());
+            return hits;
+        }
+
+        List<String> hitKeys = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String value = values != null ? values.get(i) : null;
+            if (value == null) {
+                continue;
+            }
+            try {
+                hits.put(paths.get(i), toProblems(objectMapper.readValue(value, CACHED_PROBLEMS), scope.getProject(), paths.get(i)));
+                hitKeys.add(keys.get(paths.get(i)));
+            } catch (JsonProcessingException e) {
+                // Поврежденная запись считается промахом и будет перезаписана
+            }
+        }
+
+        touch(hitKeys);
+        count(tool, "hit", hits.size());
+        count(tool, "miss", files.size() - hits.size());
+        return hits;
+    }
+
+    /**
+     * Сохраняет результаты анализа файлов. Для каждого файла из files записывается
+     * список его проблем, в том числе пустой.
+     */
+    public void store(AnalyzerTool tool, String configVersion, AnalysisScope scope,
+                      Collection<String> files, List<CodeProblem> problems) {
+        if (files.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<CachedProblem>> byFile = new HashMap<>();
+        for (String file : files) {
+            byFile.put(file, new ArrayList<>());
+        }
+        for (CodeProblem problem : problems) {
+            List<CachedProblem> fileProblems = byFile.get(problem.getFilePath());
+            if (fileProblems != null) {
+                fileProblems.add(CachedProblem.from(problem));
+            }
+        }
+
+        AnalysisProperties.Cache cache = analysisProperties.getCache();
+        Duration ttl = Duration.ofHours(cache.getTtlHours());
+        Map<String, String> keys = keysFor(tool, configVersion, scope.getManifest(), byFile.keySet());
+        try {
+            Map<String, String> values = new HashMap<>();
+            for (Map.Entry<String, String> key : keys.entrySet()) {
+                values.put(key.getValue(), objectMapper.writeValueAsString(byFile.get(key.getKey())));
+            }
+            // Все записи отправляются одним пакетом команд
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (Map.Entry<String, String> value : values.entrySet()) {
+                    stringConnection.setEx(value.getKey(), ttl.getSeconds(), value.getValue());
+                }
+                return null;
+            });
+            touch(keys.values());
+            evict(cache);
+        } catch (DataAccessException | JsonProcessingException e) {
+            System.err.println("Failed to store analysis results in cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Обновляет время последнего обращения к записям
+     */
+    private void touch(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        double now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        for (String key : keys) {
+            tuples.add(ZSetOperations.TypedTuple.of(key, now));
+        }
+        try {
+            redisTemplate.opsForZSet().add(getIndexKey(), tuples);
+        } catch (DataAccessException e) {
+            System.err.println("Failed to update analysis cache index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет из индекса истекшие записи и вытесняет самые старые, если записей больше max-entries
+     */
+    private void evict(AnalysisProperties.Cache cache) {
+        String indexKey = getIndexKey();
+        long expiredBefore = System.currentTimeMillis() - Duration.ofHours(cache.getTtlHours()).toMillis();
+        redisTemplate.opsForZSet().removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, expiredBefore);
+
+        Long size = redisTemplate.opsForZSet().zCard(indexKey);
+        long overflow = size != null ? size - cache.getMaxEntries() : 0;
+        if (overflow <= 0) {
+            return;
+        }
+        Set<String> oldest = redisTemplate.opsForZSet().range(indexKey, 0, overflow - 1);
+        if (oldest != null && !oldest.isEmpty()) {
+            redisTemplate.delete(oldest);
+            redisTemplate.opsForZSet().remove(indexKey, oldest.toArray());
+        }
+    }
+
+    private Map<String, String> keysFor(AnalyzerTool tool, String configVersion,
+                                        AnalysisManifest manifest, Collection<String> files) {
+        String prefix = analysisProperties.getCache().getKeyPrefix() + ":" + tool.getKey() + ":" + shortHash(configVersion) + ":";
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String file : files) {
+            AnalysisManifest.Entry entry = manifest.getFiles().get(file);
+            if (entry != null) {
+                keys.put(file, prefix + entry.getHash());
+            }
+        }
+        return keys;
+    }
+
+    private String getIndexKey() {
+        return analysisProperties.getCache().getKeyPrefix() + ":index";
+    }
+
+    private void count(AnalyzerTool tool, String result, long amount) {
+        if (amount <= 0) {
+            return;
+        }
+        counters.computeIfAbsent(tool.getKey() + ":" + result, key -> Counter.builder("sca.analysis.cache")
+                .description("Analysis result cache lookups per file")
+                .tag("analyzer", tool.getKey())
+                .tag("result", result)
+                .register(meterRegistry))
+                .increment(amount);
+    }
+
+    private static List<CodeProblem> toProblems(List<CachedProblem> cached, Project project, String filePath) {
+        List<CodeProblem> problems = new ArrayList<>();
+        for (CachedProblem entry : cached) {
+            problems.add(entry.toProblem(project, filePath));
+        }
+        return problems;
+    }
+
+    private static String shortHash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Проблема без привязки к проекту и пути - один и тот же файл может лежать в разных проектах
+     */
+    public static class CachedProblem {
+        private String ruleId;
+        private String description;
+        private String category;
+        private CodeProblem.ProblemSeverity severity;
+        private CodeProblem.ProblemType type;
+        private Integer startLine;
+        private Integer endLine;
+        private Integer startColumn;
+        private Integer endColumn;
+
+        static CachedProblem from(CodeProblem problem) {
+            CachedProblem cached = new CachedProblem();
+            cached.setRuleId(problem.getRuleId());
+            cached.setDescription(problem.getDescription());
+            cached.setCategory(problem.getCategory());
+            cached.setSeverity(problem.getSeverity());
+            cached.setType(problem.getType());
+            cached.setStartLine(problem.getStartLine());
+            cached.setEndLine(problem.getEndLine());
+            cached.setStartColumn(problem.getStartColumn());
+            cached.setEndColumn(problem.getEndColumn());
+            return cached;
+        }
+
+        CodeProblem toProblem(Project project, String filePath) {
+            CodeProblem problem = new CodeProblem();
+            problem.setProject(project);
+            problem.setFilePath(filePath);
+            problem.setRuleId(ruleId);
+            problem.setDescription(description);
+            problem.setCategory(category);
+            problem.setSeverity(severity);
+            problem.setType(type);
+            problem.setStartLine(startLine);
+            problem.setEndLine(endLine);
+            problem.setStartColumn(startColumn);
+            problem.setEndColumn(endColumn);
+            return problem;
+        }
+
+        public String getRuleId() {
+            return ruleId;
+        }
+
+        public void setRuleId(String ruleId) {
+            this.ruleId = ruleId;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public void setDescription(String description) {
+            this.description = description;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public void setCategory(String category) {
+            this.category = category;
+        }
+
+        public CodeProblem.ProblemSeverity getSeverity() {
+            return severity;
+        }
+
+        public void setSeverity(CodeProblem.ProblemSeverity severity) {
+            this.severity = severity;
+        }
+
+        public CodeProblem.ProblemType getType() {
+            return type;
+        }
+
+        public void setType(CodeProblem.ProblemType type) {
+            this.type = type;
+        }
+
+        public Integer getStartLine() {
+            return startLine;
+        }
+
+        public void setStartLine(Integer startLine) {
+            this.startLine = startLine;
+        }
+
+        public Integer getEndLine() {
+            return endLine;
+        }
+
+        public void setEndLine(Integer endLine) {
+            this.endLine = endLine;
+        }
+
+        public Integer getStartColumn() {
+            return startColumn;
+        }
+
+        public void setStartColumn(Integer startColumn) {
+            this.startColumn = startColumn;
+        }
+
+        public Integer getEndColumn() {
+            return endColumn;
+        }
+
+        public void setEndColumn(Integer endColumn) {
+            this.endColumn = endColumn;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.sca.service;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.report.XmlReportParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Песочница одного запуска анализа: один контейнер со всеми инструментами и одна загрузка проекта.
+ * Контейнер берется из пула при первом обращении стадии, поэтому запуск без контейнерных
+ * стадий песочницу не создает. Стадии выполняют команды в контейнере параллельно,
+ * каждая пишет свой отчет в /tmp. После закрытия контейнер очищается и возвращается в пул.
+ * Если команда в песочнице не завершилась или была прервана, ее процесс остается в контейнере,
+ * поэтому такой контейнер при закрытии удаляется; при отмене запуска - сразу (abort).
+ */
+public class AnalysisSession implements AutoCloseable {
+
+    private static final String WORKSPACE = "/workspace";
+    // Клиент демона анализатора (AnalyzerDaemon): bash соединяется с портом через /dev/tcp,
+    // отправляет строку запроса и печатает строку ответа; JVM для запроса не запускается
+    private static final String DAEMON_CLIENT =
+            "exec 3<>/dev/tcp/127.0.0.1/$1 2>/dev/null || { echo UNAVAILABLE; exit 0; }; "
+                    + "printf '%s\\n' \"$2\" >&3; IFS= read -r status <&3; echo \"$status\"";
+
+    private final AnalysisContainerPool containerPool;
+    private final DockerService dockerService;
+    private final Path uploadRoot;
+    private final Duration commandTimeout;
+    // Время этапов в порядке завершения: sandbox.provision, sandbox.upload, <стадия>.run, ...
+    private final Map<String, Long> phaseTimings = new LinkedHashMap<>();
+
+    private volatile AnalysisContainerPool.ContainerLease lease;
+    private boolean closed;
+    private volatile boolean broken;
+    private volatile boolean aborted;
+
+    /**
+     * uploadRoot - каталог, который загружается в контейнер: рабочая директория проекта
+     * или копия измененных файлов с той же структурой; null - исходники стадиям не нужны.
+     * commandTimeout - предельное время одной команды в песочнице.
+     */
+    public AnalysisSession(AnalysisContainerPool containerPool, DockerService dockerService,
+                           Path uploadRoot, Duration commandTimeout) {
+        this.containerPool = containerPool;
+        this.dockerService = dockerService;
+        this.uploadRoot = uploadRoot;
+        this.commandTimeout = commandTimeout;
+    }
+
+    /**
+     * Каталог проекта в контейнере. Загруженный каталог попадает в /workspace под своим именем.
+     */
+    public String getProjectRoot() {
+        if (uploadRoot == null) {
+            throw new IllegalStateException("Project sources are not uploaded to the analysis session");
+        }
+        return WORKSPACE + "/" + uploadRoot.getFileName();
+    }
+
+    /**
+     * Контейнер песочницы. Первый вызов арендует контейнер и загружает проект,
+     * параллельные стадии ждут окончания загрузки.
+     */
+    public synchronized String getContainerId() {
+        if (closed || aborted) {
+            throw new IllegalStateException("Analysis session is closed");
+        }
+        if (lease == null) {
+            long startedAt = System.nanoTime();
+            AnalysisContainerPool.ContainerLease acquired = containerPool.leaseSandbox();
+            recordPhase("sandbox.provision", startedAt);
+            try {
+                if (uploadRoot != null) {
+                    startedAt = System.nanoTime();
+                    dockerService.copyToContainer(acquired.getContainerId(), uploadRoot.toString(), WORKSPACE);
+                    recordPhase("sandbox.upload", startedAt);
+                }
+            } catch (RuntimeException e) {
+                acquired.invalidate();
+                acquired.close();
+                throw e;
+            }
+            lease = acquired;
+            if (aborted) {
+                // Запуск отменили во время загрузки
+                discard(acquired);
+                throw new IllegalStateException("Analysis session is aborted");
+            }
+        }
+        return lease.getContainerId();
+    }
+
+    /**
+     * Выполняет команду в песочнице, время учитывается как этап phase
+     */
+    public String execute(String phase, String... command) {
+        String containerId = getContainerId();
+        long startedAt = System.nanoTime();
+        try {
+            return dockerService.executeCommand(containerId, commandTimeout, command);
+        } catch (RuntimeException e) {
+            // Команда могла остаться работать в контейнере
+            invalidate();
+            throw e;
+        } finally {
+            recordPhase(phase, startedAt);
+        }
+    }
+
+    /**
+     * Выполняет запрос в демоне анализатора песочницы, время учитывается как этап phase.
+     * Поля запроса передаются через табуляцию. Возвращает false, если демон не запущен,
+     * не ответил или запрос нельзя передать - тогда инструмент запускается командой.
+     * Ошибка инструмента в демоне выбрасывается как RuntimeException.
+     */
+    public boolean executeInDaemon(String phase, int port, List<String> request) {
+        for (String field : request) {
+            if (field.indexOf('\t') >= 0 || field.indexOf('\n') >= 0) {
+                return false;
+            }
+        }
+        String response = execute(phase, "bash", "-c", DAEMON_CLIENT, "analyzer-daemon",
+                String.valueOf(port), String.join("\t", request)).trim();
+        if (response.startsWith("OK")) {
+            return true;
+        }
+        if (response.startsWith("ERROR")) {
+            throw new RuntimeException("Analyzer daemon failed: " + response.substring("ERROR".length()).trim());
+        }
+        System.err.println("Analyzer daemon on port " + port + " is not available, running the tool command");
+        return false;
+    }
+
+    /**
+     * Загружает в песочницу дополнительный каталог, например собранные классы.
+     * Каталог попадает в containerPath под своим именем.
+     */
+    public void upload(String phase, Path hostPath, String containerPath) {
+        String containerId = getContainerId();
+        long startedAt = System.nanoTime();
+        try {
+            dockerService.copyToContainer(containerId, hostPath.toString(), containerPath);
+        } finally {
+            recordPhase(phase, startedAt);
+        }
+    }
+
+    /**
+     * Учитывает этап, выполненный вне песочницы, например компиляцию в JVM бэкенда
+     */
+    public synchronized void addPhase(String phase, long durationMillis) {
+        phaseTimings.merge(phase, durationMillis, Long::sum);
+    }
+
+    /**
+     * Потоково читает XML отчет инструмента из песочницы
+     */
+    public void readReport(String phase, String reportPath, XmlReportParser parser,
+                           AnalysisScope scope, Consumer<CodeProblem> consumer) throws IOException {
+        String containerId = getContainerId();
+        long startedAt = System.nanoTime();
+        try (InputStream report = dockerService.openFileFromContainer(containerId, reportPath)) {
+            parser.parse(report, scope, consumer);
+        } finally {
+            recordPhase(phase, startedAt);
+        }
+    }
+
+    /**
+     * Время этапов песочницы в миллисекундах
+     */
+    public synchronized Map<String, Long> getPhaseTimings() {
+        return new LinkedHashMap<>(phaseTimings);
+    }
+
+    /**
+     * Помечает контейнер как непригодный для повторного использования:
+     * при закрытии он будет удален, а не возвращен в пул
+     */
+    public void invalidate() {
+        broken = true;
+    }
+
+    /**
+     * Отмена запуска: контейнер удаляется сразу вместе с выполняющимися в нем командами,
+     * ожидающие их стадии получают ошибку. Не ждет завершения загрузки проекта.
+     */
+    public void abort() {
+        aborted = true;
+        AnalysisContainerPool.ContainerLease current = lease;
+        if (current != null) {
+            discard(current);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (lease != null) {
+            long startedAt = System.nanoTime();
+            if (broken || aborted) {
+                lease.invalidate();
+            }
+            lease.close();
+            recordPhase("sandbox.teardown", startedAt);
+        }
+    }
+
+    private static void discard(AnalysisContainerPool.ContainerLease lease) {
+        lease.invalidate();
+        lease.close();
+    }
+
+    private void recordPhase(String phase, long startedAt) {
+        addPhase(phase, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+}
@@ -0,0 +1,214 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.service.analysis.AnalyzerTool;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Реестр образа песочницы анализа. Все инструменты устанавливаются в один образ один раз,
+ * тег образа содержит хеш Dockerfile и версий инструментов, поэтому образ пересобирается
+ * только при смене версии или рецепта сборки.
+ */
+@Service
+public class AnalyzerImageRegistry {
+
+    static final String SANDBOX_IMAGE = "sca-analyzer-sandbox";
+    private static final String SANDBOX_DOCKERFILE = "docker/analyzers/sandbox.Dockerfile";
+    // Файлы контекста сборки, которые копирует Dockerfile
+    private static final List<String> SANDBOX_CONTEXT = List.of(
+            "docker/analyzers/daemon/AnalyzerDaemon.java",
+            "docker/analyzers/daemon/start-daemons.sh");
+
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private final AtomicReference<CompletableFuture<String>> sandboxImage = new AtomicReference<>();
+
+    /**
+     * Сборка идет на отдельном потоке: стадии анализа ждут образ на analysisExecutor,
+     * и сборка в том же пуле могла бы встать в очередь за ними.
+     */
+    private final ExecutorService buildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "analyzer-image-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdownNow();
+    }
+
+    /**
+     * Подготавливает образ песочницы при старте приложения
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareImagesOnStartup() {
+        if (!analysisProperties.getImages().isPrepareOnStartup()) {
+            return;
+        }
+        prepare().exceptionally(throwable -> {
+            System.err.println("Failed to prepare analysis sandbox image: " + throwable.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Возвращает тег готового образа песочницы, при необходимости дожидаясь его сборки
+     */
+    public String getSandboxImage() {
+        try {
+            return prepare().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while preparing analysis sandbox image", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Analysis sandbox image is not available", e.getCause());
+        }
+    }
+
+    /**
+     * Возвращает тег образа песочницы, если он уже подготовлен, не запуская сборку
+     */
+    public Optional<String> findReadySandboxImage() {
+        CompletableFuture<String> image = sandboxImage.get();
+        if (image == null || !image.isDone() || image.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.of(image.join());
+    }
+
+    /**
+     * Запускает подготовку образа ровно один раз. Неудачная подготовка
+     * не кэшируется - следующий запрос попробует снова.
+     */
+    private CompletableFuture<String> prepare() {
+        return sandboxImage.updateAndGet(existing -> {
+            if (existing != null && !existing.isCompletedExceptionally()) {
+                return existing;
+            }
+            return CompletableFuture.supplyAsync(this::ensureImage, buildExecutor);
+        });
+    }
+
+    private String ensureImage() {
+        String dockerfile = readResource(SANDBOX_DOCKERFILE);
+        Map<String, String> context = new TreeMap<>();
+        for (String resource : SANDBOX_CONTEXT) {
+            context.put(resource.substring(resource.lastIndexOf('/') + 1), readResource(resource));
+        }
+        Map<String, String> buildArgs = new TreeMap<>();
+        for (AnalyzerTool tool : AnalyzerTool.values()) {
+            buildArgs.put(tool.getBuildArg(), getVersion(tool));
+        }
+        String tag = SANDBOX_IMAGE + ":" + shortHash(dockerfile + context + buildArgs);
+
+        if (dockerService.imageExists(tag)) {
+            return tag;
+        }
+
+        Path tarball = findTarball();
+        if (tarball != null) {
+            System.out.println("Loading analysis sandbox image " + tag + " from " + tarball);
+            dockerService.loadImage(tarball);
+            // Образ под другим тегом (например, latest) собран с неизвестными версиями - не используем его
+            if (dockerService.imageExists(tag)) {
+                return tag;
+            }
+            System.err.println("Tarball " + tarball + " does not contain " + tag + ", building instead");
+        }
+
+        System.out.println("Building analysis sandbox image " + tag + " with " + buildArgs);
+        long startedAt = System.currentTimeMillis();
+        Path contextDir = null;
+        try {
+            contextDir = Files.createTempDirectory("sca-image-sandbox");
+            Files.writeString(contextDir.resolve("Dockerfile"), dockerfile);
+            for (Map.Entry<String, String> file : context.entrySet()) {
+                Files.writeString(contextDir.resolve(file.getKey()), file.getValue());
+            }
+            dockerService.buildImage(contextDir.toFile(), tag, buildArgs);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare build context for " + tag, e);
+        } finally {
+            deleteQuietly(contextDir);
+        }
+        System.out.println("Analysis sandbox image " + tag + " built in " + (System.currentTimeMillis() - startedAt) + " ms");
+        return tag;
+    }
+
+    /**
+     * Версия инструмента из analysis.images.versions или версия по умолчанию
+     */
+    public String getVersion(AnalyzerTool tool) {
+        return analysisProperties.getImages().getVersions().getOrDefault(tool.getKey(), tool.getDefaultVersion());
+    }
+
+    /**
+     * Ищет tar архив образа sca-analyzer-sandbox.tar в analysis.images.tarball-dir.
+     * Архив подходит, только если содержит образ под текущим тегом с хешем.
+     */
+    private Path findTarball() {
+        String tarballDir = analysisProperties.getImages().getTarballDir();
+        if (tarballDir == null || tarballDir.isBlank()) {
+            return null;
+        }
+        Path tarball = Paths.get(tarballDir, SANDBOX_IMAGE + ".tar");
+        return Files.isRegularFile(tarball) ? tarball : null;
+    }
+
+    private static String readResource(String resource) {
+        try (InputStream inputStream = new ClassPathResource(resource).getInputStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Image build file not found: " + resource, e);
+        }
+    }
+
+    private static String shortHash(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.sca.service;
+
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.BranchDiff;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Изменения ветки для анализа ветки: git diff между общим предком base и head.
+ * Измененные файлы берутся из коммита head, а не из рабочей директории,
+ * поэтому ветку не нужно переключать и незакоммиченные правки не влияют на результат.
+ */
+@Service
+public class BranchDiffService {
+
+    @Autowired
+    private AnalysisManifestService manifestService;
+
+    @Value("${filesystem.temp.path:/tmp/sca-temp}")
+    private String tempPath;
+
+    /**
+     * Файлы и строки, измененные в head с момента ответвления от base
+     */
+    public BranchDiff diff(Project project, String baseRef, String headRef) {
+        File root = new File(project.getWorkspacePath());
+        if (!new File(root, ".git").exists()) {
+            throw new RuntimeException("Project is not a Git repository");
+        }
+        String headCommit = resolveCommit(root, headRef);
+        String mergeBase = git(root, "merge-base", resolveCommit(root, baseRef), headCommit).trim();
+        String diff = git(root, "-c", "core.quotepath=off", "diff", "--no-color", "--no-ext-diff",
+                "--unified=0", "-M", mergeBase, headCommit);
+        return BranchDiff.parse(baseRef, headRef, mergeBase, headCommit, diff);
+    }
+
+    /**
+     * Область анализа из измененных файлов в состоянии коммита head.
+     * Файлы выгружаются во временный каталог, его нужно удалить через AnalysisManifestService.release.
+     */
+    public AnalysisScope createScope(Project project, BranchDiff diff) {
+        Path root = Paths.get(project.getWorkspacePath());
+        Set<String> files = new LinkedHashSet<>();
+        for (String file : diff.getChangedFiles()) {
+            if (!isIgnored(file)) {
+                files.add(file);
+            }
+        }
+
+        Path stagingRoot;
+        try {
+            Files.createDirectories(Paths.get(tempPath));
+            // Каталог с тем же именем, что у рабочей директории: пути в отчетах совпадают с полным анализом
+            stagingRoot = Files.createTempDirectory(Paths.get(tempPath), "branch").resolve(root.getFileName());
+            Files.createDirectories(stagingRoot);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stage branch files", e);
+        }
+        AnalysisScope scope = AnalysisScope.incremental(project, stagingRoot, files, diff.getDeletedFiles(), null);
+        try {
+            for (String file : files) {
+                extract(root.toFile(), diff.getHeadCommit(), file, stagingRoot.resolve(file));
+            }
+        } catch (RuntimeException e) {
+            manifestService.release(scope);
+            throw e;
+        }
+
+        AnalysisManifest manifest = manifestService.scan(stagingRoot, null);
+        System.out.println("Branch analysis of project " + project.getId() + ": " + diff + ", " + files.size() + " files staged");
+        return AnalysisScope.incremental(project, stagingRoot, files, diff.getDeletedFiles(), manifest);
+    }
+
+    private static boolean isIgnored(String file) {
+        for (String part : file.split("/")) {
+            if (AnalysisScope.IGNORED_DIRECTORIES.contains(part)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String resolveCommit(File root, String ref) {
+        if (ref == null || ref.isBlank() || ref.startsWith("-")) {
+            throw new IllegalArgumentException("Invalid git ref: " + ref);
+        }
+        try {
+            return git(root, "rev-parse", "--verify", "--quiet", ref + "^{commit}").trim();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Unknown git ref: " + ref, e);
+        }
+    }
+
+    /**
+     * Сохраняет содержимое файла из коммита без промежуточной копии в памяти
+     */
+    private static void extract(File root, String commit, String file, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            Process process = new ProcessBuilder("git", "show", commit + ":" + file)
+                    .directory(root)
+                    .redirectOutput(target.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("Failed to read " + file + " at " + commit);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to stage " + file + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while staging " + file, e);
+        }
+    }
+
+    private static String git(File root, String... args) {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(command).directory(root);
+            processBuilder.environment().put("GIT_TERMINAL_PROMPT", "0");
+            Process process = processBuilder.start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            String error = new String(process.getErrorStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (process.waitFor() != 0) {
+                throw new RuntimeException("Git command failed: git " + String.join(" ", args)
+                        + (error.isBlank() ? "" : ": " + error.trim()));
+            }
+            return output;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to run git: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running git", e);
+        }
+    }
+}
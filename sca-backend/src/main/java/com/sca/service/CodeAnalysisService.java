@@ -1,305 +1,511 @@
 package com.sca.service;
 
+import com.sca.config.AnalysisProperties;
 import com.sca.model.CodeProblem;
 import com.sca.model.Project;
-import com.sca.model.ProjectFile;
+import com.sca.repository.CodeProblemRepository;
+import com.sca.service.analysis.AnalysisCancellation;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.BranchDiff;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.ProblemFingerprint;
+import com.sca.service.analysis.ProblemMerger;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.StageResult;
+import com.sca.service.analysis.analyzer.AnalysisPlan;
+import com.sca.service.analysis.analyzer.Analyzer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 public class CodeAnalysisService {
 
+    @Autowired
+    private AnalysisManifestService manifestService;
+
+    @Autowired
+    private BranchDiffService branchDiffService;
+
+    @Autowired
+    private AnalysisContainerPool containerPool;
+
     @Autowired
     private DockerService dockerService;
 
+    @Autowired
+    private List<Analyzer> analyzers;
+
+    @Autowired
+    private AnalysisResultCache resultCache;
+
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private Executor analysisExecutor;
+
+    /**
+     * Следит за предельным временем стадий. Отдельный поток: потоки analysisExecutor
+     * могут быть заняты как раз зависшими стадиями.
+     */
+    private final ScheduledExecutorService stageWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "analysis-stage-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Завершение запусков: стадии, прерванные по таймауту, сборка отчета и продолжения
+     * вызывающего (сохранение результатов). Не ограничен, чтобы завершение не отклонялось
+     * и не ждало потоков analysisExecutor, занятых зависшими стадиями; сторож только
+     * отмечает таймаут и не выполняет продолжения сам.
+     */
+    private final ExecutorService completionExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "analysis-completion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        stageWatchdog.shutdownNow();
+        completionExecutor.shutdownNow();
+    }
+
     /**
      * Запускает полный анализ проекта
      */
     public CompletableFuture<List<CodeProblem>> analyzeProject(Project project) {
-        return CompletableFuture.supplyAsync(() -> {
-            List<CodeProblem> problems = new ArrayList<>();
-            
-            try {
-                // Анализ с помощью SonarQube
-                problems.addAll(analyzeWithSonarQube(project));
-                
-                // Анализ с помощью PMD
-                problems.addAll(analyzeWithPMD(project));
-                
-                // Анализ с помощью Checkstyle
-                problems.addAll(analyzeWithCheckstyle(project));
-                
-                // Анализ с помощью SpotBugs
-                problems.addAll(analyzeWithSpotBugs(project));
-                
-            } catch (Exception e) {
-                throw new RuntimeException("Failed to analyze project", e);
-            }
-            
-            return problems;
-        });
+        return runAnalysis(project, false).thenApply(AnalysisReport::getProblems);
     }
 
     /**
-     * Анализ с помощью SonarQube
+     * Запускает анализаторы, относящиеся к языкам проекта, параллельно на пуле analysisExecutor
+     * (самые долгие по оценке AnalysisPlan - первыми) и собирает их результаты вместе со временем каждой стадии.
+     * В инкрементальном режиме анализируются только файлы, изменившиеся
+     * с последнего успешного анализа, а проблемы остальных файлов берутся из БД.
+     * Снимок проекта не сохраняется: после сохранения результатов вызывается commitManifest.
      */
-    private List<CodeProblem> analyzeWithSonarQube(Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        try {
-            // Создаем временный контейнер для анализа
-            String containerId = dockerService.createWorkspaceContainer(
-                    project.getOwner().getId().toString(), 
-                    project.getId().toString()
-            );
-            
-            // Копируем проект в контейнер
-            dockerService.copyToContainer(containerId, project.getWorkspacePath(), "/workspace");
-            
-            // Устанавливаем SonarQube Scanner
-            dockerService.executeCommand(containerId, 
-                    "wget", "-q", "https://binaries.sonarsource.com/Distribution/sonar-scanner-cli/sonar-scanner-cli-4.7.0.2747-linux.zip"
-            );
-            dockerService.executeCommand(containerId, 
-                    "unzip", "sonar-scanner-cli-4.7.0.2747-linux.zip"
-            );
-            
-            // Запускаем анализ
-            String output = dockerService.executeCommand(containerId,
-                    "./sonar-scanner-4.7.0.2747-linux/bin/sonar-scanner",
-                    "-Dsonar.projectKey=" + project.getName(),
-                    "-Dsonar.sources=/workspace",
-                    "-Dsonar.host.url=http://localhost:9000"
-            );
-            
-            // Парсим результаты
-            problems.addAll(parseSonarQubeResults(output, project));
-            
-            // Очищаем контейнер
-            dockerService.stopAndRemoveContainer(containerId);
-            
-        } catch (Exception e) {
-            // Логируем ошибку, но продолжаем анализ
-            System.err.println("SonarQube analysis failed: " + e.getMessage());
+    public CompletableFuture<AnalysisReport> runAnalysis(Project project, boolean incremental) {
+        return runAnalysis(project, incremental, stage -> {});
+    }
+
+    /**
+     * То же, что runAnalysis(project, incremental); stageListener вызывается
+     * при завершении каждой стадии в потоке этой стадии
+     */
+    public CompletableFuture<AnalysisReport> runAnalysis(Project project, boolean incremental,
+                                                         Consumer<StageResult> stageListener) {
+        return runAnalysis(project, incremental, stageListener, new AnalysisCancellation());
+    }
+
+    /**
+     * То же, что runAnalysis(project, incremental, stageListener), с возможностью отмены.
+     * При отмене выполняющиеся стадии прерываются, контейнер песочницы удаляется,
+     * а результат завершается CancellationException; снимок проекта не сохраняется.
+     * Стадия, не уложившаяся в analysis.analyzers.timeout-seconds, завершается с ошибкой,
+     * остальные стадии продолжают работу.
+     */
+    public CompletableFuture<AnalysisReport> runAnalysis(Project project, boolean incremental,
+                                                         Consumer<StageResult> stageListener,
+                                                         AnalysisCancellation cancellation) {
+        long startedAt = System.nanoTime();
+        AnalysisScope scope = manifestService.createScope(
+                project, incremental && analysisProperties.getIncremental().isEnabled());
+
+        if (scope.isEmpty()) {
+            manifestService.release(scope);
+            AnalysisReport report = new AnalysisReport(scope, List.of(), loadRetainedProblems(scope), elapsedMillis(startedAt));
+            System.out.println("Nothing changed since last analysis: " + report);
+            return CompletableFuture.completedFuture(report);
         }
-        
-        return problems;
+        return execute(scope, analyzers, null, stageListener, cancellation, startedAt);
     }
 
     /**
-     * Анализ с помощью PMD
+     * Сохраняет снимок проекта после того, как результаты анализа сохранены в БД.
+     * Снимок не сохраняется, если хотя бы одна стадия не отработала, иначе следующий
+     * инкрементальный запуск пропустил бы эти файлы; анализ ветки снимок не меняет.
      */
-    private List<CodeProblem> analyzeWithPMD(Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        try {
-            String containerId = dockerService.createWorkspaceContainer(
-                    project.getOwner().getId().toString(), 
-                    project.getId().toString()
-            );
-            
-            // Копируем проект
-            dockerService.copyToContainer(containerId, project.getWorkspacePath(), "/workspace");
-            
-            // Устанавливаем PMD
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "update"
-            );
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "install", "-y", "pmd"
-            );
-            
-            // Запускаем анализ
-            String output = dockerService.executeCommand(containerId,
-                    "pmd", "check", "/workspace", 
-                    "--format", "xml",
-                    "--rulesets", "java-basic,java-braces,java-clone,java-codesize"
-            );
-            
-            // Парсим результаты
-            problems.addAll(parsePMDResults(output, project));
-            
-            dockerService.stopAndRemoveContainer(containerId);
-            
-        } catch (Exception e) {
-            System.err.println("PMD analysis failed: " + e.getMessage());
+    public void commitManifest(AnalysisReport report) {
+        if (report.getBranchDiff() == null && !report.hasFailures()) {
+            manifestService.commit(report.getScope());
         }
-        
-        return problems;
     }
 
     /**
-     * Анализ с помощью Checkstyle
+     * Анализ изменений ветки: только файлы, измененные в headRef с момента ответвления от baseRef,
+     * в состоянии коммита headRef. Запускаются анализаторы, проверяющие файлы по отдельности
+     * без компиляции; анализаторы всего проекта (SonarQube, SpotBugs, поиск дубликатов)
+     * пропускаются, чтобы время зависело от размера изменений. В результат попадают проблемы,
+     * пересекающие измененные строки. Результат не сохраняется как состояние проекта:
+     * проблемы других файлов не подмешиваются, снимок проекта не обновляется.
      */
-    private List<CodeProblem> analyzeWithCheckstyle(Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        try {
-            String containerId = dockerService.createWorkspaceContainer(
-                    project.getOwner().getId().toString(), 
-                    project.getId().toString()
-            );
-            
-            dockerService.copyToContainer(containerId, project.getWorkspacePath(), "/workspace");
-            
-            // Устанавливаем Checkstyle
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "update"
-            );
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "install", "-y", "checkstyle"
-            );
-            
-            // Запускаем анализ
-            String output = dockerService.executeCommand(containerId,
-                    "checkstyle", "-c", "google_checks.xml", "/workspace"
-            );
-            
-            problems.addAll(parseCheckstyleResults(output, project));
-            
-            dockerService.stopAndRemoveContainer(containerId);
-            
-        } catch (Exception e) {
-            System.err.println("Checkstyle analysis failed: " + e.getMessage());
+    public CompletableFuture<AnalysisReport> runBranchAnalysis(Project project, String baseRef, String headRef,
+                                                               Consumer<StageResult> stageListener,
+                                                               AnalysisCancellation cancellation) {
+        long startedAt = System.nanoTime();
+        BranchDiff diff = branchDiffService.diff(project, baseRef, headRef);
+        AnalysisScope scope = branchDiffService.createScope(project, diff);
+        if (scope.getAffectedFiles().isEmpty()) {
+            manifestService.release(scope);
+            AnalysisReport report = new AnalysisReport(scope, List.of(), List.of(), elapsedMillis(startedAt));
+            report.setBranchDiff(diff);
+            System.out.println("Branch has no changed files: " + report);
+            return CompletableFuture.completedFuture(report);
         }
-        
-        return problems;
+
+        List<Analyzer> perFile = new ArrayList<>();
+        for (Analyzer analyzer : analyzers) {
+            if (analyzer.supportsIncremental() && !analyzer.requiresCompilation()) {
+                perFile.add(analyzer);
+            }
+        }
+        return execute(scope, perFile, diff, stageListener, cancellation, startedAt);
     }
 
     /**
-     * Анализ с помощью SpotBugs
+     * Запускает стадии плана области. Для анализа ветки (diff != null) проблемы стадий
+     * ограничиваются измененными строками, а снимок и проблемы из БД не используются.
      */
-    private List<CodeProblem> analyzeWithSpotBugs(Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
+    private CompletableFuture<AnalysisReport> execute(AnalysisScope scope, List<Analyzer> candidates, BranchDiff diff,
+                                                      Consumer<StageResult> stageListener,
+                                                      AnalysisCancellation cancellation, long startedAt) {
+        Project project = scope.getProject();
+        AnalysisSession session = null;
+        Runnable abort = null;
+        List<CompletableFuture<StageResult>> stages = new ArrayList<>();
         try {
-            String containerId = dockerService.createWorkspaceContainer(
-                    project.getOwner().getId().toString(), 
-                    project.getId().toString()
-            );
-            
-            dockerService.copyToContainer(containerId, project.getWorkspacePath(), "/workspace");
-            
-            // Устанавливаем SpotBugs
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "update"
-            );
-            dockerService.executeCommand(containerId, 
-                    "apt-get", "install", "-y", "spotbugs"
-            );
-            
-            // Компилируем Java файлы
-            dockerService.executeCommand(containerId,
-                    "find", "/workspace", "-name", "*.java", "-exec", "javac", "{}", "\\;"
-            );
-            
-            // Запускаем анализ
-            String output = dockerService.executeCommand(containerId,
-                    "spotbugs", "-textui", "/workspace"
-            );
-            
-            problems.addAll(parseSpotBugsResults(output, project));
-            
-            dockerService.stopAndRemoveContainer(containerId);
-            
-        } catch (Exception e) {
-            System.err.println("SpotBugs analysis failed: " + e.getMessage());
+            AnalysisPlan plan = AnalysisPlan.create(candidates, scope, analysisProperties.getAnalyzers());
+            System.out.println("Analysis plan for project " + project.getId() + ": " + plan);
+
+            session = openSession(scope, plan);
+            abort = session::abort;
+            cancellation.register(abort);
+            for (AnalysisPlan.Stage stage : plan.getStages()) {
+                Analyzer analyzer = stage.getAnalyzer();
+                AnalysisSession stageSession = session;
+                Supplier<CompletableFuture<List<CodeProblem>>> run = analyzer.isCacheable()
+                        ? () -> CompletableFuture.completedFuture(analyzeCached(analyzer, scope, stageSession))
+                        : () -> analyzer.analyzeAsync(scope, stageSession);
+                if (diff != null) {
+                    Supplier<CompletableFuture<List<CodeProblem>>> unfiltered = run;
+                    run = () -> unfiltered.get().thenApply(diff::filter);
+                }
+                stages.add(runStage(analyzer.getName(), scope, run, stageListener, cancellation, session));
+            }
+        } catch (RuntimeException e) {
+            // Уже запущенные стадии получат ошибку от закрытой песочницы
+            if (session != null) {
+                cancellation.unregister(abort);
+                session.abort();
+                session.close();
+            }
+            manifestService.release(scope);
+            throw e;
         }
-        
-        return problems;
+
+        AnalysisSession openedSession = session;
+        Runnable abortSession = abort;
+        // Отчет собирается и передается вызывающему в completionExecutor, а не в потоке,
+        // завершившем последнюю стадию
+        return CompletableFuture.allOf(stages.toArray(new CompletableFuture[0]))
+                .thenApplyAsync(ignored -> {
+                    if (cancellation.isCancelled()) {
+                        throw new CancellationException(cancellation.getReason());
+                    }
+                    List<StageResult> results = new ArrayList<>();
+                    for (CompletableFuture<StageResult> stage : stages) {
+                        results.add(stage.join());
+                    }
+                    openedSession.close();
+                    AnalysisReport report = new AnalysisReport(scope, results,
+                            diff != null ? List.of() : loadRetainedProblems(scope), elapsedMillis(startedAt));
+                    report.setPhaseTimings(openedSession.getPhaseTimings());
+                    report.setBranchDiff(diff);
+                    System.out.println("Analysis finished: " + report);
+                    return report;
+                }, completionExecutor)
+                .whenComplete((report, throwable) -> {
+                    cancellation.unregister(abortSession);
+                    openedSession.close();
+                    manifestService.release(scope);
+                });
     }
 
     /**
-     * Парсинг результатов SonarQube
+     * Песочница запуска. Если хотя бы одной контейнерной стадии нужны исходники всего проекта,
+     * загружается рабочая директория, иначе - только файлы области анализа.
+     * Компилирующие анализаторы загружают собранные классы сами, исходники им не нужны.
+     * Время одной команды в песочнице ограничено самым большим сроком стадии плана.
      */
-    private List<CodeProblem> parseSonarQubeResults(String output, Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        // Простой парсинг XML результатов
-        // В реальном проекте нужно использовать XML парсер
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            if (line.contains("issue")) {
-                CodeProblem problem = new CodeProblem();
-                problem.setProject(project);
-                problem.setDescription("SonarQube issue: " + line);
-                problem.setSeverity(CodeProblem.ProblemSeverity.WARNING);
-                problem.setType(CodeProblem.ProblemType.CODE_SMELL);
-                problems.add(problem);
+    private AnalysisSession openSession(AnalysisScope scope, AnalysisPlan plan) {
+        boolean sources = false;
+        boolean wholeProject = false;
+        long commandTimeoutSeconds = 0;
+        for (AnalysisPlan.Stage stage : plan.getStages()) {
+            Analyzer analyzer = stage.getAnalyzer();
+            commandTimeoutSeconds = Math.max(commandTimeoutSeconds,
+                    analysisProperties.getAnalyzers().getTimeoutSeconds(analyzer.getName()));
+            if (analyzer.usesSandbox() && !analyzer.requiresCompilation()) {
+                sources = true;
+                wholeProject |= !analyzer.supportsIncremental();
             }
         }
-        
-        return problems;
+        Path uploadRoot = !sources ? null : wholeProject ? scope.getWorkspaceRoot() : scope.getSourceRoot();
+        // Команда не может работать дольше своей стадии; точный срок стадии отслеживает runStage
+        return new AnalysisSession(containerPool, dockerService, uploadRoot, Duration.ofSeconds(commandTimeoutSeconds));
     }
 
     /**
-     * Парсинг результатов PMD
+     * Проблемы из БД для файлов, которые не попали в инкрементальный анализ
      */
-    private List<CodeProblem> parsePMDResults(String output, Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            if (line.contains("violation")) {
-                CodeProblem problem = new CodeProblem();
-                problem.setProject(project);
-                problem.setDescription("PMD violation: " + line);
-                problem.setSeverity(CodeProblem.ProblemSeverity.WARNING);
-                problem.setType(CodeProblem.ProblemType.CODE_SMELL);
-                problems.add(problem);
+    private List<CodeProblem> loadRetainedProblems(AnalysisScope scope) {
+        if (!scope.isIncremental()) {
+            return List.of();
+        }
+        Project project = scope.getProject();
+        List<CodeProblem> retained = new ArrayList<>();
+        for (CodeProblem problem : codeProblemRepository.findByProjectAndResolvedFalse(project)) {
+            String filePath = problem.getFilePath();
+            if (scope.contains(filePath) || scope.getDeletedFiles().contains(filePath)) {
+                continue;
             }
+            problem.setProject(project);
+            retained.add(problem);
+        }
+        return retained;
+    }
+
+    /**
+     * Запускает одну стадию анализа и замеряет её время.
+     * Проблемам стадии присваиваются отпечатки, пока файлы проекта соответствуют результату.
+     * Стадия, не завершившаяся за свой срок, или отмененная, сразу завершается с ошибкой,
+     * а ее поток прерывается; после таймаута контейнер песочницы не возвращается в пул.
+     */
+    private CompletableFuture<StageResult> runStage(String stage, AnalysisScope scope,
+                                                    Supplier<CompletableFuture<List<CodeProblem>>> analyzer,
+                                                    Consumer<StageResult> stageListener,
+                                                    AnalysisCancellation cancellation,
+                                                    AnalysisSession session) {
+        long timeoutSeconds = analysisProperties.getAnalyzers().getTimeoutSeconds(stage);
+        StageRun run = new StageRun(stage, stageListener);
+        Runnable cancel = () -> run.abort(cancellation.getReason());
+        cancellation.register(cancel);
+        run.getResult().whenComplete((result, throwable) -> cancellation.unregister(cancel));
+
+        try {
+            analysisExecutor.execute(() -> {
+                if (!run.start()) {
+                    // Отменена, пока ждала в очереди
+                    return;
+                }
+                ScheduledFuture<?> deadline = stageWatchdog.schedule(() -> completionExecutor.execute(() -> {
+                    if (run.abort("Timed out after " + timeoutSeconds + " s")) {
+                        System.err.println("Analysis stage " + stage + " timed out after " + timeoutSeconds + " s");
+                        session.invalidate();
+                    }
+                }), timeoutSeconds, TimeUnit.SECONDS);
+                CompletableFuture<List<CodeProblem>> pending;
+                try {
+                    pending = analyzer.get();
+                } catch (Exception e) {
+                    pending = CompletableFuture.failedFuture(e);
+                } finally {
+                    run.stop();
+                }
+                // Асинхронная часть стадии идет без потока; отмена и таймаут стадии отменяют ее
+                CompletableFuture<List<CodeProblem>> problems = pending;
+                run.getResult().whenComplete((result, throwable) -> problems.cancel(true));
+                problems.whenComplete((found, throwable) -> {
+                    deadline.cancel(false);
+                    Throwable error = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    if (error == null) {
+                        try {
+                            ProblemFingerprint.assign(scope, found);
+                            ProblemMerger.tagSource(found, stage);
+                            run.finish(new StageResult(stage, found, run.elapsedMillis(), null));
+                        } catch (RuntimeException e) {
+                            error = e;
+                        }
+                    }
+                    if (error != null && run.finish(new StageResult(stage, List.of(), run.elapsedMillis(), error.getMessage()))) {
+                        System.err.println("Analysis stage " + stage + " failed: " + error.getMessage());
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // Пул и очередь заполнены - стадия не запускается
+            run.finish(new StageResult(stage, List.of(), 0, "Analysis capacity exceeded"));
+        }
+        return run.getResult();
+    }
+
+    private static void notifyStage(Consumer<StageResult> stageListener, StageResult result) {
+        try {
+            stageListener.accept(result);
+        } catch (Exception e) {
+            System.err.println("Stage listener failed for " + result.getStage() + ": " + e.getMessage());
         }
-        
-        return problems;
     }
 
     /**
-     * Парсинг результатов Checkstyle
+     * Запускает анализатор, проверяющий файлы по отдельности, только для файлов,
+     * результатов которых нет в кэше. SonarQube и SpotBugs не кэшируются:
+     * их результат для файла зависит от остального проекта.
      */
-    private List<CodeProblem> parseCheckstyleResults(String output, Project project) {
+    private List<CodeProblem> analyzeCached(Analyzer analyzer, AnalysisScope scope, AnalysisSession session) {
+        if (!resultCache.isEnabled()) {
+            return analyzer.analyze(scope, session);
+        }
+
+        Set<String> files = new HashSet<>();
+        Collection<String> candidates = scope.isIncremental() ? scope.getAffectedFiles() : scope.getManifest().getFiles().keySet();
+        for (String file : candidates) {
+            if (analyzer.getLanguages().contains(SourceLanguage.of(file))) {
+                files.add(file);
+            }
+        }
+
+        AnalyzerTool tool = analyzer.getTool();
+        String configVersion = analyzer.getConfigVersion();
+        Map<String, List<CodeProblem>> cached = resultCache.lookup(tool, configVersion, scope, files);
         List<CodeProblem> problems = new ArrayList<>();
-        
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            if (line.contains("error") || line.contains("warning")) {
-                CodeProblem problem = new CodeProblem();
-                problem.setProject(project);
-                problem.setDescription("Checkstyle issue: " + line);
-                problem.setSeverity(CodeProblem.ProblemSeverity.WARNING);
-                problem.setType(CodeProblem.ProblemType.CODE_SMELL);
-                problems.add(problem);
+        cached.values().forEach(problems::addAll);
+
+        Set<String> missed = new HashSet<>(files);
+        missed.removeAll(cached.keySet());
+        if (missed.isEmpty()) {
+            return problems;
+        }
+
+        // Если в кэше нет ничего, анализируется исходная область без лишнего копирования.
+        // Анализатору в песочнице копия не нужна: файлы уже загружены, он берет их список из области.
+        boolean narrowed = !cached.isEmpty();
+        boolean staged = narrowed && !analyzer.usesSandbox();
+        AnalysisScope missedScope = !narrowed ? scope
+                : staged ? manifestService.narrow(scope, missed)
+                : AnalysisScope.incremental(scope.getProject(), scope.getSourceRoot(), missed, Set.of(), scope.getManifest());
+        try {
+            List<CodeProblem> analyzed = analyzer.analyze(missedScope, session);
+            resultCache.store(tool, configVersion, scope, missed, analyzed);
+            problems.addAll(analyzed);
+        } finally {
+            if (staged) {
+                manifestService.release(missedScope);
             }
         }
-        
         return problems;
     }
 
+    private static long elapsedMillis(long startedAt) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
     /**
-     * Парсинг результатов SpotBugs
+     * Выполнение стадии. Стадия завершается один раз: своим результатом, по таймауту
+     * или отменой - что наступит раньше; остальные исходы игнорируются.
      */
-    private List<CodeProblem> parseSpotBugsResults(String output, Project project) {
-        List<CodeProblem> problems = new ArrayList<>();
-        
-        String[] lines = output.split("\n");
-        for (String line : lines) {
-            if (line.contains("Bug")) {
-                CodeProblem problem = new CodeProblem();
-                problem.setProject(project);
-                problem.setDescription("SpotBugs issue: " + line);
-                problem.setSeverity(CodeProblem.ProblemSeverity.ERROR);
-                problem.setType(CodeProblem.ProblemType.BUG);
-                problems.add(problem);
+    private static class StageRun {
+        private final String stage;
+        private final Consumer<StageResult> stageListener;
+        private final CompletableFuture<StageResult> result = new CompletableFuture<>();
+
+        // Защищены монитором this
+        private boolean done;
+        private Thread worker;
+        private long startedAt;
+
+        StageRun(String stage, Consumer<StageResult> stageListener) {
+            this.stage = stage;
+            this.stageListener = stageListener;
+        }
+
+        CompletableFuture<StageResult> getResult() {
+            return result;
+        }
+
+        /**
+         * Привязывает стадию к текущему потоку. false - стадия уже завершена и запускать ее не нужно.
+         */
+        synchronized boolean start() {
+            if (done) {
+                return false;
             }
+            worker = Thread.currentThread();
+            startedAt = System.nanoTime();
+            return true;
+        }
+
+        /**
+         * Отвязывает поток и сбрасывает флаг прерывания, чтобы он не достался следующей задаче пула
+         */
+        synchronized void stop() {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        synchronized long elapsedMillis() {
+            return startedAt == 0 ? 0 : CodeAnalysisService.elapsedMillis(startedAt);
+        }
+
+        /**
+         * Завершает стадию, если она еще не завершена
+         */
+        boolean finish(StageResult stageResult) {
+            synchronized (this) {
+                if (done) {
+                    return false;
+                }
+                done = true;
+            }
+            notifyStage(stageListener, stageResult);
+            result.complete(stageResult);
+            return true;
+        }
+
+        /**
+         * Завершает стадию с ошибкой и прерывает ее поток
+         */
+        boolean abort(String error) {
+            if (!finish(new StageResult(stage, List.of(), elapsedMillis(), error))) {
+                return false;
+            }
+            synchronized (this) {
+                if (worker != null) {
+                    worker.interrupt();
+                }
+            }
+            return true;
         }
-        
-        return problems;
     }
-} 
\ No newline at end of file
+}
@@ -1,7 +1,11 @@
 package com.sca.service;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.BuildImageCmd;
+import com.github.dockerjava.api.command.BuildImageResultCallback;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
@@ -10,12 +14,22 @@ import com.github.dockerjava.transport.DockerHttpClient;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.core.command.ExecStartResultCallback;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.io.ByteArrayOutputStream;
 
 @Service
@@ -77,6 +91,114 @@ public class DockerService {
         }
     }
 
+    /**
+     * Создает и запускает контейнер для анализа из образа анализатора.
+     * Анализ запускается командами через exec; команда образа запускает демоны анализаторов
+     * (env SCA_DAEMONS=off - без демонов) и держит контейнер запущенным.
+     */
+    public String createAnalysisContainer(String image, String name, String... env) {
+        List<String> variables = new ArrayList<>(List.of("WORKSPACE=/workspace"));
+        variables.addAll(List.of(env));
+        try {
+            CreateContainerResponse container = dockerClient.createContainerCmd(image)
+                    .withName(name)
+                    .withEnv(variables)
+                    .withHostConfig(HostConfig.newHostConfig()
+                            .withMemory(Long.parseLong(memoryLimit.replace("m", "")) * 1024 * 1024L)
+                            .withCpuQuota((long) (Double.parseDouble(cpuLimit) * 100000))
+                            .withCpuPeriod(100000L)
+                            .withRestartPolicy(RestartPolicy.noRestart())
+                            // Сканер обращается к SonarQube на хосте и в Linux
+                            .withExtraHosts("host.docker.internal:host-gateway")
+                    )
+                    .exec();
+
+            try {
+                dockerClient.startContainerCmd(container.getId()).exec();
+            } catch (RuntimeException e) {
+                // Не оставляем созданный, но не запущенный контейнер
+                try {
+                    forceRemoveContainer(container.getId());
+                } catch (RuntimeException removeFailure) {
+                    e.addSuppressed(removeFailure);
+                }
+                throw e;
+            }
+
+            return container.getId();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to create analysis container", e);
+        }
+    }
+
+    /**
+     * Удаляет контейнер сразу, без ожидания корректной остановки
+     */
+    public void forceRemoveContainer(String containerId) {
+        try {
+            dockerClient.removeContainerCmd(containerId)
+                    .withForce(true)
+                    .withRemoveVolumes(true)
+                    .exec();
+        } catch (NotFoundException e) {
+            // Контейнер уже удален
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to remove container", e);
+        }
+    }
+
+    /**
+     * Проверяет, что контейнер существует и запущен
+     */
+    public boolean isContainerRunning(String containerId) {
+        try {
+            Boolean running = dockerClient.inspectContainerCmd(containerId).exec().getState().getRunning();
+            return Boolean.TRUE.equals(running);
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Проверяет, есть ли образ в локальном Docker
+     */
+    public boolean imageExists(String image) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to inspect image " + image, e);
+        }
+    }
+
+    /**
+     * Собирает образ из каталога с Dockerfile
+     */
+    public String buildImage(File contextDir, String tag, Map<String, String> buildArgs) {
+        try {
+            BuildImageCmd command = dockerClient.buildImageCmd(contextDir)
+                    .withTags(Set.of(tag))
+                    .withPull(true);
+            buildArgs.forEach(command::withBuildArg);
+            return command.exec(new BuildImageResultCallback()).awaitImageId();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to build image " + tag, e);
+        }
+    }
+
+    /**
+     * Загружает образ из tar архива, сохраненного через docker save
+     */
+    public void loadImage(Path tarball) {
+        try (InputStream inputStream = Files.newInputStream(tarball)) {
+            dockerClient.loadImageCmd(inputStream).exec();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to load image from " + tarball, e);
+        }
+    }
+
     /**
      * Останавливает и удаляет контейнер
      */
@@ -127,9 +249,20 @@ public class DockerService {
     }
 
     /**
-     * Выполняет команду в контейнере
+     * Выполняет команду в контейнере, ожидая ее не дольше docker.containers.timeout секунд
      */
     public String executeCommand(String containerId, String... command) {
+        return executeCommand(containerId, Duration.ofSeconds(timeout), command);
+    }
+
+    /**
+     * Выполняет команду в контейнере, ожидая ее не дольше timeout.
+     * По истечении времени или при прерывании потока процесс в контейнере продолжает работать:
+     * Docker не умеет останавливать exec, контейнер нужно удалить.
+     */
+    public String executeCommand(String containerId, Duration timeout, String... command) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        boolean completed;
         try {
             ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
                     .withCmd(command)
@@ -137,12 +270,48 @@ public class DockerService {
                     .withAttachStderr(true)
                     .exec();
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            dockerClient.execStartCmd(execCreateCmdResponse.getId())
-                    .exec(new ExecStartResultCallback(outputStream, System.err))
-                    .awaitCompletion();
+            try (ExecStartResultCallback callback = dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .exec(new ExecStartResultCallback(outputStream, System.err))) {
+                completed = callback.awaitCompletion(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while executing command in container", e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to execute command in container", e);
+        }
 
-            return outputStream.toString();
+        if (!completed) {
+            throw new RuntimeException("Command " + command[0] + " timed out after " + timeout.toSeconds() + " s");
+        }
+        return outputStream.toString();
+    }
+
+    /**
+     * Выполняет команду в контейнере и возвращает true, если она завершилась с кодом 0.
+     * Команда, не завершившаяся за docker.containers.timeout секунд, считается неуспешной.
+     */
+    public boolean executeCommandSucceeds(String containerId, String... command) {
+        try {
+            ExecCreateCmdResponse execCreateCmdResponse = dockerClient.execCreateCmd(containerId)
+                    .withCmd(command)
+                    .withAttachStdout(true)
+                    .withAttachStderr(true)
+                    .exec();
+
+            // Вывод команды не нужен, важен только код завершения
+            try (ResultCallback.Adapter<Frame> callback = dockerClient.execStartCmd(execCreateCmdResponse.getId())
+                    .exec(new ResultCallback.Adapter<>())) {
+                if (!callback.awaitCompletion(timeout, TimeUnit.SECONDS)) {
+                    return false;
+                }
+            }
+
+            Long exitCode = dockerClient.inspectExecCmd(execCreateCmdResponse.getId()).exec().getExitCodeLong();
+            return exitCode != null && exitCode == 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while executing command in container", e);
         } catch (Exception e) {
             throw new RuntimeException("Failed to execute command in container", e);
         }
@@ -174,4 +343,37 @@ public class DockerService {
             throw new RuntimeException("Failed to copy files from container", e);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Открывает поток с содержимым одного файла из контейнера.
+     * Файл не буферизуется целиком, поток нужно закрыть после чтения.
+     */
+    public InputStream openFileFromContainer(String containerId, String containerPath) {
+        InputStream archive = null;
+        try {
+            archive = dockerClient.copyArchiveFromContainerCmd(containerId, containerPath).exec();
+            TarArchiveInputStream tar = new TarArchiveInputStream(archive);
+            TarArchiveEntry entry = tar.getNextTarEntry();
+            if (entry == null || !entry.isFile()) {
+                tar.close();
+                throw new RuntimeException("File not found in container: " + containerPath);
+            }
+            return tar;
+        } catch (NotFoundException e) {
+            throw new RuntimeException("File not found in container: " + containerPath, e);
+        } catch (java.io.IOException e) {
+            closeQuietly(archive);
+            throw new RuntimeException("Failed to read file from container", e);
+        }
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        if (inputStream != null) {
+            try {
+                inputStream.close();
+            } catch (java.io.IOException e) {
+                // Поток уже не нужен
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.FileDiagnosticsEvent;
+import com.sca.service.analysis.FileSavedEvent;
+import com.sca.service.analysis.ProblemFingerprint;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.analyzer.Analyzer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Анализ файла после сохранения (analysis.on-save.enabled).
+ * Сохранения одного файла в пределах debounce-millis объединяются в один анализ.
+ * Запускаются только анализаторы, работающие в JVM бэкенда без компиляции,
+ * полный анализ проекта и песочница не затрагиваются, в БД ничего не сохраняется.
+ */
+@Service
+public class OnSaveAnalysisService {
+
+    @Autowired
+    private List<Analyzer> analyzers;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Ожидающий анализ по ключу projectId:filePath
+    private final Map<String, PendingAnalysis> pending = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService scheduler;
+
+    @EventListener
+    public void onFileSaved(FileSavedEvent event) {
+        AnalysisProperties.OnSave settings = analysisProperties.getOnSave();
+        Set<String> languages = SourceLanguage.languagesOf(event.getFilePath());
+        if (!settings.isEnabled() || languages.isEmpty() || selectAnalyzers(languages).isEmpty()) {
+            return;
+        }
+
+        String key = event.getProject().getId() + ":" + event.getFilePath();
+        pending.compute(key, (ignored, previous) -> {
+            PendingAnalysis next = new PendingAnalysis(event.getProject(), event.getFilePath());
+            if (previous != null) {
+                // Новое сохранение откладывает анализ, получатели предыдущих сохранений сохраняются
+                previous.future.cancel(false);
+                next.recipients.addAll(previous.recipients);
+            }
+            next.recipients.add(event.getUsername());
+            next.future = getScheduler().schedule(() -> run(key, next, languages),
+                    settings.getDebounceMillis(), TimeUnit.MILLISECONDS);
+            return next;
+        });
+    }
+
+    private void run(String key, PendingAnalysis analysis, Set<String> languages) {
+        if (!pending.remove(key, analysis)) {
+            // Файл сохранили еще раз, анализ перенесен
+            return;
+        }
+
+        Project project = analysis.project;
+        AnalysisScope scope = AnalysisScope.incremental(project, Paths.get(project.getWorkspacePath()),
+                Set.of(analysis.filePath), Set.of(), null);
+        List<CodeProblem> problems = new ArrayList<>();
+        for (Analyzer analyzer : selectAnalyzers(languages)) {
+            try {
+                problems.addAll(analyzer.analyze(scope, null));
+            } catch (Exception e) {
+                System.err.println("On-save " + analyzer.getName() + " failed for " + analysis.filePath + ": " + e.getMessage());
+            }
+        }
+        ProblemFingerprint.assign(scope, problems);
+
+        if (pending.containsKey(key)) {
+            // Пока шел анализ, файл изменился - результат устарел, его заменит следующий анализ
+            return;
+        }
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - analysis.savedAt);
+        eventPublisher.publishEvent(new FileDiagnosticsEvent(
+                project, analysis.filePath, Set.copyOf(analysis.recipients), problems, durationMillis));
+    }
+
+    /**
+     * Включенные анализаторы языков файла, которые работают в JVM бэкенда, не требуют компиляции
+     * и могут проверить отдельный файл
+     */
+    private List<Analyzer> selectAnalyzers(Set<String> languages) {
+        Set<String> disabled = analysisProperties.getAnalyzers().getDisabled();
+        List<Analyzer> selected = new ArrayList<>();
+        for (Analyzer analyzer : analyzers) {
+            if (!analyzer.usesSandbox() && !analyzer.requiresCompilation() && analyzer.supportsIncremental()
+                    && !Collections.disjoint(analyzer.getLanguages(), languages) && !disabled.contains(analyzer.getName())) {
+                selected.add(analyzer);
+            }
+        }
+        return selected;
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = Executors.newScheduledThreadPool(analysisProperties.getOnSave().getThreads(), runnable -> {
+                        Thread thread = new Thread(runnable, "on-save-analysis");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class PendingAnalysis {
+        private final Project project;
+        private final String filePath;
+        private final long savedAt = System.nanoTime();
+        private final Set<String> recipients = ConcurrentHashMap.newKeySet();
+        private volatile ScheduledFuture<?> future;
+
+        PendingAnalysis(Project project, String filePath) {
+            this.project = project;
+            this.filePath = filePath;
+        }
+    }
+}
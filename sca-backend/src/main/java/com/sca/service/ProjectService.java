@@ -5,9 +5,17 @@ import com.sca.model.ProjectFile;
 import com.sca.model.User;
 import com.sca.model.CodeProblem;
 import com.sca.model.GitHubToken;
+import com.sca.model.ProblemPage;
+import com.sca.model.ProblemQuery;
+import com.sca.repository.CodeProblemRepository;
 import com.sca.repository.ProjectRepository;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.FileSavedEvent;
+import com.sca.service.analysis.ProblemDelta;
+import com.sca.service.analysis.StageResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,15 +31,30 @@ import java.util.*;
 @Transactional
 public class ProjectService {
 
+    // Ограничение на размер списка в IN (...) при удалении проблем по файлам
+    private static final int FILE_PATH_BATCH_SIZE = 500;
+
     @Autowired
     private CodeAnalysisService codeAnalysisService;
     
     @Autowired
     private ProjectRepository projectRepository;
     
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+    
+    @Autowired
+    private AnalysisManifestService manifestService;
+    
     @Autowired
     private GitHubService gitHubService;
     
+    @Autowired
+    private ProjectStatisticsService statisticsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     @Value("${filesystem.workspace.base-path:/tmp/sca-workspaces}")
     private String workspaceBasePath;
     
@@ -117,6 +140,8 @@ public class ProjectService {
             
             // Удаляем рабочую директорию
             deleteWorkspaceDirectory(foundProject.getWorkspacePath());
+            manifestService.invalidate(foundProject.getId());
+            statisticsService.delete(foundProject.getId());
             
             // Удаляем из БД
             projectRepository.delete(foundProject);
@@ -130,34 +155,136 @@ public class ProjectService {
      */
     public Map<String, Object> getProjectStatistics(Long id, User user) {
         Project project = getProjectById(id, user);
-        Map<String, Object> statistics = new HashMap<>();
-        
-        // TODO: Реализовать подсчет статистики
-        statistics.put("totalFiles", 0);
-        statistics.put("totalLines", 0);
-        statistics.put("problems", 0);
-        statistics.put("lastAnalysis", null);
-        
-        return statistics;
+        return statisticsService.getStatistics(project);
+    }
+
+    /**
+     * Сохранить результаты анализа как изменения относительно предыдущего запуска.
+     * Новые и прежние проблемы сопоставляются по отпечатку: повторно найденные не
+     * перезаписываются, новые вставляются, а пропавшие помечаются решенными.
+     * После инкрементального анализа сравниваются только проанализированные и удаленные файлы.
+     * Проблемы стадий, завершившихся ошибкой, не сравниваются: они остаются открытыми.
+     */
+    public ProblemDelta saveAnalysisReport(Project project, AnalysisReport report) {
+        List<CodeProblem> previous;
+        if (report.isIncremental()) {
+            List<String> comparedFiles = new ArrayList<>(report.getScope().getAffectedFiles());
+            comparedFiles.addAll(report.getScope().getDeletedFiles());
+            previous = new ArrayList<>();
+            for (int from = 0; from < comparedFiles.size(); from += FILE_PATH_BATCH_SIZE) {
+                List<String> batch = comparedFiles.subList(from, Math.min(from + FILE_PATH_BATCH_SIZE, comparedFiles.size()));
+                previous.addAll(codeProblemRepository.findByProjectAndResolvedFalseAndFilePathIn(project, batch));
+            }
+        } else {
+            previous = codeProblemRepository.findByProjectAndResolvedFalse(project);
+        }
+
+        Map<String, CodeProblem> open = new HashMap<>();
+        List<CodeProblem> fixed = new ArrayList<>();
+        for (CodeProblem problem : previous) {
+            // Проблемы без отпечатка сохранены до его появления и сопоставить их нельзя
+            if (problem.getFingerprint() == null || open.putIfAbsent(problem.getFingerprint(), problem) != null) {
+                fixed.add(problem);
+            }
+        }
+
+        List<CodeProblem> added = new ArrayList<>();
+        int unchanged = 0;
+        for (CodeProblem problem : report.getNewProblems()) {
+            CodeProblem existing = problem.getFingerprint() != null ? open.remove(problem.getFingerprint()) : null;
+            if (existing == null) {
+                added.add(problem);
+                continue;
+            }
+            unchanged++;
+            // Код мог сдвинуться - обновляется только позиция
+            if (!Objects.equals(existing.getStartLine(), problem.getStartLine())
+                    || !Objects.equals(existing.getEndLine(), problem.getEndLine())) {
+                existing.setStartLine(problem.getStartLine());
+                existing.setEndLine(problem.getEndLine());
+                existing.setStartColumn(problem.getStartColumn());
+                existing.setEndColumn(problem.getEndColumn());
+            }
+        }
+        Set<String> failedStages = new HashSet<>();
+        for (StageResult stage : report.getStages()) {
+            if (stage.isFailed()) {
+                failedStages.add(stage.getStage());
+            }
+        }
+        for (CodeProblem problem : open.values()) {
+            if (foundByFailedStage(problem, failedStages)) {
+                // Инструмент не отработал - пропажа проблемы не означает ее исправления
+                unchanged++;
+            } else {
+                fixed.add(problem);
+            }
+        }
+
+        for (CodeProblem problem : fixed) {
+            problem.setResolved(true);
+            problem.setProject(project);
+        }
+        // Изменения найденных проблем записываются до insertInBatches, который очищает контекст
+        codeProblemRepository.flush();
+        codeProblemRepository.insertInBatches(added);
+
+        ProblemDelta delta = new ProblemDelta(added, fixed, unchanged);
+        report.setDelta(delta);
+        statisticsService.onAnalysisSaved(report.getScope(), delta);
+        return delta;
     }
 
     /**
-     * Сохранить проблемы в БД
+     * Проблема найдена инструментом стадии, завершившейся ошибкой. Источник проблем,
+     * сохраненных до появления sources, неизвестен - при ошибках они тоже считаются такими.
      */
-    public void saveProblems(Project project, List<CodeProblem> problems) {
-        // TODO: Реализовать сохранение проблем
+    private static boolean foundByFailedStage(CodeProblem problem, Set<String> failedStages) {
+        if (failedStages.isEmpty()) {
+            return false;
+        }
+        if (problem.getSources() == null) {
+            return true;
+        }
+        for (String source : problem.getSources().split(",")) {
+            if (failedStages.contains(source)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
-     * Получить проблемы проекта
+     * Отпечатки нерешенных проблем проекта
      */
-    public List<CodeProblem> getProblemsByProject(Project project) {
-        // TODO: Реализовать получение проблем
-        return List.of();
+    @Transactional(readOnly = true)
+    public Set<String> getOpenFingerprints(Project project) {
+        return new HashSet<>(codeProblemRepository.findOpenFingerprints(project));
     }
 
     /**
-     * Обновить файл проекта
+     * Получить страницу проблем проекта с фильтрами и сортировкой из запроса
+     */
+    @Transactional(readOnly = true)
+    public ProblemPage getProblems(Project project, ProblemQuery query) {
+        ProblemQuery.Cursor after = query.getCursor() != null && !query.getCursor().isBlank()
+                ? ProblemQuery.Cursor.decode(query.getCursor(), query) : null;
+        // Лишняя строка показывает, есть ли следующая страница
+        List<CodeProblem> problems = codeProblemRepository.findPage(project, query, after, query.getLimit() + 1);
+        String nextCursor = null;
+        if (problems.size() > query.getLimit()) {
+            problems = new ArrayList<>(problems.subList(0, query.getLimit()));
+            nextCursor = ProblemQuery.Cursor.of(problems.get(problems.size() - 1)).encode(query);
+        }
+        for (CodeProblem problem : problems) {
+            problem.setProject(project);
+        }
+        return new ProblemPage(problems, nextCursor);
+    }
+
+    /**
+     * Обновить файл проекта. После записи публикуется FileSavedEvent
+     * для анализа при сохранении.
      */
     public void updateFile(Long projectId, String filePath, String content, User user) {
         Project project = getProjectById(projectId, user);
@@ -172,6 +299,8 @@ public class ProjectService {
         } catch (IOException e) {
             throw new RuntimeException("Ошибка при обновлении файла: " + e.getMessage());
         }
+        statisticsService.onFilesChanged(project, List.of(filePath));
+        eventPublisher.publishEvent(new FileSavedEvent(project, filePath, user.getUsername()));
     }
     
     /**
@@ -401,6 +530,7 @@ public class ProjectService {
             }
             
             System.out.println("File deletion result: " + deleted);
+            statisticsService.onFilesChanged(project, List.of(filePath));
             return deleted;
             
         } catch (Exception e) {
@@ -440,6 +570,11 @@ public class ProjectService {
             
             boolean renamed = oldFile.renameTo(newFile);
             System.out.println("File rename result: " + renamed);
+            if (renamed) {
+                Path parent = Paths.get(filePath).getParent();
+                String newRelativePath = parent != null ? parent.resolve(newName).toString() : newName;
+                statisticsService.onFilesChanged(project, List.of(filePath, newRelativePath));
+            }
             return renamed;
             
         } catch (Exception e) {
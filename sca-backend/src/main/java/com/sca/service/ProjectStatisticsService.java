@@ -0,0 +1,379 @@
+package com.sca.service;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.FileStatistics;
+import com.sca.model.Project;
+import com.sca.model.ProjectStatistics;
+import com.sca.repository.CodeProblemRepository;
+import com.sca.repository.FileStatisticsRepository;
+import com.sca.repository.ProjectStatisticsRepository;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemDelta;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Статистика проектов. Счетчики один раз вычисляются по БД и рабочей директории,
+ * а затем только изменяются: на разницу результатов анализа и на изменившиеся файлы.
+ * Чтение статистики - одна строка project_statistics и первые строки индекса по файлам.
+ */
+@Service
+@Transactional
+public class ProjectStatisticsService {
+
+    // Ограничение на размер списка в IN (...) при чтении статистики файлов
+    private static final int FILE_PATH_BATCH_SIZE = 500;
+
+    @Autowired
+    private ProjectStatisticsRepository projectStatisticsRepository;
+
+    @Autowired
+    private FileStatisticsRepository fileStatisticsRepository;
+
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+
+    /**
+     * Получить статистику проекта. При первом обращении она вычисляется полностью.
+     */
+    public Map<String, Object> getStatistics(Project project) {
+        ProjectStatistics statistics = projectStatisticsRepository.findById(project.getId())
+                .filter(found -> !found.isRebuildRequired())
+                .orElseGet(() -> rebuild(project));
+
+        Map<String, Object> bySeverity = new LinkedHashMap<>();
+        bySeverity.put("CRITICAL", statistics.getCriticalCount());
+        bySeverity.put("ERROR", statistics.getErrorCount());
+        bySeverity.put("WARNING", statistics.getWarningCount());
+        bySeverity.put("INFO", statistics.getInfoCount());
+
+        Map<String, Object> byType = new LinkedHashMap<>();
+        byType.put("BUG", statistics.getBugCount());
+        byType.put("VULNERABILITY", statistics.getVulnerabilityCount());
+        byType.put("CODE_SMELL", statistics.getCodeSmellCount());
+        byType.put("SECURITY_HOTSPOT", statistics.getSecurityHotspotCount());
+
+        List<Map<String, Object>> topFiles = new ArrayList<>();
+        for (FileStatistics file : fileStatisticsRepository
+                .findTop10ByProjectIdAndOpenProblemsGreaterThanOrderByOpenProblemsDesc(project.getId(), 0)) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("filePath", file.getFilePath());
+            item.put("problems", file.getOpenProblems());
+            item.put("lines", file.getLines());
+            topFiles.add(item);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("totalFiles", statistics.getTotalFiles());
+        result.put("totalLines", statistics.getTotalLines());
+        result.put("problems", statistics.getOpenProblems());
+        result.put("problemsBySeverity", bySeverity);
+        result.put("problemsByType", byType);
+        result.put("topFiles", topFiles);
+        result.put("lastAnalysis", statistics.getLastAnalysisAt());
+        return result;
+    }
+
+    /**
+     * Учесть результаты анализа: новые и решенные проблемы, измененные файлы
+     */
+    public void onAnalysisSaved(AnalysisScope scope, ProblemDelta delta) {
+        ProjectStatistics statistics = lock(scope.getProject().getId());
+        if (statistics.isRebuildRequired()) {
+            // Статистика еще не вычислялась - пересчет после этой транзакции учтет и эти результаты
+            return;
+        }
+        applyDelta(statistics, delta);
+        refreshFiles(statistics, scope);
+        statistics.setLastAnalysisAt(LocalDateTime.now());
+    }
+
+    /**
+     * Пересчитать строки файлов или каталогов после их изменения через редактор
+     */
+    public void onFilesChanged(Project project, Collection<String> paths) {
+        ProjectStatistics statistics = lock(project.getId());
+        if (statistics.isRebuildRequired()) {
+            return;
+        }
+        Path root = Paths.get(project.getWorkspacePath());
+        for (String path : paths) {
+            String normalized = normalize(path);
+            Map<String, FileStatistics> known = new HashMap<>();
+            for (FileStatistics file : fileStatisticsRepository.findUnderPath(project.getId(), normalized)) {
+                // LIKE считает '_' любым символом - оставляем только настоящие вложенные пути
+                if (file.getFilePath().equals(normalized) || file.getFilePath().startsWith(normalized + "/")) {
+                    known.put(file.getFilePath(), file);
+                }
+            }
+            Map<String, Long> current = countLines(root, normalized);
+            for (Map.Entry<String, Long> entry : current.entrySet()) {
+                FileStatistics file = known.remove(entry.getKey());
+                if (file == null) {
+                    file = new FileStatistics(project.getId(), entry.getKey());
+                }
+                // Хеш неизвестен - анализ пересчитает строки файла по манифесту
+                updateFile(statistics, file, true, entry.getValue(), null);
+            }
+            for (FileStatistics missing : known.values()) {
+                updateFile(statistics, missing, false, 0, null);
+            }
+        }
+    }
+
+    /**
+     * Удалить статистику проекта
+     */
+    public void delete(Long projectId) {
+        fileStatisticsRepository.deleteByProjectId(projectId);
+        projectStatisticsRepository.deleteById(projectId);
+    }
+
+    /**
+     * Полное вычисление: один GROUP BY по проблемам и обход рабочей директории.
+     * Выполняется под блокировкой строки статистики, поэтому результаты анализа, сохраняемые
+     * одновременно, применяются после пересчета и не теряются.
+     */
+    ProjectStatistics rebuild(Project project) {
+        Long projectId = project.getId();
+        ProjectStatistics statistics = lock(projectId);
+        if (!statistics.isRebuildRequired()) {
+            // Статистику уже вычислила другая транзакция, пока эта ждала блокировку
+            return statistics;
+        }
+        fileStatisticsRepository.deleteByProjectId(projectId);
+        statistics.reset();
+
+        for (Object[] row : codeProblemRepository.countOpenBySeverityAndType(project)) {
+            statistics.addProblems((CodeProblem.ProblemSeverity) row[0], (CodeProblem.ProblemType) row[1], (Long) row[2]);
+        }
+
+        Map<String, FileStatistics> files = new HashMap<>();
+        for (Map.Entry<String, Long> entry : countLines(Paths.get(project.getWorkspacePath()), "").entrySet()) {
+            FileStatistics file = new FileStatistics(projectId, entry.getKey());
+            file.setPresent(true);
+            file.setLines(entry.getValue());
+            files.put(entry.getKey(), file);
+            statistics.addFiles(1, entry.getValue());
+        }
+        for (Object[] row : codeProblemRepository.countOpenByFile(project)) {
+            FileStatistics file = files.computeIfAbsent((String) row[0], path -> new FileStatistics(projectId, path));
+            file.setOpenProblems((Long) row[1]);
+        }
+
+        fileStatisticsRepository.saveAll(files.values());
+        System.out.println("Computed statistics for project " + projectId + ": " + statistics.getTotalFiles()
+                + " files, " + statistics.getOpenProblems() + " open problems");
+        statistics.setRebuildRequired(false);
+        return statistics;
+    }
+
+    /**
+     * Заблокировать строку статистики проекта до конца транзакции. Отсутствующая строка
+     * сначала вставляется отдельной транзакцией с пометкой о пересчете.
+     */
+    private ProjectStatistics lock(Long projectId) {
+        Optional<ProjectStatistics> locked = projectStatisticsRepository.findForUpdate(projectId);
+        if (locked.isPresent()) {
+            return locked.get();
+        }
+        try {
+            projectStatisticsRepository.insertIfAbsent(projectId);
+        } catch (DataIntegrityViolationException e) {
+            // Строку одновременно вставила другая транзакция
+        }
+        return projectStatisticsRepository.findForUpdate(projectId)
+                .orElseThrow(() -> new RuntimeException("Statistics row of project " + projectId + " is missing"));
+    }
+
+    private void applyDelta(ProjectStatistics statistics, ProblemDelta delta) {
+        Map<String, Long> byFile = new HashMap<>();
+        for (CodeProblem problem : delta.getAdded()) {
+            statistics.addProblems(problem.getSeverity(), problem.getType(), 1);
+            if (problem.getFilePath() != null) {
+                byFile.merge(problem.getFilePath(), 1L, Long::sum);
+            }
+        }
+        for (CodeProblem problem : delta.getFixed()) {
+            statistics.addProblems(problem.getSeverity(), problem.getType(), -1);
+            if (problem.getFilePath() != null) {
+                byFile.merge(problem.getFilePath(), -1L, Long::sum);
+            }
+        }
+        byFile.values().removeIf(change -> change == 0);
+        if (byFile.isEmpty()) {
+            return;
+        }
+
+        Map<String, FileStatistics> files = new HashMap<>();
+        for (FileStatistics file : fileStatisticsRepository.findByProjectIdAndFilePathIn(statistics.getProjectId(), byFile.keySet())) {
+            files.put(file.getFilePath(), file);
+        }
+        for (Map.Entry<String, Long> entry : byFile.entrySet()) {
+            FileStatistics file = files.computeIfAbsent(entry.getKey(),
+                    path -> new FileStatistics(statistics.getProjectId(), path));
+            file.setOpenProblems(Math.max(0, file.getOpenProblems() + entry.getValue()));
+            saveOrDrop(file);
+        }
+    }
+
+    /**
+     * Сверяет файлы с манифестом анализа. Строки пересчитываются только у файлов с новым хешем.
+     * После инкрементального анализа проверяются только проанализированные и удаленные файлы,
+     * полная сверка со всеми строками статистики - только после полного анализа.
+     */
+    private void refreshFiles(ProjectStatistics statistics, AnalysisScope scope) {
+        AnalysisManifest manifest = scope.getManifest();
+        if (manifest == null || manifest.getFiles() == null) {
+            return;
+        }
+        Path root = scope.getWorkspaceRoot();
+        Map<String, AnalysisManifest.Entry> entries;
+        List<FileStatistics> known;
+        if (scope.isIncremental()) {
+            List<String> touched = new ArrayList<>(scope.getAffectedFiles());
+            touched.addAll(scope.getDeletedFiles());
+            entries = new HashMap<>();
+            for (String path : scope.getAffectedFiles()) {
+                AnalysisManifest.Entry entry = manifest.getFiles().get(path);
+                if (entry != null) {
+                    entries.put(path, entry);
+                }
+            }
+            known = new ArrayList<>();
+            for (int from = 0; from < touched.size(); from += FILE_PATH_BATCH_SIZE) {
+                known.addAll(fileStatisticsRepository.findByProjectIdAndFilePathIn(statistics.getProjectId(),
+                        touched.subList(from, Math.min(from + FILE_PATH_BATCH_SIZE, touched.size()))));
+            }
+        } else {
+            entries = new HashMap<>(manifest.getFiles());
+            known = fileStatisticsRepository.findByProjectId(statistics.getProjectId());
+        }
+
+        for (FileStatistics file : known) {
+            AnalysisManifest.Entry entry = entries.remove(file.getFilePath());
+            if (entry == null) {
+                if (file.isPresent()) {
+                    updateFile(statistics, file, false, 0, null);
+                }
+            } else if (!file.isPresent() || !entry.getHash().equals(file.getContentHash())) {
+                updateFile(statistics, file, true, countLines(root.resolve(file.getFilePath())), entry.getHash());
+            }
+        }
+        for (Map.Entry<String, AnalysisManifest.Entry> entry : entries.entrySet()) {
+            FileStatistics file = new FileStatistics(statistics.getProjectId(), entry.getKey());
+            updateFile(statistics, file, true, countLines(root.resolve(entry.getKey())), entry.getValue().getHash());
+        }
+    }
+
+    private void updateFile(ProjectStatistics statistics, FileStatistics file, boolean present, long lines, String hash) {
+        statistics.addFiles((present ? 1 : 0) - (file.isPresent() ? 1 : 0), lines - file.getLines());
+        file.setPresent(present);
+        file.setLines(lines);
+        file.setContentHash(hash);
+        saveOrDrop(file);
+    }
+
+    /**
+     * Строка удаленного файла без проблем больше не нужна
+     */
+    private void saveOrDrop(FileStatistics file) {
+        if (!file.isPresent() && file.getOpenProblems() == 0) {
+            if (file.getId() != null) {
+                fileStatisticsRepository.delete(file);
+            }
+        } else {
+            fileStatisticsRepository.save(file);
+        }
+    }
+
+    /**
+     * Строки файлов по пути относительно корня проекта: одного файла или всех файлов каталога
+     */
+    private static Map<String, Long> countLines(Path root, String path) {
+        Map<String, Long> lines = new HashMap<>();
+        Path start = path.isEmpty() ? root : root.resolve(path);
+        if (!Files.exists(start)) {
+            return lines;
+        }
+        try {
+            Files.walkFileTree(start, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(root) && AnalysisScope.IGNORED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        lines.put(root.relativize(file).toString().replace('\\', '/'), countLines(file));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to count lines in " + start + ": " + e.getMessage());
+        }
+        return lines;
+    }
+
+    /**
+     * Число строк текстового файла; у двоичных файлов (с нулевыми байтами) строк нет
+     */
+    static long countLines(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            long lines = 0;
+            int last = '\n';
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == 0) {
+                        return 0;
+                    }
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+                last = buffer[read - 1];
+            }
+            return last == '\n' ? lines : lines + 1;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String normalize(String path) {
+        String normalized = path.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+}
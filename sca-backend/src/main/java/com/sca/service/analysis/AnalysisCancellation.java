@@ -0,0 +1,61 @@
+package com.sca.service.analysis;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Признак отмены запуска анализа. Стадии и песочница регистрируют обработчики,
+ * которые вызываются при отмене: прерывают поток стадии и удаляют контейнер.
+ */
+public class AnalysisCancellation {
+
+    private final List<Runnable> handlers = new CopyOnWriteArrayList<>();
+    private volatile String reason;
+
+    /**
+     * Отменяет запуск. Возвращает false, если он уже был отменен.
+     */
+    public boolean cancel(String reason) {
+        synchronized (this) {
+            if (this.reason != null) {
+                return false;
+            }
+            this.reason = reason;
+        }
+        for (Runnable handler : handlers) {
+            runHandler(handler);
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Регистрирует обработчик отмены. Если запуск уже отменен, обработчик вызывается сразу.
+     * При гонке с cancel обработчик может быть вызван дважды, он должен это допускать.
+     */
+    public void register(Runnable handler) {
+        handlers.add(handler);
+        if (isCancelled() && handlers.remove(handler)) {
+            runHandler(handler);
+        }
+    }
+
+    public void unregister(Runnable handler) {
+        handlers.remove(handler);
+    }
+
+    private static void runHandler(Runnable handler) {
+        try {
+            handler.run();
+        } catch (Exception e) {
+            System.err.println("Analysis cancellation handler failed: " + e.getMessage());
+        }
+    }
+}
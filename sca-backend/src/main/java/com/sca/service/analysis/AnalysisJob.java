@@ -0,0 +1,235 @@
+package com.sca.service.analysis;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.sca.model.Project;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Задание анализа проекта в очереди AnalysisJobScheduler.
+ * Повторные запросы того же проекта присоединяются к заданию как подписчики.
+ * Задание анализа ветки (baseRef и headRef заданы) проверяет только изменения ветки
+ * и не меняет сохраненные проблемы проекта.
+ */
+public class AnalysisJob {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final long sequence;
+    private final Project project;
+    private final String owner;
+    private final String baseRef;
+    private final String headRef;
+    private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+    private final CompletableFuture<AnalysisReport> result = new CompletableFuture<>();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final AtomicInteger resultSequence = new AtomicInteger();
+    private final AnalysisCancellation cancellation = new AnalysisCancellation();
+    // Инструмент, первым отправивший проблему с ключом ProblemMerger.lineKey
+    private final Map<String, String> streamedProblemSources = new ConcurrentHashMap<>();
+
+    private volatile Priority priority;
+    private volatile boolean incremental;
+    private volatile State state = State.QUEUED;
+    private volatile int completedStages;
+    private volatile String error;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile Set<String> knownFingerprints = Set.of();
+
+    public AnalysisJob(long sequence, Project project, String owner, boolean incremental, Priority priority) {
+        this(sequence, project, owner, incremental, priority, null, null);
+    }
+
+    public AnalysisJob(long sequence, Project project, String owner, boolean incremental, Priority priority,
+                       String baseRef, String headRef) {
+        this.sequence = sequence;
+        this.project = project;
+        this.owner = owner;
+        this.incremental = incremental;
+        this.priority = priority;
+        this.baseRef = baseRef;
+        this.headRef = headRef;
+        this.subscribers.add(owner);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Порядковый номер постановки в очередь, при равном приоритете раньше запускается меньший
+     */
+    @JsonIgnore
+    public long getSequence() {
+        return sequence;
+    }
+
+    @JsonIgnore
+    public Project getProject() {
+        return project;
+    }
+
+    public Long getProjectId() {
+        return project.getId();
+    }
+
+    public String getBaseRef() {
+        return baseRef;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    public boolean isBranchDiff() {
+        return headRef != null;
+    }
+
+    /**
+     * Ключ объединения запросов: анализ проекта или анализ одной и той же пары веток проекта
+     */
+    @JsonIgnore
+    public String getCoalesceKey() {
+        return coalesceKey(getProjectId(), baseRef, headRef);
+    }
+
+    public static String coalesceKey(Long projectId, String baseRef, String headRef) {
+        return headRef == null ? String.valueOf(projectId) : projectId + ":" + baseRef + "..." + headRef;
+    }
+
+    /**
+     * Пользователь, поставивший задание; по нему считается ограничение на пользователя
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Пользователи, которые получают уведомления о ходе задания
+     */
+    @JsonIgnore
+    public Set<String> getSubscribers() {
+        return subscribers;
+    }
+
+    @JsonIgnore
+    public CompletableFuture<AnalysisReport> getResult() {
+        return result;
+    }
+
+    /**
+     * Следующий номер сообщения с результатами задания, начиная с 0
+     */
+    public int nextResultSequence() {
+        return resultSequence.getAndIncrement();
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public void setPriority(Priority priority) {
+        this.priority = priority;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    /**
+     * Отмена запущенного анализа задания
+     */
+    @JsonIgnore
+    public AnalysisCancellation getCancellation() {
+        return cancellation;
+    }
+
+    public int getCompletedStages() {
+        return completedStages;
+    }
+
+    public void setCompletedStages(int completedStages) {
+        this.completedStages = completedStages;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    /**
+     * Отпечатки открытых проблем проекта на момент запуска задания.
+     * По ним из результатов стадий отбираются только новые проблемы.
+     */
+    @JsonIgnore
+    public Set<String> getKnownFingerprints() {
+        return knownFingerprints;
+    }
+
+    public void setKnownFingerprints(Set<String> knownFingerprints) {
+        this.knownFingerprints = knownFingerprints;
+    }
+
+    /**
+     * Отмечает проблему с ключом ProblemMerger.lineKey, найденную инструментом source,
+     * как отправленную подписчикам; false - такую проблему уже отправил другой инструмент.
+     * Находки одного инструмента не объединяются и отправляются все.
+     */
+    public boolean markStreamed(String problemKey, String source) {
+        String first = streamedProblemSources.putIfAbsent(problemKey, String.valueOf(source));
+        return first == null || first.equals(String.valueOf(source));
+    }
+}
@@ -0,0 +1,58 @@
+package com.sca.service.analysis;
+
+/**
+ * Изменение состояния задания анализа. Публикуется через ApplicationEventPublisher,
+ * клиентам по WebSocket его рассылает WebSocketController.
+ */
+public class AnalysisJobEvent {
+
+    public enum Type {
+        QUEUED, STARTED, STAGE_COMPLETED, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final AnalysisJob job;
+    private final Type type;
+    private final StageResult stage;
+    private final AnalysisReport report;
+
+    private AnalysisJobEvent(AnalysisJob job, Type type, StageResult stage, AnalysisReport report) {
+        this.job = job;
+        this.type = type;
+        this.stage = stage;
+        this.report = report;
+    }
+
+    public static AnalysisJobEvent of(AnalysisJob job, Type type) {
+        return new AnalysisJobEvent(job, type, null, null);
+    }
+
+    public static AnalysisJobEvent stageCompleted(AnalysisJob job, StageResult stage) {
+        return new AnalysisJobEvent(job, Type.STAGE_COMPLETED, stage, null);
+    }
+
+    public static AnalysisJobEvent completed(AnalysisJob job, AnalysisReport report) {
+        return new AnalysisJobEvent(job, Type.COMPLETED, null, report);
+    }
+
+    public AnalysisJob getJob() {
+        return job;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Завершившаяся стадия, только для STAGE_COMPLETED
+     */
+    public StageResult getStage() {
+        return stage;
+    }
+
+    /**
+     * Итог анализа, только для COMPLETED
+     */
+    public AnalysisReport getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,94 @@
+package com.sca.service.analysis;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Снимок содержимого рабочей директории: хеш, размер и время изменения каждого файла
+ */
+public class AnalysisManifest {
+
+    private Map<String, Entry> files = new HashMap<>();
+
+    // Время импорта базы уязвимостей, с которой проверялись манифесты зависимостей
+    private long advisoriesImportedAt;
+
+    public static class Entry {
+        private String hash;
+        private long size;
+        private long modified;
+
+        public Entry() {}
+
+        public Entry(String hash, long size, long modified) {
+            this.hash = hash;
+            this.size = size;
+            this.modified = modified;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        public long getModified() {
+            return modified;
+        }
+
+        public void setModified(long modified) {
+            this.modified = modified;
+        }
+    }
+
+    /**
+     * Файлы, которые появились или изменились по сравнению с предыдущим снимком
+     */
+    public Set<String> changedSince(AnalysisManifest previous) {
+        Set<String> changed = new HashSet<>();
+        files.forEach((path, entry) -> {
+            Entry old = previous.files.get(path);
+            if (old == null || !old.getHash().equals(entry.getHash())) {
+                changed.add(path);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * Файлы, которые были в предыдущем снимке, но исчезли
+     */
+    public Set<String> deletedSince(AnalysisManifest previous) {
+        Set<String> deleted = new HashSet<>(previous.files.keySet());
+        deleted.removeAll(files.keySet());
+        return deleted;
+    }
+
+    public Map<String, Entry> getFiles() {
+        return files;
+    }
+
+    public void setFiles(Map<String, Entry> files) {
+        this.files = files;
+    }
+
+    public long getAdvisoriesImportedAt() {
+        return advisoriesImportedAt;
+    }
+
+    public void setAdvisoriesImportedAt(long advisoriesImportedAt) {
+        this.advisoriesImportedAt = advisoriesImportedAt;
+    }
+}
@@ -0,0 +1,131 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итог полного анализа проекта: найденные проблемы и время каждой стадии
+ */
+public class AnalysisReport {
+
+    private final AnalysisScope scope;
+    private final List<StageResult> stages;
+    private final List<CodeProblem> retainedProblems;
+    private final List<CodeProblem> newProblems;
+    private final long totalMillis;
+    private volatile ProblemDelta delta;
+    private BranchDiff branchDiff;
+    private Map<String, Long> phaseTimings = Map.of();
+
+    public AnalysisReport(AnalysisScope scope, List<StageResult> stages,
+                          List<CodeProblem> retainedProblems, long totalMillis) {
+        this.scope = scope;
+        this.stages = stages;
+        this.retainedProblems = retainedProblems;
+        this.newProblems = ProblemMerger.merge(stages);
+        this.totalMillis = totalMillis;
+    }
+
+    public Long getProjectId() {
+        return scope.getProject().getId();
+    }
+
+    public AnalysisScope getScope() {
+        return scope;
+    }
+
+    public boolean isIncremental() {
+        return scope.isIncremental();
+    }
+
+    public boolean hasFailures() {
+        return stages.stream().anyMatch(StageResult::isFailed);
+    }
+
+    public List<StageResult> getStages() {
+        return stages;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    /**
+     * Проблемы, найденные в этом запуске; одинаковые проблемы разных инструментов объединены
+     */
+    public List<CodeProblem> getNewProblems() {
+        return newProblems;
+    }
+
+    /**
+     * Сохраненные ранее проблемы файлов, которые не анализировались в этом запуске
+     */
+    public List<CodeProblem> getRetainedProblems() {
+        return retainedProblems;
+    }
+
+    /**
+     * Полный список проблем проекта после этого запуска
+     */
+    public List<CodeProblem> getProblems() {
+        List<CodeProblem> problems = new ArrayList<>(retainedProblems);
+        problems.addAll(getNewProblems());
+        return problems;
+    }
+
+    /**
+     * Изменения относительно предыдущего анализа; заполняется при сохранении результатов
+     */
+    public ProblemDelta getDelta() {
+        return delta;
+    }
+
+    public void setDelta(ProblemDelta delta) {
+        this.delta = delta;
+    }
+
+    /**
+     * Время выполнения стадий в миллисекундах, в порядке запуска
+     */
+    public Map<String, Long> getStageTimings() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        for (StageResult stage : stages) {
+            timings.put(stage.getStage(), stage.getDurationMillis());
+        }
+        return timings;
+    }
+
+    /**
+     * Изменения ветки, если это анализ ветки (runBranchAnalysis), иначе null
+     */
+    public BranchDiff getBranchDiff() {
+        return branchDiff;
+    }
+
+    public void setBranchDiff(BranchDiff branchDiff) {
+        this.branchDiff = branchDiff;
+    }
+
+    /**
+     * Время этапов песочницы анализа в миллисекундах: создание, загрузка проекта,
+     * выполнение и чтение отчета каждой стадии, возврат контейнера
+     */
+    public Map<String, Long> getPhaseTimings() {
+        return phaseTimings;
+    }
+
+    public void setPhaseTimings(Map<String, Long> phaseTimings) {
+        this.phaseTimings = phaseTimings;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisReport{projectId=" + getProjectId() + ", incremental=" + isIncremental()
+                + (branchDiff != null ? ", branch=" + branchDiff.getBaseRef() + "..." + branchDiff.getHeadRef() : "")
+                + ", total=" + totalMillis + "ms, stages=" + getStageTimings() + ", phases=" + phaseTimings + "}";
+    }
+}
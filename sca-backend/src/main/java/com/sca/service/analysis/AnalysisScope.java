@@ -0,0 +1,231 @@
+package com.sca.service.analysis;
+
+import com.sca.model.Project;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Что именно анализируется в текущем запуске: весь проект или только изменившиеся файлы.
+ * Пути файлов относительные, от корня рабочей директории проекта, с разделителем "/".
+ */
+public class AnalysisScope {
+
+    /**
+     * Каталоги, которые не анализируются: служебные данные VCS, зависимости и результаты сборки
+     */
+    public static final Set<String> IGNORED_DIRECTORIES = Set.of(".git", "node_modules", "target", "build", ".idea", ".gradle");
+
+    private final Project project;
+    private final boolean incremental;
+    private final Path sourceRoot;
+    private final Set<String> affectedFiles;
+    private final Set<String> deletedFiles;
+    private final AnalysisManifest manifest;
+
+    // Файлы проекта по имени, строится при первом вызове resolveSourcePath
+    private volatile Map<String, List<String>> filesByName;
+
+    private AnalysisScope(Project project, boolean incremental, Path sourceRoot,
+                          Set<String> affectedFiles, Set<String> deletedFiles, AnalysisManifest manifest) {
+        this.project = project;
+        this.incremental = incremental;
+        this.sourceRoot = sourceRoot;
+        this.affectedFiles = affectedFiles;
+        this.deletedFiles = deletedFiles;
+        this.manifest = manifest;
+    }
+
+    /**
+     * Анализ всего проекта
+     */
+    public static AnalysisScope full(Project project, AnalysisManifest manifest) {
+        return new AnalysisScope(project, false, Paths.get(project.getWorkspacePath()), Set.of(), Set.of(), manifest);
+    }
+
+    /**
+     * Анализ только затронутых файлов. stagingRoot содержит копии этих файлов
+     * с той же структурой каталогов, что и рабочая директория.
+     */
+    public static AnalysisScope incremental(Project project, Path stagingRoot, Set<String> affectedFiles,
+                                            Set<String> deletedFiles, AnalysisManifest manifest) {
+        return new AnalysisScope(project, true, stagingRoot, affectedFiles, deletedFiles, manifest);
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Каталог, который копируется в контейнер для инструментов, проверяющих файлы по отдельности
+     */
+    public Path getSourceRoot() {
+        return sourceRoot;
+    }
+
+    /**
+     * Каталог со всем проектом - для инструментов, которым нужен весь исходный код (компиляция)
+     */
+    public Path getWorkspaceRoot() {
+        return Paths.get(project.getWorkspacePath());
+    }
+
+    /**
+     * Измененные файлы и файлы, которые от них зависят
+     */
+    public Set<String> getAffectedFiles() {
+        return affectedFiles;
+    }
+
+    public Set<String> getDeletedFiles() {
+        return deletedFiles;
+    }
+
+    /**
+     * Снимок рабочей директории, который сохраняется после успешного анализа
+     */
+    public AnalysisManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Объем исходного кода по языкам в байтах: файлов этого запуска
+     * или, если projectWide = true, всего проекта
+     */
+    public Map<String, Long> getSourceBytesByLanguage(boolean projectWide) {
+        Map<String, Long> bytes = new HashMap<>();
+        if (manifest == null || manifest.getFiles() == null) {
+            return bytes;
+        }
+        for (Map.Entry<String, AnalysisManifest.Entry> file : manifest.getFiles().entrySet()) {
+            if (!projectWide && !contains(file.getKey())) {
+                continue;
+            }
+            for (String language : SourceLanguage.languagesOf(file.getKey())) {
+                bytes.merge(language, file.getValue().getSize(), Long::sum);
+            }
+        }
+        return bytes;
+    }
+
+    public boolean isEmpty() {
+        return incremental && affectedFiles.isEmpty() && deletedFiles.isEmpty();
+    }
+
+    /**
+     * Попадает ли проблема в этом файле в область анализа
+     */
+    public boolean contains(String filePath) {
+        return !incremental || (filePath != null && affectedFiles.contains(filePath));
+    }
+
+    /**
+     * Файлы с указанным расширением в каталоге getSourceRoot().
+     * Для инкрементальной области каталог не обходится: берутся существующие затронутые файлы.
+     */
+    public List<Path> findSourceFiles(String extension) {
+        List<Path> files = new ArrayList<>();
+        if (incremental) {
+            for (String file : affectedFiles) {
+                Path path = sourceRoot.resolve(file);
+                if (file.endsWith(extension) && Files.isRegularFile(path)) {
+                    files.add(path);
+                }
+            }
+            return files;
+        }
+        try {
+            Files.walkFileTree(sourceRoot, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(sourceRoot) && IGNORED_DIRECTORIES.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && file.getFileName().toString().endsWith(extension)) {
+                        files.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list source files in " + sourceRoot, e);
+        }
+        return files;
+    }
+
+    /**
+     * Переводит путь из отчета инструмента в путь относительно рабочей директории.
+     * Каталог проекта копируется в контейнер как /workspace/&lt;имя каталога&gt;/...
+     */
+    public String toRelativePath(String reportedPath) {
+        if (reportedPath == null) {
+            return null;
+        }
+        String path = reportedPath.replace('\\', '/');
+        String containerPrefix = "/workspace/" + getWorkspaceRoot().getFileName() + "/";
+        if (path.startsWith(containerPrefix)) {
+            return path.substring(containerPrefix.length());
+        }
+        for (Path root : new Path[]{getWorkspaceRoot(), sourceRoot}) {
+            String hostPrefix = root.toAbsolutePath().toString().replace('\\', '/') + "/";
+            if (path.startsWith(hostPrefix)) {
+                return path.substring(hostPrefix.length());
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Находит файл проекта по пути относительно корня исходников, например
+     * com/sca/Foo.java -> src/main/java/com/sca/Foo.java. Такие пути выдают
+     * инструменты, работающие с байткодом. Если подходящих файлов несколько,
+     * берется самый короткий путь.
+     */
+    public String resolveSourcePath(String sourcePath) {
+        if (sourcePath == null) {
+            return null;
+        }
+        String path = sourcePath.replace('\\', '/');
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        String best = null;
+        for (String candidate : getFilesByName().getOrDefault(fileName, List.of())) {
+            if ((candidate.equals(path) || candidate.endsWith("/" + path))
+                    && (best == null || candidate.length() < best.length())) {
+                best = candidate;
+            }
+        }
+        return best != null ? best : path;
+    }
+
+    private Map<String, List<String>> getFilesByName() {
+        Map<String, List<String>> index = filesByName;
+        if (index == null) {
+            index = new HashMap<>();
+            for (String file : manifest.getFiles().keySet()) {
+                String fileName = file.substring(file.lastIndexOf('/') + 1);
+                index.computeIfAbsent(fileName, key -> new ArrayList<>()).add(file);
+            }
+            filesByName = index;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,37 @@
+package com.sca.service.analysis;
+
+/**
+ * Инструменты анализа, устанавливаемые в образ песочницы анализа
+ */
+public enum AnalyzerTool {
+    SONAR_SCANNER("sonar-scanner", "4.7.0.2747"),
+    PMD("pmd", "7.1.0"),
+    CHECKSTYLE("checkstyle", "10.12.5"),
+    SPOTBUGS("spotbugs", "4.8.3");
+
+    private final String key;
+    private final String defaultVersion;
+
+    AnalyzerTool(String key, String defaultVersion) {
+        this.key = key;
+        this.defaultVersion = defaultVersion;
+    }
+
+    /**
+     * Ключ инструмента в настройках analysis.images.versions
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getDefaultVersion() {
+        return defaultVersion;
+    }
+
+    /**
+     * Аргумент сборки образа песочницы с версией инструмента, например PMD_VERSION
+     */
+    public String getBuildArg() {
+        return key.toUpperCase().replace('-', '_') + "_VERSION";
+    }
+}
@@ -0,0 +1,184 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Изменения ветки head относительно base: файлы и строки head, которые ветка добавила
+ * или изменила с общего предка (git diff base...head). По ним анализ ветки отбирает проблемы.
+ */
+public class BranchDiff {
+
+    private static final Pattern HUNK = Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+    private final String baseRef;
+    private final String headRef;
+    private final String mergeBase;
+    private final String headCommit;
+    // Измененные диапазоны строк head [начало, конец] по файлам
+    private final Map<String, List<int[]>> changedLines;
+    private final Set<String> deletedFiles;
+
+    public BranchDiff(String baseRef, String headRef, String mergeBase, String headCommit,
+                      Map<String, List<int[]>> changedLines, Set<String> deletedFiles) {
+        this.baseRef = baseRef;
+        this.headRef = headRef;
+        this.mergeBase = mergeBase;
+        this.headCommit = headCommit;
+        this.changedLines = changedLines;
+        this.deletedFiles = deletedFiles;
+    }
+
+    /**
+     * Разбирает вывод git diff --unified=0. Файлы без измененных строк (переименование
+     * без правок, смена прав) не считаются измененными. Удаление строк отмечает
+     * строки head вокруг места удаления: проблема может появиться рядом с ним.
+     */
+    public static BranchDiff parse(String baseRef, String headRef, String mergeBase, String headCommit, String diff) {
+        Map<String, List<int[]>> changed = new LinkedHashMap<>();
+        Set<String> deleted = new HashSet<>();
+        String oldPath = null;
+        String current = null;
+
+        for (String line : diff.split("\n")) {
+            if (line.startsWith("diff --git ")) {
+                oldPath = null;
+                current = null;
+            } else if (line.startsWith("--- ")) {
+                oldPath = stripPrefix(line.substring(4), "a/");
+            } else if (line.startsWith("+++ ")) {
+                current = stripPrefix(line.substring(4), "b/");
+                if (current == null && oldPath != null) {
+                    deleted.add(oldPath);
+                }
+            } else if (line.startsWith("Binary files ") && line.endsWith(" differ")) {
+                // Двоичный файл: строк нет, файл целиком считается измененным
+                int and = line.lastIndexOf(" and ");
+                String path = stripPrefix(line.substring(and + 5, line.length() - 7), "b/");
+                if (path != null) {
+                    changed.computeIfAbsent(path, key -> new ArrayList<>());
+                } else {
+                    String removed = stripPrefix(line.substring("Binary files ".length(), and), "a/");
+                    if (removed != null) {
+                        deleted.add(removed);
+                    }
+                }
+            } else if (current != null && line.startsWith("@@")) {
+                Matcher matcher = HUNK.matcher(line);
+                if (!matcher.find()) {
+                    continue;
+                }
+                int start = Integer.parseInt(matcher.group(1));
+                int count = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+                int[] range = count > 0
+                        ? new int[] {start, start + count - 1}
+                        : new int[] {Math.max(1, start), start + 1};
+                changed.computeIfAbsent(current, key -> new ArrayList<>()).add(range);
+            }
+        }
+        return new BranchDiff(baseRef, headRef, mergeBase, headCommit, changed, deleted);
+    }
+
+    public String getBaseRef() {
+        return baseRef;
+    }
+
+    public String getHeadRef() {
+        return headRef;
+    }
+
+    /**
+     * Общий предок base и head, от которого считаются изменения
+     */
+    public String getMergeBase() {
+        return mergeBase;
+    }
+
+    public String getHeadCommit() {
+        return headCommit;
+    }
+
+    /**
+     * Добавленные и измененные файлы, существующие в head
+     */
+    public Set<String> getChangedFiles() {
+        return Collections.unmodifiableSet(changedLines.keySet());
+    }
+
+    public Set<String> getDeletedFiles() {
+        return deletedFiles;
+    }
+
+    public boolean isEmpty() {
+        return changedLines.isEmpty() && deletedFiles.isEmpty();
+    }
+
+    /**
+     * Пересекает ли проблема измененные строки. Проблема без строки относится
+     * ко всему файлу и учитывается, если файл изменен.
+     */
+    public boolean touches(CodeProblem problem) {
+        List<int[]> ranges = changedLines.get(problem.getFilePath());
+        if (ranges == null) {
+            return false;
+        }
+        Integer start = problem.getStartLine();
+        if (start == null || start <= 0 || ranges.isEmpty()) {
+            return true;
+        }
+        Integer end = problem.getEndLine();
+        int last = end != null && end >= start ? end : start;
+        for (int[] range : ranges) {
+            if (start <= range[1] && last >= range[0]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проблемы, пересекающие изменения ветки
+     */
+    public List<CodeProblem> filter(List<CodeProblem> problems) {
+        List<CodeProblem> touched = new ArrayList<>();
+        for (CodeProblem problem : problems) {
+            if (touches(problem)) {
+                touched.add(problem);
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Путь из заголовка diff без префикса a/ или b/; null для /dev/null.
+     * Пути со спецсимволами git выводит в кавычках.
+     */
+    private static String stripPrefix(String path, String prefix) {
+        int tab = path.indexOf('\t');
+        if (tab >= 0) {
+            path = path.substring(0, tab);
+        }
+        if (path.length() > 1 && path.startsWith("\"") && path.endsWith("\"")) {
+            path = path.substring(1, path.length() - 1).replace("\\\"", "\"").replace("\\\\", "\\");
+        }
+        if (path.equals("/dev/null")) {
+            return null;
+        }
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
+
+    @Override
+    public String toString() {
+        return "BranchDiff{" + baseRef + "..." + headRef + ", changed=" + changedLines.size()
+                + ", deleted=" + deletedFiles.size() + "}";
+    }
+}
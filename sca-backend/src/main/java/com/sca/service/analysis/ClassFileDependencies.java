@@ -0,0 +1,95 @@
+package com.sca.service.analysis;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Классы, на которые ссылается class файл, по его пулу констант: ссылки на классы
+ * и типы из дескрипторов и сигнатур полей и методов.
+ * Константы времени компиляции (static final примитивы и строки) javac подставляет
+ * значением, такие зависимости в пуле не видны.
+ */
+public final class ClassFileDependencies {
+
+    private static final int MAGIC = 0xCAFEBABE;
+    // Тип объекта в дескрипторе или сигнатуре: Lcom/sca/Foo; или Lcom/sca/Foo<...>;
+    private static final Pattern OBJECT_TYPE = Pattern.compile("L([\\w/$]+)[;<]");
+
+    private ClassFileDependencies() {}
+
+    /**
+     * Внутренние имена (com/sca/Foo$Bar) классов, на которые ссылается класс, без него самого
+     */
+    public static Set<String> read(InputStream classFile) throws IOException {
+        DataInputStream in = new DataInputStream(classFile);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor_version
+        in.readUnsignedShort(); // major_version
+
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        // Для записей Class - индекс Utf8 с именем класса, для остальных 0
+        int[] classNames = new int[count];
+
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1 -> utf8[i] = in.readUTF();                       // Utf8
+                case 7 -> classNames[i] = in.readUnsignedShort();       // Class
+                case 8, 16, 19, 20 -> in.readUnsignedShort();           // String, MethodType, Module, Package
+                case 15 -> {                                            // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                }
+                case 3, 4, 9, 10, 11, 12, 17, 18 -> in.readInt();       // Integer, Float, *ref, NameAndType, Dynamic
+                case 5, 6 -> {                                          // Long, Double занимают две ячейки
+                    in.readLong();
+                    i++;
+                }
+                default -> throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+
+        in.readUnsignedShort(); // access_flags
+        String self = utf8[classNames[in.readUnsignedShort()]];
+
+        Set<String> dependencies = new HashSet<>();
+        for (int nameIndex : classNames) {
+            if (nameIndex != 0) {
+                addClassName(utf8[nameIndex], dependencies);
+            }
+        }
+        for (String value : utf8) {
+            if (value != null && value.indexOf(';') > 0) {
+                Matcher matcher = OBJECT_TYPE.matcher(value);
+                while (matcher.find()) {
+                    dependencies.add(matcher.group(1));
+                }
+            }
+        }
+        dependencies.remove(self);
+        return dependencies;
+    }
+
+    private static void addClassName(String name, Set<String> dependencies) {
+        if (name == null) {
+            return;
+        }
+        if (name.startsWith("[")) {
+            // Массив: [Lcom/sca/Foo; или массив примитивов
+            Matcher matcher = OBJECT_TYPE.matcher(name);
+            if (matcher.find()) {
+                dependencies.add(matcher.group(1));
+            }
+            return;
+        }
+        dependencies.add(name);
+    }
+}
@@ -0,0 +1,220 @@
+package com.sca.service.analysis;
+
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.ThreadModeSettings;
+import com.puppycrawl.tools.checkstyle.api.AuditEvent;
+import com.puppycrawl.tools.checkstyle.api.AuditListener;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checkstyle, запускаемый как библиотека внутри JVM бэкенда.
+ * Конфигурация разбирается один раз. Checker не потокобезопасен, поэтому
+ * настроенные экземпляры хранятся в пуле и переиспользуются, а файлы
+ * делятся на части, которые проверяются параллельно.
+ */
+@Component
+public class EmbeddedCheckstyleEngine {
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private final ConcurrentLinkedQueue<Checker> idleCheckers = new ConcurrentLinkedQueue<>();
+
+    private volatile Configuration configuration;
+
+    private volatile ExecutorService workers;
+
+    /**
+     * Версия Checkstyle, с которой собран бэкенд
+     */
+    public String getVersion() {
+        String version = Checker.class.getPackage().getImplementationVersion();
+        return version != null ? version : "unknown";
+    }
+
+    public List<CodeProblem> analyze(AnalysisScope scope) {
+        List<Path> files = scope.findSourceFiles(".java");
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
+        List<List<File>> partitions = partition(files, analysisProperties.getEmbedded().getThreads());
+        List<Future<List<CodeProblem>>> futures = new ArrayList<>();
+        for (List<File> partition : partitions) {
+            futures.add(getWorkers().submit(() -> check(scope, partition)));
+        }
+
+        List<CodeProblem> problems = new ArrayList<>();
+        try {
+            for (Future<List<CodeProblem>> future : futures) {
+                problems.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Checkstyle analysis interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+        return problems;
+    }
+
+    /**
+     * Проверяет часть файлов на свободном Checker из пула
+     */
+    private List<CodeProblem> check(AnalysisScope scope, List<File> files) throws CheckstyleException {
+        Checker checker = idleCheckers.poll();
+        if (checker == null) {
+            checker = createChecker();
+        }
+
+        ProblemCollector collector = new ProblemCollector(scope);
+        checker.addListener(collector);
+        try {
+            checker.process(files);
+        } finally {
+            checker.removeListener(collector);
+            idleCheckers.offer(checker);
+        }
+        return collector.getProblems();
+    }
+
+    private Checker createChecker() throws CheckstyleException {
+        Checker checker = new Checker();
+        checker.setModuleClassLoader(Checker.class.getClassLoader());
+        checker.configure(getConfiguration());
+        return checker;
+    }
+
+    private Configuration getConfiguration() throws CheckstyleException {
+        Configuration loaded = configuration;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = configuration;
+                if (loaded == null) {
+                    String location = analysisProperties.getEmbedded().getCheckstyleConfig();
+                    loaded = ConfigurationLoader.loadConfiguration(location,
+                            new PropertiesExpander(System.getProperties()),
+                            ConfigurationLoader.IgnoredModulesOptions.OMIT,
+                            ThreadModeSettings.SINGLE_THREAD_MODE_INSTANCE);
+                    configuration = loaded;
+                    System.out.println("Loaded Checkstyle configuration " + location);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private ExecutorService getWorkers() {
+        ExecutorService executor = workers;
+        if (executor == null) {
+            synchronized (this) {
+                executor = workers;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(analysisProperties.getEmbedded().getThreads(), runnable -> {
+                        Thread thread = new Thread(runnable, "checkstyle-worker");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    workers = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private static List<List<File>> partition(List<Path> files, int parts) {
+        int count = Math.max(1, Math.min(parts, files.size()));
+        List<List<File>> partitions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < files.size(); i++) {
+            partitions.get(i % count).add(files.get(i).toFile());
+        }
+        return partitions;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+        Checker checker;
+        while ((checker = idleCheckers.poll()) != null) {
+            checker.destroy();
+        }
+    }
+
+    /**
+     * Собирает нарушения одного вызова Checker.process
+     */
+    private static class ProblemCollector implements AuditListener {
+
+        private final AnalysisScope scope;
+        private final List<CodeProblem> problems = Collections.synchronizedList(new ArrayList<>());
+
+        ProblemCollector(AnalysisScope scope) {
+            this.scope = scope;
+        }
+
+        List<CodeProblem> getProblems() {
+            return problems;
+        }
+
+        @Override
+        public void addError(AuditEvent event) {
+            Project project = scope.getProject();
+            CodeProblem problem = ProblemMapping.newProblem(project,
+                    scope.toRelativePath(event.getFileName()),
+                    ProblemMapping.checkstyleRuleId(event.getSourceName()),
+                    event.getMessage(),
+                    ProblemMapping.fromCheckstyleSeverity(event.getSeverityLevel().getName()),
+                    CodeProblem.ProblemType.CODE_SMELL);
+            ProblemMapping.setPosition(problem, event.getLine(), event.getColumn(), 0, 0);
+            problems.add(problem);
+        }
+
+        @Override
+        public void addException(AuditEvent event, Throwable throwable) {
+            System.err.println("Checkstyle failed to process " + event.getFileName() + ": " + throwable.getMessage());
+        }
+
+        @Override
+        public void auditStarted(AuditEvent event) {
+        }
+
+        @Override
+        public void auditFinished(AuditEvent event) {
+        }
+
+        @Override
+        public void fileStarted(AuditEvent event) {
+        }
+
+        @Override
+        public void fileFinished(AuditEvent event) {
+        }
+    }
+}
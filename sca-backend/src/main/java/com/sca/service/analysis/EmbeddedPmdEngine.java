@@ -0,0 +1,104 @@
+package com.sca.service.analysis;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PMD, запускаемый как библиотека внутри JVM бэкенда.
+ * Набор правил разбирается один раз и переиспользуется во всех запусках,
+ * файлы обрабатываются параллельно потоками PMD.
+ */
+@Component
+public class EmbeddedPmdEngine {
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private volatile RuleSet ruleSet;
+
+    /**
+     * Версия PMD, с которой собран бэкенд
+     */
+    public String getVersion() {
+        return PMDVersion.VERSION;
+    }
+
+    public List<CodeProblem> analyze(AnalysisScope scope) {
+        List<Path> files = scope.findSourceFiles(".java");
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
+        PMDConfiguration configuration = createConfiguration();
+        Report report;
+        try (PmdAnalysis analysis = PmdAnalysis.create(configuration)) {
+            analysis.addRuleSet(getRuleSet(configuration));
+            for (Path file : files) {
+                analysis.files().addFile(file);
+            }
+            report = analysis.performAnalysisAndCollectReport();
+        }
+
+        for (Report.ProcessingError error : report.getProcessingErrors()) {
+            System.err.println("PMD failed to process " + error.getFileId().getOriginalPath() + ": " + error.getMsg());
+        }
+
+        Project project = scope.getProject();
+        List<CodeProblem> problems = new ArrayList<>();
+        for (RuleViolation violation : report.getViolations()) {
+            CodeProblem problem = ProblemMapping.newProblem(project,
+                    scope.toRelativePath(violation.getFileId().getAbsolutePath()),
+                    violation.getRule().getName(),
+                    violation.getDescription(),
+                    ProblemMapping.fromPmdPriority(violation.getRule().getPriority().getPriority()),
+                    CodeProblem.ProblemType.CODE_SMELL);
+            problem.setCategory(violation.getRule().getRuleSetName());
+            ProblemMapping.setPosition(problem, violation.getBeginLine(), violation.getBeginColumn(),
+                    violation.getEndLine(), violation.getEndColumn());
+            problems.add(problem);
+        }
+        return problems;
+    }
+
+    private PMDConfiguration createConfiguration() {
+        AnalysisProperties.Embedded embedded = analysisProperties.getEmbedded();
+        PMDConfiguration configuration = new PMDConfiguration();
+        Language java = configuration.getLanguageRegistry().getLanguageById("java");
+        configuration.setOnlyRecognizeLanguage(java);
+        configuration.setThreads(embedded.getThreads());
+        // Кэш PMD на диске не нужен: повторный анализ неизмененных файлов отсекает манифест
+        configuration.setIgnoreIncrementalAnalysis(true);
+        return configuration;
+    }
+
+    private RuleSet getRuleSet(PMDConfiguration configuration) {
+        RuleSet loaded = ruleSet;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = ruleSet;
+                if (loaded == null) {
+                    String ruleset = analysisProperties.getEmbedded().getPmdRuleset();
+                    loaded = RuleSetLoader.fromPmdConfig(configuration).loadFromResource(ruleset);
+                    ruleSet = loaded;
+                    System.out.println("Loaded PMD ruleset " + ruleset + ": " + loaded.size() + " rules");
+                }
+            }
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,58 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Результат анализа одного файла после сохранения. Клиентам по WebSocket
+ * его рассылает WebSocketController.
+ */
+public class FileDiagnosticsEvent {
+
+    private final Project project;
+    private final String filePath;
+    private final Set<String> recipients;
+    private final List<CodeProblem> problems;
+    private final long durationMillis;
+
+    public FileDiagnosticsEvent(Project project, String filePath, Set<String> recipients,
+                                List<CodeProblem> problems, long durationMillis) {
+        this.project = project;
+        this.filePath = filePath;
+        this.recipients = recipients;
+        this.problems = problems;
+        this.durationMillis = durationMillis;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Пользователи, сохранявшие файл с момента предыдущего анализа
+     */
+    public Set<String> getRecipients() {
+        return recipients;
+    }
+
+    /**
+     * Все проблемы файла по быстрым правилам; заменяют предыдущую диагностику файла
+     */
+    public List<CodeProblem> getProblems() {
+        return problems;
+    }
+
+    /**
+     * Время от последнего сохранения до готовности результата
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
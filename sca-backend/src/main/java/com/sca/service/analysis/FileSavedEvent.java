@@ -0,0 +1,35 @@
+package com.sca.service.analysis;
+
+import com.sca.model.Project;
+
+/**
+ * Файл проекта сохранен пользователем через REST или WebSocket.
+ * Публикуется ProjectService после записи файла на диск.
+ */
+public class FileSavedEvent {
+
+    private final Project project;
+    private final String filePath;
+    private final String username;
+
+    public FileSavedEvent(Project project, String filePath, String username) {
+        this.project = project;
+        this.filePath = filePath;
+        this.username = username;
+    }
+
+    public Project getProject() {
+        return project;
+    }
+
+    /**
+     * Путь относительно рабочей директории проекта, с разделителем "/"
+     */
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
@@ -0,0 +1,405 @@
+package com.sca.service.analysis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Компиляция Java исходников проекта для анализаторов байткода через javax.tools в JVM бэкенда.
+ * Классы хранятся между запусками в каталоге проекта; перекомпилируются только измененные
+ * исходники и исходники, чьи классы ссылаются на классы измененных (по пулу констант).
+ * Компиляции выполняются по одной с общим файловым менеджером: он кэширует открытые
+ * архивы платформы, и повторные запуски не разбирают их заново.
+ */
+@Component
+public class IncrementalCompiler {
+
+    // Пользовательский код компилируется без запуска процессоров аннотаций - они выполнили бы его в JVM бэкенда
+    private static final List<String> OPTIONS = List.of("-proc:none", "-implicit:none", "-g", "-nowarn", "-encoding", "UTF-8");
+
+    // Исходники с ошибками исключаются, и остальные компилируются заново не больше этого числа раз
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${filesystem.classes.path:/tmp/sca-classes}")
+    private String classesPath;
+
+    private JavaCompiler compiler;
+    private StandardJavaFileManager fileManager;
+
+    /**
+     * Результат компиляции: каталог со всеми актуальными классами проекта
+     */
+    public static class Result {
+        private final Path classesDir;
+        private final int compiledSources;
+        private final Set<String> failedSources;
+        private final long durationMillis;
+
+        public Result(Path classesDir, int compiledSources, Set<String> failedSources, long durationMillis) {
+            this.classesDir = classesDir;
+            this.compiledSources = compiledSources;
+            this.failedSources = failedSources;
+            this.durationMillis = durationMillis;
+        }
+
+        public Path getClassesDir() {
+            return classesDir;
+        }
+
+        public int getCompiledSources() {
+            return compiledSources;
+        }
+
+        public Set<String> getFailedSources() {
+            return failedSources;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Сохраняемое между запусками состояние: для каждого исходника хеш,
+     * созданные из него классы и классы, на которые они ссылаются
+     */
+    public static class State {
+        private Map<String, SourceState> sources = new HashMap<>();
+
+        public Map<String, SourceState> getSources() {
+            return sources;
+        }
+
+        public void setSources(Map<String, SourceState> sources) {
+            this.sources = sources;
+        }
+    }
+
+    public static class SourceState {
+        // null - исходник не скомпилировался и будет скомпилирован в следующий раз
+        private String hash;
+        private Set<String> classes = new HashSet<>();
+        private Set<String> dependencies = new HashSet<>();
+
+        public String getHash() {
+            return hash;
+        }
+
+        public void setHash(String hash) {
+            this.hash = hash;
+        }
+
+        public Set<String> getClasses() {
+            return classes;
+        }
+
+        public void setClasses(Set<String> classes) {
+            this.classes = classes;
+        }
+
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        public void setDependencies(Set<String> dependencies) {
+            this.dependencies = dependencies;
+        }
+    }
+
+    /**
+     * Приводит классы проекта в соответствие с исходниками из манифеста области анализа
+     */
+    public synchronized Result compile(AnalysisScope scope) {
+        long startedAt = System.nanoTime();
+        Long projectId = scope.getProject().getId();
+        Path projectDir = Paths.get(classesPath, "project-" + projectId);
+        Path classesDir = projectDir.resolve("classes");
+        Path stateFile = projectDir.resolve("state.json");
+
+        Map<String, String> current = new HashMap<>();
+        scope.getManifest().getFiles().forEach((file, entry) -> {
+            if (file.endsWith(".java")) {
+                current.put(file, entry.getHash());
+            }
+        });
+
+        State state = Files.isDirectory(classesDir) ? loadState(stateFile) : new State();
+        Map<String, SourceState> sources = state.getSources();
+        if (sources.isEmpty()) {
+            // Без состояния неизвестно, каким исходникам принадлежат классы - собираем с нуля
+            deleteRecursively(classesDir);
+        }
+
+        Set<String> changed = new HashSet<>();
+        current.forEach((file, hash) -> {
+            SourceState source = sources.get(file);
+            if (source == null || source.getHash() == null || !source.getHash().equals(hash)) {
+                changed.add(file);
+            }
+        });
+        Set<String> deleted = new HashSet<>(sources.keySet());
+        deleted.removeAll(current.keySet());
+
+        Set<String> toCompile = new HashSet<>(changed);
+        Set<String> modified = new HashSet<>(changed);
+        modified.addAll(deleted);
+        for (String dependent : findDependents(sources, modified)) {
+            if (current.containsKey(dependent)) {
+                toCompile.add(dependent);
+            }
+        }
+
+        try {
+            Files.createDirectories(classesDir);
+            for (String file : deleted) {
+                deleteClasses(classesDir, sources.remove(file));
+            }
+            for (String file : toCompile) {
+                deleteClasses(classesDir, sources.remove(file));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare classes directory " + classesDir, e);
+        }
+
+        Set<String> failed = new HashSet<>();
+        if (!toCompile.isEmpty()) {
+            Set<String> pending = new HashSet<>(toCompile);
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS && !pending.isEmpty(); attempt++) {
+                Set<String> errors = javac(scope.getWorkspaceRoot().toAbsolutePath().normalize(), classesDir, pending, current, sources);
+                if (errors.isEmpty()) {
+                    break;
+                }
+                failed.addAll(errors);
+                pending.removeAll(errors);
+            }
+            failed.addAll(pending.stream().filter(file -> !sources.containsKey(file)).toList());
+            // Исходники с ошибками запоминаются без хеша, чтобы повторить их компиляцию в следующий раз
+            for (String file : failed) {
+                sources.putIfAbsent(file, new SourceState());
+            }
+            saveState(stateFile, state);
+        } else if (!deleted.isEmpty()) {
+            saveState(stateFile, state);
+        }
+
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        System.out.println("Compiled project " + projectId + ": " + (toCompile.size() - failed.size()) + " of "
+                + current.size() + " sources (" + changed.size() + " changed, " + deleted.size() + " deleted, "
+                + failed.size() + " failed) in " + durationMillis + " ms");
+        return new Result(classesDir, toCompile.size() - failed.size(), failed, durationMillis);
+    }
+
+    /**
+     * Исходники, классы которых ссылаются на классы измененных или удаленных исходников
+     */
+    static Set<String> findDependents(Map<String, SourceState> sources, Collection<String> modified) {
+        Set<String> changedClasses = new HashSet<>();
+        for (String file : modified) {
+            SourceState source = sources.get(file);
+            if (source != null) {
+                changedClasses.addAll(source.getClasses());
+            }
+        }
+        Set<String> dependents = new HashSet<>();
+        if (changedClasses.isEmpty()) {
+            return dependents;
+        }
+        sources.forEach((file, source) -> {
+            if (!modified.contains(file)) {
+                for (String dependency : source.getDependencies()) {
+                    if (changedClasses.contains(dependency)) {
+                        dependents.add(file);
+                        break;
+                    }
+                }
+            }
+        });
+        return dependents;
+    }
+
+    /**
+     * Один вызов javac для всех исходников. Возвращает исходники с ошибками;
+     * если ошибок нет, состояние скомпилированных исходников обновлено.
+     */
+    private Set<String> javac(Path root, Path classesDir, Set<String> files,
+                              Map<String, String> hashes, Map<String, SourceState> sources) {
+        StandardJavaFileManager standard = getFileManager();
+        Map<String, Set<String>> outputs = new ConcurrentHashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        try {
+            standard.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(classesDir));
+            // Классы неизмененных исходников берутся из того же каталога
+            standard.setLocationFromPaths(StandardLocation.CLASS_PATH, List.of(classesDir));
+
+            List<Path> paths = new ArrayList<>();
+            for (String file : files) {
+                paths.add(root.resolve(file));
+            }
+            JavaFileManager tracking = new ForwardingJavaFileManager<>(standard) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                           JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+                    if (sibling != null && kind == JavaFileObject.Kind.CLASS) {
+                        String source = root.relativize(Paths.get(sibling.toUri())).toString().replace('\\', '/');
+                        outputs.computeIfAbsent(source, key -> ConcurrentHashMap.newKeySet()).add(className.replace('.', '/'));
+                    }
+                    return super.getJavaFileForOutput(location, className, kind, sibling);
+                }
+            };
+
+            boolean success = compiler.getTask(null, tracking, diagnostics, OPTIONS, null,
+                    standard.getJavaFileObjectsFromPaths(paths)).call();
+
+            if (!success) {
+                Set<String> errors = new HashSet<>();
+                for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                    if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() != null) {
+                        errors.add(root.relativize(Paths.get(diagnostic.getSource().toUri())).toString().replace('\\', '/'));
+                    }
+                }
+                // Ошибка без исходника (например, неверная опция) - повторять бессмысленно
+                if (errors.isEmpty()) {
+                    errors.addAll(files);
+                }
+                System.err.println("Compilation failed for " + errors.size() + " sources, first: "
+                        + firstError(diagnostics));
+                // При ошибке javac не пишет классы, удаляем то, что успело появиться
+                for (Set<String> classes : outputs.values()) {
+                    for (String className : classes) {
+                        Files.deleteIfExists(classesDir.resolve(className + ".class"));
+                    }
+                }
+                return errors;
+            }
+
+            for (String file : files) {
+                SourceState source = new SourceState();
+                source.setHash(hashes.get(file));
+                source.setClasses(new HashSet<>(outputs.getOrDefault(file, Set.of())));
+                for (String className : source.getClasses()) {
+                    try (InputStream classFile = Files.newInputStream(classesDir.resolve(className + ".class"))) {
+                        source.getDependencies().addAll(ClassFileDependencies.read(classFile));
+                    }
+                }
+                source.getDependencies().removeAll(source.getClasses());
+                sources.put(file, source);
+            }
+            return Set.of();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to compile project sources: " + e.getMessage(), e);
+        } finally {
+            try {
+                standard.flush();
+            } catch (IOException e) {
+                System.err.println("Failed to flush compiler file manager: " + e.getMessage());
+            }
+        }
+    }
+
+    private StandardJavaFileManager getFileManager() {
+        if (fileManager == null) {
+            compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                throw new RuntimeException("Java compiler is not available: backend must run on a JDK");
+            }
+            fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        }
+        return fileManager;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (fileManager != null) {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close compiler file manager: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String firstError(DiagnosticCollector<JavaFileObject> diagnostics) {
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                return diagnostic.toString();
+            }
+        }
+        return "unknown error";
+    }
+
+    private static void deleteClasses(Path classesDir, SourceState source) throws IOException {
+        if (source == null) {
+            return;
+        }
+        for (String className : source.getClasses()) {
+            Files.deleteIfExists(classesDir.resolve(className + ".class"));
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private State loadState(Path stateFile) {
+        if (!Files.isRegularFile(stateFile)) {
+            return new State();
+        }
+        try {
+            return objectMapper.readValue(stateFile.toFile(), State.class);
+        } catch (IOException e) {
+            System.err.println("Failed to read compilation state " + stateFile + ", recompiling: " + e.getMessage());
+            return new State();
+        }
+    }
+
+    private void saveState(Path stateFile, State state) {
+        try {
+            Files.createDirectories(stateFile.getParent());
+            Path tmp = Files.createTempFile(stateFile.getParent(), "state", ".tmp");
+            objectMapper.writeValue(tmp.toFile(), state);
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save compilation state " + stateFile + ": " + e.getMessage());
+        }
+    }
+}
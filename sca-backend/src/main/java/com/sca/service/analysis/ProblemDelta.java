@@ -0,0 +1,52 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.util.List;
+
+/**
+ * Разница между открытыми проблемами проекта до и после запуска анализа,
+ * сопоставленными по отпечатку
+ */
+public class ProblemDelta {
+
+    private final List<CodeProblem> added;
+    private final List<CodeProblem> fixed;
+    private final int unchanged;
+
+    public ProblemDelta(List<CodeProblem> added, List<CodeProblem> fixed, int unchanged) {
+        this.added = added;
+        this.fixed = fixed;
+        this.unchanged = unchanged;
+    }
+
+    public static ProblemDelta empty() {
+        return new ProblemDelta(List.of(), List.of(), 0);
+    }
+
+    /**
+     * Новые проблемы, сохраненные в этом запуске
+     */
+    public List<CodeProblem> getAdded() {
+        return added;
+    }
+
+    /**
+     * Проблемы, которые больше не находятся; помечены resolved
+     */
+    public List<CodeProblem> getFixed() {
+        return fixed;
+    }
+
+    /**
+     * Число проблем, найденных повторно
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return "ProblemDelta{added=" + added.size() + ", fixed=" + fixed.size() + ", unchanged=" + unchanged + "}";
+    }
+}
@@ -0,0 +1,104 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Стабильный идентификатор проблемы между запусками анализа.
+ * Строится из правила, пути файла и нормализованного текста строки с проблемой,
+ * поэтому не меняется при сдвиге кода вверх или вниз. Одинаковые проблемы
+ * на одинаковых строках различаются порядковым номером в файле.
+ */
+public final class ProblemFingerprint {
+
+    private ProblemFingerprint() {}
+
+    /**
+     * Вычисляет отпечатки проблем. Каждый файл читается один раз.
+     */
+    public static void assign(AnalysisScope scope, List<CodeProblem> problems) {
+        Map<String, List<CodeProblem>> byFile = new LinkedHashMap<>();
+        for (CodeProblem problem : problems) {
+            byFile.computeIfAbsent(problem.getFilePath() != null ? problem.getFilePath() : "", file -> new ArrayList<>())
+                    .add(problem);
+        }
+
+        for (Map.Entry<String, List<CodeProblem>> entry : byFile.entrySet()) {
+            List<String> lines = readLines(scope, entry.getKey());
+            List<CodeProblem> fileProblems = entry.getValue();
+            // Порядковые номера не должны зависеть от порядка, в котором инструмент выдал проблемы
+            fileProblems.sort(Comparator.comparing(CodeProblem::getStartLine, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (CodeProblem problem : fileProblems) {
+                String key = problem.getRuleId() + "\n" + entry.getKey() + "\n" + context(problem, lines);
+                int occurrence = occurrences.merge(key, 1, Integer::sum);
+                problem.setFingerprint(sha256(key + "\n" + occurrence));
+            }
+        }
+    }
+
+    /**
+     * Текст строки с проблемой без пробелов. Если строка недоступна - описание без чисел,
+     * в которых инструменты часто указывают номера строк.
+     */
+    private static String context(CodeProblem problem, List<String> lines) {
+        Integer line = problem.getStartLine();
+        if (line != null && line > 0 && line <= lines.size()) {
+            return lines.get(line - 1).replaceAll("\\s+", "");
+        }
+        String description = problem.getDescription() != null ? problem.getDescription() : "";
+        return description.replaceAll("\\d+", "#");
+    }
+
+    /**
+     * Строки файла в проанализированном состоянии: копия в области анализа
+     * (для анализа ветки - состояние коммита), иначе файл рабочей директории
+     */
+    private static List<String> readLines(AnalysisScope scope, String filePath) {
+        if (filePath.isEmpty()) {
+            return List.of();
+        }
+        Path file = resolve(scope.getSourceRoot(), filePath);
+        if (file == null) {
+            file = resolve(scope.getWorkspaceRoot(), filePath);
+        }
+        if (file == null) {
+            return List.of();
+        }
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).lines().toList();
+        } catch (IOException e) {
+            System.err.println("Failed to read " + filePath + " for fingerprinting: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static Path resolve(Path root, String filePath) {
+        Path normalizedRoot = root.normalize();
+        Path file = normalizedRoot.resolve(filePath).normalize();
+        return file.startsWith(normalizedRoot) && Files.isRegularFile(file) ? file : null;
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
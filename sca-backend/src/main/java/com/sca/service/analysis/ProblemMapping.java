@@ -0,0 +1,125 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+
+/**
+ * Общие правила перевода находок инструментов в CodeProblem
+ */
+public final class ProblemMapping {
+
+    // Ограничения длины полей CodeProblem
+    private static final int MAX_DESCRIPTION = 500;
+    private static final int MAX_FILE_PATH = 255;
+    private static final int MAX_RULE_ID = 100;
+
+    private ProblemMapping() {}
+
+    public static CodeProblem newProblem(Project project, String filePath, String ruleId, String message,
+                                         CodeProblem.ProblemSeverity severity, CodeProblem.ProblemType type) {
+        CodeProblem problem = new CodeProblem();
+        problem.setProject(project);
+        problem.setFilePath(truncate(filePath, MAX_FILE_PATH));
+        problem.setRuleId(truncate(ruleId, MAX_RULE_ID));
+        problem.setDescription(truncate(message == null || message.isBlank() ? ruleId : message.trim(), MAX_DESCRIPTION));
+        problem.setSeverity(severity);
+        problem.setType(type);
+        return problem;
+    }
+
+    /**
+     * Задает позицию проблемы. Нулевые и отрицательные значения означают "неизвестно".
+     */
+    public static void setPosition(CodeProblem problem, int startLine, int startColumn, int endLine, int endColumn) {
+        problem.setStartLine(startLine > 0 ? startLine : null);
+        problem.setStartColumn(startColumn > 0 ? startColumn : null);
+        problem.setEndLine(endLine > 0 ? endLine : problem.getStartLine());
+        problem.setEndColumn(endColumn > 0 ? endColumn : null);
+    }
+
+    /**
+     * Приоритет PMD: 1 - высший, 5 - низший
+     */
+    public static CodeProblem.ProblemSeverity fromPmdPriority(int priority) {
+        if (priority <= 1) {
+            return CodeProblem.ProblemSeverity.CRITICAL;
+        }
+        if (priority == 2) {
+            return CodeProblem.ProblemSeverity.ERROR;
+        }
+        if (priority == 3) {
+            return CodeProblem.ProblemSeverity.WARNING;
+        }
+        return CodeProblem.ProblemSeverity.INFO;
+    }
+
+    /**
+     * Уровень Checkstyle: error, warning, info, ignore
+     */
+    public static CodeProblem.ProblemSeverity fromCheckstyleSeverity(String severity) {
+        if (severity == null) {
+            return CodeProblem.ProblemSeverity.WARNING;
+        }
+        switch (severity.toLowerCase()) {
+            case "error":
+                return CodeProblem.ProblemSeverity.ERROR;
+            case "info":
+            case "ignore":
+                return CodeProblem.ProblemSeverity.INFO;
+            default:
+                return CodeProblem.ProblemSeverity.WARNING;
+        }
+    }
+
+    /**
+     * Важность SonarQube: BLOCKER, CRITICAL, MAJOR, MINOR, INFO
+     */
+    public static CodeProblem.ProblemSeverity fromSonarSeverity(String severity) {
+        if (severity == null) {
+            return CodeProblem.ProblemSeverity.WARNING;
+        }
+        switch (severity.toUpperCase()) {
+            case "BLOCKER":
+                return CodeProblem.ProblemSeverity.CRITICAL;
+            case "CRITICAL":
+                return CodeProblem.ProblemSeverity.ERROR;
+            case "MINOR":
+            case "INFO":
+                return CodeProblem.ProblemSeverity.INFO;
+            default:
+                return CodeProblem.ProblemSeverity.WARNING;
+        }
+    }
+
+    /**
+     * Тип проблемы SonarQube: BUG, VULNERABILITY, CODE_SMELL, SECURITY_HOTSPOT
+     */
+    public static CodeProblem.ProblemType fromSonarType(String type) {
+        if (type != null) {
+            for (CodeProblem.ProblemType value : CodeProblem.ProblemType.values()) {
+                if (value.name().equalsIgnoreCase(type)) {
+                    return value;
+                }
+            }
+        }
+        return CodeProblem.ProblemType.CODE_SMELL;
+    }
+
+    /**
+     * Короткое имя проверки Checkstyle: com.puppycrawl...checks.whitespace.WhitespaceAroundCheck -> WhitespaceAround
+     */
+    public static String checkstyleRuleId(String sourceName) {
+        if (sourceName == null) {
+            return "checkstyle";
+        }
+        String name = sourceName.substring(sourceName.lastIndexOf('.') + 1);
+        return name.endsWith("Check") ? name.substring(0, name.length() - "Check".length()) : name;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,221 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Объединение одинаковых проблем разных инструментов. PMD, Checkstyle, SonarQube, SpotBugs
+ * и встроенные правила часто находят одно и то же место: проблемы одного файла с одинаковым
+ * понятием правила и пересекающимися строками сворачиваются в одну, в sources которой
+ * перечислены все нашедшие ее инструменты.
+ * Понятия заданы таблицей известных соответствий правил; проблемы остальных правил
+ * не объединяются.
+ */
+public final class ProblemMerger {
+
+    // Порядок выбора основной проблемы группы: ее правило, описание и отпечаток сохраняются
+    private static final List<String> SOURCE_PRIORITY = List.of(
+            "sonarqube", "spotbugs", "pmd", "checkstyle", "ast", "clones");
+
+    private static final int MAX_SOURCES = 255;
+
+    private static final Map<String, String> CONCEPTS = new HashMap<>();
+
+    static {
+        concept("unused-import", "UnusedImports", "UnnecessaryImport", "S1128");
+        concept("unused-local-variable", "UnusedLocalVariable", "S1481");
+        concept("unused-private-field", "UnusedPrivateField", "URF_UNREAD_FIELD", "UUF_UNUSED_FIELD", "S1068");
+        concept("unused-private-method", "UnusedPrivateMethod", "UPM_UNCALLED_PRIVATE_METHOD", "S1144");
+        concept("unused-parameter", "UnusedFormalParameter", "S1172");
+        concept("empty-catch", "EmptyCatchBlock", "DE_MIGHT_IGNORE");
+        concept("empty-block", "EmptyBlock", "EmptyControlStatement", "EmptyIfStmt", "EmptyIfStatement", "S108");
+        concept("string-reference-equality", "StringReferenceEquality", "StringLiteralEquality",
+                "UseEqualsToCompareStrings", "ES_COMPARING_STRINGS_WITH_EQ", "ES_COMPARING_PARAMETER_STRING_WITH_EQ", "S4973");
+        concept("equals-without-hashcode", "EqualsWithoutHashCode", "EqualsHashCode", "OverrideBothEqualsAndHashcode",
+                "HE_EQUALS_NO_HASHCODE", "HE_EQUALS_USE_HASHCODE", "S1206");
+        concept("return-from-finally", "ReturnFromFinallyBlock", "S1143");
+        concept("null-dereference", "NP_NULL_ON_SOME_PATH", "NP_ALWAYS_NULL", "S2259");
+        concept("magic-number", "MagicNumber", "S109");
+        concept("missing-braces", "NeedBraces", "ControlStatementBraces", "S121");
+        concept("line-length", "LineLength", "S103");
+        concept("switch-without-default", "MissingSwitchDefault", "SwitchStmtsShouldHaveDefault",
+                "NonExhaustiveSwitch", "SF_SWITCH_NO_DEFAULT", "S131");
+        concept("method-name", "MethodName", "MethodNamingConventions", "NM_METHOD_NAMING_CONVENTION", "S100");
+        concept("type-name", "TypeName", "ClassNamingConventions", "NM_CLASS_NAMING_CONVENTION", "S101");
+        concept("duplicated-block", "DuplicatedBlock", "DuplicatedBlocks");
+    }
+
+    private ProblemMerger() {}
+
+    private static void concept(String name, String... ruleIds) {
+        for (String ruleId : ruleIds) {
+            CONCEPTS.put(ruleId, name);
+        }
+    }
+
+    /**
+     * Отмечает проблемы стадии ее инструментом, если источник еще не задан
+     */
+    public static void tagSource(List<CodeProblem> problems, String source) {
+        for (CodeProblem problem : problems) {
+            if (problem.getSources() == null) {
+                problem.setSources(source);
+            }
+        }
+    }
+
+    /**
+     * Понятие правила: одинаковое у соответствующих правил разных инструментов, null - правило
+     * не сопоставлено с правилами других инструментов. Префикс репозитория SonarQube (java:) не учитывается.
+     */
+    public static String conceptOf(String ruleId) {
+        if (ruleId == null) {
+            return null;
+        }
+        return CONCEPTS.get(ruleId.substring(ruleId.lastIndexOf(':') + 1));
+    }
+
+    /**
+     * Ключ объединения проблемы в конкретной строке или null, если проблема не объединяется.
+     * Используется при потоковой отправке результатов стадий, когда пересечение строк
+     * с проблемами других стадий проверить нельзя.
+     */
+    public static String lineKey(CodeProblem problem) {
+        String concept = conceptOf(problem.getRuleId());
+        if (concept == null || problem.getFilePath() == null || problem.getStartLine() == null) {
+            return null;
+        }
+        return problem.getFilePath() + "\n" + concept + "\n" + problem.getStartLine();
+    }
+
+    /**
+     * Проблемы стадий после объединения, в порядке стадий. Основная проблема группы
+     * получает источники и наибольшую важность остальных, остальные проблемы группы отбрасываются.
+     * В группе не бывает двух проблем одного инструмента: его собственные находки не объединяются.
+     */
+    public static List<CodeProblem> merge(List<StageResult> stages) {
+        List<CodeProblem> problems = new ArrayList<>();
+        for (StageResult stage : stages) {
+            problems.addAll(stage.getProblems());
+        }
+
+        Map<String, List<CodeProblem>> buckets = new LinkedHashMap<>();
+        for (CodeProblem problem : problems) {
+            String concept = conceptOf(problem.getRuleId());
+            if (concept != null && problem.getFilePath() != null && problem.getStartLine() != null) {
+                buckets.computeIfAbsent(problem.getFilePath() + "\n" + concept, key -> new ArrayList<>()).add(problem);
+            }
+        }
+
+        Map<CodeProblem, Boolean> dropped = new IdentityHashMap<>();
+        for (List<CodeProblem> bucket : buckets.values()) {
+            if (bucket.size() > 1) {
+                for (List<CodeProblem> group : group(bucket)) {
+                    if (group.size() > 1) {
+                        combine(group, dropped);
+                    }
+                }
+            }
+        }
+        if (dropped.isEmpty()) {
+            return problems;
+        }
+
+        List<CodeProblem> merged = new ArrayList<>(problems.size() - dropped.size());
+        for (CodeProblem problem : problems) {
+            if (!dropped.containsKey(problem)) {
+                merged.add(problem);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Жадная группировка по пересечению строк: проблема присоединяется к первой группе,
+     * диапазон строк которой она пересекает и в которой еще нет ее инструмента
+     */
+    private static List<List<CodeProblem>> group(List<CodeProblem> bucket) {
+        List<CodeProblem> sorted = new ArrayList<>(bucket);
+        sorted.sort(Comparator.comparing(CodeProblem::getStartLine).thenComparing(ProblemMerger::endLine));
+
+        List<List<CodeProblem>> groups = new ArrayList<>();
+        List<int[]> ranges = new ArrayList<>();
+        List<Set<String>> groupSources = new ArrayList<>();
+        for (CodeProblem problem : sorted) {
+            int start = problem.getStartLine();
+            int end = endLine(problem);
+            String source = problem.getSources();
+            int target = -1;
+            for (int i = 0; i < groups.size() && target < 0; i++) {
+                int[] range = ranges.get(i);
+                if (start <= range[1] && end >= range[0] && !groupSources.get(i).contains(source)) {
+                    target = i;
+                }
+            }
+            if (target < 0) {
+                groups.add(new ArrayList<>());
+                ranges.add(new int[] {start, end});
+                groupSources.add(new LinkedHashSet<>());
+                target = groups.size() - 1;
+            }
+            groups.get(target).add(problem);
+            ranges.get(target)[1] = Math.max(ranges.get(target)[1], end);
+            groupSources.get(target).add(source);
+        }
+        return groups;
+    }
+
+    private static void combine(List<CodeProblem> group, Map<CodeProblem, Boolean> dropped) {
+        CodeProblem primary = group.get(0);
+        for (CodeProblem problem : group) {
+            if (priority(problem) < priority(primary)) {
+                primary = problem;
+            }
+        }
+
+        Set<String> sources = new LinkedHashSet<>();
+        CodeProblem.ProblemSeverity severity = primary.getSeverity();
+        for (CodeProblem problem : group) {
+            if (problem.getSources() != null) {
+                sources.add(problem.getSources());
+            }
+            if (problem.getSeverity() != null && (severity == null || problem.getSeverity().getRank() > severity.getRank())) {
+                severity = problem.getSeverity();
+            }
+            if (problem != primary) {
+                dropped.put(problem, Boolean.TRUE);
+            }
+        }
+        // Не помещающиеся в столбец инструменты отбрасываются целиком
+        StringBuilder joined = new StringBuilder();
+        for (String source : sources) {
+            if (joined.length() + (joined.length() > 0 ? 1 : 0) + source.length() > MAX_SOURCES) {
+                continue;
+            }
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(source);
+        }
+        primary.setSources(joined.toString());
+        primary.setSeverity(severity);
+    }
+
+    private static int priority(CodeProblem problem) {
+        int index = SOURCE_PRIORITY.indexOf(problem.getSources());
+        return index >= 0 ? index : SOURCE_PRIORITY.size();
+    }
+
+    private static int endLine(CodeProblem problem) {
+        return problem.getEndLine() != null ? Math.max(problem.getEndLine(), problem.getStartLine()) : problem.getStartLine();
+    }
+}
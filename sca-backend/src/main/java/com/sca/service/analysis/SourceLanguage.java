@@ -0,0 +1,68 @@
+package com.sca.service.analysis;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Определение языка исходного файла по расширению.
+ * Манифесты зависимостей определяются по имени файла отдельно: pom.xml при этом остается XML.
+ */
+public final class SourceLanguage {
+
+    public static final String JAVA = "java";
+    public static final String KOTLIN = "kotlin";
+    public static final String JAVASCRIPT = "javascript";
+    public static final String TYPESCRIPT = "typescript";
+    public static final String PYTHON = "python";
+    public static final String XML = "xml";
+    // Манифесты зависимостей, см. isDependencyManifest
+    public static final String DEPENDENCIES = "dependencies";
+
+    private static final Set<String> DEPENDENCY_MANIFESTS = Set.of(
+            "pom.xml", "build.gradle", "build.gradle.kts", "package.json", "package-lock.json", "requirements.txt");
+
+    private static final Map<String, String> BY_EXTENSION = Map.ofEntries(
+            Map.entry("java", JAVA),
+            Map.entry("kt", KOTLIN),
+            Map.entry("kts", KOTLIN),
+            Map.entry("js", JAVASCRIPT),
+            Map.entry("jsx", JAVASCRIPT),
+            Map.entry("mjs", JAVASCRIPT),
+            Map.entry("ts", TYPESCRIPT),
+            Map.entry("tsx", TYPESCRIPT),
+            Map.entry("py", PYTHON),
+            Map.entry("xml", XML)
+    );
+
+    private SourceLanguage() {}
+
+    /**
+     * Язык файла или null, если файл не исходный код
+     */
+    public static String of(String path) {
+        int dot = path.lastIndexOf('.');
+        if (dot < 0 || dot < path.lastIndexOf('/')) {
+            return null;
+        }
+        return BY_EXTENSION.get(path.substring(dot + 1).toLowerCase());
+    }
+
+    /**
+     * Является ли файл манифестом зависимостей (язык DEPENDENCIES)
+     */
+    public static boolean isDependencyManifest(String path) {
+        return DEPENDENCY_MANIFESTS.contains(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    /**
+     * Все языки файла: язык по расширению и DEPENDENCIES для манифестов
+     */
+    public static Set<String> languagesOf(String path) {
+        String language = of(path);
+        boolean manifest = isDependencyManifest(path);
+        if (language == null) {
+            return manifest ? Set.of(DEPENDENCIES) : Set.of();
+        }
+        return manifest ? Set.of(language, DEPENDENCIES) : Set.of(language);
+    }
+}
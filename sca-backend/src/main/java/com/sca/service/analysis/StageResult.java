@@ -0,0 +1,43 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+
+import java.util.List;
+
+/**
+ * Результат одной стадии анализа (одного анализатора)
+ */
+public class StageResult {
+
+    private final String stage;
+    private final List<CodeProblem> problems;
+    private final long durationMillis;
+    private final String error;
+
+    public StageResult(String stage, List<CodeProblem> problems, long durationMillis, String error) {
+        this.stage = stage;
+        this.problems = problems;
+        this.durationMillis = durationMillis;
+        this.error = error;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public List<CodeProblem> getProblems() {
+        return problems;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFailed() {
+        return error != null;
+    }
+}
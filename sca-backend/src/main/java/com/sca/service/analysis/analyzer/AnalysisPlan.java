@@ -0,0 +1,113 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.service.analysis.AnalysisScope;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Какие анализаторы запускаются для области анализа и в каком порядке.
+ * Анализаторы без файлов своих языков пропускаются, остальные упорядочиваются
+ * по убыванию оценки времени: самые долгие стадии первыми занимают потоки
+ * analysisExecutor, а короткие заполняют оставшиеся.
+ */
+public class AnalysisPlan {
+
+    // Средняя длина строки исходного кода, байт: объем из манифеста переводится в строки
+    static final int BYTES_PER_LINE = 40;
+
+    private final List<Stage> stages;
+    private final Map<String, String> skipped;
+
+    private AnalysisPlan(List<Stage> stages, Map<String, String> skipped) {
+        this.stages = stages;
+        this.skipped = skipped;
+    }
+
+    public static AnalysisPlan create(List<? extends Analyzer> analyzers, AnalysisScope scope,
+                                      AnalysisProperties.Analyzers settings) {
+        Map<String, Long> scopeBytes = scope.getSourceBytesByLanguage(false);
+        Map<String, Long> projectBytes = scope.isIncremental() ? scope.getSourceBytesByLanguage(true) : scopeBytes;
+
+        List<Stage> stages = new ArrayList<>();
+        Map<String, String> skipped = new LinkedHashMap<>();
+        for (Analyzer analyzer : analyzers) {
+            if (settings.getDisabled().contains(analyzer.getName())) {
+                skipped.put(analyzer.getName(), "disabled");
+                continue;
+            }
+            if (sumBytes(analyzer, scopeBytes) == 0) {
+                skipped.put(analyzer.getName(), scope.isIncremental()
+                        ? "no changed files in " + analyzer.getLanguages()
+                        : "no files in " + analyzer.getLanguages());
+                continue;
+            }
+            // Компилирующий или неинкрементальный анализатор обрабатывает весь проект
+            boolean wholeProject = analyzer.requiresCompilation() || !analyzer.supportsIncremental();
+            long bytes = sumBytes(analyzer, wholeProject ? projectBytes : scopeBytes);
+            double costPerKloc = settings.getCostPerKloc().getOrDefault(analyzer.getName(), analyzer.getCostPerKloc());
+            long estimatedMillis = Math.round(costPerKloc * bytes / BYTES_PER_LINE / 1000.0);
+            stages.add(new Stage(analyzer, estimatedMillis));
+        }
+        stages.sort(Comparator.comparingLong(Stage::getEstimatedMillis).reversed());
+        return new AnalysisPlan(stages, skipped);
+    }
+
+    private static long sumBytes(Analyzer analyzer, Map<String, Long> bytesByLanguage) {
+        long bytes = 0;
+        for (String language : analyzer.getLanguages()) {
+            bytes += bytesByLanguage.getOrDefault(language, 0L);
+        }
+        return bytes;
+    }
+
+    /**
+     * Стадии в порядке запуска
+     */
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * Пропущенные стадии и причина пропуска
+     */
+    public Map<String, String> getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AnalysisPlan{stages=[");
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            sb.append(i > 0 ? ", " : "").append(stage.getAnalyzer().getName())
+                    .append('~').append(stage.getEstimatedMillis()).append("ms");
+        }
+        return sb.append("], skipped=").append(skipped).append('}').toString();
+    }
+
+    /**
+     * Анализатор и оценка времени его стадии
+     */
+    public static class Stage {
+        private final Analyzer analyzer;
+        private final long estimatedMillis;
+
+        public Stage(Analyzer analyzer, long estimatedMillis) {
+            this.analyzer = analyzer;
+            this.estimatedMillis = estimatedMillis;
+        }
+
+        public Analyzer getAnalyzer() {
+            return analyzer;
+        }
+
+        public long getEstimatedMillis() {
+            return estimatedMillis;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+
+/**
+ * Анализатор, подключаемый к CodeAnalysisService. Реализации - Spring компоненты,
+ * по описанию которых движок выбирает нужные проекту анализаторы и порядок их запуска.
+ */
+public interface Analyzer {
+
+    /**
+     * Имя стадии анализа в отчетах и настройках analysis.analyzers
+     */
+    String getName();
+
+    /**
+     * Образ контейнера анализатора и ключ кэша результатов;
+     * null для встроенного анализатора, который не кэшируется
+     */
+    AnalyzerTool getTool();
+
+    /**
+     * Языки из SourceLanguage, файлы которых проверяет анализатор
+     */
+    Set<String> getLanguages();
+
+    /**
+     * Нужна ли компиляция проекта. Такой анализатор обрабатывает весь проект даже
+     * в инкрементальном запуске, и его стоимость считается по всему коду.
+     */
+    boolean requiresCompilation();
+
+    /**
+     * Ориентировочное время анализа тысячи строк кода, мс
+     */
+    double getCostPerKloc();
+
+    /**
+     * Может ли анализатор проверять только файлы из AnalysisScope.getSourceRoot()
+     */
+    boolean supportsIncremental();
+
+    /**
+     * Выполняется ли анализ в песочнице запуска. Если ни одна стадия её не использует,
+     * контейнер не создается.
+     */
+    default boolean usesSandbox() {
+        return false;
+    }
+
+    /**
+     * Результат для файла зависит только от самого файла - его можно кэшировать по хешу содержимого
+     */
+    default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Версия инструмента и его правил, входящая в ключ кэша
+     */
+    String getConfigVersion();
+
+    /**
+     * Выполняет анализ. Ошибка анализа выбрасывается как RuntimeException, её фиксирует движок.
+     * session - песочница запуска, общая для всех стадий; null, если usesSandbox() = false
+     * и анализатор запущен вне CodeAnalysisService (анализ при сохранении)
+     */
+    List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session);
+
+    /**
+     * Анализ для CodeAnalysisService. Анализатор, который ждет внешний сервер, возвращает
+     * незавершенный future и не занимает поток стадии на время ожидания; при отмене или
+     * таймауте стадии future отменяется. По умолчанию выполняет analyze в потоке стадии.
+     */
+    default CompletableFuture<List<CodeProblem>> analyzeAsync(AnalysisScope scope, AnalysisSession session) {
+        return CompletableFuture.completedFuture(analyze(scope, session));
+    }
+}
@@ -0,0 +1,68 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.ast.AstRuleEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Встроенные правила по синтаксическому дереву Java. Быстрый уровень перед внешними
+ * инструментами: работает в JVM бэкенда без песочницы и компиляции, поэтому
+ * выполняется и при анализе после сохранения файла.
+ */
+@Component
+public class AstAnalyzer implements Analyzer {
+
+    @Autowired
+    private AstRuleEngine astRuleEngine;
+
+    @Override
+    public String getName() {
+        return "ast";
+    }
+
+    /**
+     * Встроенный анализатор не использует инструменты песочницы и не кэшируется
+     */
+    @Override
+    public AnalyzerTool getTool() {
+        return null;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.JAVA);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return 5;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        return astRuleEngine.getVersion();
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        return astRuleEngine.analyze(scope);
+    }
+}
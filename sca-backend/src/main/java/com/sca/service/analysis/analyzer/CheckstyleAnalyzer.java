@@ -0,0 +1,127 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.EmbeddedCheckstyleEngine;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.report.CheckstyleReportParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Анализ с помощью Checkstyle: в JVM бэкенда или в песочнице анализа, см. analysis.embedded.checkstyle
+ */
+@Component
+public class CheckstyleAnalyzer extends ContainerAnalyzer {
+
+    // Отчет в песочнице, /tmp очищается при возврате контейнера в пул
+    private static final String REPORT = "/tmp/checkstyle-report.xml";
+    // Порт демона Checkstyle в песочнице, см. docker/analyzers/daemon/start-daemons.sh
+    private static final int DAEMON_PORT = 7102;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private EmbeddedCheckstyleEngine embeddedCheckstyleEngine;
+
+    @Autowired
+    private CheckstyleReportParser checkstyleReportParser;
+
+    @Override
+    public String getName() {
+        return "checkstyle";
+    }
+
+    @Override
+    public AnalyzerTool getTool() {
+        return AnalyzerTool.CHECKSTYLE;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.JAVA);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return isEmbedded() ? 25 : 100;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        String config = analysisProperties.getEmbedded().getCheckstyleConfig();
+        return isEmbedded()
+                ? "embedded:" + embeddedCheckstyleEngine.getVersion() + ":" + config
+                : "container:" + super.getConfigVersion() + ":" + config;
+    }
+
+    @Override
+    public boolean usesSandbox() {
+        return !isEmbedded();
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        if (isEmbedded()) {
+            try {
+                return embeddedCheckstyleEngine.analyze(scope);
+            } catch (Exception e) {
+                throw new RuntimeException("Checkstyle analysis failed: " + e.getMessage(), e);
+            }
+        }
+
+        List<String> sources = sourcePaths(scope, session);
+        List<CodeProblem> problems = new ArrayList<>();
+        if (sources.isEmpty()) {
+            return problems;
+        }
+
+        try {
+            // Checkstyle уже установлен в образе; прогретый демон избавляет от старта JVM
+            String config = analysisProperties.getEmbedded().getCheckstyleConfig();
+            if (!analysisProperties.getPool().isDaemons() || !runInDaemon(session, DAEMON_PORT, config, REPORT, sources)) {
+                List<String> command = new ArrayList<>(List.of("checkstyle", "-c", config, "-f", "xml", "-o", REPORT));
+                command.addAll(sources);
+                session.execute(getName() + ".run", command.toArray(new String[0]));
+            }
+
+            session.readReport(getName() + ".report", REPORT, checkstyleReportParser, scope, problem -> {
+                if (scope.contains(problem.getFilePath())) {
+                    problems.add(problem);
+                }
+            });
+
+        } catch (Exception e) {
+            throw new RuntimeException("Checkstyle analysis failed: " + e.getMessage(), e);
+        }
+
+        return problems;
+    }
+
+    private boolean isEmbedded() {
+        return analysisProperties.getEmbedded().getCheckstyle() == AnalysisProperties.Backend.EMBEDDED;
+    }
+}
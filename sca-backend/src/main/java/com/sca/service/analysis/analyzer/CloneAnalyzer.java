@@ -0,0 +1,67 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.clone.CloneDetector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поиск повторяющегося кода в JVM бэкенда, без песочницы. Клоны ищутся по всему проекту,
+ * в инкрементальном запуске остаются проблемы затронутых файлов.
+ */
+@Component
+public class CloneAnalyzer implements Analyzer {
+
+    @Autowired
+    private CloneDetector cloneDetector;
+
+    @Override
+    public String getName() {
+        return "clones";
+    }
+
+    /**
+     * Встроенный анализатор не использует инструменты песочницы и не кэшируется:
+     * клоны файла зависят от остальных файлов проекта
+     */
+    @Override
+    public AnalyzerTool getTool() {
+        return null;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return cloneDetector.getLanguages();
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return 10;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return false;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        return CloneDetector.RULE_ID;
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        return cloneDetector.analyze(scope);
+    }
+}
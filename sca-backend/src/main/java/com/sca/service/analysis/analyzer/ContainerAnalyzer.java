@@ -0,0 +1,64 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.service.AnalysisSession;
+import com.sca.service.AnalyzerImageRegistry;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.SourceLanguage;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Общая часть анализаторов, запускаемых в песочнице анализа (AnalysisSession)
+ */
+public abstract class ContainerAnalyzer implements Analyzer {
+
+    // Больше файлов в командной строке не передается - анализируется весь каталог,
+    // лишние проблемы отсекаются по области анализа
+    private static final int MAX_FILE_ARGUMENTS = 500;
+
+    @Autowired
+    protected AnalyzerImageRegistry imageRegistry;
+
+    @Override
+    public boolean usesSandbox() {
+        return true;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        return imageRegistry.getVersion(getTool());
+    }
+
+    /**
+     * Запускает инструмент в его демоне в песочнице: набор правил config, отчет report, исходники sources.
+     * Возвращает false, если демон недоступен и инструмент нужно запустить командой.
+     */
+    protected boolean runInDaemon(AnalysisSession session, int port, String config, String report, List<String> sources) {
+        List<String> request = new ArrayList<>();
+        request.add(config);
+        request.add(report);
+        request.addAll(sources);
+        return session.executeInDaemon(getName() + ".run", port, request);
+    }
+
+    /**
+     * Пути для командной строки инструмента: каталог проекта в песочнице или,
+     * в инкрементальном запуске, файлы области анализа на языках анализатора.
+     * Пустой список - анализировать нечего.
+     */
+    protected List<String> sourcePaths(AnalysisScope scope, AnalysisSession session) {
+        String root = session.getProjectRoot();
+        if (!scope.isIncremental()) {
+            return List.of(root);
+        }
+        List<String> paths = new ArrayList<>();
+        for (String file : scope.getAffectedFiles()) {
+            if (getLanguages().contains(SourceLanguage.of(file))) {
+                paths.add(root + "/" + file);
+            }
+        }
+        return paths.size() <= MAX_FILE_ARGUMENTS ? paths : List.of(root);
+    }
+}
@@ -0,0 +1,151 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.ProblemMapping;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.dependency.Advisory;
+import com.sca.service.analysis.dependency.AdvisoryDatabase;
+import com.sca.service.analysis.dependency.Dependency;
+import com.sca.service.analysis.dependency.DependencyManifestParser;
+import com.sca.service.analysis.dependency.NpmManifestParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поиск зависимостей с известными уязвимостями (SCA) по локальной базе OSV.
+ * Манифесты разбираются в JVM бэкенда, проблема указывает на строку объявления зависимости.
+ * Если базы нет, стадия ничего не находит.
+ */
+@Component
+public class DependencyAnalyzer implements Analyzer {
+
+    @Autowired
+    private List<DependencyManifestParser> parsers;
+
+    @Autowired
+    private AdvisoryDatabase advisoryDatabase;
+
+    @Override
+    public String getName() {
+        return "dependencies";
+    }
+
+    /**
+     * Встроенный анализатор не использует инструменты песочницы и не кэшируется:
+     * результат зависит и от содержимого базы
+     */
+    @Override
+    public AnalyzerTool getTool() {
+        return null;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.DEPENDENCIES);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return 5;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        return "osv:" + advisoryDatabase.getImportedAt();
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        List<CodeProblem> problems = new ArrayList<>();
+        if (!advisoryDatabase.isAvailable()) {
+            return problems;
+        }
+
+        // Инкрементальная область и анализ ветки содержат копии файлов в проанализированном состоянии
+        Path root = scope.getSourceRoot();
+        Collection<String> candidates = scope.isIncremental() || scope.getManifest() == null
+                ? scope.getAffectedFiles() : scope.getManifest().getFiles().keySet();
+        for (String filePath : candidates) {
+            if (!SourceLanguage.isDependencyManifest(filePath)) {
+                continue;
+            }
+            String fileName = filePath.substring(filePath.lastIndexOf('/') + 1);
+            Path file = root.resolve(filePath);
+            // Точные версии, включая транзитивные, есть в package-lock.json рядом
+            if (fileName.equals(NpmManifestParser.PACKAGE_JSON)
+                    && (Files.exists(file.resolveSibling(NpmManifestParser.PACKAGE_LOCK))
+                    || Files.exists(scope.getWorkspaceRoot().resolve(filePath).resolveSibling(NpmManifestParser.PACKAGE_LOCK)))) {
+                continue;
+            }
+            DependencyManifestParser parser = findParser(fileName);
+            if (parser == null || !Files.isRegularFile(file)) {
+                continue;
+            }
+
+            List<Dependency> dependencies;
+            try {
+                dependencies = parser.parse(Files.readString(file, StandardCharsets.UTF_8));
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to parse dependency manifest " + filePath + ": " + e.getMessage());
+                continue;
+            }
+            for (Dependency dependency : dependencies) {
+                for (Advisory advisory : advisoryDatabase.find(dependency)) {
+                    problems.add(toProblem(scope, filePath, dependency, advisory));
+                }
+            }
+        }
+        return problems;
+    }
+
+    private DependencyManifestParser findParser(String fileName) {
+        for (DependencyManifestParser parser : parsers) {
+            if (parser.supports(fileName)) {
+                return parser;
+            }
+        }
+        return null;
+    }
+
+    private static CodeProblem toProblem(AnalysisScope scope, String filePath, Dependency dependency, Advisory advisory) {
+        StringBuilder message = new StringBuilder()
+                .append(dependency).append(" has known vulnerability ").append(advisory.getId());
+        if (!advisory.getAliases().isEmpty()) {
+            message.append(" (").append(String.join(", ", advisory.getAliases())).append(")");
+        }
+        if (!advisory.getSummary().isEmpty()) {
+            message.append(": ").append(advisory.getSummary());
+        }
+
+        CodeProblem problem = ProblemMapping.newProblem(scope.getProject(), filePath, advisory.getId(),
+                message.toString(), advisory.getSeverity(), CodeProblem.ProblemType.VULNERABILITY);
+        problem.setCategory("Dependency");
+        problem.setSolution(advisory.getFixedVersion() != null
+                ? "Upgrade " + dependency.getName() + " to " + advisory.getFixedVersion() + " or later"
+                : "No fixed version is available, replace or remove " + dependency.getName());
+        ProblemMapping.setPosition(problem, dependency.getLine(), 0, 0, 0);
+        return problem;
+    }
+}
@@ -0,0 +1,131 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.EmbeddedPmdEngine;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.report.PmdReportParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Анализ с помощью PMD: в JVM бэкенда или в песочнице анализа, см. analysis.embedded.pmd
+ */
+@Component
+public class PmdAnalyzer extends ContainerAnalyzer {
+
+    // Отчет в песочнице, /tmp очищается при возврате контейнера в пул
+    private static final String REPORT = "/tmp/pmd-report.xml";
+    // Порт демона PMD в песочнице, см. docker/analyzers/daemon/start-daemons.sh
+    private static final int DAEMON_PORT = 7101;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private EmbeddedPmdEngine embeddedPmdEngine;
+
+    @Autowired
+    private PmdReportParser pmdReportParser;
+
+    @Override
+    public String getName() {
+        return "pmd";
+    }
+
+    @Override
+    public AnalyzerTool getTool() {
+        return AnalyzerTool.PMD;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.JAVA);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return isEmbedded() ? 40 : 120;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public String getConfigVersion() {
+        String ruleset = analysisProperties.getEmbedded().getPmdRuleset();
+        return isEmbedded()
+                ? "embedded:" + embeddedPmdEngine.getVersion() + ":" + ruleset
+                : "container:" + super.getConfigVersion() + ":" + ruleset;
+    }
+
+    @Override
+    public boolean usesSandbox() {
+        return !isEmbedded();
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        if (isEmbedded()) {
+            try {
+                return embeddedPmdEngine.analyze(scope);
+            } catch (Exception e) {
+                throw new RuntimeException("PMD analysis failed: " + e.getMessage(), e);
+            }
+        }
+
+        List<String> sources = sourcePaths(scope, session);
+        List<CodeProblem> problems = new ArrayList<>();
+        if (sources.isEmpty()) {
+            return problems;
+        }
+
+        try {
+            // PMD уже установлен в образе, отчет пишется в файл; прогретый демон избавляет от старта JVM
+            String ruleset = analysisProperties.getEmbedded().getPmdRuleset();
+            if (!analysisProperties.getPool().isDaemons() || !runInDaemon(session, DAEMON_PORT, ruleset, REPORT, sources)) {
+                session.execute(getName() + ".run",
+                        "pmd", "check", "--dir", String.join(",", sources),
+                        "--format", "xml",
+                        "--rulesets", ruleset,
+                        "--report-file", REPORT,
+                        "--no-progress"
+                );
+            }
+
+            session.readReport(getName() + ".report", REPORT, pmdReportParser, scope, problem -> {
+                if (scope.contains(problem.getFilePath())) {
+                    problems.add(problem);
+                }
+            });
+
+        } catch (Exception e) {
+            throw new RuntimeException("PMD analysis failed: " + e.getMessage(), e);
+        }
+
+        return problems;
+    }
+
+    private boolean isEmbedded() {
+        return analysisProperties.getEmbedded().getPmd() == AnalysisProperties.Backend.EMBEDDED;
+    }
+}
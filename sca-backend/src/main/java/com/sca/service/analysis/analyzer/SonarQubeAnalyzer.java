@@ -0,0 +1,128 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.sonar.SonarQubeClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Анализ с помощью SonarQube.
+ * Сканер в песочнице отправляет отчет на сервер и записывает id задачи его обработки
+ * в report-task.txt; после обработки проблемы забираются через Web API (SonarQubeClient).
+ * Ожидание сервера не занимает поток стадии.
+ */
+@Component
+public class SonarQubeAnalyzer extends ContainerAnalyzer {
+
+    // Рабочий каталог сканера в песочнице, /tmp очищается при возврате контейнера в пул
+    private static final String WORKING_DIRECTORY = "/tmp/sonar-scanner";
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private SonarQubeClient sonarQubeClient;
+
+    @Override
+    public String getName() {
+        return "sonarqube";
+    }
+
+    @Override
+    public AnalyzerTool getTool() {
+        return AnalyzerTool.SONAR_SCANNER;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.JAVA, SourceLanguage.KOTLIN, SourceLanguage.JAVASCRIPT,
+                SourceLanguage.TYPESCRIPT, SourceLanguage.PYTHON, SourceLanguage.XML);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return false;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return 400;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return false;
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        try {
+            return analyzeAsync(scope, session).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("SonarQube analysis failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public CompletableFuture<List<CodeProblem>> analyzeAsync(AnalysisScope scope, AnalysisSession session) {
+        Project project = scope.getProject();
+        AnalysisProperties.Sonar sonar = analysisProperties.getSonar();
+        String projectKey = projectKey(project);
+        String taskId;
+
+        try {
+            // Проект уже загружен в песочницу, scanner установлен в образе
+            List<String> command = new ArrayList<>(List.of(
+                    "sonar-scanner",
+                    "-Dsonar.projectKey=" + projectKey,
+                    "-Dsonar.projectName=" + project.getName(),
+                    "-Dsonar.projectBaseDir=" + session.getProjectRoot(),
+                    "-Dsonar.sources=.",
+                    "-Dsonar.scm.disabled=true",
+                    "-Dsonar.working.directory=" + WORKING_DIRECTORY,
+                    "-Dsonar.host.url=" + sonar.getScannerHostUrl()));
+            if (sonar.getToken() != null && !sonar.getToken().isBlank()) {
+                command.add("-Dsonar.login=" + sonar.getToken());
+            }
+            session.execute(getName() + ".run", command.toArray(new String[0]));
+
+            taskId = readTaskId(session.execute(getName() + ".report", "cat", WORKING_DIRECTORY + "/report-task.txt"));
+        } catch (Exception e) {
+            throw new RuntimeException("SonarQube analysis failed: " + e.getMessage(), e);
+        }
+
+        return sonarQubeClient.fetchProblems(scope, projectKey, taskId);
+    }
+
+    /**
+     * Ключ проекта на сервере SonarQube; имя проекта может содержать недопустимые символы
+     */
+    static String projectKey(Project project) {
+        return "sca-" + project.getId();
+    }
+
+    private static String readTaskId(String reportTask) throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(reportTask));
+        String taskId = properties.getProperty("ceTaskId");
+        if (taskId == null || taskId.isBlank()) {
+            throw new IllegalStateException("Scanner did not submit an analysis report");
+        }
+        return taskId;
+    }
+}
@@ -0,0 +1,93 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.IncrementalCompiler;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.report.SpotBugsReportParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Анализ байткода с помощью SpotBugs. Анализируются классы всего проекта,
+ * в результат попадают только проблемы файлов из области анализа.
+ */
+@Component
+public class SpotBugsAnalyzer extends ContainerAnalyzer {
+
+    // Отчет и классы в песочнице, /tmp очищается при возврате контейнера в пул
+    private static final String REPORT = "/tmp/spotbugs-report.xml";
+
+    @Autowired
+    private SpotBugsReportParser spotBugsReportParser;
+
+    @Autowired
+    private IncrementalCompiler compiler;
+
+    @Override
+    public String getName() {
+        return "spotbugs";
+    }
+
+    @Override
+    public AnalyzerTool getTool() {
+        return AnalyzerTool.SPOTBUGS;
+    }
+
+    @Override
+    public Set<String> getLanguages() {
+        return Set.of(SourceLanguage.JAVA);
+    }
+
+    @Override
+    public boolean requiresCompilation() {
+        return true;
+    }
+
+    @Override
+    public double getCostPerKloc() {
+        return 600;
+    }
+
+    @Override
+    public boolean supportsIncremental() {
+        return false;
+    }
+
+    @Override
+    public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+        List<CodeProblem> problems = new ArrayList<>();
+
+        try {
+            // Классы собираются в JVM бэкенда, перекомпилируются только измененные исходники
+            // и зависящие от них; в песочницу загружаются готовые классы
+            IncrementalCompiler.Result compiled = compiler.compile(scope);
+            session.addPhase(getName() + ".compile", compiled.getDurationMillis());
+            session.upload(getName() + ".upload", compiled.getClassesDir(), "/tmp");
+            String classes = "/tmp/" + compiled.getClassesDir().getFileName();
+
+            // Запускаем анализ
+            session.execute(getName() + ".run",
+                    "spotbugs", "-textui", "-xml:withMessages", "-output", REPORT, classes
+            );
+
+            // SpotBugs компилирует весь проект, оставляем только затронутые файлы
+            session.readReport(getName() + ".report", REPORT, spotBugsReportParser, scope, problem -> {
+                if (scope.contains(problem.getFilePath())) {
+                    problems.add(problem);
+                }
+            });
+
+        } catch (Exception e) {
+            throw new RuntimeException("SpotBugs analysis failed: " + e.getMessage(), e);
+        }
+
+        return problems;
+    }
+}
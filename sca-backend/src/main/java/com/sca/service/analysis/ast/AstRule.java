@@ -0,0 +1,27 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.CompilationUnitTree;
+
+/**
+ * Правило встроенного анализатора, проверяющее синтаксическое дерево одного Java файла.
+ * Реализации - Spring компоненты без состояния: check вызывается параллельно для разных файлов.
+ */
+public interface AstRule {
+
+    /**
+     * Идентификатор правила, попадает в CodeProblem.ruleId
+     */
+    String getId();
+
+    String getCategory();
+
+    CodeProblem.ProblemSeverity getSeverity();
+
+    CodeProblem.ProblemType getType();
+
+    /**
+     * Проверяет файл, найденные проблемы передаются в context.report
+     */
+    void check(CompilationUnitTree unit, AstRuleContext context);
+}
@@ -0,0 +1,83 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.ProblemMapping;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.SourcePositions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Проверка одного файла: переводит узлы дерева в CodeProblem с точной позицией
+ */
+public class AstRuleContext {
+
+    private final Project project;
+    private final String filePath;
+    private final CompilationUnitTree unit;
+    private final SourcePositions positions;
+    private final List<CodeProblem> problems = new ArrayList<>();
+
+    AstRuleContext(Project project, String filePath, CompilationUnitTree unit, SourcePositions positions) {
+        this.project = project;
+        this.filePath = filePath;
+        this.unit = unit;
+        this.positions = positions;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Добавляет проблему правила на узле tree: от его начала до последнего символа
+     */
+    public void report(AstRule rule, Tree tree, String message) {
+        long start = positions.getStartPosition(unit, tree);
+        long end = positions.getEndPosition(unit, tree);
+        CodeProblem problem = ProblemMapping.newProblem(project, filePath, rule.getId(), message,
+                rule.getSeverity(), rule.getType());
+        problem.setCategory(rule.getCategory());
+        LineMap lines = unit.getLineMap();
+        ProblemMapping.setPosition(problem,
+                start < 0 ? 0 : (int) lines.getLineNumber(start),
+                start < 0 ? 0 : (int) lines.getColumnNumber(start),
+                end <= 0 ? 0 : (int) lines.getLineNumber(end - 1),
+                end <= 0 ? 0 : (int) lines.getColumnNumber(end - 1));
+        problems.add(problem);
+    }
+
+    /**
+     * Исходный текст узла, например чтобы найти комментарии, которых нет в дереве
+     */
+    public String getSource(Tree tree) {
+        long start = positions.getStartPosition(unit, tree);
+        long end = positions.getEndPosition(unit, tree);
+        if (start < 0 || end < start) {
+            return "";
+        }
+        try {
+            CharSequence content = unit.getSourceFile().getCharContent(true);
+            return content.subSequence((int) start, (int) Math.min(end, content.length())).toString();
+        } catch (IOException e) {
+            return "";
+        }
+    }
+
+    void reportSyntaxError(int line, int column, String message) {
+        CodeProblem problem = ProblemMapping.newProblem(project, filePath, "JavaSyntaxError",
+                message, CodeProblem.ProblemSeverity.ERROR, CodeProblem.ProblemType.BUG);
+        problem.setCategory("Syntax");
+        ProblemMapping.setPosition(problem, line, column, 0, 0);
+        problems.add(problem);
+    }
+
+    List<CodeProblem> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,383 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.Trees;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Встроенный анализатор Java: разбирает исходники парсером javac (без компиляции и classpath)
+ * и проверяет синтаксические деревья правилами AstRule. Файлы обрабатываются параллельно
+ * в ForkJoinPool, каждая часть разбирается одной задачей javac.
+ * Деревья кэшируются по SHA-256 содержимого: для файлов из манифеста хеш уже известен,
+ * и неизмененный файл при повторном анализе не читается и не разбирается.
+ * Деревья одной задачи javac держат общий контекст задачи (SourcePositions), поэтому
+ * память освобождается только вместе со всей частью: кэш вытесняет части целиком.
+ */
+@Component
+public class AstRuleEngine {
+
+    // Наибольшее число файлов, разбираемых одной задачей javac
+    private static final int MAX_FILES_PER_TASK = 64;
+    private static final List<String> PARSE_OPTIONS = List.of("-proc:none");
+
+    @Autowired
+    private List<AstRule> rules;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private final Map<String, ParsedSource> parseCache = new ConcurrentHashMap<>();
+    private final AtomicLong useCounter = new AtomicLong();
+    private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    private volatile ForkJoinPool pool;
+
+    /**
+     * Версия набора правил для ключа кэша результатов
+     */
+    public String getVersion() {
+        TreeSet<String> ids = new TreeSet<>();
+        for (AstRule rule : rules) {
+            ids.add(rule.getId());
+        }
+        return "builtin:" + String.join(",", ids);
+    }
+
+    public List<CodeProblem> analyze(AnalysisScope scope) {
+        List<Path> files = scope.findSourceFiles(".java");
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
+        ForkJoinPool workers = getPool();
+        int parts = workers.getParallelism() * 4;
+        int threshold = Math.max(1, Math.min(MAX_FILES_PER_TASK, (files.size() + parts - 1) / parts));
+        ForkJoinTask<List<CodeProblem>> task = workers.submit(new AnalyzeTask(scope, files, 0, files.size(), threshold));
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("AST analysis interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("AST analysis failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            evictExcess();
+        }
+    }
+
+    /**
+     * Число разобранных файлов в кэше
+     */
+    int getCachedFiles() {
+        return parseCache.size();
+    }
+
+    /**
+     * Часть файлов: делится пополам, пока не станет не больше threshold
+     */
+    private class AnalyzeTask extends RecursiveTask<List<CodeProblem>> {
+        private final AnalysisScope scope;
+        private final List<Path> files;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        AnalyzeTask(AnalysisScope scope, List<Path> files, int from, int to, int threshold) {
+            this.scope = scope;
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected List<CodeProblem> compute() {
+            if (to - from <= threshold) {
+                return analyzeFiles(scope, files.subList(from, to));
+            }
+            int middle = (from + to) >>> 1;
+            AnalyzeTask left = new AnalyzeTask(scope, files, from, middle, threshold);
+            left.fork();
+            List<CodeProblem> problems = new ArrayList<>(new AnalyzeTask(scope, files, middle, to, threshold).compute());
+            problems.addAll(left.join());
+            return problems;
+        }
+    }
+
+    private List<CodeProblem> analyzeFiles(AnalysisScope scope, List<Path> files) {
+        List<String> paths = new ArrayList<>();
+        List<ParsedSource> parsed = new ArrayList<>();
+        List<SourceText> misses = new ArrayList<>();
+
+        for (Path file : files) {
+            String filePath = scope.toRelativePath(file.toString());
+            String hash = manifestHash(scope, filePath);
+            ParsedSource cached = hash != null ? parseCache.get(hash) : null;
+            if (cached == null) {
+                SourceText source = read(file, hash);
+                if (source == null) {
+                    continue;
+                }
+                cached = parseCache.get(source.hash);
+                if (cached == null) {
+                    misses.add(source);
+                }
+            }
+            paths.add(filePath);
+            parsed.add(cached);
+        }
+
+        if (!misses.isEmpty()) {
+            Map<URI, ParsedSource> results = parse(misses);
+            int miss = 0;
+            for (int i = 0; i < parsed.size(); i++) {
+                if (parsed.get(i) == null) {
+                    SourceText source = misses.get(miss++);
+                    ParsedSource result = results.get(source.toUri());
+                    parseCache.put(source.hash, result);
+                    parsed.set(i, result);
+                }
+            }
+        }
+
+        List<CodeProblem> problems = new ArrayList<>();
+        for (int i = 0; i < parsed.size(); i++) {
+            ParsedSource source = parsed.get(i);
+            source.batch.lastUsed = useCounter.incrementAndGet();
+            problems.addAll(check(scope, paths.get(i), source));
+        }
+        return problems;
+    }
+
+    /**
+     * Проверяет файл правилами. Дерево файла с синтаксическими ошибками неполное,
+     * для него выдаются только сами ошибки.
+     */
+    private List<CodeProblem> check(AnalysisScope scope, String filePath, ParsedSource source) {
+        AstRuleContext context = new AstRuleContext(scope.getProject(), filePath, source.unit, source.batch.positions);
+        if (!source.syntaxErrors.isEmpty()) {
+            for (SyntaxError error : source.syntaxErrors) {
+                context.reportSyntaxError(error.line, error.column, error.message);
+            }
+            return context.getProblems();
+        }
+        for (AstRule rule : rules) {
+            try {
+                rule.check(source.unit, context);
+            } catch (RuntimeException e) {
+                System.err.println("AST rule " + rule.getId() + " failed on " + filePath + ": " + e.getMessage());
+            }
+        }
+        return context.getProblems();
+    }
+
+    /**
+     * Разбирает файлы одной задачей javac. javac оборачивает переданные файлы,
+     * поэтому результаты сопоставляются по URI.
+     */
+    private Map<URI, ParsedSource> parse(List<SourceText> sources) {
+        Map<URI, List<SyntaxError>> errors = new HashMap<>();
+        JavacTask task = (JavacTask) compiler.getTask(null, null, diagnostic -> {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR && diagnostic.getSource() != null) {
+                errors.computeIfAbsent(diagnostic.getSource().toUri(), source -> new ArrayList<>()).add(new SyntaxError(
+                        (int) diagnostic.getLineNumber(), (int) diagnostic.getColumnNumber(), diagnostic.getMessage(Locale.ROOT)));
+            }
+        }, PARSE_OPTIONS, null, sources);
+
+        Iterable<? extends CompilationUnitTree> units;
+        try {
+            units = task.parse();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to parse Java sources", e);
+        }
+        ParseBatch batch = new ParseBatch(Trees.instance(task).getSourcePositions(), sources.size());
+
+        Map<URI, ParsedSource> parsed = new HashMap<>();
+        for (CompilationUnitTree unit : units) {
+            URI file = unit.getSourceFile().toUri();
+            parsed.put(file, new ParsedSource(unit, batch, errors.getOrDefault(file, List.of())));
+        }
+        return parsed;
+    }
+
+    private static String manifestHash(AnalysisScope scope, String filePath) {
+        AnalysisManifest manifest = scope.getManifest();
+        if (manifest == null || manifest.getFiles() == null) {
+            return null;
+        }
+        AnalysisManifest.Entry entry = manifest.getFiles().get(filePath);
+        return entry != null ? entry.getHash() : null;
+    }
+
+    /**
+     * Читает файл; если хеш не известен из манифеста, считает его по содержимому
+     */
+    private static SourceText read(Path file, String hash) {
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            return new SourceText(file, hash != null ? hash : sha256(bytes), new String(bytes, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            System.err.println("Failed to read " + file + " for AST analysis: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Удаляет давно не использованные части, пока деревьев в памяти не больше
+     * analysis.ast.cache-max-entries. Учитываются все деревья части, в том числе деревья
+     * измененных с тех пор файлов: их держит контекст задачи javac.
+     */
+    private void evictExcess() {
+        Map<ParseBatch, Boolean> batches = new IdentityHashMap<>();
+        for (ParsedSource source : parseCache.values()) {
+            batches.put(source.batch, Boolean.TRUE);
+        }
+        long retained = batches.keySet().stream().mapToLong(batch -> batch.size).sum();
+        long excess = retained - analysisProperties.getAst().getCacheMaxEntries();
+        if (excess <= 0) {
+            return;
+        }
+        Map<ParseBatch, Boolean> evicted = new IdentityHashMap<>();
+        for (ParseBatch batch : batches.keySet().stream().sorted(Comparator.comparingLong(batch -> batch.lastUsed)).toList()) {
+            if (excess <= 0) {
+                break;
+            }
+            evicted.put(batch, Boolean.TRUE);
+            excess -= batch.size;
+        }
+        parseCache.values().removeIf(source -> evicted.containsKey(source.batch));
+    }
+
+    private ForkJoinPool getPool() {
+        ForkJoinPool workers = pool;
+        if (workers == null) {
+            synchronized (this) {
+                workers = pool;
+                if (workers == null) {
+                    int parallelism = analysisProperties.getAst().getParallelism();
+                    workers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                            forkJoinPool -> {
+                                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                                thread.setName("ast-rules-" + thread.getPoolIndex());
+                                return thread;
+                            }, null, false);
+                    pool = workers;
+                }
+            }
+        }
+        return workers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool workers = pool;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Содержимое файла для javac
+     */
+    private static class SourceText extends SimpleJavaFileObject {
+        private final String hash;
+        private final String content;
+
+        SourceText(Path file, String hash, String content) {
+            super(file.toUri(), Kind.SOURCE);
+            this.hash = hash;
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    /**
+     * Файлы, разобранные одной задачей javac: освобождаются только вместе
+     */
+    private static class ParseBatch {
+        private final SourcePositions positions;
+        private final int size;
+        private volatile long lastUsed;
+
+        ParseBatch(SourcePositions positions, int size) {
+            this.positions = positions;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Разобранный файл в кэше
+     */
+    private static class ParsedSource {
+        private final CompilationUnitTree unit;
+        private final ParseBatch batch;
+        private final List<SyntaxError> syntaxErrors;
+
+        ParsedSource(CompilationUnitTree unit, ParseBatch batch, List<SyntaxError> syntaxErrors) {
+            this.unit = unit;
+            this.batch = batch;
+            this.syntaxErrors = syntaxErrors;
+        }
+    }
+
+    private static class SyntaxError {
+        private final int line;
+        private final int column;
+        private final String message;
+
+        SyntaxError(int line, int column, String message) {
+            this.line = line;
+            this.column = column;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.CatchTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.util.TreeScanner;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Пустой catch без комментария скрывает ошибку. Допускается, если исключение
+ * названо ignored или expected, или в блоке есть комментарий с объяснением.
+ */
+@Component
+public class EmptyCatchBlockRule implements AstRule {
+
+    private static final Set<String> ALLOWED_NAMES = Set.of("ignored", "ignore", "expected");
+
+    @Override
+    public String getId() {
+        return "EmptyCatchBlock";
+    }
+
+    @Override
+    public String getCategory() {
+        return "Error Prone";
+    }
+
+    @Override
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return CodeProblem.ProblemSeverity.WARNING;
+    }
+
+    @Override
+    public CodeProblem.ProblemType getType() {
+        return CodeProblem.ProblemType.CODE_SMELL;
+    }
+
+    @Override
+    public void check(CompilationUnitTree unit, AstRuleContext context) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitCatch(CatchTree node, Void unused) {
+                if (node.getBlock().getStatements().isEmpty()
+                        && !ALLOWED_NAMES.contains(node.getParameter().getName().toString())) {
+                    String body = context.getSource(node.getBlock());
+                    if (!body.contains("//") && !body.contains("/*")) {
+                        context.report(EmptyCatchBlockRule.this, node,
+                                "Avoid empty catch blocks: handle, log or rethrow the exception");
+                    }
+                }
+                return super.visitCatch(node, unused);
+            }
+        }.scan(unit, null);
+    }
+}
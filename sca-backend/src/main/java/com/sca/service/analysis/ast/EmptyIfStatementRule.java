@@ -0,0 +1,54 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.BlockTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.IfTree;
+import com.sun.source.tree.StatementTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import org.springframework.stereotype.Component;
+
+/**
+ * if с пустой ветвью: чаще всего лишняя точка с запятой после условия - if (x);
+ */
+@Component
+public class EmptyIfStatementRule implements AstRule {
+
+    @Override
+    public String getId() {
+        return "EmptyIfStatement";
+    }
+
+    @Override
+    public String getCategory() {
+        return "Error Prone";
+    }
+
+    @Override
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return CodeProblem.ProblemSeverity.WARNING;
+    }
+
+    @Override
+    public CodeProblem.ProblemType getType() {
+        return CodeProblem.ProblemType.BUG;
+    }
+
+    @Override
+    public void check(CompilationUnitTree unit, AstRuleContext context) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitIf(IfTree node, Void unused) {
+                StatementTree then = node.getThenStatement();
+                if (then.getKind() == Tree.Kind.EMPTY_STATEMENT) {
+                    context.report(EmptyIfStatementRule.this, node, "Empty statement after if condition, the branch does nothing");
+                } else if (then.getKind() == Tree.Kind.BLOCK && ((BlockTree) then).getStatements().isEmpty()
+                        && !context.getSource(then).contains("//") && !context.getSource(then).contains("/*")) {
+                    context.report(EmptyIfStatementRule.this, node, "Empty if branch");
+                }
+                return super.visitIf(node, unused);
+            }
+        }.scan(unit, null);
+    }
+}
@@ -0,0 +1,66 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Класс переопределяет equals(Object), но не hashCode(): равные объекты
+ * попадут в разные корзины HashMap и HashSet
+ */
+@Component
+public class EqualsWithoutHashCodeRule implements AstRule {
+
+    @Override
+    public String getId() {
+        return "EqualsWithoutHashCode";
+    }
+
+    @Override
+    public String getCategory() {
+        return "Error Prone";
+    }
+
+    @Override
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return CodeProblem.ProblemSeverity.WARNING;
+    }
+
+    @Override
+    public CodeProblem.ProblemType getType() {
+        return CodeProblem.ProblemType.BUG;
+    }
+
+    @Override
+    public void check(CompilationUnitTree unit, AstRuleContext context) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitClass(ClassTree node, Void unused) {
+                MethodTree equals = null;
+                boolean hashCode = false;
+                for (Tree member : node.getMembers()) {
+                    if (member.getKind() != Tree.Kind.METHOD) {
+                        continue;
+                    }
+                    MethodTree method = (MethodTree) member;
+                    String name = method.getName().toString();
+                    if (name.equals("equals") && method.getParameters().size() == 1
+                            && method.getParameters().get(0).getType().toString().matches("(java\\.lang\\.)?Object")) {
+                        equals = method;
+                    } else if (name.equals("hashCode") && method.getParameters().isEmpty()) {
+                        hashCode = true;
+                    }
+                }
+                if (equals != null && !hashCode) {
+                    context.report(EqualsWithoutHashCodeRule.this, equals,
+                            "Class " + node.getSimpleName() + " overrides equals() but not hashCode()");
+                }
+                return super.visitClass(node, unused);
+            }
+        }.scan(unit, null);
+    }
+}
@@ -0,0 +1,86 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LambdaExpressionTree;
+import com.sun.source.tree.ReturnTree;
+import com.sun.source.tree.TryTree;
+import com.sun.source.util.TreeScanner;
+import org.springframework.stereotype.Component;
+
+/**
+ * return в finally подменяет результат и молча отбрасывает исключение из try
+ */
+@Component
+public class ReturnFromFinallyRule implements AstRule {
+
+    @Override
+    public String getId() {
+        return "ReturnFromFinallyBlock";
+    }
+
+    @Override
+    public String getCategory() {
+        return "Error Prone";
+    }
+
+    @Override
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return CodeProblem.ProblemSeverity.ERROR;
+    }
+
+    @Override
+    public CodeProblem.ProblemType getType() {
+        return CodeProblem.ProblemType.BUG;
+    }
+
+    @Override
+    public void check(CompilationUnitTree unit, AstRuleContext context) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitTry(TryTree node, Void unused) {
+                if (node.getFinallyBlock() != null) {
+                    new FinallyScanner(context).scan(node.getFinallyBlock(), null);
+                }
+                return super.visitTry(node, unused);
+            }
+        }.scan(unit, null);
+    }
+
+    /**
+     * Ищет return в блоке finally, не заходя во вложенные лямбды и классы - там return свой
+     */
+    private class FinallyScanner extends TreeScanner<Void, Void> {
+        private final AstRuleContext context;
+
+        FinallyScanner(AstRuleContext context) {
+            this.context = context;
+        }
+
+        @Override
+        public Void visitReturn(ReturnTree node, Void unused) {
+            context.report(ReturnFromFinallyRule.this, node, "Avoid returning from a finally block");
+            return null;
+        }
+
+        @Override
+        public Void visitTry(TryTree node, Void unused) {
+            // finally вложенного try проверяется отдельно, чтобы не сообщать дважды
+            scan(node.getResources(), null);
+            scan(node.getBlock(), null);
+            scan(node.getCatches(), null);
+            return null;
+        }
+
+        @Override
+        public Void visitLambdaExpression(LambdaExpressionTree node, Void unused) {
+            return null;
+        }
+
+        @Override
+        public Void visitClass(ClassTree node, Void unused) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.model.CodeProblem;
+import com.sun.source.tree.BinaryTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreeScanner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сравнение со строковым литералом через == или != сравнивает ссылки, а не содержимое
+ */
+@Component
+public class StringReferenceEqualityRule implements AstRule {
+
+    @Override
+    public String getId() {
+        return "StringReferenceEquality";
+    }
+
+    @Override
+    public String getCategory() {
+        return "Error Prone";
+    }
+
+    @Override
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return CodeProblem.ProblemSeverity.ERROR;
+    }
+
+    @Override
+    public CodeProblem.ProblemType getType() {
+        return CodeProblem.ProblemType.BUG;
+    }
+
+    @Override
+    public void check(CompilationUnitTree unit, AstRuleContext context) {
+        new TreeScanner<Void, Void>() {
+            @Override
+            public Void visitBinary(BinaryTree node, Void unused) {
+                boolean equality = node.getKind() == Tree.Kind.EQUAL_TO || node.getKind() == Tree.Kind.NOT_EQUAL_TO;
+                if (equality && (isString(node.getLeftOperand()) || isString(node.getRightOperand()))) {
+                    context.report(StringReferenceEqualityRule.this, node,
+                            "Use equals() to compare strings instead of " + (node.getKind() == Tree.Kind.EQUAL_TO ? "==" : "!="));
+                }
+                return super.visitBinary(node, unused);
+            }
+        }.scan(unit, null);
+    }
+
+    private static boolean isString(Tree operand) {
+        return operand.getKind() == Tree.Kind.STRING_LITERAL;
+    }
+}
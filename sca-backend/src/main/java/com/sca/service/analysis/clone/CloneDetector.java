@@ -0,0 +1,447 @@
+package com.sca.service.analysis.clone;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemMapping;
+import com.sca.service.analysis.SourceLanguage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
+
+/**
+ * Поиск повторяющихся фрагментов кода (клонов) во всем проекте.
+ * <ol>
+ * <li>Файлы параллельно разбиваются на токены, окна из K токенов хешируются скользящим хешем,
+ * из хешей отбираются отпечатки методом winnowing: минимум в каждом окне из W хешей.
+ * Любой общий фрагмент из K + W - 1 = min-tokens токенов дает общий отпечаток,
+ * а отпечатков примерно в (W + 1) / 2 раз меньше, чем токенов. Токены после этого не хранятся.</li>
+ * <li>Отпечатки собираются в FingerprintIndex; вхождения одного отпечатка - кандидаты в клоны.</li>
+ * <li>Кандидаты проверяются по токенам и расширяются в обе стороны до полного клона.
+ * Токены файлов читаются заново и держатся в LRU кэше не больше token-cache-size токенов,
+ * поэтому память ограничена и для проектов в миллионы строк.</li>
+ * </ol>
+ */
+@Component
+public class CloneDetector {
+
+    public static final String RULE_ID = "DuplicatedBlock";
+
+    private static final Set<String> LANGUAGES = Set.of(SourceLanguage.JAVA, SourceLanguage.KOTLIN,
+            SourceLanguage.JAVASCRIPT, SourceLanguage.TYPESCRIPT, SourceLanguage.PYTHON);
+    // Основание скользящего хеша
+    private static final long BASE = 1_000_003L;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private volatile ForkJoinPool pool;
+
+    public Set<String> getLanguages() {
+        return LANGUAGES;
+    }
+
+    /**
+     * Клоны во всех файлах проекта; в результат попадают стороны клонов из области анализа
+     */
+    public List<CodeProblem> analyze(AnalysisScope scope) {
+        AnalysisProperties.Clones settings = analysisProperties.getClones();
+        List<String> files = new ArrayList<>();
+        for (String file : scope.getManifest().getFiles().keySet()) {
+            if (LANGUAGES.contains(SourceLanguage.of(file)) && !file.endsWith(".min.js")) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        int minTokens = Math.max(4, settings.getMinTokens());
+        Path root = scope.getWorkspaceRoot();
+
+        Fingerprints[] fingerprints = fingerprint(root, files, minTokens, settings.isIgnoreLiterals());
+        int total = 0;
+        for (Fingerprints file : fingerprints) {
+            total += file.size;
+        }
+        FingerprintIndex index = new FingerprintIndex(total);
+        for (int file = 0; file < fingerprints.length; file++) {
+            for (int i = 0; i < fingerprints[file].size; i++) {
+                index.add(fingerprints[file].hashes[i], file, fingerprints[file].positions[i]);
+            }
+            fingerprints[file] = null;
+        }
+
+        TokenCache tokens = new TokenCache(root, files, settings.getTokenCacheSize(), settings.isIgnoreLiterals());
+        List<CodeProblem> problems = new ArrayList<>();
+        for (Clone clone : verify(index, files.size(), tokens, minTokens)) {
+            addProblem(problems, scope, files, clone.fileA, clone.startA, clone.fileB, clone.startB, clone.length, tokens);
+            addProblem(problems, scope, files, clone.fileB, clone.startB, clone.fileA, clone.startA, clone.length, tokens);
+        }
+        return problems;
+    }
+
+    /**
+     * Этап 1: отпечатки файлов, параллельно в ForkJoinPool
+     */
+    private Fingerprints[] fingerprint(Path root, List<String> files, int minTokens, boolean ignoreLiterals) {
+        int k = Math.max(2, minTokens / 2);
+        int w = minTokens - k + 1;
+        ForkJoinTask<Fingerprints[]> task = getPool().submit(() -> IntStream.range(0, files.size()).parallel()
+                .mapToObj(file -> winnow(tokenize(root, files.get(file), ignoreLiterals), k, w))
+                .toArray(Fingerprints[]::new));
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Clone detection interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Clone detection failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Winnowing: в каждом окне из w подряд идущих хешей k-грамм выбирается самый правый минимум
+     */
+    private static Fingerprints winnow(TokenizedSource source, int k, int w) {
+        int grams = source == null ? 0 : source.size() - k + 1;
+        Fingerprints result = new Fingerprints(grams < w ? 0 : Math.max(4, grams * 2 / (w + 1)));
+        if (grams < w) {
+            return result;
+        }
+
+        long power = 1;
+        for (int i = 1; i < k; i++) {
+            power *= BASE;
+        }
+        long[] hashes = new long[grams];
+        long rolling = 0;
+        for (int i = 0; i < source.size(); i++) {
+            if (i >= k) {
+                rolling -= source.token(i - k) * power;
+            }
+            rolling = rolling * BASE + source.token(i);
+            if (i >= k - 1) {
+                hashes[i - k + 1] = mix(rolling);
+            }
+        }
+
+        // Монотонная очередь индексов с неубывающими хешами: голова - минимум окна
+        int[] queue = new int[grams];
+        int head = 0;
+        int tail = 0;
+        int last = -1;
+        for (int i = 0; i < grams; i++) {
+            while (tail > head && hashes[queue[tail - 1]] >= hashes[i]) {
+                tail--;
+            }
+            queue[tail++] = i;
+            if (queue[head] <= i - w) {
+                head++;
+            }
+            if (i >= w - 1 && queue[head] != last) {
+                last = queue[head];
+                result.add(hashes[last], last);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Этапы 2 и 3: кандидаты из общих отпечатков проверяются по токенам. Каждое вхождение
+     * сравнивается с первым вхождением отпечатка, поэтому частые шаблонные фрагменты дают
+     * линейное, а не квадратичное число пар. Кандидаты внутри уже найденного клона пропускаются.
+     */
+    private List<Clone> verify(FingerprintIndex index, int fileCount, TokenCache tokens, int minTokens) {
+        // Пары (файл A, позиция A, файл B, позиция B), упорядоченные по файлу A для попаданий в кэш
+        int[] pairs = new int[64];
+        int pairCount = 0;
+        int[] perFile = new int[fileCount + 1];
+        for (int slot = 0; slot < index.capacity(); slot++) {
+            int first = -1;
+            for (int entry = index.head(slot); entry >= 0; entry = index.next(entry)) {
+                if (first < 0 || before(index, entry, first)) {
+                    first = entry;
+                }
+            }
+            for (int entry = index.head(slot); entry >= 0; entry = index.next(entry)) {
+                if (entry == first) {
+                    continue;
+                }
+                if (pairCount * 4 == pairs.length) {
+                    pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                }
+                pairs[pairCount * 4] = index.file(first);
+                pairs[pairCount * 4 + 1] = index.position(first);
+                pairs[pairCount * 4 + 2] = index.file(entry);
+                pairs[pairCount * 4 + 3] = index.position(entry);
+                perFile[index.file(first) + 1]++;
+                pairCount++;
+            }
+        }
+
+        // Сортировка подсчетом по файлу A
+        for (int file = 0; file < fileCount; file++) {
+            perFile[file + 1] += perFile[file];
+        }
+        int[] order = new int[pairCount];
+        for (int pair = 0; pair < pairCount; pair++) {
+            order[perFile[pairs[pair * 4]]++] = pair;
+        }
+
+        List<Clone> clones = new ArrayList<>();
+        Map<Diagonal, List<int[]>> covered = new HashMap<>();
+        for (int i = 0; i < order.length; i++) {
+            if ((i & 0xfff) == 0 && Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("Clone detection interrupted");
+            }
+            int pair = order[i];
+            int fileA = pairs[pair * 4];
+            int positionA = pairs[pair * 4 + 1];
+            int fileB = pairs[pair * 4 + 2];
+            int positionB = pairs[pair * 4 + 3];
+            Diagonal diagonal = new Diagonal(fileA, fileB, positionB - positionA);
+            List<int[]> intervals = covered.computeIfAbsent(diagonal, key -> new ArrayList<>());
+            if (isCovered(intervals, positionA)) {
+                continue;
+            }
+
+            TokenizedSource a = tokens.get(fileA);
+            TokenizedSource b = tokens.get(fileB);
+            if (a == null || b == null) {
+                continue;
+            }
+            int start = 0;
+            while (positionA - start > 0 && positionB - start > 0
+                    && a.token(positionA - start - 1) == b.token(positionB - start - 1)) {
+                start++;
+            }
+            int startA = positionA - start;
+            int startB = positionB - start;
+            // Клон внутри одного файла не должен перекрываться со своей копией
+            int limit = fileA == fileB ? positionB - positionA : Integer.MAX_VALUE;
+            int length = 0;
+            while (length < limit && startA + length < a.size() && startB + length < b.size()
+                    && a.token(startA + length) == b.token(startB + length)) {
+                length++;
+            }
+            intervals.add(new int[] {startA, startA + length});
+            if (length >= minTokens) {
+                clones.add(new Clone(fileA, startA, fileB, startB, length));
+            }
+        }
+        return clones;
+    }
+
+    /**
+     * Порядок вхождений: по файлу, затем по позиции
+     */
+    private static boolean before(FingerprintIndex index, int entry, int other) {
+        return index.file(entry) != index.file(other)
+                ? index.file(entry) < index.file(other)
+                : index.position(entry) < index.position(other);
+    }
+
+    private static boolean isCovered(List<int[]> intervals, int position) {
+        for (int[] interval : intervals) {
+            if (position >= interval[0] && position < interval[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addProblem(List<CodeProblem> problems, AnalysisScope scope, List<String> files,
+                                   int file, int start, int otherFile, int otherStart, int length, TokenCache tokens) {
+        String filePath = files.get(file);
+        if (!scope.contains(filePath)) {
+            return;
+        }
+        TokenizedSource source = tokens.get(file);
+        TokenizedSource other = tokens.get(otherFile);
+        if (source == null || other == null) {
+            return;
+        }
+        int startLine = source.line(start);
+        int endLine = source.line(start + length - 1);
+        String message = "Duplicated block of " + (endLine - startLine + 1) + " lines (" + length + " tokens), also in "
+                + files.get(otherFile) + ":" + other.line(otherStart) + "-" + other.line(otherStart + length - 1);
+
+        CodeProblem problem = ProblemMapping.newProblem(scope.getProject(), filePath, RULE_ID, message,
+                CodeProblem.ProblemSeverity.WARNING, CodeProblem.ProblemType.CODE_SMELL);
+        problem.setCategory("Duplication");
+        problem.setSolution("Extract the duplicated code into a shared method or class");
+        ProblemMapping.setPosition(problem, startLine, 0, endLine, 0);
+        problems.add(problem);
+    }
+
+    private static TokenizedSource tokenize(Path root, String filePath, boolean ignoreLiterals) {
+        try {
+            String content = new String(Files.readAllBytes(root.resolve(filePath)), StandardCharsets.UTF_8);
+            return new SourceTokenizer(SourceLanguage.PYTHON.equals(SourceLanguage.of(filePath)), ignoreLiterals)
+                    .tokenize(content);
+        } catch (IOException e) {
+            System.err.println("Failed to read " + filePath + " for clone detection: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Перемешивание битов (fmix64 из MurmurHash3), чтобы минимумы winnowing были равномерны
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private ForkJoinPool getPool() {
+        ForkJoinPool workers = pool;
+        if (workers == null) {
+            synchronized (this) {
+                workers = pool;
+                if (workers == null) {
+                    int parallelism = analysisProperties.getClones().getParallelism();
+                    workers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                            forkJoinPool -> {
+                                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                                thread.setName("clone-detector-" + thread.getPoolIndex());
+                                return thread;
+                            }, null, false);
+                    pool = workers;
+                }
+            }
+        }
+        return workers;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool workers = pool;
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Отпечатки файла: хеш окна и позиция его первого токена
+     */
+    private static class Fingerprints {
+        private long[] hashes;
+        private int[] positions;
+        private int size;
+
+        Fingerprints(int capacity) {
+            hashes = new long[capacity];
+            positions = new int[capacity];
+        }
+
+        void add(long hash, int position) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, Math.max(4, size * 2));
+                positions = Arrays.copyOf(positions, hashes.length);
+            }
+            hashes[size] = hash;
+            positions[size] = position;
+            size++;
+        }
+    }
+
+    /**
+     * Токены файлов для проверки кандидатов; хранится не больше maxTokens токенов,
+     * давно не использованные файлы вытесняются и при необходимости читаются заново
+     */
+    private static class TokenCache {
+        private final Path root;
+        private final List<String> files;
+        private final long maxTokens;
+        private final boolean ignoreLiterals;
+        private final LinkedHashMap<Integer, TokenizedSource> cached = new LinkedHashMap<>(16, 0.75f, true);
+        private long tokens;
+
+        TokenCache(Path root, List<String> files, long maxTokens, boolean ignoreLiterals) {
+            this.root = root;
+            this.files = files;
+            this.maxTokens = maxTokens;
+            this.ignoreLiterals = ignoreLiterals;
+        }
+
+        TokenizedSource get(int file) {
+            TokenizedSource source = cached.get(file);
+            if (source != null) {
+                return source;
+            }
+            source = tokenize(root, files.get(file), ignoreLiterals);
+            if (source == null) {
+                return null;
+            }
+            source.trim();
+            var eldest = cached.entrySet().iterator();
+            while (tokens + source.size() > maxTokens && eldest.hasNext()) {
+                tokens -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+            cached.put(file, source);
+            tokens += source.size();
+            return source;
+        }
+    }
+
+    private static class Diagonal {
+        private final int fileA;
+        private final int fileB;
+        private final int offset;
+
+        Diagonal(int fileA, int fileB, int offset) {
+            this.fileA = fileA;
+            this.fileB = fileB;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Diagonal diagonal
+                    && fileA == diagonal.fileA && fileB == diagonal.fileB && offset == diagonal.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fileA, fileB, offset);
+        }
+    }
+
+    private static class Clone {
+        private final int fileA;
+        private final int startA;
+        private final int fileB;
+        private final int startB;
+        private final int length;
+
+        Clone(int fileA, int startA, int fileB, int startB, int length) {
+            this.fileA = fileA;
+            this.startA = startA;
+            this.fileB = fileB;
+            this.startB = startB;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.sca.service.analysis.clone;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица отпечатков с открытой адресацией на примитивных массивах: ключ - хеш окна токенов,
+ * значение - цепочка вхождений (файл, позиция токена). Без объектов на запись, поэтому
+ * миллионы отпечатков занимают десятки байт каждый.
+ */
+final class FingerprintIndex {
+
+    private final long[] keys;
+    // Первое вхождение ключа + 1, 0 - пустой слот
+    private final int[] heads;
+    private final int mask;
+
+    private int[] files;
+    private int[] positions;
+    private int[] next;
+    private int size;
+
+    FingerprintIndex(int expectedEntries) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedEntries * 2 - 1)) << 1;
+        keys = new long[capacity];
+        heads = new int[capacity];
+        mask = capacity - 1;
+        files = new int[Math.max(16, expectedEntries)];
+        positions = new int[files.length];
+        next = new int[files.length];
+    }
+
+    void add(long key, int file, int position) {
+        if (size == files.length) {
+            files = Arrays.copyOf(files, size * 2);
+            positions = Arrays.copyOf(positions, size * 2);
+            next = Arrays.copyOf(next, size * 2);
+        }
+        int slot = slot(key);
+        keys[slot] = key;
+        files[size] = file;
+        positions[size] = position;
+        next[size] = heads[slot];
+        heads[slot] = ++size;
+    }
+
+    /**
+     * Число слотов таблицы для перебора через head
+     */
+    int capacity() {
+        return heads.length;
+    }
+
+    /**
+     * Первое вхождение в слоте или -1
+     */
+    int head(int slot) {
+        return heads[slot] - 1;
+    }
+
+    /**
+     * Следующее вхождение того же ключа или -1
+     */
+    int next(int entry) {
+        return next[entry] - 1;
+    }
+
+    int file(int entry) {
+        return files[entry];
+    }
+
+    int position(int entry) {
+        return positions[entry];
+    }
+
+    /**
+     * Слот ключа: занятый этим ключом или первый свободный (линейное пробирование)
+     */
+    private int slot(long key) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (heads[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,139 @@
+package com.sca.service.analysis.clone;
+
+/**
+ * Лексер для поиска дубликатов, общий для Java, Kotlin, JavaScript, TypeScript и Python.
+ * Пробелы, комментарии, строки import/package не учитываются, поэтому копии
+ * с другим форматированием совпадают. Токен кодируется хешем своего текста.
+ */
+final class SourceTokenizer {
+
+    // Код литерала при ignoreLiterals: все строки и числа считаются одинаковыми
+    private static final int LITERAL = 0x4c495421;
+
+    private final boolean hashComments;
+    private final boolean ignoreLiterals;
+
+    /**
+     * hashComments - комментарии Python (#) вместо строчных и блочных комментариев C
+     */
+    SourceTokenizer(boolean hashComments, boolean ignoreLiterals) {
+        this.hashComments = hashComments;
+        this.ignoreLiterals = ignoreLiterals;
+    }
+
+    TokenizedSource tokenize(String content) {
+        TokenizedSource tokens = new TokenizedSource(Math.max(16, content.length() / 4));
+        int length = content.length();
+        int line = 1;
+        boolean lineStart = true;
+        int i = 0;
+
+        while (i < length) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                line++;
+                lineStart = true;
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (lineStart && isImport(content, i)) {
+                i = endOfLine(content, i);
+                continue;
+            }
+            lineStart = false;
+
+            if (hashComments ? c == '#' : content.startsWith("//", i)) {
+                i = endOfLine(content, i);
+            } else if (!hashComments && content.startsWith("/*", i)) {
+                int end = content.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                line += countLines(content, i, end);
+                i = end;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(content.charAt(i))) {
+                    i++;
+                }
+                tokens.add(hash(content, start, i), line);
+            } else if (Character.isDigit(c)) {
+                int start = i;
+                while (i < length && (Character.isLetterOrDigit(content.charAt(i)) || content.charAt(i) == '.'
+                        || content.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add(ignoreLiterals ? LITERAL : hash(content, start, i), line);
+            } else if (c == '"' || c == '\'' || c == '`') {
+                int start = i;
+                i = endOfString(content, i);
+                tokens.add(ignoreLiterals ? LITERAL : hash(content, start, i), line);
+                line += countLines(content, start, i);
+            } else {
+                tokens.add(c, line);
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private boolean isImport(String content, int i) {
+        return content.startsWith("import ", i) || content.startsWith("package ", i)
+                || (hashComments && content.startsWith("from ", i));
+    }
+
+    /**
+     * Конец строкового литерала, включая тройные кавычки Python и шаблоны JavaScript
+     */
+    private static int endOfString(String content, int start) {
+        char quote = content.charAt(start);
+        String triple = String.valueOf(quote).repeat(3);
+        if (content.startsWith(triple, start)) {
+            int end = content.indexOf(triple, start + 3);
+            return end < 0 ? content.length() : end + 3;
+        }
+        int i = start + 1;
+        while (i < content.length()) {
+            char c = content.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                return i + 1;
+            }
+            if (c == '\n' && quote != '`') {
+                // Незакрытый литерал заканчивается на конце строки
+                return i;
+            }
+            i++;
+        }
+        return content.length();
+    }
+
+    private static int endOfLine(String content, int i) {
+        int end = content.indexOf('\n', i);
+        return end < 0 ? content.length() : end;
+    }
+
+    private static int countLines(String content, int from, int to) {
+        int lines = 0;
+        for (int i = from; i < to && i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static int hash(String content, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + content.charAt(i);
+        }
+        // Односимвольные токены кодируются самим символом, длинные перемешиваются, чтобы не совпасть с ними
+        return to - from == 1 ? hash : hash * 0x9E3779B1 + 0x7F4A7C15;
+    }
+}
@@ -0,0 +1,49 @@
+package com.sca.service.analysis.clone;
+
+import java.util.Arrays;
+
+/**
+ * Токены файла и их строки в примитивных массивах
+ */
+final class TokenizedSource {
+
+    private int[] tokens;
+    private int[] lines;
+    private int size;
+
+    TokenizedSource(int capacity) {
+        tokens = new int[capacity];
+        lines = new int[capacity];
+    }
+
+    void add(int token, int line) {
+        if (size == tokens.length) {
+            tokens = Arrays.copyOf(tokens, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+        }
+        tokens[size] = token;
+        lines[size] = line;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int token(int index) {
+        return tokens[index];
+    }
+
+    int line(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Освобождает неиспользуемый запас массивов перед помещением в кэш
+     */
+    TokenizedSource trim() {
+        tokens = Arrays.copyOf(tokens, size);
+        lines = Arrays.copyOf(lines, size);
+        return this;
+    }
+}
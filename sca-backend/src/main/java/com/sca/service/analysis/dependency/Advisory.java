@@ -0,0 +1,52 @@
+package com.sca.service.analysis.dependency;
+
+import com.sca.model.CodeProblem;
+
+import java.util.List;
+
+/**
+ * Уязвимость из базы, затрагивающая версию зависимости
+ */
+public class Advisory {
+
+    private final String id;
+    private final String summary;
+    private final List<String> aliases;
+    private final CodeProblem.ProblemSeverity severity;
+    private final String fixedVersion;
+
+    /**
+     * fixedVersion - ближайшая версия с исправлением или null, если исправления нет
+     */
+    public Advisory(String id, String summary, List<String> aliases,
+                    CodeProblem.ProblemSeverity severity, String fixedVersion) {
+        this.id = id;
+        this.summary = summary;
+        this.aliases = aliases;
+        this.severity = severity;
+        this.fixedVersion = fixedVersion;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * Другие идентификаторы уязвимости, например CVE
+     */
+    public List<String> getAliases() {
+        return aliases;
+    }
+
+    public CodeProblem.ProblemSeverity getSeverity() {
+        return severity;
+    }
+
+    public String getFixedVersion() {
+        return fixedVersion;
+    }
+}
@@ -0,0 +1,252 @@
+package com.sca.service.analysis.dependency;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Локальная база уязвимостей пакетов (analysis.dependencies.database-path), сеть не нужна.
+ * Файл индекса (см. AdvisoryIndexWriter) отображается в память вне кучи, пакет ищется
+ * двоичным поиском по отсортированной таблице ключей, строки декодируются только для
+ * найденных уязвимостей. Индекс неизменяемый, поэтому читается из любых потоков без блокировок;
+ * после импорта новый файл подменяет старый целиком (reload).
+ */
+@Component
+public class AdvisoryDatabase {
+
+    private static final CodeProblem.ProblemSeverity[] SEVERITIES = CodeProblem.ProblemSeverity.values();
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private volatile Index index;
+    private volatile boolean missingReported;
+
+    /**
+     * Есть ли импортированная база
+     */
+    public boolean isAvailable() {
+        return getIndex() != null;
+    }
+
+    /**
+     * Время импорта открытой базы (мс от эпохи), 0 - базы нет
+     */
+    public long getImportedAt() {
+        Index current = getIndex();
+        return current != null ? current.buffer.getLong(16) : 0;
+    }
+
+    /**
+     * Уязвимости, затрагивающие версию зависимости
+     */
+    public List<Advisory> find(Dependency dependency) {
+        Index current = getIndex();
+        if (current == null) {
+            return List.of();
+        }
+        return current.find(dependency);
+    }
+
+    /**
+     * Открывает файл базы заново, например после импорта
+     */
+    public synchronized void reload() {
+        missingReported = false;
+        index = open(getDatabasePath());
+    }
+
+    Path getDatabasePath() {
+        return Paths.get(analysisProperties.getDependencies().getDatabasePath());
+    }
+
+    private Index getIndex() {
+        Index current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = open(getDatabasePath());
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Index open(Path path) {
+        if (!Files.isRegularFile(path)) {
+            if (!missingReported) {
+                System.err.println("Advisory database " + path + " not found, dependency analysis is skipped");
+                missingReported = true;
+            }
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Отображение остается действительным после закрытия канала и замены файла
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < AdvisoryIndexWriter.HEADER_SIZE
+                    || buffer.getInt(0) != AdvisoryIndexWriter.MAGIC
+                    || buffer.getInt(4) != AdvisoryIndexWriter.FORMAT_VERSION) {
+                throw new IOException("unsupported format");
+            }
+            System.out.println("Opened advisory database " + path + ": " + buffer.getInt(8) + " packages, "
+                    + buffer.getInt(12) + " advisories");
+            return new Index(buffer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open advisory database " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Открытый файл индекса. Используются только чтения по абсолютному смещению,
+     * они не меняют состояние буфера и безопасны из нескольких потоков.
+     */
+    private static class Index {
+        private final ByteBuffer buffer;
+        private final int packageCount;
+        private final int advisoriesStart;
+
+        Index(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.packageCount = buffer.getInt(8);
+            this.advisoriesStart = AdvisoryIndexWriter.HEADER_SIZE + packageCount * AdvisoryIndexWriter.PACKAGE_SLOT_SIZE;
+        }
+
+        List<Advisory> find(Dependency dependency) {
+            int slot = search(AdvisoryIndexWriter.key(dependency.getEcosystem(), dependency.getName()));
+            if (slot < 0) {
+                return List.of();
+            }
+            String version = dependency.getVersion();
+            int block = buffer.getInt(AdvisoryIndexWriter.HEADER_SIZE + slot * AdvisoryIndexWriter.PACKAGE_SLOT_SIZE + 4);
+            int rangeCount = buffer.getInt(block);
+            int position = block + 4;
+
+            List<Advisory> found = new ArrayList<>();
+            List<Integer> foundIds = new ArrayList<>();
+            for (int i = 0; i < rangeCount; i++) {
+                int advisory = buffer.getInt(position);
+                int eventCount = buffer.getInt(position + 4);
+                int events = position + 8;
+                position = events + eventCount * 8;
+
+                if (foundIds.contains(advisory) || !affects(events, eventCount, version)) {
+                    continue;
+                }
+                foundIds.add(advisory);
+                found.add(advisory(advisory, fixedVersion(events, eventCount, version)));
+            }
+            return found;
+        }
+
+        /**
+         * Двоичный поиск ключа по слотам пакетов, -1 если пакета нет
+         */
+        private int search(byte[] key) {
+            int low = 0;
+            int high = packageCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int result = compareKey(buffer.getInt(AdvisoryIndexWriter.HEADER_SIZE + middle * AdvisoryIndexWriter.PACKAGE_SLOT_SIZE), key);
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        private int compareKey(int offset, byte[] key) {
+            int length = buffer.getInt(offset);
+            int common = Math.min(length, key.length);
+            for (int i = 0; i < common; i++) {
+                int result = Integer.compare(buffer.get(offset + 4 + i) & 0xff, key[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return Integer.compare(length, key.length);
+        }
+
+        /**
+         * Попадает ли версия в диапазон. События отсортированы по версии:
+         * версия затронута, если последнее не превышающее ее событие - introduced.
+         */
+        private boolean affects(int events, int eventCount, String version) {
+            boolean affected = false;
+            for (int i = 0; i < eventCount; i++) {
+                int type = buffer.getInt(events + i * 8);
+                int compared = VersionComparator.INSTANCE.compare(version, string(buffer.getInt(events + i * 8 + 4)));
+                switch (type) {
+                    case AdvisoryIndexWriter.VERSION -> {
+                        if (compared == 0) {
+                            return true;
+                        }
+                    }
+                    case AdvisoryIndexWriter.INTRODUCED -> {
+                        if (compared >= 0) {
+                            affected = true;
+                        }
+                    }
+                    case AdvisoryIndexWriter.LAST_AFFECTED -> {
+                        if (compared > 0) {
+                            affected = false;
+                        }
+                    }
+                    default -> {
+                        // fixed и limit: сама версия уже не затронута
+                        if (compared >= 0) {
+                            affected = false;
+                        }
+                    }
+                }
+            }
+            return affected;
+        }
+
+        /**
+         * Ближайшая версия fixed выше текущей
+         */
+        private String fixedVersion(int events, int eventCount, String version) {
+            for (int i = 0; i < eventCount; i++) {
+                if (buffer.getInt(events + i * 8) == AdvisoryIndexWriter.FIXED) {
+                    String fixed = string(buffer.getInt(events + i * 8 + 4));
+                    if (VersionComparator.INSTANCE.compare(fixed, version) > 0) {
+                        return fixed;
+                    }
+                }
+            }
+            return null;
+        }
+
+        private Advisory advisory(int index, String fixedVersion) {
+            int slot = advisoriesStart + index * AdvisoryIndexWriter.ADVISORY_SLOT_SIZE;
+            String aliases = string(buffer.getInt(slot + 8));
+            return new Advisory(string(buffer.getInt(slot)), string(buffer.getInt(slot + 4)),
+                    aliases.isEmpty() ? List.of() : List.of(aliases.split(",")),
+                    SEVERITIES[buffer.getInt(slot + 12)], fixedVersion);
+        }
+
+        private String string(int offset) {
+            byte[] bytes = new byte[buffer.getInt(offset)];
+            buffer.get(offset + 4, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.sca.service.analysis.dependency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Импорт уязвимостей в формате OSV (https://osv.dev) из локального каталога с JSON файлами
+ * или zip архива выгрузки экосистемы (all.zip). Сеть не используется: выгрузка скачивается
+ * отдельно и кладется в analysis.dependencies.import-path, при старте импортируется,
+ * если она новее индекса. Индекс пишется во временный файл и атомарно подменяет старый.
+ */
+@Component
+public class AdvisoryImporter {
+
+    // Краткое описание, если у уязвимости нет summary
+    private static final int MAX_SUMMARY_LENGTH = 200;
+
+    @Autowired
+    private AdvisoryDatabase advisoryDatabase;
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        String importPath = analysisProperties.getDependencies().getImportPath();
+        if (importPath == null || importPath.isBlank()) {
+            return;
+        }
+        Path source = Paths.get(importPath);
+        Path database = advisoryDatabase.getDatabasePath();
+        try {
+            if (!Files.exists(source) || (Files.exists(database)
+                    && Files.getLastModifiedTime(source).compareTo(Files.getLastModifiedTime(database)) <= 0)) {
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to check advisory import " + source + ": " + e.getMessage());
+            return;
+        }
+
+        // Большая выгрузка импортируется минуты, старт приложения не ждет
+        Thread thread = new Thread(() -> {
+            try {
+                importFrom(source);
+            } catch (Exception e) {
+                System.err.println("Advisory import from " + source + " failed: " + e.getMessage());
+            }
+        }, "advisory-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Импортирует выгрузку OSV и подменяет ею базу. Возвращает число уязвимостей.
+     */
+    public synchronized int importFrom(Path source) throws IOException {
+        long startedAt = System.currentTimeMillis();
+        AdvisoryIndexWriter writer = new AdvisoryIndexWriter();
+
+        if (Files.isDirectory(source)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(file -> file.toString().endsWith(".json") && Files.isRegularFile(file)).toList();
+            }
+            for (Path file : files) {
+                try (InputStream input = Files.newInputStream(file)) {
+                    read(input, file.toString(), writer);
+                }
+            }
+        } else {
+            try (ZipFile zip = new ZipFile(source.toFile())) {
+                Enumeration<? extends ZipEntry> entries = zip.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && entry.getName().endsWith(".json")) {
+                        try (InputStream input = zip.getInputStream(entry)) {
+                            read(input, entry.getName(), writer);
+                        }
+                    }
+                }
+            }
+        }
+
+        Path database = advisoryDatabase.getDatabasePath();
+        Path directory = database.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "advisories", ".tmp");
+        try {
+            writer.write(temp, startedAt);
+            Files.move(temp, database, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        advisoryDatabase.reload();
+
+        System.out.println("Imported " + writer.getAdvisoryCount() + " advisories from " + source
+                + " in " + (System.currentTimeMillis() - startedAt) + " ms");
+        return writer.getAdvisoryCount();
+    }
+
+    /**
+     * Одна запись OSV. Отозванные уязвимости, диапазоны GIT и неподдерживаемые экосистемы пропускаются.
+     */
+    private void read(InputStream input, String name, AdvisoryIndexWriter writer) {
+        JsonNode advisory;
+        try {
+            advisory = objectMapper.readTree(input);
+        } catch (IOException e) {
+            System.err.println("Skipping invalid advisory " + name + ": " + e.getMessage());
+            return;
+        }
+        if (advisory == null || !advisory.hasNonNull("id") || advisory.hasNonNull("withdrawn")) {
+            return;
+        }
+
+        int index = -1;
+        for (JsonNode affected : advisory.path("affected")) {
+            Ecosystem ecosystem = Ecosystem.fromOsvName(affected.path("package").path("ecosystem").asText());
+            String packageName = affected.path("package").path("name").asText(null);
+            if (ecosystem == null || packageName == null) {
+                continue;
+            }
+            if (index < 0) {
+                index = writer.addAdvisory(advisory.get("id").asText(), summary(advisory),
+                        aliases(advisory), severity(advisory));
+            }
+
+            for (JsonNode range : affected.path("ranges")) {
+                if ("GIT".equals(range.path("type").asText())) {
+                    continue;
+                }
+                List<Map.Entry<Integer, String>> events = new ArrayList<>();
+                for (JsonNode event : range.path("events")) {
+                    addEvent(events, event, "introduced", AdvisoryIndexWriter.INTRODUCED);
+                    addEvent(events, event, "fixed", AdvisoryIndexWriter.FIXED);
+                    addEvent(events, event, "last_affected", AdvisoryIndexWriter.LAST_AFFECTED);
+                    addEvent(events, event, "limit", AdvisoryIndexWriter.LIMIT);
+                }
+                writer.addRange(ecosystem, packageName, index, events);
+            }
+
+            List<Map.Entry<Integer, String>> versions = new ArrayList<>();
+            for (JsonNode version : affected.path("versions")) {
+                versions.add(new AbstractMap.SimpleImmutableEntry<>(AdvisoryIndexWriter.VERSION, version.asText()));
+            }
+            writer.addRange(ecosystem, packageName, index, versions);
+        }
+    }
+
+    private static void addEvent(List<Map.Entry<Integer, String>> events, JsonNode event, String field, int type) {
+        if (event.hasNonNull(field)) {
+            events.add(new AbstractMap.SimpleImmutableEntry<>(type, event.get(field).asText()));
+        }
+    }
+
+    private static String summary(JsonNode advisory) {
+        String summary = advisory.path("summary").asText("");
+        if (summary.isBlank()) {
+            summary = advisory.path("details").asText("").strip();
+            int paragraph = summary.indexOf("\n\n");
+            if (paragraph > 0) {
+                summary = summary.substring(0, paragraph);
+            }
+        }
+        summary = summary.replaceAll("\\s+", " ");
+        return summary.length() > MAX_SUMMARY_LENGTH ? summary.substring(0, MAX_SUMMARY_LENGTH) + "..." : summary;
+    }
+
+    private static List<String> aliases(JsonNode advisory) {
+        List<String> aliases = new ArrayList<>();
+        for (JsonNode alias : advisory.path("aliases")) {
+            aliases.add(alias.asText());
+        }
+        return aliases;
+    }
+
+    /**
+     * Важность по оценке GitHub Advisory (database_specific.severity)
+     */
+    private static CodeProblem.ProblemSeverity severity(JsonNode advisory) {
+        String severity = advisory.path("database_specific").path("severity").asText("").toUpperCase(Locale.ROOT);
+        return switch (severity) {
+            case "CRITICAL" -> CodeProblem.ProblemSeverity.CRITICAL;
+            case "HIGH" -> CodeProblem.ProblemSeverity.ERROR;
+            case "LOW" -> CodeProblem.ProblemSeverity.INFO;
+            default -> CodeProblem.ProblemSeverity.WARNING;
+        };
+    }
+}
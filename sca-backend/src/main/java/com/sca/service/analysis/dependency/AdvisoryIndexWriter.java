@@ -0,0 +1,190 @@
+package com.sca.service.analysis.dependency;
+
+import com.sca.model.CodeProblem;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Запись индекса уязвимостей - неизменяемого файла, который AdvisoryDatabase отображает
+ * в память и читает без разбора. Все числа int, big-endian.
+ * <pre>
+ * заголовок:   magic, версия формата, число пакетов P, число уязвимостей A, long время импорта
+ * пакеты:      P x (смещение ключа, смещение блока диапазонов), по возрастанию байтов ключа
+ * уязвимости:  A x (смещение id, смещение описания, смещение aliases, важность)
+ * куча:        строки (длина, UTF-8) и блоки диапазонов пакетов:
+ *              число диапазонов, для каждого: уязвимость, число событий, события (тип, смещение версии)
+ * </pre>
+ * Ключ пакета - "ЭКОСИСТЕМА:имя". События диапазона отсортированы по версии.
+ */
+class AdvisoryIndexWriter {
+
+    static final int MAGIC = 0x53434156;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int PACKAGE_SLOT_SIZE = 8;
+    static final int ADVISORY_SLOT_SIZE = 16;
+
+    // Типы событий диапазона, как в формате OSV; VERSION - явно перечисленная версия
+    static final int INTRODUCED = 0;
+    static final int FIXED = 1;
+    static final int LAST_AFFECTED = 2;
+    static final int LIMIT = 3;
+    static final int VERSION = 4;
+
+    private final List<String[]> advisories = new ArrayList<>();
+    private final List<CodeProblem.ProblemSeverity> severities = new ArrayList<>();
+    // Диапазоны по ключу пакета; ключи сравниваются как байты UTF-8, как при поиске
+    private final Map<byte[], List<Range>> ranges = new TreeMap<>(Arrays::compareUnsigned);
+
+    static byte[] key(Ecosystem ecosystem, String name) {
+        return (ecosystem.name() + ":" + ecosystem.normalizeName(name)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Добавляет уязвимость, возвращает ее номер для addRange
+     */
+    int addAdvisory(String id, String summary, List<String> aliases, CodeProblem.ProblemSeverity severity) {
+        advisories.add(new String[] {id, summary != null ? summary : "", String.join(",", aliases)});
+        severities.add(severity);
+        return advisories.size() - 1;
+    }
+
+    /**
+     * Добавляет затронутый диапазон пакета. events - пары (тип, версия).
+     */
+    void addRange(Ecosystem ecosystem, String name, int advisory, List<Map.Entry<Integer, String>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, String>> sorted = new ArrayList<>(events);
+        sorted.sort(Comparator.comparing(Map.Entry::getValue, VersionComparator.INSTANCE));
+        ranges.computeIfAbsent(key(ecosystem, name), ignored -> new ArrayList<>()).add(new Range(advisory, sorted));
+    }
+
+    int getAdvisoryCount() {
+        return advisories.size();
+    }
+
+    void write(Path target, long importedAt) throws IOException {
+        int heapStart = HEADER_SIZE + ranges.size() * PACKAGE_SLOT_SIZE + advisories.size() * ADVISORY_SLOT_SIZE;
+        Heap heap = new Heap(heapStart);
+
+        int[] packageSlots = new int[ranges.size() * 2];
+        int slot = 0;
+        for (Map.Entry<byte[], List<Range>> entry : ranges.entrySet()) {
+            packageSlots[slot++] = heap.bytes(entry.getKey());
+            packageSlots[slot++] = heap.ranges(entry.getValue());
+        }
+        int[] advisorySlots = new int[advisories.size() * 3];
+        for (int i = 0; i < advisories.size(); i++) {
+            String[] advisory = advisories.get(i);
+            for (int field = 0; field < 3; field++) {
+                advisorySlots[i * 3 + field] = heap.string(advisory[field]);
+            }
+        }
+
+        try (OutputStream file = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(ranges.size());
+            out.writeInt(advisories.size());
+            out.writeLong(importedAt);
+            for (int value : packageSlots) {
+                out.writeInt(value);
+            }
+            for (int i = 0; i < advisories.size(); i++) {
+                out.writeInt(advisorySlots[i * 3]);
+                out.writeInt(advisorySlots[i * 3 + 1]);
+                out.writeInt(advisorySlots[i * 3 + 2]);
+                out.writeInt(severities.get(i).ordinal());
+            }
+            heap.content.writeTo(out);
+        }
+    }
+
+    /**
+     * Куча строк и блоков; одинаковые строки (в основном версии) хранятся один раз
+     */
+    private static class Heap {
+        private final int start;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(content);
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Heap(int start) {
+            this.start = start;
+        }
+
+        int string(String value) throws IOException {
+            Integer offset = strings.get(value);
+            if (offset == null) {
+                offset = bytes(value.getBytes(StandardCharsets.UTF_8));
+                strings.put(value, offset);
+            }
+            return offset;
+        }
+
+        int bytes(byte[] value) throws IOException {
+            int offset = position();
+            out.writeInt(value.length);
+            out.write(value);
+            return offset;
+        }
+
+        int ranges(List<Range> ranges) throws IOException {
+            int[][] versions = new int[ranges.size()][];
+            for (int i = 0; i < ranges.size(); i++) {
+                List<Map.Entry<Integer, String>> events = ranges.get(i).events;
+                versions[i] = new int[events.size()];
+                for (int j = 0; j < events.size(); j++) {
+                    versions[i][j] = string(events.get(j).getValue());
+                }
+            }
+            int offset = position();
+            out.writeInt(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                Range range = ranges.get(i);
+                out.writeInt(range.advisory);
+                out.writeInt(range.events.size());
+                for (int j = 0; j < range.events.size(); j++) {
+                    out.writeInt(range.events.get(j).getKey());
+                    out.writeInt(versions[i][j]);
+                }
+            }
+            return offset;
+        }
+
+        private int position() throws IOException {
+            long position = (long) start + content.size();
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Advisory index exceeds 2 GB");
+            }
+            return (int) position;
+        }
+    }
+
+    private static class Range {
+        private final int advisory;
+        private final List<Map.Entry<Integer, String>> events;
+
+        Range(int advisory, List<Map.Entry<Integer, String>> events) {
+            this.advisory = advisory;
+            this.events = events;
+        }
+    }
+}
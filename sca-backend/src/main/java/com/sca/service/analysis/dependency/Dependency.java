@@ -0,0 +1,44 @@
+package com.sca.service.analysis.dependency;
+
+/**
+ * Зависимость, объявленная в манифесте проекта
+ */
+public class Dependency {
+
+    private final Ecosystem ecosystem;
+    private final String name;
+    private final String version;
+    private final int line;
+
+    /**
+     * name - groupId:artifactId для Maven, имя пакета для npm и PyPI;
+     * line - строка объявления в манифесте, 0 если неизвестна
+     */
+    public Dependency(Ecosystem ecosystem, String name, String version, int line) {
+        this.ecosystem = ecosystem;
+        this.name = name;
+        this.version = version;
+        this.line = line;
+    }
+
+    public Ecosystem getEcosystem() {
+        return ecosystem;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public String toString() {
+        return name + "@" + version;
+    }
+}
@@ -0,0 +1,18 @@
+package com.sca.service.analysis.dependency;
+
+import java.util.List;
+
+/**
+ * Разбор манифеста зависимостей одного формата. Реализации - Spring компоненты.
+ * Учитываются только зависимости с конкретной версией, транзитивные зависимости
+ * известны только из lock файлов.
+ */
+public interface DependencyManifestParser {
+
+    /**
+     * Подходит ли парсер для файла с таким именем
+     */
+    boolean supports(String fileName);
+
+    List<Dependency> parse(String content);
+}
@@ -0,0 +1,45 @@
+package com.sca.service.analysis.dependency;
+
+import java.util.Locale;
+
+/**
+ * Экосистема пакетов; osvName - название экосистемы в базе уязвимостей OSV
+ */
+public enum Ecosystem {
+    MAVEN("Maven"),
+    NPM("npm"),
+    PYPI("PyPI");
+
+    private final String osvName;
+
+    Ecosystem(String osvName) {
+        this.osvName = osvName;
+    }
+
+    public String getOsvName() {
+        return osvName;
+    }
+
+    /**
+     * Экосистема по названию OSV или null, если она не поддерживается
+     */
+    public static Ecosystem fromOsvName(String name) {
+        for (Ecosystem ecosystem : values()) {
+            if (ecosystem.osvName.equals(name)) {
+                return ecosystem;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Имя пакета в том виде, в котором оно хранится в индексе.
+     * Имена PyPI сравниваются без учета регистра и разделителей (PEP 503).
+     */
+    public String normalizeName(String name) {
+        if (this == PYPI) {
+            return name.toLowerCase(Locale.ROOT).replaceAll("[-_.]+", "-");
+        }
+        return name;
+    }
+}
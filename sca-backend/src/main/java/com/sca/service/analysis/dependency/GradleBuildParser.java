@@ -0,0 +1,52 @@
+package com.sca.service.analysis.dependency;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Зависимости из build.gradle и build.gradle.kts без выполнения скрипта: строковые
+ * координаты "group:name:version" и запись group: ..., name: ..., version: ...
+ * Версии из переменных и динамические версии (1.+, latest.release) пропускаются.
+ */
+@Component
+public class GradleBuildParser implements DependencyManifestParser {
+
+    private static final Pattern COORDINATES = Pattern.compile(
+            "[\"']([\\w.\\-]+):([\\w.\\-]+):([\\w.\\-]+)(?:[:@][\\w.\\-]+)?[\"']");
+    private static final Pattern MAP_NOTATION = Pattern.compile(
+            "group\\s*[:=]\\s*[\"']([\\w.\\-]+)[\"']\\s*,\\s*name\\s*[:=]\\s*[\"']([\\w.\\-]+)[\"']"
+                    + "\\s*,\\s*version\\s*[:=]\\s*[\"']([\\w.\\-]+)[\"']");
+
+    @Override
+    public boolean supports(String fileName) {
+        return fileName.equals("build.gradle") || fileName.equals("build.gradle.kts");
+    }
+
+    @Override
+    public List<Dependency> parse(String content) {
+        List<Dependency> dependencies = new ArrayList<>();
+        String[] lines = content.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.startsWith("//") || line.startsWith("*") || line.startsWith("/*")) {
+                continue;
+            }
+            add(dependencies, COORDINATES.matcher(line), i + 1);
+            add(dependencies, MAP_NOTATION.matcher(line), i + 1);
+        }
+        return dependencies;
+    }
+
+    private static void add(List<Dependency> dependencies, Matcher matcher, int line) {
+        while (matcher.find()) {
+            String version = matcher.group(3);
+            if (!version.startsWith("latest.") && !version.endsWith("+")) {
+                dependencies.add(new Dependency(Ecosystem.MAVEN, matcher.group(1) + ":" + matcher.group(2), version, line));
+            }
+        }
+    }
+}
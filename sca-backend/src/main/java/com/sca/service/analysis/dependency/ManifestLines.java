@@ -0,0 +1,27 @@
+package com.sca.service.analysis.dependency;
+
+/**
+ * Номера строк в тексте манифеста по смещению символа
+ */
+final class ManifestLines {
+
+    private ManifestLines() {}
+
+    /**
+     * Строка (с 1) первого вхождения needle начиная с from, 0 если не найдено
+     */
+    static int lineOf(String content, String needle, int from) {
+        int index = content.indexOf(needle, from);
+        return index < 0 ? 0 : lineAt(content, index);
+    }
+
+    static int lineAt(String content, int offset) {
+        int line = 1;
+        for (int i = 0; i < offset && i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+}
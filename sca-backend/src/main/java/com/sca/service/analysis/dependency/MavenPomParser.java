@@ -0,0 +1,174 @@
+package com.sca.service.analysis.dependency;
+
+import org.springframework.stereotype.Component;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Зависимости из pom.xml, включая dependencyManagement. Подставляются свойства
+ * из properties и project.version; версия без значения берется из dependencyManagement
+ * этого же pom. Зависимости с диапазоном версий или неизвестным свойством пропускаются.
+ */
+@Component
+public class MavenPomParser implements DependencyManifestParser {
+
+    private static final Pattern PROPERTY = Pattern.compile("\\$\\{([^}]+)}");
+
+    @Override
+    public boolean supports(String fileName) {
+        return fileName.equals("pom.xml");
+    }
+
+    @Override
+    public List<Dependency> parse(String content) {
+        Map<String, String> properties = new HashMap<>();
+        Map<String, String> managedVersions = new HashMap<>();
+        List<Declared> declared = new ArrayList<>();
+
+        try {
+            XMLStreamReader reader = createFactory().createXMLStreamReader(new StringReader(content));
+            Deque<String> path = new ArrayDeque<>();
+            Declared current = null;
+            StringBuilder text = new StringBuilder();
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    path.addLast(reader.getLocalName());
+                    text.setLength(0);
+                    if (reader.getLocalName().equals("dependency") && isDependencyList(path)) {
+                        current = new Declared(reader.getLocation().getLineNumber(), path.contains("dependencyManagement"));
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                    text.append(reader.getText());
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String element = path.removeLast();
+                    String value = text.toString().trim();
+                    text.setLength(0);
+                    String parent = path.peekLast();
+
+                    if (current != null && "dependency".equals(parent)) {
+                        switch (element) {
+                            case "groupId" -> current.groupId = value;
+                            case "artifactId" -> current.artifactId = value;
+                            case "version" -> current.version = value;
+                            default -> { }
+                        }
+                    } else if (current != null && element.equals("dependency")) {
+                        declared.add(current);
+                        current = null;
+                    } else if (path.size() == 2 && "properties".equals(parent) && "project".equals(path.peekFirst())) {
+                        properties.put(element, value);
+                    } else if (path.size() == 1 && element.equals("version")) {
+                        properties.put("project.version", value);
+                    } else if (path.size() == 2 && "parent".equals(parent) && element.equals("version")) {
+                        properties.putIfAbsent("project.version", value);
+                        properties.put("project.parent.version", value);
+                    }
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Invalid pom.xml: " + e.getMessage(), e);
+        }
+
+        for (Declared dependency : declared) {
+            if (dependency.managed && dependency.version != null) {
+                managedVersions.put(resolve(dependency.groupId, properties) + ":"
+                        + resolve(dependency.artifactId, properties), dependency.version);
+            }
+        }
+
+        List<Dependency> dependencies = new ArrayList<>();
+        for (Declared dependency : declared) {
+            String groupId = resolve(dependency.groupId, properties);
+            String artifactId = resolve(dependency.artifactId, properties);
+            if (groupId == null || artifactId == null) {
+                continue;
+            }
+            String name = groupId + ":" + artifactId;
+            String version = resolve(dependency.version != null ? dependency.version : managedVersions.get(name), properties);
+            if (isConcrete(version)) {
+                dependencies.add(new Dependency(Ecosystem.MAVEN, name, version, dependency.line));
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * dependencies/dependency верхнего уровня, в dependencyManagement или в профиле
+     */
+    private static boolean isDependencyList(Deque<String> path) {
+        List<String> elements = new ArrayList<>(path);
+        int size = elements.size();
+        if (size < 3 || !elements.get(size - 2).equals("dependencies")) {
+            return false;
+        }
+        String owner = elements.get(size - 3);
+        return owner.equals("project") || owner.equals("dependencyManagement") || owner.equals("profile");
+    }
+
+    /**
+     * Подставляет свойства ${...}; null, если значение не удалось вычислить
+     */
+    private static String resolve(String value, Map<String, String> properties) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        // Свойства могут ссылаться друг на друга, глубина ограничена от циклов
+        for (int depth = 0; depth < 10 && value.contains("${"); depth++) {
+            Matcher matcher = PROPERTY.matcher(value);
+            StringBuilder resolved = new StringBuilder();
+            while (matcher.find()) {
+                String replacement = properties.get(matcher.group(1));
+                if (replacement == null) {
+                    return null;
+                }
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(resolved);
+            value = resolved.toString();
+        }
+        return value.contains("${") ? null : value;
+    }
+
+    private static boolean isConcrete(String version) {
+        return version != null && !version.isEmpty()
+                && version.indexOf('[') < 0 && version.indexOf('(') < 0 && version.indexOf(',') < 0;
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Манифест загружен пользователем: внешние сущности и DTD не обрабатываются
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        return factory;
+    }
+
+    private static class Declared {
+        private final int line;
+        private final boolean managed;
+        private String groupId;
+        private String artifactId;
+        private String version;
+
+        Declared(int line, boolean managed) {
+            this.line = line;
+            this.managed = managed;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.sca.service.analysis.dependency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Зависимости npm. package-lock.json (lockfileVersion 1-3) содержит все установленные пакеты
+ * с точными версиями, включая транзитивные. Из package.json берутся прямые зависимости:
+ * для диапазонов ^ и ~ проверяется нижняя граница, остальные диапазоны пропускаются.
+ * Если рядом есть package-lock.json, package.json не анализируется (см. DependencyAnalyzer).
+ */
+@Component
+public class NpmManifestParser implements DependencyManifestParser {
+
+    public static final String PACKAGE_JSON = "package.json";
+    public static final String PACKAGE_LOCK = "package-lock.json";
+
+    private static final String NODE_MODULES = "node_modules/";
+    private static final Pattern SIMPLE_RANGE = Pattern.compile("^[\\^~=v]*(\\d+\\.\\d+\\.\\d+(?:-[\\w.\\-]+)?)$");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public boolean supports(String fileName) {
+        return fileName.equals(PACKAGE_JSON) || fileName.equals(PACKAGE_LOCK);
+    }
+
+    @Override
+    public List<Dependency> parse(String content) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(content);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid npm manifest: " + e.getMessage(), e);
+        }
+        if (root == null || !root.isObject()) {
+            return List.of();
+        }
+
+        List<Dependency> dependencies = new ArrayList<>();
+        if (root.has("lockfileVersion")) {
+            if (root.path("packages").isObject()) {
+                parsePackages(root.get("packages"), content, dependencies);
+            } else {
+                parseLegacyDependencies(root.path("dependencies"), content, dependencies);
+            }
+        } else {
+            parseRanges(root.path("dependencies"), content, dependencies);
+            parseRanges(root.path("devDependencies"), content, dependencies);
+            parseRanges(root.path("optionalDependencies"), content, dependencies);
+        }
+        return dedupe(dependencies);
+    }
+
+    /**
+     * lockfileVersion 2 и 3: "packages" с ключами node_modules/a/node_modules/b
+     */
+    private static void parsePackages(JsonNode packages, String content, List<Dependency> dependencies) {
+        Iterator<Map.Entry<String, JsonNode>> fields = packages.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String key = entry.getKey();
+            int nameStart = key.lastIndexOf(NODE_MODULES);
+            String version = entry.getValue().path("version").asText(null);
+            if (nameStart < 0 || version == null || entry.getValue().path("link").asBoolean(false)) {
+                continue;
+            }
+            String name = key.substring(nameStart + NODE_MODULES.length());
+            dependencies.add(new Dependency(Ecosystem.NPM, name, version,
+                    ManifestLines.lineOf(content, "\"" + key + "\"", 0)));
+        }
+    }
+
+    /**
+     * lockfileVersion 1: вложенные "dependencies" с полем version
+     */
+    private static void parseLegacyDependencies(JsonNode node, String content, List<Dependency> dependencies) {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            String version = entry.getValue().path("version").asText(null);
+            if (version != null && SIMPLE_RANGE.matcher(version).matches()) {
+                dependencies.add(new Dependency(Ecosystem.NPM, entry.getKey(), version,
+                        ManifestLines.lineOf(content, "\"" + entry.getKey() + "\"", 0)));
+            }
+            parseLegacyDependencies(entry.getValue().path("dependencies"), content, dependencies);
+        }
+    }
+
+    private static void parseRanges(JsonNode node, String content, List<Dependency> dependencies) {
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            Matcher matcher = SIMPLE_RANGE.matcher(entry.getValue().asText("").trim());
+            if (matcher.matches()) {
+                dependencies.add(new Dependency(Ecosystem.NPM, entry.getKey(), matcher.group(1),
+                        ManifestLines.lineOf(content, "\"" + entry.getKey() + "\"", 0)));
+            }
+        }
+    }
+
+    /**
+     * Один пакет одной версии может встречаться в дереве много раз
+     */
+    private static List<Dependency> dedupe(List<Dependency> dependencies) {
+        Set<String> seen = new LinkedHashSet<>();
+        List<Dependency> unique = new ArrayList<>();
+        for (Dependency dependency : dependencies) {
+            if (seen.add(dependency.toString())) {
+                unique.add(dependency);
+            }
+        }
+        return unique;
+    }
+}
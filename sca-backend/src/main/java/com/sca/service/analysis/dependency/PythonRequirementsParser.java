@@ -0,0 +1,46 @@
+package com.sca.service.analysis.dependency;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Зависимости из requirements.txt, закрепленные через == или ===.
+ * Диапазоны (>=, ~=), ссылки и опции pip пропускаются.
+ */
+@Component
+public class PythonRequirementsParser implements DependencyManifestParser {
+
+    private static final Pattern PINNED = Pattern.compile(
+            "^([A-Za-z0-9][A-Za-z0-9._\\-]*)\\s*(?:\\[[^]]*])?\\s*===?\\s*([A-Za-z0-9.!+_\\-]+)\\s*(?:;.*)?$");
+
+    @Override
+    public boolean supports(String fileName) {
+        return fileName.equals("requirements.txt");
+    }
+
+    @Override
+    public List<Dependency> parse(String content) {
+        List<Dependency> dependencies = new ArrayList<>();
+        String[] lines = content.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+            int comment = line.indexOf(" #");
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("-")) {
+                continue;
+            }
+            Matcher matcher = PINNED.matcher(line);
+            if (matcher.matches()) {
+                dependencies.add(new Dependency(Ecosystem.PYPI, matcher.group(1), matcher.group(2), i + 1));
+            }
+        }
+        return dependencies;
+    }
+}
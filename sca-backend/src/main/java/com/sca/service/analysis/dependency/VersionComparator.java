@@ -0,0 +1,146 @@
+package com.sca.service.analysis.dependency;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Сравнение версий Maven, semver и PEP 440 одним правилом. Версия делится на числа
+ * и слова; числа сравниваются как числа, недостающие части считаются нулями (1.0 = 1.0.0).
+ * Слово - квалификатор: dev < alpha < beta < milestone < rc < snapshot < релиз < sp/post.
+ * Число больше любого квалификатора, поэтому 1.0.1 > 1.0-sp1. Метаданные сборки после '+'
+ * не учитываются.
+ */
+public final class VersionComparator implements Comparator<String> {
+
+    public static final VersionComparator INSTANCE = new VersionComparator();
+
+    // Ранг релиза (квалификатор отсутствует)
+    private static final int RELEASE = 0;
+    // Неизвестный квалификатор считается предварительной версией
+    private static final int UNKNOWN = -1;
+
+    private static final Map<String, Integer> QUALIFIERS = Map.ofEntries(
+            Map.entry("dev", -6),
+            Map.entry("alpha", -5),
+            Map.entry("a", -5),
+            Map.entry("beta", -4),
+            Map.entry("b", -4),
+            Map.entry("milestone", -3),
+            Map.entry("m", -3),
+            Map.entry("rc", -2),
+            Map.entry("cr", -2),
+            Map.entry("c", -2),
+            Map.entry("pre", -2),
+            Map.entry("preview", -2),
+            Map.entry("snapshot", -1),
+            Map.entry("final", RELEASE),
+            Map.entry("ga", RELEASE),
+            Map.entry("release", RELEASE),
+            Map.entry("sp", 1),
+            Map.entry("post", 1)
+    );
+
+    private VersionComparator() {}
+
+    @Override
+    public int compare(String left, String right) {
+        List<String> a = tokenize(left);
+        List<String> b = tokenize(right);
+        for (int i = 0; i < Math.max(a.size(), b.size()); i++) {
+            String x = i < a.size() ? a.get(i) : null;
+            String y = i < b.size() ? b.get(i) : null;
+            int result = compareTokens(x, y);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareTokens(String x, String y) {
+        boolean xNumber = x == null || isNumber(x);
+        boolean yNumber = y == null || isNumber(y);
+        if (xNumber && yNumber) {
+            return compareNumbers(x == null ? "0" : x, y == null ? "0" : y);
+        }
+        if (xNumber != yNumber) {
+            // Отсутствующая часть - релиз, число больше любого квалификатора
+            if (x == null) {
+                return Integer.compare(RELEASE, rank(y));
+            }
+            if (y == null) {
+                return Integer.compare(rank(x), RELEASE);
+            }
+            return xNumber ? 1 : -1;
+        }
+        int result = Integer.compare(rank(x), rank(y));
+        return result != 0 ? result : x.compareTo(y);
+    }
+
+    private static int compareNumbers(String x, String y) {
+        x = stripZeros(x);
+        y = stripZeros(y);
+        return x.length() != y.length() ? Integer.compare(x.length(), y.length()) : x.compareTo(y);
+    }
+
+    private static String stripZeros(String number) {
+        int start = 0;
+        while (start < number.length() - 1 && number.charAt(start) == '0') {
+            start++;
+        }
+        return number.substring(start);
+    }
+
+    private static int rank(String qualifier) {
+        return QUALIFIERS.getOrDefault(qualifier, UNKNOWN);
+    }
+
+    private static boolean isNumber(String token) {
+        return Character.isDigit(token.charAt(0));
+    }
+
+    /**
+     * Числа и слова в нижнем регистре; разделители отбрасываются, хвостовые нули и
+     * квалификаторы релиза удаляются, чтобы 1.0.0, 1.0 и 1.0.Final были равны
+     */
+    private static List<String> tokenize(String version) {
+        String value = version.trim().toLowerCase(Locale.ROOT);
+        int build = value.indexOf('+');
+        if (build >= 0) {
+            value = value.substring(0, build);
+        }
+        if (value.startsWith("v")) {
+            value = value.substring(1);
+        }
+
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean digit = Character.isDigit(c);
+            while (i < value.length() && Character.isLetterOrDigit(value.charAt(i))
+                    && Character.isDigit(value.charAt(i)) == digit) {
+                i++;
+            }
+            tokens.add(value.substring(start, i));
+        }
+
+        while (!tokens.isEmpty()) {
+            String last = tokens.get(tokens.size() - 1);
+            if (isNumber(last) ? stripZeros(last).equals("0") : rank(last) == RELEASE) {
+                tokens.remove(tokens.size() - 1);
+            } else {
+                break;
+            }
+        }
+        return tokens;
+    }
+}
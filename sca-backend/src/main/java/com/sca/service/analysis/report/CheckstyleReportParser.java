@@ -0,0 +1,47 @@
+package com.sca.service.analysis.report;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemMapping;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.function.Consumer;
+
+/**
+ * Отчет Checkstyle в формате xml: file/error с атрибутами line, column, severity, message и source
+ */
+@Component
+public class CheckstyleReportParser extends XmlReportParser {
+
+    @Override
+    protected String getToolName() {
+        return "Checkstyle";
+    }
+
+    @Override
+    protected int parse(XMLStreamReader reader, AnalysisScope scope, Consumer<CodeProblem> consumer) throws XMLStreamException {
+        int count = 0;
+        String filePath = null;
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if ("file".equals(reader.getLocalName())) {
+                filePath = scope.toRelativePath(attribute(reader, "name"));
+            } else if ("error".equals(reader.getLocalName())) {
+                CodeProblem problem = ProblemMapping.newProblem(scope.getProject(), filePath,
+                        ProblemMapping.checkstyleRuleId(attribute(reader, "source")),
+                        attribute(reader, "message"),
+                        ProblemMapping.fromCheckstyleSeverity(attribute(reader, "severity")),
+                        CodeProblem.ProblemType.CODE_SMELL);
+                ProblemMapping.setPosition(problem, intAttribute(reader, "line"), intAttribute(reader, "column"), 0, 0);
+                consumer.accept(problem);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,62 @@
+package com.sca.service.analysis.report;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemMapping;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.function.Consumer;
+
+/**
+ * Отчет PMD в формате xml: file/violation с атрибутами позиции, rule, ruleset и priority
+ */
+@Component
+public class PmdReportParser extends XmlReportParser {
+
+    @Override
+    protected String getToolName() {
+        return "PMD";
+    }
+
+    @Override
+    protected int parse(XMLStreamReader reader, AnalysisScope scope, Consumer<CodeProblem> consumer) throws XMLStreamException {
+        int count = 0;
+        String filePath = null;
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "file":
+                    filePath = scope.toRelativePath(attribute(reader, "name"));
+                    break;
+                case "violation":
+                    int beginLine = intAttribute(reader, "beginline");
+                    int beginColumn = intAttribute(reader, "begincolumn");
+                    int endLine = intAttribute(reader, "endline");
+                    int endColumn = intAttribute(reader, "endcolumn");
+                    String rule = attribute(reader, "rule");
+                    String ruleset = attribute(reader, "ruleset");
+                    int priority = intAttribute(reader, "priority");
+
+                    CodeProblem problem = ProblemMapping.newProblem(scope.getProject(), filePath, rule,
+                            elementText(reader), ProblemMapping.fromPmdPriority(priority),
+                            CodeProblem.ProblemType.CODE_SMELL);
+                    problem.setCategory(ruleset);
+                    ProblemMapping.setPosition(problem, beginLine, beginColumn, endLine, endColumn);
+                    consumer.accept(problem);
+                    count++;
+                    break;
+                case "error":
+                    System.err.println("PMD failed to process " + attribute(reader, "filename") + ": " + attribute(reader, "msg"));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,143 @@
+package com.sca.service.analysis.report;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemMapping;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.function.Consumer;
+
+/**
+ * Отчет SpotBugs в формате -xml:withMessages. Позиция берется из SourceLine, вложенного
+ * прямо в BugInstance, а если его нет - из SourceLine метода или класса.
+ * Пути в SourceLine заданы относительно корня исходников и сопоставляются с файлами проекта.
+ */
+@Component
+public class SpotBugsReportParser extends XmlReportParser {
+
+    @Override
+    protected String getToolName() {
+        return "SpotBugs";
+    }
+
+    @Override
+    protected int parse(XMLStreamReader reader, AnalysisScope scope, Consumer<CodeProblem> consumer) throws XMLStreamException {
+        int count = 0;
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT && "BugInstance".equals(reader.getLocalName())) {
+                consumer.accept(parseBugInstance(reader, scope));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private CodeProblem parseBugInstance(XMLStreamReader reader, AnalysisScope scope) throws XMLStreamException {
+        String type = attribute(reader, "type");
+        String category = attribute(reader, "category");
+        int priority = intAttribute(reader, "priority");
+        int rank = intAttribute(reader, "rank");
+
+        String message = null;
+        SourceLine primary = null;
+        SourceLine method = null;
+        SourceLine clazz = null;
+        // Имя элемента верхнего уровня внутри BugInstance, в котором сейчас находится читатель
+        String container = null;
+        int depth = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) {
+                    break;
+                }
+                depth--;
+                if (depth == 0) {
+                    container = null;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String name = reader.getLocalName();
+            if (depth == 0 && ("LongMessage".equals(name) || "ShortMessage".equals(name))) {
+                String text = elementText(reader);
+                if (message == null || "LongMessage".equals(name)) {
+                    message = text;
+                }
+                continue;
+            }
+            if ("SourceLine".equals(name)) {
+                SourceLine sourceLine = new SourceLine(reader);
+                if (depth == 0 && (primary == null || (primary.role != null && sourceLine.role == null))) {
+                    primary = sourceLine;
+                } else if ("Method".equals(container) && method == null) {
+                    method = sourceLine;
+                } else if ("Class".equals(container) && clazz == null) {
+                    clazz = sourceLine;
+                }
+            }
+            if (depth == 0) {
+                container = name;
+            }
+            depth++;
+        }
+
+        SourceLine location = primary != null ? primary : method != null ? method : clazz;
+        CodeProblem problem = ProblemMapping.newProblem(scope.getProject(),
+                location != null ? scope.resolveSourcePath(location.sourcePath) : null,
+                type, message, severity(priority, rank), problemType(category));
+        problem.setCategory(category);
+        if (location != null) {
+            ProblemMapping.setPosition(problem, location.start, 0, location.end, 0);
+        }
+        return problem;
+    }
+
+    /**
+     * priority: 1 - высокий, 2 - средний, 3 - низкий; rank 1-4 - самые опасные ошибки
+     */
+    private static CodeProblem.ProblemSeverity severity(int priority, int rank) {
+        if (rank > 0 && rank <= 4) {
+            return CodeProblem.ProblemSeverity.CRITICAL;
+        }
+        switch (priority) {
+            case 1:
+                return CodeProblem.ProblemSeverity.ERROR;
+            case 2:
+                return CodeProblem.ProblemSeverity.WARNING;
+            default:
+                return CodeProblem.ProblemSeverity.INFO;
+        }
+    }
+
+    private static CodeProblem.ProblemType problemType(String category) {
+        if ("SECURITY".equals(category) || "MALICIOUS_CODE".equals(category)) {
+            return CodeProblem.ProblemType.VULNERABILITY;
+        }
+        if ("STYLE".equals(category) || "BAD_PRACTICE".equals(category) || "PERFORMANCE".equals(category)) {
+            return CodeProblem.ProblemType.CODE_SMELL;
+        }
+        return CodeProblem.ProblemType.BUG;
+    }
+
+    private static class SourceLine {
+        private final String sourcePath;
+        private final String role;
+        private final int start;
+        private final int end;
+
+        SourceLine(XMLStreamReader reader) {
+            this.sourcePath = attribute(reader, "sourcepath");
+            this.role = attribute(reader, "role");
+            this.start = intAttribute(reader, "start");
+            this.end = intAttribute(reader, "end");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.sca.service.analysis.report;
+
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Потоковый разбор XML отчета анализатора. Отчет читается через StAX по одному элементу,
+ * каждая найденная проблема сразу передается в consumer, поэтому память не зависит от размера отчета.
+ */
+public abstract class XmlReportParser {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    /**
+     * Разбирает отчет и возвращает количество переданных в consumer проблем
+     */
+    public int parse(InputStream report, AnalysisScope scope, Consumer<CodeProblem> consumer) {
+        XMLStreamReader reader = null;
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(report);
+            return parse(reader, scope, consumer);
+        } catch (XMLStreamException e) {
+            throw new RuntimeException("Failed to parse " + getToolName() + " report: " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    // Поток отчета закрывает вызывающий код
+                }
+            }
+        }
+    }
+
+    protected abstract String getToolName();
+
+    protected abstract int parse(XMLStreamReader reader, AnalysisScope scope,
+                                 Consumer<CodeProblem> consumer) throws XMLStreamException;
+
+    protected static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    protected static int intAttribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Текст элемента; читатель должен стоять на START_ELEMENT, после вызова - на END_ELEMENT
+     */
+    protected static String elementText(XMLStreamReader reader) throws XMLStreamException {
+        return reader.getElementText().trim();
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // Отчеты приходят из контейнера с кодом пользователя - внешние сущности и DTD запрещены
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,291 @@
+package com.sca.service.analysis.sonar;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemMapping;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Клиент Web API SonarQube. Запросы выполняются асинхронно, обработка отчета сканера
+ * на сервере ожидается опросом по расписанию, поэтому ожидание сервера не занимает потоков.
+ * Проблемы загружаются постранично, не больше analysis.sonar.concurrency страниц одновременно.
+ */
+@Component
+public class SonarQubeClient {
+
+    // Больше 10000 проблем одного запроса SonarQube не отдает
+    private static final int MAX_RESULTS = 10_000;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final List<String> SEVERITIES = List.of("BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO");
+
+    @Autowired
+    private AnalysisProperties analysisProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile HttpClient httpClient;
+
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * Ждет обработки отчета сканера (задача taskId) и загружает открытые проблемы проекта
+     * projectKey, относящиеся к файлам области анализа
+     */
+    public CompletableFuture<List<CodeProblem>> fetchProblems(AnalysisScope scope, String projectKey, String taskId) {
+        CompletableFuture<Void> task = awaitTask(taskId);
+        CompletableFuture<List<CodeProblem>> problems = task.thenCompose(ignored -> searchIssues(scope, projectKey));
+        // Отмена результата (отмена или таймаут стадии) прекращает опрос
+        problems.whenComplete((result, throwable) -> task.cancel(false));
+        return problems;
+    }
+
+    /**
+     * Завершается, когда задача обработки отчета на сервере выполнена; ошибкой - если она
+     * завершилась неудачно. Отмена возвращенного future прекращает опрос.
+     */
+    public CompletableFuture<Void> awaitTask(String taskId) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        poll(taskId, done);
+        return done;
+    }
+
+    private void poll(String taskId, CompletableFuture<Void> done) {
+        if (done.isDone()) {
+            return;
+        }
+        get("/api/ce/task?id=" + encode(taskId)).whenComplete((json, throwable) -> {
+            if (throwable != null) {
+                done.completeExceptionally(throwable);
+                return;
+            }
+            JsonNode task = json.path("task");
+            String status = task.path("status").asText();
+            if ("SUCCESS".equals(status)) {
+                done.complete(null);
+            } else if ("PENDING".equals(status) || "IN_PROGRESS".equals(status)) {
+                try {
+                    getScheduler().schedule(() -> poll(taskId, done),
+                            analysisProperties.getSonar().getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                }
+            } else {
+                done.completeExceptionally(new RuntimeException("SonarQube task " + taskId + " " + status
+                        + ": " + task.path("errorMessage").asText("no details")));
+            }
+        });
+    }
+
+    /**
+     * Открытые проблемы проекта. Первая страница сообщает общее число проблем,
+     * остальные загружаются параллельно. Больше 10000 проблем SonarQube не отдает, поэтому
+     * такой поиск разбивается на запросы по важности; если и их не хватает - ошибка,
+     * а не усеченный список, иначе непоказанные проблемы считались бы исправленными.
+     */
+    public CompletableFuture<List<CodeProblem>> searchIssues(AnalysisScope scope, String projectKey) {
+        return searchSlice(scope, projectKey, "").thenCompose(problems -> {
+            if (problems != null) {
+                return CompletableFuture.completedFuture(problems);
+            }
+            List<CompletableFuture<List<CodeProblem>>> slices = new ArrayList<>();
+            for (String severity : SEVERITIES) {
+                slices.add(searchSlice(scope, projectKey, "&severities=" + severity).thenApply(slice -> {
+                    if (slice == null) {
+                        throw new RuntimeException("SonarQube project " + projectKey + " has more than " + MAX_RESULTS
+                                + " " + severity + " issues, they cannot be fetched completely");
+                    }
+                    return slice;
+                }));
+            }
+            return CompletableFuture.allOf(slices.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+                List<CodeProblem> all = new ArrayList<>();
+                for (CompletableFuture<List<CodeProblem>> slice : slices) {
+                    all.addAll(slice.join());
+                }
+                return all;
+            });
+        });
+    }
+
+    /**
+     * Проблемы, отобранные условием filter, или null, если их больше MAX_RESULTS
+     */
+    private CompletableFuture<List<CodeProblem>> searchSlice(AnalysisScope scope, String projectKey, String filter) {
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, analysisProperties.getSonar().getPageSize()));
+        return searchPage(projectKey, filter, 1, pageSize).thenCompose(first -> {
+            int total = first.path("paging").path("total").asInt(first.path("total").asInt(0));
+            if (total > MAX_RESULTS) {
+                return CompletableFuture.completedFuture(null);
+            }
+            int pages = Math.max(1, (total + pageSize - 1) / pageSize);
+            Map<Integer, JsonNode> results = new ConcurrentHashMap<>();
+            results.put(1, first);
+            return fetchPages(projectKey, filter, pages, pageSize, results).thenApply(ignored -> {
+                List<CodeProblem> problems = new ArrayList<>();
+                for (int page = 1; page <= pages; page++) {
+                    addProblems(scope, projectKey, results.get(page), problems);
+                }
+                return problems;
+            });
+        });
+    }
+
+    /**
+     * Загружает страницы 2..pages: каждая из concurrency цепочек берет следующую страницу,
+     * когда получила предыдущую
+     */
+    private CompletableFuture<Void> fetchPages(String projectKey, String filter, int pages, int pageSize,
+                                               Map<Integer, JsonNode> results) {
+        AtomicInteger next = new AtomicInteger(2);
+        int chains = Math.max(1, Math.min(analysisProperties.getSonar().getConcurrency(), pages - 1));
+        CompletableFuture<?>[] running = new CompletableFuture[chains];
+        for (int i = 0; i < chains; i++) {
+            running[i] = fetchNext(projectKey, filter, next, pages, pageSize, results);
+        }
+        return CompletableFuture.allOf(running);
+    }
+
+    private CompletableFuture<Void> fetchNext(String projectKey, String filter, AtomicInteger next, int pages, int pageSize,
+                                              Map<Integer, JsonNode> results) {
+        int page = next.getAndIncrement();
+        if (page > pages) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return searchPage(projectKey, filter, page, pageSize).thenCompose(json -> {
+            results.put(page, json);
+            return fetchNext(projectKey, filter, next, pages, pageSize, results);
+        });
+    }
+
+    private CompletableFuture<JsonNode> searchPage(String projectKey, String filter, int page, int pageSize) {
+        // Постоянный порядок, чтобы страницы не пересекались
+        return get("/api/issues/search?components=" + encode(projectKey) + filter
+                + "&resolved=false&s=FILE_LINE&asc=true&ps=" + pageSize + "&p=" + page);
+    }
+
+    private static void addProblems(AnalysisScope scope, String projectKey, JsonNode page, List<CodeProblem> problems) {
+        String prefix = projectKey + ":";
+        for (JsonNode issue : page.path("issues")) {
+            String component = issue.path("component").asText();
+            if (!component.startsWith(prefix)) {
+                // Проблема уровня проекта, а не файла
+                continue;
+            }
+            String filePath = component.substring(prefix.length());
+            if (!scope.contains(filePath)) {
+                continue;
+            }
+            CodeProblem problem = ProblemMapping.newProblem(scope.getProject(), filePath,
+                    issue.path("rule").asText(),
+                    issue.path("message").asText(),
+                    ProblemMapping.fromSonarSeverity(issue.path("severity").asText(null)),
+                    ProblemMapping.fromSonarType(issue.path("type").asText(null)));
+            JsonNode range = issue.path("textRange");
+            if (range.isObject()) {
+                // Смещения SonarQube с нуля, конец не включается
+                ProblemMapping.setPosition(problem, range.path("startLine").asInt(),
+                        range.path("startOffset").asInt() + 1, range.path("endLine").asInt(), range.path("endOffset").asInt());
+            } else {
+                ProblemMapping.setPosition(problem, issue.path("line").asInt(), 0, 0, 0);
+            }
+            problems.add(problem);
+        }
+    }
+
+    private CompletableFuture<JsonNode> get(String pathAndQuery) {
+        AnalysisProperties.Sonar settings = analysisProperties.getSonar();
+        String hostUrl = settings.getHostUrl().replaceAll("/+$", "");
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(hostUrl + pathAndQuery))
+                .timeout(Duration.ofSeconds(settings.getRequestTimeoutSeconds()))
+                .header("Accept", "application/json")
+                .GET();
+        if (settings.getToken() != null && !settings.getToken().isBlank()) {
+            // Токен передается как имя пользователя с пустым паролем
+            String credentials = Base64.getEncoder().encodeToString((settings.getToken() + ":").getBytes(StandardCharsets.UTF_8));
+            request.header("Authorization", "Basic " + credentials);
+        }
+
+        String path = pathAndQuery.substring(0, pathAndQuery.indexOf('?') >= 0 ? pathAndQuery.indexOf('?') : pathAndQuery.length());
+        return getHttpClient().sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            if (response.statusCode() != 200) {
+                throw new RuntimeException("SonarQube " + path + " returned HTTP " + response.statusCode());
+            }
+            try {
+                return objectMapper.readTree(response.body());
+            } catch (IOException e) {
+                throw new RuntimeException("Invalid SonarQube response from " + path, e);
+            }
+        });
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private HttpClient getHttpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    client = HttpClient.newBuilder()
+                            .connectTimeout(Duration.ofSeconds(analysisProperties.getSonar().getRequestTimeoutSeconds()))
+                            .build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    private ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "sonar-task-poll");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
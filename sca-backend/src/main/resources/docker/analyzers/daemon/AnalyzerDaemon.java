@@ -0,0 +1,194 @@
+import com.puppycrawl.tools.checkstyle.AbstractAutomaticBean;
+import com.puppycrawl.tools.checkstyle.Checker;
+import com.puppycrawl.tools.checkstyle.ConfigurationLoader;
+import com.puppycrawl.tools.checkstyle.PropertiesExpander;
+import com.puppycrawl.tools.checkstyle.ThreadModeSettings;
+import com.puppycrawl.tools.checkstyle.XMLLogger;
+import com.puppycrawl.tools.checkstyle.api.CheckstyleException;
+import com.puppycrawl.tools.checkstyle.api.Configuration;
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Демон анализатора в песочнице анализа: инструмент загружается один раз и живет, пока
+ * живет контейнер, поэтому запуски из пула контейнеров не платят за старт и прогрев JVM,
+ * а правила разбираются один раз.
+ * Запуск: java -cp <классы демона>:<библиотеки инструмента> AnalyzerDaemon pmd|checkstyle <порт>
+ * Протокол: одно соединение - один запрос. Клиент отправляет строку с полями через табуляцию:
+ * набор правил, путь отчета и пути исходников (файлы или каталоги). Демон пишет XML отчет
+ * в файл, как инструмент из командной строки, и отвечает строкой "OK <мс>" или "ERROR <сообщение>".
+ */
+public class AnalyzerDaemon {
+
+    interface Tool {
+        void run(String config, Path report, List<Path> sources) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: AnalyzerDaemon pmd|checkstyle <port>");
+            System.exit(2);
+        }
+        // Класс инструмента загружается по имени: в classpath демона только библиотеки этого инструмента
+        String toolClass = switch (args[0]) {
+            case "pmd" -> "AnalyzerDaemon$PmdTool";
+            case "checkstyle" -> "AnalyzerDaemon$CheckstyleTool";
+            default -> throw new IllegalArgumentException("Unknown tool " + args[0]);
+        };
+        Tool tool = (Tool) Class.forName(toolClass).getDeclaredConstructor().newInstance();
+        int port = Integer.parseInt(args[1]);
+
+        ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, args[0] + "-daemon-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Только loopback: к демону обращаются команды внутри контейнера
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println(args[0] + " daemon listening on " + port);
+            while (true) {
+                Socket socket = server.accept();
+                workers.execute(() -> handle(tool, socket));
+            }
+        }
+    }
+
+    private static void handle(Tool tool, Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String request = in.readLine();
+            if (request == null) {
+                return;
+            }
+            long startedAt = System.nanoTime();
+            String status;
+            try {
+                String[] fields = request.split("\t");
+                if (fields.length < 3) {
+                    throw new IllegalArgumentException("Expected config, report and sources");
+                }
+                List<Path> sources = new ArrayList<>();
+                for (int i = 2; i < fields.length; i++) {
+                    sources.add(Path.of(fields[i]));
+                }
+                tool.run(fields[0], Path.of(fields[1]), sources);
+                status = "OK " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+            } catch (Exception e) {
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+                status = "ERROR " + message.replace('\n', ' ');
+            }
+            out.write(status + "\n");
+            out.flush();
+        } catch (IOException e) {
+            System.err.println("Analyzer daemon request failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * PMD: разобранные наборы правил хранятся по имени
+     */
+    static class PmdTool implements Tool {
+        private final Map<String, RuleSet> ruleSets = new ConcurrentHashMap<>();
+
+        @Override
+        public void run(String ruleset, Path report, List<Path> sources) throws IOException {
+            PMDConfiguration configuration = new PMDConfiguration();
+            configuration.setOnlyRecognizeLanguage(configuration.getLanguageRegistry().getLanguageById("java"));
+            configuration.setIgnoreIncrementalAnalysis(true);
+            configuration.setReportFormat("xml");
+            configuration.setReportFile(report);
+            RuleSet rules = ruleSets.computeIfAbsent(ruleset,
+                    location -> RuleSetLoader.fromPmdConfig(configuration).loadFromResource(location));
+
+            try (PmdAnalysis analysis = PmdAnalysis.create(configuration)) {
+                analysis.addRuleSet(rules);
+                for (Path source : sources) {
+                    analysis.files().addFileOrDirectory(source);
+                }
+                analysis.performAnalysis();
+            }
+        }
+    }
+
+    /**
+     * Checkstyle: конфигурация разбирается один раз, Checker не потокобезопасен,
+     * поэтому настроенные экземпляры переиспользуются через очередь
+     */
+    static class CheckstyleTool implements Tool {
+        private final Map<String, Configuration> configurations = new ConcurrentHashMap<>();
+        private final Map<String, Queue<Checker>> idleCheckers = new ConcurrentHashMap<>();
+
+        @Override
+        public void run(String config, Path report, List<Path> sources) throws Exception {
+            Queue<Checker> idle = idleCheckers.computeIfAbsent(config, location -> new ConcurrentLinkedQueue<>());
+            Checker checker = idle.poll();
+            if (checker == null) {
+                checker = new Checker();
+                checker.setModuleClassLoader(Checker.class.getClassLoader());
+                checker.configure(getConfiguration(config));
+            }
+
+            XMLLogger logger = new XMLLogger(Files.newOutputStream(report), AbstractAutomaticBean.OutputStreamOptions.CLOSE);
+            checker.addListener(logger);
+            try {
+                checker.process(listFiles(sources));
+            } finally {
+                checker.removeListener(logger);
+                idle.offer(checker);
+            }
+        }
+
+        private Configuration getConfiguration(String location) throws CheckstyleException {
+            Configuration loaded = configurations.get(location);
+            if (loaded == null) {
+                loaded = ConfigurationLoader.loadConfiguration(location,
+                        new PropertiesExpander(System.getProperties()),
+                        ConfigurationLoader.IgnoredModulesOptions.OMIT,
+                        ThreadModeSettings.SINGLE_THREAD_MODE_INSTANCE);
+                configurations.put(location, loaded);
+            }
+            return loaded;
+        }
+
+        private static List<File> listFiles(List<Path> sources) throws IOException {
+            List<File> files = new ArrayList<>();
+            for (Path source : sources) {
+                if (Files.isDirectory(source)) {
+                    try (Stream<Path> paths = Files.walk(source)) {
+                        paths.filter(Files::isRegularFile).sorted().forEach(path -> files.add(path.toFile()));
+                    }
+                } else {
+                    files.add(source.toFile());
+                }
+            }
+            return files;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+#!/bin/sh
+# Запускает демоны анализаторов и держит контейнер песочницы запущенным.
+# Порты совпадают с PmdAnalyzer.DAEMON_PORT и CheckstyleAnalyzer.DAEMON_PORT.
+# Если демон не запустился или упал, бэкенд запускает инструмент из командной строки.
+if [ "$SCA_DAEMONS" != "off" ]; then
+    java $SCA_DAEMON_OPTS -cp "/opt/sca-daemon:/opt/pmd/lib/*" AnalyzerDaemon pmd 7101 > /var/log/pmd-daemon.log 2>&1 &
+    java $SCA_DAEMON_OPTS -cp "/opt/sca-daemon:/opt/checkstyle/checkstyle.jar" AnalyzerDaemon checkstyle 7102 > /var/log/checkstyle-daemon.log 2>&1 &
+fi
+exec sleep infinity
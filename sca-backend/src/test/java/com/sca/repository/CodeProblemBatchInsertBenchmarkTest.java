@@ -0,0 +1,72 @@
+package com.sca.repository;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Скорость сохранения результатов большого анализа. Запуск: mvn test -P benchmark
+ */
+@Tag("benchmark")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=1000")
+class CodeProblemBatchInsertBenchmarkTest {
+
+    private static final int PROBLEM_COUNT = 100_000;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("benchmark");
+        user.setPassword("password");
+        user.setEmail("benchmark@example.com");
+        user = entityManager.persistAndFlush(user);
+
+        project = new Project();
+        project.setName("benchmark");
+        project.setOwner(user);
+        project = entityManager.persistAndFlush(project);
+    }
+
+    @Test
+    void benchmarkInsertInBatches() {
+        List<CodeProblem> problems = new ArrayList<>(PROBLEM_COUNT);
+        for (int i = 0; i < PROBLEM_COUNT; i++) {
+            CodeProblem problem = new CodeProblem();
+            problem.setProject(project);
+            problem.setFilePath("src/main/java/com/demo/File" + (i % 1000) + ".java");
+            problem.setRuleId("Rule" + (i % 50));
+            problem.setDescription("Problem " + i);
+            problem.setStartLine(i % 500 + 1);
+            problem.setEndLine(i % 500 + 1);
+            problems.add(problem);
+        }
+
+        long startedAt = System.nanoTime();
+        codeProblemRepository.insertInBatches(problems);
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+        System.out.println("Inserted " + PROBLEM_COUNT + " problems in " + elapsedMillis + " ms ("
+                + (PROBLEM_COUNT * 1000L / elapsedMillis) + " rows/s)");
+        assertEquals(PROBLEM_COUNT, codeProblemRepository.count());
+    }
+}
@@ -0,0 +1,128 @@
+package com.sca.repository;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.ProblemQuery;
+import com.sca.model.Project;
+import com.sca.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Основной конфиг задает диалект PostgreSQL, а порядок NULL в H2 другой
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CodeProblemRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setEmail("test@example.com");
+        user = entityManager.persistAndFlush(user);
+
+        project = new Project();
+        project.setName("demo");
+        project.setOwner(user);
+        project = entityManager.persistAndFlush(project);
+
+        List<CodeProblem> problems = new ArrayList<>();
+        problems.add(problem("src/B.java", 10, CodeProblem.ProblemSeverity.WARNING));
+        problems.add(problem("src/A.java", 5, CodeProblem.ProblemSeverity.CRITICAL));
+        problems.add(problem("src/A.java", null, CodeProblem.ProblemSeverity.WARNING));
+        problems.add(problem("src/A.java", 3, CodeProblem.ProblemSeverity.WARNING));
+        problems.add(problem("src/A.java", 3, CodeProblem.ProblemSeverity.WARNING));
+        problems.add(problem(null, null, CodeProblem.ProblemSeverity.WARNING));
+        problems.add(problem("test/C.java", 1, CodeProblem.ProblemSeverity.INFO));
+        CodeProblem resolved = problem("src/A.java", 7, CodeProblem.ProblemSeverity.ERROR);
+        resolved.setResolved(true);
+        problems.add(resolved);
+        codeProblemRepository.insertInBatches(problems);
+    }
+
+    @Test
+    void testFindPage_KeysetPagesMatchFullOrder() {
+        ProblemQuery query = new ProblemQuery();
+        List<CodeProblem> all = codeProblemRepository.findPage(project, query, null, 100);
+        assertEquals(7, all.size());
+        assertEquals(CodeProblem.ProblemSeverity.CRITICAL, all.get(0).getSeverity());
+        assertEquals(CodeProblem.ProblemSeverity.INFO, all.get(all.size() - 1).getSeverity());
+
+        List<Long> paged = new ArrayList<>();
+        ProblemQuery.Cursor cursor = null;
+        while (true) {
+            List<CodeProblem> page = codeProblemRepository.findPage(project, query, cursor, 2);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(problem -> paged.add(problem.getId()));
+            // Курсор проходит через кодирование, как у клиента
+            cursor = ProblemQuery.Cursor.decode(ProblemQuery.Cursor.of(page.get(page.size() - 1)).encode(query), query);
+        }
+
+        assertEquals(all.stream().map(CodeProblem::getId).toList(), paged);
+    }
+
+    @Test
+    void testCursor_RejectedForAnotherSortOrFilters() {
+        ProblemQuery query = new ProblemQuery();
+        String cursor = ProblemQuery.Cursor.of(codeProblemRepository.findPage(project, query, null, 1).get(0)).encode(query);
+
+        ProblemQuery sameQuery = new ProblemQuery();
+        assertNotNull(ProblemQuery.Cursor.decode(cursor, sameQuery));
+
+        ProblemQuery otherSort = new ProblemQuery();
+        otherSort.setSort(ProblemQuery.Sort.LOCATION);
+        assertThrows(RuntimeException.class, () -> ProblemQuery.Cursor.decode(cursor, otherSort));
+
+        ProblemQuery otherFilter = new ProblemQuery();
+        otherFilter.setSeverities(Set.of(CodeProblem.ProblemSeverity.WARNING));
+        assertThrows(RuntimeException.class, () -> ProblemQuery.Cursor.decode(cursor, otherFilter));
+    }
+
+    @Test
+    void testFindPage_LocationSortAndFilters() {
+        ProblemQuery query = new ProblemQuery();
+        query.setSort(ProblemQuery.Sort.LOCATION);
+        query.setFilePath("src/");
+        query.setSeverities(Set.of(CodeProblem.ProblemSeverity.WARNING, CodeProblem.ProblemSeverity.CRITICAL));
+
+        List<CodeProblem> problems = codeProblemRepository.findPage(project, query, null, 100);
+
+        assertEquals(5, problems.size());
+        assertEquals("src/A.java", problems.get(0).getFilePath());
+        assertEquals(3, problems.get(0).getStartLine());
+        assertNull(problems.get(3).getStartLine());
+        assertEquals("src/B.java", problems.get(4).getFilePath());
+
+        query.setResolved(true);
+        assertEquals(0, codeProblemRepository.findPage(project, query, null, 100).size());
+        query.setSeverities(new HashSet<>());
+        assertEquals(1, codeProblemRepository.findPage(project, query, null, 100).size());
+    }
+
+    private CodeProblem problem(String filePath, Integer line, CodeProblem.ProblemSeverity severity) {
+        CodeProblem problem = new CodeProblem("Problem", project);
+        problem.setFilePath(filePath);
+        problem.setStartLine(line);
+        problem.setRuleId("Rule");
+        problem.setSeverity(severity);
+        return problem;
+    }
+}
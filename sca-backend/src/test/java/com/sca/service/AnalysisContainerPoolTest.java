@@ -0,0 +1,128 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalysisContainerPoolTest {
+
+    private static final String IMAGE = "sca-analyzer-sandbox:test";
+
+    private AnalysisContainerPool pool;
+    private DockerService dockerService;
+    private AnalysisProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        dockerService = mock(DockerService.class);
+        when(dockerService.createAnalysisContainer(eq(IMAGE), anyString(), anyString())).thenReturn("c1", "c2", "c3");
+        when(dockerService.isContainerRunning(anyString())).thenReturn(true);
+
+        AnalyzerImageRegistry imageRegistry = mock(AnalyzerImageRegistry.class);
+        when(imageRegistry.findReadySandboxImage()).thenReturn(Optional.empty());
+
+        properties = new AnalysisProperties();
+        properties.getPool().setMaxSize(1);
+        properties.getPool().setMinIdle(0);
+        // Без ожидания: потерянный permit сразу дает отказ в аренде
+        properties.getPool().setLeaseTimeoutSeconds(0);
+
+        pool = new AnalysisContainerPool();
+        ReflectionTestUtils.setField(pool, "dockerService", dockerService);
+        ReflectionTestUtils.setField(pool, "imageRegistry", imageRegistry);
+        ReflectionTestUtils.setField(pool, "analysisProperties", properties);
+    }
+
+    @Test
+    void testClose_ResetContainerIsLeasedAgain() {
+        when(dockerService.executeCommandSucceeds(eq("c1"), any(String[].class))).thenReturn(true);
+
+        pool.lease(IMAGE).close();
+        AnalysisContainerPool.ContainerLease lease = pool.lease(IMAGE);
+
+        assertEquals("c1", lease.getContainerId());
+        verify(dockerService, times(1)).createAnalysisContainer(eq(IMAGE), anyString(), anyString());
+        verify(dockerService, never()).forceRemoveContainer(anyString());
+    }
+
+    @Test
+    void testClose_ResetFailureRemovesContainerAndReleasesPermit() {
+        when(dockerService.executeCommandSucceeds(eq("c1"), any(String[].class))).thenReturn(false);
+        when(dockerService.executeCommandSucceeds(eq("c2"), any(String[].class))).thenThrow(new RuntimeException("exec failed"));
+
+        pool.lease(IMAGE).close();
+        verify(dockerService).forceRemoveContainer("c1");
+
+        AnalysisContainerPool.ContainerLease second = pool.lease(IMAGE);
+        assertEquals("c2", second.getContainerId());
+        second.close();
+        // Повторное закрытие не освобождает permit второй раз
+        second.close();
+        verify(dockerService).forceRemoveContainer("c2");
+
+        AnalysisContainerPool.ContainerLease third = pool.lease(IMAGE);
+        assertEquals("c3", third.getContainerId());
+        assertThrows(RuntimeException.class, () -> pool.lease(IMAGE));
+        assertEquals(Map.of(IMAGE, 0), pool.getIdleCounts());
+    }
+
+    @Test
+    void testClose_InvalidatedContainerIsRemovedWithoutReset() {
+        AnalysisContainerPool.ContainerLease lease = pool.lease(IMAGE);
+        lease.invalidate();
+        lease.close();
+
+        verify(dockerService, never()).executeCommandSucceeds(anyString(), any(String[].class));
+        verify(dockerService).forceRemoveContainer("c1");
+        assertEquals("c2", pool.lease(IMAGE).getContainerId());
+    }
+
+    @Test
+    void testLease_CreateFailureReleasesPermit() {
+        when(dockerService.createAnalysisContainer(eq(IMAGE), anyString(), anyString()))
+                .thenThrow(new RuntimeException("create failed"))
+                .thenReturn("c2");
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> pool.lease(IMAGE));
+        assertEquals("create failed", error.getMessage());
+
+        assertEquals("c2", pool.lease(IMAGE).getContainerId());
+    }
+
+    @Test
+    void testMaintain_EvictsExpiredAndStoppedIdleContainers() throws Exception {
+        properties.getPool().setMaxSize(3);
+        properties.getPool().setMinIdle(1);
+        properties.getPool().setIdleTimeoutSeconds(0);
+        when(dockerService.executeCommandSucceeds(anyString(), any(String[].class))).thenReturn(true);
+
+        AnalysisContainerPool.ContainerLease first = pool.lease(IMAGE);
+        AnalysisContainerPool.ContainerLease second = pool.lease(IMAGE);
+        AnalysisContainerPool.ContainerLease third = pool.lease(IMAGE);
+        first.close();
+        second.close();
+        third.close();
+        assertEquals(Map.of(IMAGE, 3), pool.getIdleCounts());
+
+        // Дольше всех простаивает c1, и он уже остановлен
+        when(dockerService.isContainerRunning("c1")).thenReturn(false);
+        Thread.sleep(5);
+        pool.maintain();
+
+        // Просроченные удаляются, пока в пуле больше min-idle, остановленный - всегда;
+        // затем пул догоняется до min-idle новым контейнером
+        verify(dockerService).forceRemoveContainer("c3");
+        verify(dockerService).forceRemoveContainer("c2");
+        verify(dockerService).forceRemoveContainer("c1");
+        verify(dockerService, times(4)).createAnalysisContainer(eq(IMAGE), anyString(), anyString());
+        assertEquals(Map.of(IMAGE, 1), pool.getIdleCounts());
+    }
+}
@@ -0,0 +1,192 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisJob;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.AnalysisScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AnalysisJobSchedulerTest {
+
+    private AnalysisJobScheduler scheduler;
+    private CodeAnalysisService codeAnalysisService;
+    private AnalysisProperties properties;
+    private ProjectService projectService;
+    private final Map<Long, CompletableFuture<AnalysisReport>> runs = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        codeAnalysisService = mock(CodeAnalysisService.class);
+        when(codeAnalysisService.runAnalysis(any(Project.class), anyBoolean(), any(), any())).thenAnswer(invocation -> {
+            Project project = invocation.getArgument(0);
+            CompletableFuture<AnalysisReport> run = new CompletableFuture<>();
+            runs.put(project.getId(), run);
+            return run;
+        });
+
+        properties = new AnalysisProperties();
+        properties.getJobs().setMaxRunning(2);
+        properties.getJobs().setMaxRunningPerUser(1);
+
+        scheduler = new AnalysisJobScheduler();
+        ReflectionTestUtils.setField(scheduler, "codeAnalysisService", codeAnalysisService);
+        projectService = mock(ProjectService.class);
+        ReflectionTestUtils.setField(scheduler, "projectService", projectService);
+        ReflectionTestUtils.setField(scheduler, "analysisProperties", properties);
+        ReflectionTestUtils.setField(scheduler, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(scheduler, "analysisExecutor", (Executor) Runnable::run);
+    }
+
+    @Test
+    void testSubmit_SameProject_CoalescesIntoRunningJob() {
+        AnalysisJob first = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisJob second = scheduler.submit(project(1L), "bob", true, AnalysisJob.Priority.NORMAL);
+
+        assertSame(first, second);
+        assertEquals(AnalysisJob.State.RUNNING, first.getState());
+        assertTrue(first.getSubscribers().containsAll(List.of("alice", "bob")));
+        verify(codeAnalysisService, times(1)).runAnalysis(any(Project.class), anyBoolean(), any(), any());
+    }
+
+    @Test
+    void testSubmit_PerUserLimit_QueuesSecondJob() {
+        AnalysisJob first = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisJob second = scheduler.submit(project(2L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisJob other = scheduler.submit(project(3L), "bob", true, AnalysisJob.Priority.NORMAL);
+
+        assertEquals(AnalysisJob.State.RUNNING, first.getState());
+        assertEquals(AnalysisJob.State.QUEUED, second.getState());
+        assertEquals(AnalysisJob.State.RUNNING, other.getState());
+
+        runs.get(1L).complete(report(1L));
+
+        assertEquals(AnalysisJob.State.COMPLETED, first.getState());
+        assertEquals(AnalysisJob.State.RUNNING, second.getState());
+    }
+
+    @Test
+    void testDispatch_HigherPriorityStartsFirst() {
+        properties.getJobs().setMaxRunning(1);
+        properties.getJobs().setMaxRunningPerUser(10);
+        AnalysisJob running = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisJob low = scheduler.submit(project(2L), "alice", true, AnalysisJob.Priority.LOW);
+        AnalysisJob normal = scheduler.submit(project(3L), "alice", true, AnalysisJob.Priority.NORMAL);
+
+        // Повторный запрос повышает приоритет ожидающего задания и переключает его на полный анализ
+        assertSame(low, scheduler.submit(project(2L), "bob", false, AnalysisJob.Priority.HIGH));
+        assertEquals(0, scheduler.getQueuePosition(low));
+        assertFalse(low.isIncremental());
+
+        runs.get(1L).complete(report(1L));
+
+        assertEquals(AnalysisJob.State.COMPLETED, running.getState());
+        assertEquals(AnalysisJob.State.RUNNING, low.getState());
+        assertEquals(AnalysisJob.State.QUEUED, normal.getState());
+        verify(codeAnalysisService).runAnalysis(argThat(project -> project.getId() == 2L), eq(false), any(), any());
+    }
+
+    @Test
+    void testFailedJob_IsRetainedForLookup() {
+        AnalysisJob job = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+
+        runs.get(1L).completeExceptionally(new RuntimeException("docker is down"));
+
+        assertEquals(AnalysisJob.State.FAILED, job.getState());
+        assertEquals("docker is down", job.getError());
+        assertSame(job, scheduler.getJob(job.getId()).orElseThrow());
+        assertNotSame(job, scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL));
+    }
+
+    @Test
+    void testSubmit_StartsJobOnAnalysisExecutor() {
+        List<Runnable> pending = new ArrayList<>();
+        ReflectionTestUtils.setField(scheduler, "analysisExecutor", (Executor) pending::add);
+
+        AnalysisJob job = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+
+        // Слот занят сразу, но анализ не запускается в потоке запроса
+        assertEquals(AnalysisJob.State.RUNNING, job.getState());
+        verify(codeAnalysisService, never()).runAnalysis(any(Project.class), anyBoolean(), any(), any());
+        assertEquals(1, pending.size());
+
+        pending.get(0).run();
+        verify(codeAnalysisService).runAnalysis(any(Project.class), anyBoolean(), any(), any());
+    }
+
+    @Test
+    void testSaveFailure_DoesNotCommitManifest() {
+        AnalysisJob saved = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisReport savedReport = report(1L);
+        runs.get(1L).complete(savedReport);
+        verify(codeAnalysisService).commitManifest(savedReport);
+
+        AnalysisJob failed = scheduler.submit(project(2L), "bob", true, AnalysisJob.Priority.NORMAL);
+        AnalysisReport failedReport = report(2L);
+        when(projectService.saveAnalysisReport(any(Project.class), eq(failedReport)))
+                .thenThrow(new RuntimeException("database is down"));
+        runs.get(2L).complete(failedReport);
+
+        assertEquals(AnalysisJob.State.COMPLETED, saved.getState());
+        assertEquals(AnalysisJob.State.FAILED, failed.getState());
+        verify(codeAnalysisService, never()).commitManifest(failedReport);
+    }
+
+    @Test
+    void testCancel_QueuedJobLeavesQueue() {
+        AnalysisJob running = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+        AnalysisJob queued = scheduler.submit(project(2L), "alice", true, AnalysisJob.Priority.NORMAL);
+
+        assertTrue(scheduler.cancel(queued.getId(), "alice"));
+        runs.get(1L).complete(report(1L));
+
+        assertEquals(AnalysisJob.State.CANCELLED, queued.getState());
+        assertTrue(queued.getResult().isCompletedExceptionally());
+        assertEquals(AnalysisJob.State.COMPLETED, running.getState());
+        assertFalse(runs.containsKey(2L));
+        assertFalse(scheduler.cancel(queued.getId(), "alice"));
+    }
+
+    @Test
+    void testCancel_RunningJobSignalsAnalysisAndFinishesCancelled() {
+        AnalysisJob job = scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL);
+
+        assertTrue(scheduler.cancel(job.getId(), "bob"));
+        assertTrue(job.getCancellation().isCancelled());
+        assertEquals(AnalysisJob.State.RUNNING, job.getState());
+
+        // CodeAnalysisService завершает отмененный запуск CancellationException
+        runs.get(1L).completeExceptionally(new CancellationException(job.getCancellation().getReason()));
+
+        assertEquals(AnalysisJob.State.CANCELLED, job.getState());
+        assertEquals("Cancelled by bob", job.getError());
+        assertNotSame(job, scheduler.submit(project(1L), "alice", true, AnalysisJob.Priority.NORMAL));
+    }
+
+    private static Project project(Long id) {
+        Project project = new Project();
+        project.setId(id);
+        project.setWorkspacePath("/tmp/project-" + id);
+        return project;
+    }
+
+    private static AnalysisReport report(Long projectId) {
+        return new AnalysisReport(AnalysisScope.full(project(projectId), new AnalysisManifest()), List.of(), List.of(), 1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.sca.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.dependency.AdvisoryDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AnalysisManifestServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AnalysisManifestService manifestService;
+    private Project project;
+    private Path workspace;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manifestService = new AnalysisManifestService();
+        ReflectionTestUtils.setField(manifestService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(manifestService, "advisoryDatabase", mock(AdvisoryDatabase.class));
+        ReflectionTestUtils.setField(manifestService, "manifestsPath", tempDir.resolve("manifests").toString());
+        ReflectionTestUtils.setField(manifestService, "tempPath", tempDir.resolve("temp").toString());
+
+        workspace = Files.createDirectories(tempDir.resolve("demo"));
+        Files.createDirectories(workspace.resolve("src"));
+        Files.writeString(workspace.resolve("src/Service.java"), "class Service { }");
+        Files.writeString(workspace.resolve("src/Controller.java"), "class Controller { Service service; }");
+        Files.writeString(workspace.resolve("src/Util.java"), "class Util { }");
+        Files.writeString(workspace.resolve("README.md"), "# demo");
+
+        project = new Project();
+        project.setId(42L);
+        project.setWorkspacePath(workspace.toString());
+    }
+
+    @Test
+    void testCreateScope_WithoutManifest_IsFull() {
+        AnalysisScope scope = manifestService.createScope(project, true);
+
+        assertFalse(scope.isIncremental());
+        assertEquals(4, scope.getManifest().getFiles().size());
+    }
+
+    @Test
+    void testCreateScope_NothingChanged_IsEmpty() {
+        manifestService.commit(manifestService.createScope(project, true));
+
+        AnalysisScope scope = manifestService.createScope(project, true);
+
+        assertTrue(scope.isIncremental());
+        assertTrue(scope.isEmpty());
+        manifestService.release(scope);
+    }
+
+    @Test
+    void testCreateScope_ChangedFile_IncludesDependents() throws Exception {
+        manifestService.commit(manifestService.createScope(project, true));
+        Files.writeString(workspace.resolve("src/Service.java"), "class Service { void run() { } }");
+        Files.delete(workspace.resolve("README.md"));
+
+        AnalysisScope scope = manifestService.createScope(project, true);
+
+        assertTrue(scope.isIncremental());
+        assertEquals(Set.of("src/Service.java", "src/Controller.java"), scope.getAffectedFiles());
+        assertEquals(Set.of("README.md"), scope.getDeletedFiles());
+        assertTrue(Files.exists(scope.getSourceRoot().resolve("src/Controller.java")));
+        assertFalse(Files.exists(scope.getSourceRoot().resolve("src/Util.java")));
+        assertEquals("demo", scope.getSourceRoot().getFileName().toString());
+
+        manifestService.release(scope);
+        assertFalse(Files.exists(scope.getSourceRoot()));
+    }
+
+    @Test
+    void testToRelativePath_ContainerPath() {
+        AnalysisScope scope = manifestService.createScope(project, false);
+
+        assertEquals("src/Util.java", scope.toRelativePath("/workspace/demo/src/Util.java"));
+        assertEquals("src/Util.java", scope.toRelativePath(workspace.resolve("src/Util.java").toString()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.sca.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisSessionTest {
+
+    @Mock
+    private AnalysisContainerPool containerPool;
+
+    @Mock
+    private DockerService dockerService;
+
+    @Mock
+    private AnalysisContainerPool.ContainerLease lease;
+
+    private AnalysisSession session;
+
+    @BeforeEach
+    void setUp() {
+        session = new AnalysisSession(containerPool, dockerService, Path.of("/data/workspaces/demo"), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testExecute_ProvisionsAndUploadsOnce() {
+        when(containerPool.leaseSandbox()).thenReturn(lease);
+        when(lease.getContainerId()).thenReturn("sandbox-1");
+
+        CompletableFuture<?>[] stages = new CompletableFuture[4];
+        for (int i = 0; i < stages.length; i++) {
+            String phase = "stage" + i + ".run";
+            stages[i] = CompletableFuture.runAsync(() -> session.execute(phase, "true"));
+        }
+        CompletableFuture.allOf(stages).join();
+        session.close();
+        session.close();
+
+        verify(containerPool, times(1)).leaseSandbox();
+        verify(dockerService, times(1)).copyToContainer("sandbox-1", "/data/workspaces/demo", "/workspace");
+        verify(dockerService, times(4)).executeCommand(eq("sandbox-1"), eq(Duration.ofMinutes(5)), any(String[].class));
+        verify(lease, times(1)).close();
+        assertEquals("/workspace/demo", session.getProjectRoot());
+        assertTrue(session.getPhaseTimings().keySet().containsAll(
+                List.of("sandbox.provision", "sandbox.upload", "stage0.run", "sandbox.teardown")));
+    }
+
+    @Test
+    void testExecuteInDaemon_FallsBackWhenDaemonIsUnavailable() {
+        when(containerPool.leaseSandbox()).thenReturn(lease);
+        when(lease.getContainerId()).thenReturn("sandbox-1");
+        when(dockerService.executeCommand(eq("sandbox-1"), eq(Duration.ofMinutes(5)), any(String[].class)))
+                .thenReturn("OK 240\n", "UNAVAILABLE\n", "ERROR Cannot load ruleset missing.xml\n");
+        List<String> request = List.of("rulesets/java/quickstart.xml", "/tmp/pmd-report.xml", "/workspace/demo");
+
+        assertTrue(session.executeInDaemon("pmd.run", 7101, request));
+        assertFalse(session.executeInDaemon("pmd.run", 7101, request));
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> session.executeInDaemon("pmd.run", 7101, request));
+        assertTrue(error.getMessage().contains("missing.xml"));
+        // Путь с табуляцией не передать в строке запроса - сразу запуск командой
+        assertFalse(session.executeInDaemon("pmd.run", 7101, List.of("ruleset", "/tmp/report.xml", "/workspace/a\tb")));
+        verify(dockerService, times(3)).executeCommand(eq("sandbox-1"), eq(Duration.ofMinutes(5)), any(String[].class));
+    }
+
+    @Test
+    void testClose_WithoutStagesDoesNotProvision() {
+        session.close();
+
+        verifyNoInteractions(containerPool, dockerService);
+        assertTrue(session.getPhaseTimings().isEmpty());
+        assertThrows(IllegalStateException.class, () -> session.execute("pmd.run", "pmd"));
+    }
+
+    @Test
+    void testGetContainerId_FailedUploadDiscardsContainer() {
+        when(containerPool.leaseSandbox()).thenReturn(lease);
+        when(lease.getContainerId()).thenReturn("sandbox-1");
+        doThrow(new RuntimeException("Failed to copy files to container"))
+                .when(dockerService).copyToContainer(any(), any(), any());
+
+        assertThrows(RuntimeException.class, () -> session.getContainerId());
+
+        verify(lease).invalidate();
+        verify(lease).close();
+    }
+
+    @Test
+    void testAbort_DiscardsContainerImmediately() {
+        when(containerPool.leaseSandbox()).thenReturn(lease);
+        when(lease.getContainerId()).thenReturn("sandbox-1");
+        session.getContainerId();
+
+        session.abort();
+
+        verify(lease).invalidate();
+        verify(lease).close();
+        assertThrows(IllegalStateException.class, () -> session.execute("pmd.run", "pmd"));
+    }
+}
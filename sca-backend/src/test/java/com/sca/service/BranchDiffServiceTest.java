@@ -0,0 +1,121 @@
+package com.sca.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.BranchDiff;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchDiffServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private BranchDiffService branchDiffService;
+    private AnalysisManifestService manifestService;
+    private Project project;
+    private Path workspace;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manifestService = new AnalysisManifestService();
+        ReflectionTestUtils.setField(manifestService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(manifestService, "manifestsPath", tempDir.resolve("manifests").toString());
+        ReflectionTestUtils.setField(manifestService, "tempPath", tempDir.resolve("temp").toString());
+        branchDiffService = new BranchDiffService();
+        ReflectionTestUtils.setField(branchDiffService, "manifestService", manifestService);
+        ReflectionTestUtils.setField(branchDiffService, "tempPath", tempDir.resolve("temp").toString());
+
+        workspace = Files.createDirectories(tempDir.resolve("demo"));
+        Files.createDirectories(workspace.resolve("src"));
+        Files.writeString(workspace.resolve("src/Service.java"), "class Service {\n    int a;\n    int b;\n}\n");
+        Files.writeString(workspace.resolve("src/Util.java"), "class Util { }\n");
+        Files.writeString(workspace.resolve("src/Legacy.java"), "class Legacy { }\n");
+        git("init", "-q", "-b", "main");
+        git("add", ".");
+        git("commit", "-q", "-m", "base");
+
+        git("checkout", "-q", "-b", "feature");
+        Files.writeString(workspace.resolve("src/Service.java"), "class Service {\n    int a;\n    int changed;\n}\n");
+        Files.writeString(workspace.resolve("src/Added.java"), "class Added { }\n");
+        Files.delete(workspace.resolve("src/Legacy.java"));
+        git("add", "-A");
+        git("commit", "-q", "-m", "feature");
+        // Незакоммиченные изменения рабочей директории не входят в анализ ветки
+        Files.writeString(workspace.resolve("src/Util.java"), "class Util { int dirty; }\n");
+        git("checkout", "-q", "main");
+
+        project = new Project();
+        project.setId(42L);
+        project.setWorkspacePath(workspace.toString());
+    }
+
+    @Test
+    void testDiff_CollectsChangedLinesOfHeadSinceMergeBase() {
+        BranchDiff diff = branchDiffService.diff(project, "main", "feature");
+
+        assertEquals(Set.of("src/Service.java", "src/Added.java"), diff.getChangedFiles());
+        assertEquals(Set.of("src/Legacy.java"), diff.getDeletedFiles());
+        assertTrue(diff.touches(problem("src/Service.java", 3)));
+        assertFalse(diff.touches(problem("src/Service.java", 2)));
+        assertTrue(diff.touches(problem("src/Added.java", 1)));
+        assertFalse(diff.touches(problem("src/Util.java", 1)));
+        assertEquals(1, diff.filter(List.of(problem("src/Service.java", 2), problem("src/Service.java", 3))).size());
+    }
+
+    @Test
+    void testCreateScope_StagesChangedFilesFromHeadCommit() throws IOException {
+        BranchDiff diff = branchDiffService.diff(project, "main", "feature");
+
+        AnalysisScope scope = branchDiffService.createScope(project, diff);
+        try {
+            assertTrue(scope.isIncremental());
+            assertEquals(Set.of("src/Service.java", "src/Added.java"), scope.getAffectedFiles());
+            // Рабочая директория на main, файл берется из коммита feature
+            assertTrue(Files.readString(scope.getSourceRoot().resolve("src/Service.java")).contains("changed"));
+            assertFalse(Files.exists(scope.getSourceRoot().resolve("src/Util.java")));
+        } finally {
+            manifestService.release(scope);
+        }
+        assertFalse(Files.exists(scope.getSourceRoot()));
+    }
+
+    @Test
+    void testDiff_UnknownRef_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> branchDiffService.diff(project, "main", "missing"));
+        assertThrows(IllegalArgumentException.class, () -> branchDiffService.diff(project, "main", "--output=x"));
+    }
+
+    private static CodeProblem problem(String filePath, int line) {
+        CodeProblem problem = new CodeProblem();
+        problem.setFilePath(filePath);
+        problem.setStartLine(line);
+        problem.setEndLine(line);
+        return problem;
+    }
+
+    private void git(String... args) throws Exception {
+        String[] command = new String[args.length + 5];
+        command[0] = "git";
+        command[1] = "-c";
+        command[2] = "user.name=test";
+        command[3] = "-c";
+        command[4] = "user.email=test@example.com";
+        System.arraycopy(args, 0, command, 5, args.length);
+        Process process = new ProcessBuilder(command).directory(workspace.toFile()).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), output);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sca.service;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.FileDiagnosticsEvent;
+import com.sca.service.analysis.FileSavedEvent;
+import com.sca.service.analysis.SourceLanguage;
+import com.sca.service.analysis.analyzer.Analyzer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class OnSaveAnalysisServiceTest {
+
+    private OnSaveAnalysisService service;
+    private Analyzer embedded;
+    private Analyzer sandboxed;
+    private ApplicationEventPublisher eventPublisher;
+    private final Project project = new Project();
+
+    @BeforeEach
+    void setUp() {
+        project.setId(1L);
+        project.setWorkspacePath("/tmp/project-1");
+
+        embedded = mock(Analyzer.class);
+        when(embedded.getName()).thenReturn("pmd");
+        when(embedded.getLanguages()).thenReturn(Set.of(SourceLanguage.JAVA));
+        when(embedded.supportsIncremental()).thenReturn(true);
+        when(embedded.analyze(any(AnalysisScope.class), isNull())).thenAnswer(invocation -> {
+            AnalysisScope scope = invocation.getArgument(0);
+            List<CodeProblem> problems = new ArrayList<>();
+            for (String file : scope.getAffectedFiles()) {
+                CodeProblem problem = new CodeProblem();
+                problem.setFilePath(file);
+                problem.setRuleId("UnusedLocalVariable");
+                problems.add(problem);
+            }
+            return problems;
+        });
+
+        sandboxed = mock(Analyzer.class);
+        when(sandboxed.usesSandbox()).thenReturn(true);
+
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getOnSave().setEnabled(true);
+        properties.getOnSave().setDebounceMillis(100);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        service = new OnSaveAnalysisService();
+        ReflectionTestUtils.setField(service, "analyzers", List.of(embedded, sandboxed));
+        ReflectionTestUtils.setField(service, "analysisProperties", properties);
+        ReflectionTestUtils.setField(service, "eventPublisher", eventPublisher);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void testOnFileSaved_BurstOfSavesIsAnalyzedOnce() {
+        service.onFileSaved(new FileSavedEvent(project, "src/Foo.java", "alice"));
+        service.onFileSaved(new FileSavedEvent(project, "src/Foo.java", "alice"));
+        service.onFileSaved(new FileSavedEvent(project, "src/Foo.java", "bob"));
+
+        ArgumentCaptor<FileDiagnosticsEvent> captor = ArgumentCaptor.forClass(FileDiagnosticsEvent.class);
+        verify(eventPublisher, timeout(2000)).publishEvent(captor.capture());
+        verify(embedded, times(1)).analyze(any(AnalysisScope.class), isNull());
+        verify(sandboxed, never()).analyze(any(), any());
+
+        FileDiagnosticsEvent diagnostics = captor.getValue();
+        assertEquals("src/Foo.java", diagnostics.getFilePath());
+        assertEquals(Set.of("alice", "bob"), diagnostics.getRecipients());
+        assertEquals(1, diagnostics.getProblems().size());
+        assertNotNull(diagnostics.getProblems().get(0).getFingerprint());
+    }
+
+    @Test
+    void testOnFileSaved_NonSourceFileIsIgnored() {
+        service.onFileSaved(new FileSavedEvent(project, "README.md", "alice"));
+
+        verify(eventPublisher, after(300).never()).publishEvent(any());
+        verifyNoInteractions(embedded);
+    }
+}
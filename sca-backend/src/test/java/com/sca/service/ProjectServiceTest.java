@@ -0,0 +1,69 @@
+package com.sca.service;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.repository.CodeProblemRepository;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisReport;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemDelta;
+import com.sca.service.analysis.StageResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProjectServiceTest {
+
+    private ProjectService projectService;
+    private CodeProblemRepository codeProblemRepository;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        codeProblemRepository = mock(CodeProblemRepository.class);
+        projectService = new ProjectService();
+        ReflectionTestUtils.setField(projectService, "codeProblemRepository", codeProblemRepository);
+        ReflectionTestUtils.setField(projectService, "statisticsService", mock(ProjectStatisticsService.class));
+        project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath("/tmp/project-1");
+    }
+
+    @Test
+    void testSaveAnalysisReport_FailedStageKeepsItsProblemsOpen() {
+        CodeProblem pmdFixed = problem("a", "pmd");
+        CodeProblem pmdKept = problem("b", "pmd");
+        CodeProblem sonarOpen = problem("c", "sonarqube");
+        CodeProblem mergedOpen = problem("d", "pmd,sonarqube");
+        when(codeProblemRepository.findByProjectAndResolvedFalse(project))
+                .thenReturn(List.of(pmdFixed, pmdKept, sonarOpen, mergedOpen));
+
+        AnalysisReport report = new AnalysisReport(AnalysisScope.full(project, new AnalysisManifest()), List.of(
+                new StageResult("pmd", List.of(problem("b", "pmd"), problem("e", "pmd")), 1, null),
+                new StageResult("sonarqube", List.of(), 1, "Timed out after 600 s")), List.of(), 1);
+
+        ProblemDelta delta = projectService.saveAnalysisReport(project, report);
+
+        assertEquals(List.of(pmdFixed), delta.getFixed());
+        assertTrue(pmdFixed.isResolved());
+        assertFalse(sonarOpen.isResolved());
+        assertFalse(mergedOpen.isResolved());
+        assertEquals(3, delta.getUnchanged());
+        assertEquals(1, delta.getAdded().size());
+    }
+
+    private static CodeProblem problem(String fingerprint, String sources) {
+        CodeProblem problem = new CodeProblem();
+        problem.setRuleId("Rule");
+        problem.setFilePath("src/App.java");
+        problem.setStartLine(1);
+        problem.setFingerprint(fingerprint);
+        problem.setSources(sources);
+        return problem;
+    }
+}
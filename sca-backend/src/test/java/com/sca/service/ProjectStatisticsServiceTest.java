@@ -0,0 +1,167 @@
+package com.sca.service;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.model.ProjectStatistics;
+import com.sca.model.User;
+import com.sca.repository.CodeProblemRepository;
+import com.sca.repository.ProjectStatisticsRepository;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.ProblemDelta;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(ProjectStatisticsService.class)
+class ProjectStatisticsServiceTest {
+
+    @TempDir
+    Path workspace;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CodeProblemRepository codeProblemRepository;
+
+    @Autowired
+    private ProjectStatisticsRepository projectStatisticsRepository;
+
+    @Autowired
+    private ProjectStatisticsService statisticsService;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.writeString(workspace.resolve("A.java"), "class A {\n}\n");
+        Files.createDirectories(workspace.resolve("src"));
+        Files.writeString(workspace.resolve("src/B.java"), "class B {\n    int x;\n}");
+
+        User user = new User();
+        user.setUsername("testuser");
+        user.setPassword("password");
+        user.setEmail("test@example.com");
+        user = entityManager.persistAndFlush(user);
+
+        project = new Project();
+        project.setName("demo");
+        project.setOwner(user);
+        project.setWorkspacePath(workspace.toString());
+        project = entityManager.persistAndFlush(project);
+
+        codeProblemRepository.insertInBatches(List.of(
+                problem("A.java", CodeProblem.ProblemSeverity.ERROR, CodeProblem.ProblemType.BUG),
+                problem("src/B.java", CodeProblem.ProblemSeverity.WARNING, CodeProblem.ProblemType.CODE_SMELL)));
+    }
+
+    @Test
+    void testGetStatistics_ComputedOnFirstRead() {
+        Map<String, Object> statistics = statisticsService.getStatistics(project);
+
+        assertEquals(2L, statistics.get("totalFiles"));
+        assertEquals(5L, statistics.get("totalLines"));
+        assertEquals(2L, statistics.get("problems"));
+        assertEquals(1L, ((Map<?, ?>) statistics.get("problemsBySeverity")).get("ERROR"));
+        assertEquals(1L, ((Map<?, ?>) statistics.get("problemsByType")).get("BUG"));
+    }
+
+    @Test
+    void testOnAnalysisSaved_AppliesDeltaAndChangedFiles() throws Exception {
+        statisticsService.getStatistics(project);
+
+        Files.writeString(workspace.resolve("A.java"), "class A {\n    void run() {}\n}\n");
+        Files.delete(workspace.resolve("src/B.java"));
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(Map.of("A.java", new AnalysisManifest.Entry("changed", 1, 1)));
+
+        CodeProblem fixed = codeProblemRepository.findByProjectAndResolvedFalse(project).stream()
+                .filter(problem -> problem.getFilePath().equals("src/B.java")).findFirst().orElseThrow();
+        CodeProblem added = problem("A.java", CodeProblem.ProblemSeverity.CRITICAL, CodeProblem.ProblemType.VULNERABILITY);
+        statisticsService.onAnalysisSaved(AnalysisScope.full(project, manifest),
+                new ProblemDelta(List.of(added), List.of(fixed), 1));
+
+        Map<String, Object> statistics = statisticsService.getStatistics(project);
+        assertEquals(1L, statistics.get("totalFiles"));
+        assertEquals(3L, statistics.get("totalLines"));
+        assertEquals(2L, statistics.get("problems"));
+        assertEquals(0L, ((Map<?, ?>) statistics.get("problemsBySeverity")).get("WARNING"));
+        assertEquals(1L, ((Map<?, ?>) statistics.get("problemsBySeverity")).get("CRITICAL"));
+        List<?> topFiles = (List<?>) statistics.get("topFiles");
+        assertEquals(1, topFiles.size());
+        assertEquals(2L, ((Map<?, ?>) topFiles.get(0)).get("problems"));
+        assertNotNull(statistics.get("lastAnalysis"));
+    }
+
+    @Test
+    void testOnAnalysisSaved_IncrementalTouchesOnlyAnalyzedFiles() throws Exception {
+        statisticsService.getStatistics(project);
+
+        Files.writeString(workspace.resolve("A.java"), "class A {\n    void run() {}\n}\n");
+        // В манифесте нет src/B.java, но файл не анализировался - его статистика не меняется
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(Map.of("A.java", new AnalysisManifest.Entry("changed", 1, 1)));
+        statisticsService.onAnalysisSaved(AnalysisScope.incremental(project, workspace, Set.of("A.java"), Set.of(), manifest),
+                new ProblemDelta(List.of(), List.of(), 1));
+
+        Map<String, Object> statistics = statisticsService.getStatistics(project);
+        assertEquals(2L, statistics.get("totalFiles"));
+        assertEquals(6L, statistics.get("totalLines"));
+    }
+
+    @Test
+    void testOnAnalysisSaved_BeforeFirstReadMarksRowForRebuild() {
+        CodeProblem added = problem("A.java", CodeProblem.ProblemSeverity.CRITICAL, CodeProblem.ProblemType.VULNERABILITY);
+        codeProblemRepository.insertInBatches(List.of(added));
+        statisticsService.onAnalysisSaved(AnalysisScope.full(project, new AnalysisManifest()),
+                new ProblemDelta(List.of(added), List.of(), 2));
+
+        ProjectStatistics row = projectStatisticsRepository.findById(project.getId()).orElseThrow();
+        assertTrue(row.isRebuildRequired());
+        assertEquals(0L, row.getOpenProblems());
+
+        // Пересчет учитывает и пропущенную разницу, а не добавляет ее повторно
+        Map<String, Object> statistics = statisticsService.getStatistics(project);
+        assertEquals(3L, statistics.get("problems"));
+        assertEquals(1L, ((Map<?, ?>) statistics.get("problemsBySeverity")).get("CRITICAL"));
+        assertFalse(projectStatisticsRepository.findById(project.getId()).orElseThrow().isRebuildRequired());
+    }
+
+    @Test
+    void testOnFilesChanged_RecountsDirectory() throws Exception {
+        statisticsService.getStatistics(project);
+
+        Files.writeString(workspace.resolve("src/C.java"), "class C {}\n");
+        Files.delete(workspace.resolve("src/B.java"));
+        statisticsService.onFilesChanged(project, List.of("src/"));
+
+        Map<String, Object> statistics = statisticsService.getStatistics(project);
+        assertEquals(2L, statistics.get("totalFiles"));
+        assertEquals(3L, statistics.get("totalLines"));
+        // Проблемы удаленного файла остаются открытыми до следующего анализа
+        assertEquals(2L, statistics.get("problems"));
+    }
+
+    private CodeProblem problem(String filePath, CodeProblem.ProblemSeverity severity, CodeProblem.ProblemType type) {
+        CodeProblem problem = new CodeProblem("Problem", project);
+        problem.setFilePath(filePath);
+        problem.setRuleId("Rule");
+        problem.setSeverity(severity);
+        problem.setType(type);
+        return problem;
+    }
+}
@@ -0,0 +1,79 @@
+package com.sca.service.analysis;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmbeddedEnginesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EmbeddedPmdEngine pmdEngine;
+    private EmbeddedCheckstyleEngine checkstyleEngine;
+    private AnalysisScope scope;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getEmbedded().setThreads(2);
+
+        pmdEngine = new EmbeddedPmdEngine();
+        ReflectionTestUtils.setField(pmdEngine, "analysisProperties", properties);
+        checkstyleEngine = new EmbeddedCheckstyleEngine();
+        ReflectionTestUtils.setField(checkstyleEngine, "analysisProperties", properties);
+
+        Path workspace = Files.createDirectories(tempDir.resolve("demo/src"));
+        Files.writeString(workspace.resolve("Sample.java"),
+                "public class Sample {\n"
+                        + "    public void run() {\n"
+                        + "        try { System.out.println(1); } catch (Exception e) { }\n"
+                        + "    }\n"
+                        + "}\n");
+        Files.writeString(workspace.resolve("Other.java"), "class Other { int x; }\n");
+
+        Project project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(tempDir.resolve("demo").toString());
+        scope = AnalysisScope.full(project, new AnalysisManifest());
+    }
+
+    @AfterEach
+    void tearDown() {
+        checkstyleEngine.shutdown();
+    }
+
+    @Test
+    void testPmd_ReportsViolationsWithPositions() {
+        List<CodeProblem> problems = pmdEngine.analyze(scope);
+
+        CodeProblem emptyCatch = problems.stream()
+                .filter(problem -> "EmptyCatchBlock".equals(problem.getRuleId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("src/Sample.java", emptyCatch.getFilePath());
+        assertEquals(3, emptyCatch.getStartLine());
+    }
+
+    @Test
+    void testCheckstyle_ReusesCheckersBetweenRuns() {
+        List<CodeProblem> first = checkstyleEngine.analyze(scope);
+        List<CodeProblem> second = checkstyleEngine.analyze(scope);
+
+        assertFalse(first.isEmpty());
+        assertEquals(first.size(), second.size());
+        assertTrue(first.stream().allMatch(problem -> problem.getFilePath().startsWith("src/")));
+        assertTrue(first.stream().noneMatch(problem -> problem.getRuleId().endsWith("Check")));
+    }
+}
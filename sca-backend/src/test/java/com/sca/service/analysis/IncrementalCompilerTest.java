@@ -0,0 +1,124 @@
+package com.sca.service.analysis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.model.Project;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalCompilerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IncrementalCompiler compiler;
+    private Project project;
+    private Path workspace;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        compiler = new IncrementalCompiler();
+        ReflectionTestUtils.setField(compiler, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(compiler, "classesPath", tempDir.resolve("classes").toString());
+
+        workspace = Files.createDirectories(tempDir.resolve("demo"));
+        write("src/com/demo/Base.java", "package com.demo;\npublic class Base { public int value() { return 1; } }\n");
+        write("src/com/demo/User.java", "package com.demo;\npublic class User { int run(Base base) { return base.value(); } }\n");
+        write("src/com/demo/Other.java", "package com.demo;\npublic class Other { class Inner {} }\n");
+
+        project = new Project();
+        project.setId(7L);
+        project.setWorkspacePath(workspace.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        compiler.shutdown();
+    }
+
+    @Test
+    void testCompile_RecompilesChangedSourcesAndDependents() throws Exception {
+        IncrementalCompiler.Result first = compiler.compile(scope("v1", "v1", "v1"));
+        assertEquals(3, first.getCompiledSources());
+        assertTrue(Files.exists(first.getClassesDir().resolve("com/demo/Other$Inner.class")));
+
+        assertEquals(0, compiler.compile(scope("v1", "v1", "v1")).getCompiledSources());
+
+        write("src/com/demo/Base.java", "package com.demo;\npublic class Base { public int value() { return 2; } }\n");
+        IncrementalCompiler.Result second = compiler.compile(scope("v2", "v1", "v1"));
+        assertEquals(2, second.getCompiledSources());
+        assertTrue(second.getFailedSources().isEmpty());
+    }
+
+    @Test
+    void testCompile_RemovesClassesOfDeletedSources() throws Exception {
+        Path classes = compiler.compile(scope("v1", "v1", "v1")).getClassesDir();
+
+        Files.delete(workspace.resolve("src/com/demo/Other.java"));
+        IncrementalCompiler.Result result = compiler.compile(scope("v1", "v1", null));
+
+        assertEquals(0, result.getCompiledSources());
+        assertFalse(Files.exists(classes.resolve("com/demo/Other.class")));
+        assertFalse(Files.exists(classes.resolve("com/demo/Other$Inner.class")));
+        assertTrue(Files.exists(classes.resolve("com/demo/User.class")));
+    }
+
+    @Test
+    void testCompile_SkipsBrokenSources() throws Exception {
+        write("src/com/demo/Other.java", "package com.demo;\npublic class Other { broken }\n");
+
+        IncrementalCompiler.Result result = compiler.compile(scope("v1", "v1", "v1"));
+
+        assertEquals(Set.of("src/com/demo/Other.java"), result.getFailedSources());
+        assertEquals(2, result.getCompiledSources());
+        assertTrue(Files.exists(result.getClassesDir().resolve("com/demo/User.class")));
+    }
+
+    @Test
+    void testClassFileDependencies_ReadsReferencedClasses() throws Exception {
+        Path classes = compiler.compile(scope("v1", "v1", "v1")).getClassesDir();
+
+        try (InputStream classFile = Files.newInputStream(classes.resolve("com/demo/User.class"))) {
+            Set<String> dependencies = ClassFileDependencies.read(classFile);
+            assertTrue(dependencies.contains("com/demo/Base"));
+            assertTrue(dependencies.contains("java/lang/Object"));
+            assertFalse(dependencies.contains("com/demo/User"));
+        }
+    }
+
+    /**
+     * Область анализа с манифестом, где хеш исходника - его версия; null - файл удален
+     */
+    private AnalysisScope scope(String base, String user, String other) {
+        Map<String, AnalysisManifest.Entry> files = new HashMap<>();
+        putIfPresent(files, "src/com/demo/Base.java", base);
+        putIfPresent(files, "src/com/demo/User.java", user);
+        putIfPresent(files, "src/com/demo/Other.java", other);
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(files);
+        return AnalysisScope.full(project, manifest);
+    }
+
+    private static void putIfPresent(Map<String, AnalysisManifest.Entry> files, String path, String hash) {
+        if (hash != null) {
+            files.put(path, new AnalysisManifest.Entry(hash, 1, 0));
+        }
+    }
+
+    private void write(String path, String content) throws Exception {
+        Path file = workspace.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
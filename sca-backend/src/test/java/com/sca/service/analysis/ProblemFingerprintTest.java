@@ -0,0 +1,66 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemFingerprintTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AnalysisScope scope;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Project project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(tempDir.toString());
+        scope = AnalysisScope.full(project, new AnalysisManifest());
+        source = tempDir.resolve("Sample.java");
+    }
+
+    @Test
+    void testAssign_SurvivesLineShift() throws Exception {
+        Files.writeString(source, "class Sample {\n    int x;\n}\n");
+        CodeProblem before = problem("UnusedField", 2);
+        ProblemFingerprint.assign(scope, List.of(before));
+
+        Files.writeString(source, "// header\n\nclass Sample {\n        int   x;\n}\n");
+        CodeProblem after = problem("UnusedField", 4);
+        ProblemFingerprint.assign(scope, List.of(after));
+
+        assertNotNull(before.getFingerprint());
+        assertEquals(before.getFingerprint(), after.getFingerprint());
+    }
+
+    @Test
+    void testAssign_DistinguishesRuleAndRepeatedLines() throws Exception {
+        Files.writeString(source, "class Sample {\n    int x;\n    int x;\n}\n");
+        CodeProblem first = problem("UnusedField", 2);
+        CodeProblem second = problem("UnusedField", 3);
+        CodeProblem otherRule = problem("MissingJavadoc", 2);
+        ProblemFingerprint.assign(scope, List.of(second, otherRule, first));
+
+        assertNotEquals(first.getFingerprint(), second.getFingerprint());
+        assertNotEquals(first.getFingerprint(), otherRule.getFingerprint());
+    }
+
+    private static CodeProblem problem(String ruleId, int line) {
+        CodeProblem problem = new CodeProblem();
+        problem.setFilePath("Sample.java");
+        problem.setRuleId(ruleId);
+        problem.setDescription(ruleId + " at line " + line);
+        problem.setStartLine(line);
+        return problem;
+    }
+}
@@ -0,0 +1,100 @@
+package com.sca.service.analysis;
+
+import com.sca.model.CodeProblem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProblemMergerTest {
+
+    @Test
+    void testMerge_CollapsesEquivalentProblemsOfDifferentTools() {
+        CodeProblem pmdImport = problem("pmd", "UnnecessaryImport", "src/App.java", 3, 3, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem checkstyleImport = problem("checkstyle", "UnusedImports", "src/App.java", 3, 3, CodeProblem.ProblemSeverity.WARNING);
+        CodeProblem sonarImport = problem("sonarqube", "java:S1128", "src/App.java", 3, 3, CodeProblem.ProblemSeverity.INFO);
+        // Класс целиком у SpotBugs пересекает строку метода equals у PMD
+        CodeProblem pmdEquals = problem("pmd", "OverrideBothEqualsAndHashcode", "src/App.java", 12, 12, CodeProblem.ProblemSeverity.ERROR);
+        CodeProblem spotBugsEquals = problem("spotbugs", "HE_EQUALS_USE_HASHCODE", "src/App.java", 5, 30, CodeProblem.ProblemSeverity.WARNING);
+
+        List<CodeProblem> merged = ProblemMerger.merge(List.of(
+                stage("pmd", pmdImport, pmdEquals),
+                stage("checkstyle", checkstyleImport),
+                stage("spotbugs", spotBugsEquals),
+                stage("sonarqube", sonarImport)));
+
+        assertEquals(List.of(spotBugsEquals, sonarImport), merged);
+        assertEquals("java:S1128", sonarImport.getRuleId());
+        assertEquals("pmd,checkstyle,sonarqube", sonarImport.getSources());
+        assertEquals(CodeProblem.ProblemSeverity.WARNING, sonarImport.getSeverity());
+        assertEquals("spotbugs,pmd", spotBugsEquals.getSources());
+        assertEquals(CodeProblem.ProblemSeverity.ERROR, spotBugsEquals.getSeverity());
+    }
+
+    @Test
+    void testMerge_KeepsDistinctLocationsRulesAndSameToolFindings() {
+        CodeProblem first = problem("pmd", "UnusedLocalVariable", "src/App.java", 4, 4, CodeProblem.ProblemSeverity.WARNING);
+        CodeProblem second = problem("pmd", "UnusedLocalVariable", "src/App.java", 4, 4, CodeProblem.ProblemSeverity.WARNING);
+        CodeProblem otherLine = problem("sonarqube", "java:S1481", "src/App.java", 9, 9, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem otherFile = problem("checkstyle", "UnusedLocalVariable", "src/Util.java", 4, 4, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem unmapped = problem("sonarqube", "java:S1192", "src/App.java", 4, 4, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem noLine = problem("checkstyle", "UnusedLocalVariable", "src/App.java", 0, 0, CodeProblem.ProblemSeverity.INFO);
+        noLine.setStartLine(null);
+
+        List<CodeProblem> merged = ProblemMerger.merge(List.of(
+                stage("pmd", first, second),
+                stage("sonarqube", otherLine, unmapped),
+                stage("checkstyle", otherFile, noLine)));
+
+        assertEquals(6, merged.size());
+        assertEquals("pmd", first.getSources());
+        assertNull(ProblemMerger.lineKey(unmapped));
+        assertEquals(ProblemMerger.lineKey(first), ProblemMerger.lineKey(
+                problem("sonarqube", "java:S1481", "src/App.java", 4, 4, CodeProblem.ProblemSeverity.INFO)));
+    }
+
+    @Test
+    void testLineKey_OnlyAnotherToolsCopyIsSuppressedInStream() {
+        AnalysisJob job = new AnalysisJob(1, null, "alice", true, AnalysisJob.Priority.NORMAL);
+        String key = ProblemMerger.lineKey(problem("checkstyle", "MagicNumber", "src/App.java", 7, 7, CodeProblem.ProblemSeverity.INFO));
+
+        assertTrue(job.markStreamed(key, "checkstyle"));
+        // Второе магическое число в той же строке
+        assertTrue(job.markStreamed(key, "checkstyle"));
+        assertFalse(job.markStreamed(key, "sonarqube"));
+    }
+
+    @Test
+    void testMerge_SourcesOverColumnLimitDropWholeToolNames() {
+        String longTool = "x".repeat(200);
+        CodeProblem first = problem(longTool, "UnusedImports", "src/App.java", 1, 1, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem second = problem("y".repeat(60), "UnusedImports", "src/App.java", 1, 1, CodeProblem.ProblemSeverity.INFO);
+        CodeProblem third = problem("pmd", "UnnecessaryImport", "src/App.java", 1, 1, CodeProblem.ProblemSeverity.INFO);
+
+        List<CodeProblem> merged = ProblemMerger.merge(List.of(
+                stage(longTool, first), stage("y".repeat(60), second), stage("pmd", third)));
+
+        assertEquals(List.of(third), merged);
+        assertEquals(longTool + ",pmd", third.getSources());
+    }
+
+    private static StageResult stage(String name, CodeProblem... problems) {
+        List<CodeProblem> found = List.of(problems);
+        ProblemMerger.tagSource(found, name);
+        return new StageResult(name, found, 1, null);
+    }
+
+    private static CodeProblem problem(String source, String ruleId, String filePath, int startLine, int endLine,
+                                       CodeProblem.ProblemSeverity severity) {
+        CodeProblem problem = new CodeProblem();
+        problem.setRuleId(ruleId);
+        problem.setDescription(ruleId);
+        problem.setFilePath(filePath);
+        problem.setStartLine(startLine);
+        problem.setEndLine(endLine);
+        problem.setSeverity(severity);
+        problem.setSources(source);
+        return problem;
+    }
+}
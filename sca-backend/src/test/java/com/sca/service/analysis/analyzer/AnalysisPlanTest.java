@@ -0,0 +1,144 @@
+package com.sca.service.analysis.analyzer;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.AnalysisSession;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.AnalyzerTool;
+import com.sca.service.analysis.SourceLanguage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisPlanTest {
+
+    private final Analyzer sonar = new StubAnalyzer("sonarqube", Set.of(SourceLanguage.JAVA, SourceLanguage.PYTHON), false, 400, false);
+    private final Analyzer pmd = new StubAnalyzer("pmd", Set.of(SourceLanguage.JAVA), false, 40, true);
+    private final Analyzer spotbugs = new StubAnalyzer("spotbugs", Set.of(SourceLanguage.JAVA), true, 600, false);
+
+    private Project project;
+    private AnalysisProperties.Analyzers settings;
+
+    @BeforeEach
+    void setUp() {
+        project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath("/workspace");
+        settings = new AnalysisProperties.Analyzers();
+    }
+
+    @Test
+    void testCreate_SkipsAnalyzersWithoutProjectLanguages() {
+        AnalysisScope scope = AnalysisScope.full(project, manifest(Map.of("app.py", 40_000L, "README.md", 1_000L)));
+
+        AnalysisPlan plan = AnalysisPlan.create(List.of(sonar, pmd, spotbugs), scope, settings);
+
+        assertEquals(List.of("sonarqube"), names(plan));
+        assertEquals(Set.of("pmd", "spotbugs"), plan.getSkipped().keySet());
+        assertEquals(400, plan.getStages().get(0).getEstimatedMillis());
+    }
+
+    @Test
+    void testCreate_OrdersByEstimatedCost() {
+        settings.setDisabled(Set.of("sonarqube"));
+        settings.setCostPerKloc(Map.of("pmd", 1000.0));
+        AnalysisScope scope = AnalysisScope.full(project, manifest(Map.of("A.java", 80_000L)));
+
+        AnalysisPlan plan = AnalysisPlan.create(List.of(sonar, pmd, spotbugs), scope, settings);
+
+        assertEquals(List.of("pmd", "spotbugs"), names(plan));
+        assertEquals(2000, plan.getStages().get(0).getEstimatedMillis());
+        assertEquals(1200, plan.getStages().get(1).getEstimatedMillis());
+        assertEquals("disabled", plan.getSkipped().get("sonarqube"));
+    }
+
+    @Test
+    void testCreate_IncrementalCostsWholeProjectForCompilingAnalyzer() {
+        AnalysisScope scope = AnalysisScope.incremental(project, Path.of("/staging"), Set.of("A.java"), Set.of(),
+                manifest(Map.of("A.java", 4_000L, "B.java", 396_000L, "app.py", 40_000L)));
+
+        AnalysisPlan plan = AnalysisPlan.create(List.of(sonar, pmd, spotbugs), scope, settings);
+
+        assertEquals(List.of("spotbugs", "sonarqube", "pmd"), names(plan));
+        // pmd проверяет только измененный файл: 100 строк
+        assertEquals(4, plan.getStages().get(2).getEstimatedMillis());
+        assertEquals(6000, plan.getStages().get(0).getEstimatedMillis());
+    }
+
+    private static AnalysisManifest manifest(Map<String, Long> sizes) {
+        AnalysisManifest manifest = new AnalysisManifest();
+        Map<String, AnalysisManifest.Entry> files = new HashMap<>();
+        sizes.forEach((path, size) -> files.put(path, new AnalysisManifest.Entry(path, size, 0)));
+        manifest.setFiles(files);
+        return manifest;
+    }
+
+    private static List<String> names(AnalysisPlan plan) {
+        return plan.getStages().stream().map(stage -> stage.getAnalyzer().getName()).toList();
+    }
+
+    private static class StubAnalyzer implements Analyzer {
+        private final String name;
+        private final Set<String> languages;
+        private final boolean compilation;
+        private final double costPerKloc;
+        private final boolean incremental;
+
+        StubAnalyzer(String name, Set<String> languages, boolean compilation, double costPerKloc, boolean incremental) {
+            this.name = name;
+            this.languages = languages;
+            this.compilation = compilation;
+            this.costPerKloc = costPerKloc;
+            this.incremental = incremental;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public AnalyzerTool getTool() {
+            return AnalyzerTool.PMD;
+        }
+
+        @Override
+        public Set<String> getLanguages() {
+            return languages;
+        }
+
+        @Override
+        public boolean requiresCompilation() {
+            return compilation;
+        }
+
+        @Override
+        public double getCostPerKloc() {
+            return costPerKloc;
+        }
+
+        @Override
+        public boolean supportsIncremental() {
+            return incremental;
+        }
+
+        @Override
+        public String getConfigVersion() {
+            return "test";
+        }
+
+        @Override
+        public List<CodeProblem> analyze(AnalysisScope scope, AnalysisSession session) {
+            return List.of();
+        }
+    }
+}
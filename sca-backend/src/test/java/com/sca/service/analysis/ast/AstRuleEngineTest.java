@@ -0,0 +1,129 @@
+package com.sca.service.analysis.ast;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AstRuleEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AstRuleEngine engine;
+    private AnalysisProperties properties;
+    private Project project;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new AnalysisProperties();
+        properties.getAst().setParallelism(2);
+
+        engine = new AstRuleEngine();
+        ReflectionTestUtils.setField(engine, "analysisProperties", properties);
+        ReflectionTestUtils.setField(engine, "rules", List.of(new EmptyCatchBlockRule(), new StringReferenceEqualityRule(),
+                new EqualsWithoutHashCodeRule(), new EmptyIfStatementRule(), new ReturnFromFinallyRule()));
+
+        Path sources = Files.createDirectories(tempDir.resolve("demo/src"));
+        Files.writeString(sources.resolve("Sample.java"),
+                "public class Sample {\n"
+                        + "    int run(String name) {\n"
+                        + "        try { name.trim(); } catch (Exception e) { }\n"
+                        + "        try { name.trim(); } catch (Exception ignored) { }\n"
+                        + "        if (name == \"admin\");\n"
+                        + "        try { return 1; } finally { return 2; }\n"
+                        + "    }\n"
+                        + "    public boolean equals(Object other) { return other == this; }\n"
+                        + "}\n");
+        Files.writeString(sources.resolve("Broken.java"), "class Broken { void run() { int x = ; } }\n");
+        for (int i = 0; i < 20; i++) {
+            Files.writeString(sources.resolve("Clean" + i + ".java"),
+                    "class Clean" + i + " { int value() { return " + i + "; } }\n");
+        }
+
+        project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(tempDir.resolve("demo").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void testAnalyze_ReportsRuleViolationsWithPositions() {
+        List<CodeProblem> problems = engine.analyze(AnalysisScope.full(project, new AnalysisManifest()));
+
+        Map<String, CodeProblem> byRule = problems.stream()
+                .filter(problem -> problem.getFilePath().equals("src/Sample.java"))
+                .collect(Collectors.toMap(CodeProblem::getRuleId, problem -> problem));
+        assertEquals(Set.of("EmptyCatchBlock", "StringReferenceEquality", "EmptyIfStatement",
+                "ReturnFromFinallyBlock", "EqualsWithoutHashCode"), byRule.keySet());
+
+        CodeProblem emptyCatch = byRule.get("EmptyCatchBlock");
+        assertEquals(3, emptyCatch.getStartLine());
+        assertEquals(30, emptyCatch.getStartColumn());
+        assertEquals(3, emptyCatch.getEndLine());
+        assertEquals(52, emptyCatch.getEndColumn());
+
+        CodeProblem comparison = byRule.get("StringReferenceEquality");
+        assertEquals(CodeProblem.ProblemType.BUG, comparison.getType());
+        assertEquals(5, comparison.getStartLine());
+        assertEquals(13, comparison.getStartColumn());
+        assertEquals(8, byRule.get("EqualsWithoutHashCode").getStartLine());
+
+        CodeProblem syntaxError = problems.stream()
+                .filter(problem -> problem.getFilePath().equals("src/Broken.java"))
+                .findFirst().orElseThrow();
+        assertEquals("JavaSyntaxError", syntaxError.getRuleId());
+        assertEquals(1, syntaxError.getStartLine());
+        assertEquals(6, problems.size());
+    }
+
+    @Test
+    void testAnalyze_ReusesParsedTreesForUnchangedContent() throws Exception {
+        AnalysisScope scope = AnalysisScope.full(project, new AnalysisManifest());
+        List<CodeProblem> first = engine.analyze(scope);
+        assertEquals(22, engine.getCachedFiles());
+
+        // Копия файла с тем же содержимым разбирается из кэша
+        Files.copy(tempDir.resolve("demo/src/Sample.java"), tempDir.resolve("demo/src/Copy.java"));
+        List<CodeProblem> second = engine.analyze(scope);
+
+        assertEquals(22, engine.getCachedFiles());
+        assertEquals(first.size() + 5, second.size());
+        assertTrue(second.stream().anyMatch(problem -> problem.getFilePath().equals("src/Copy.java")
+                && problem.getRuleId().equals("EmptyCatchBlock") && problem.getStartLine() == 3));
+    }
+
+    @Test
+    void testAnalyze_EvictsWholeParseBatches() {
+        properties.getAst().setCacheMaxEntries(10);
+        AnalysisScope scope = AnalysisScope.full(project, new AnalysisManifest());
+
+        List<CodeProblem> first = engine.analyze(scope);
+        int cached = engine.getCachedFiles();
+        List<CodeProblem> second = engine.analyze(scope);
+
+        // Части вытесняются целиком, пока деревьев в памяти не больше предела
+        assertTrue(cached > 0 && cached <= 10, "cached " + cached);
+        assertTrue(engine.getCachedFiles() <= 10);
+        assertEquals(first.size(), second.size());
+    }
+}
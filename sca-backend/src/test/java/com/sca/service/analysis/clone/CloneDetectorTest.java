@@ -0,0 +1,107 @@
+package com.sca.service.analysis.clone;
+
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloneDetectorTest {
+
+    private static final String METHOD =
+            "    int total(int[] values, int limit) {\n"
+                    + "        int sum = 0;\n"
+                    + "        for (int i = 0; i < values.length; i++) {\n"
+                    + "            if (values[i] > limit) {\n"
+                    + "                sum += values[i] * 2;\n"
+                    + "            } else {\n"
+                    + "                sum -= values[i];\n"
+                    + "            }\n"
+                    + "        }\n"
+                    + "        return sum;\n"
+                    + "    }\n";
+
+    @TempDir
+    Path tempDir;
+
+    private AnalysisProperties properties;
+    private CloneDetector detector;
+    private Project project;
+    private AnalysisManifest manifest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new AnalysisProperties();
+        properties.getClones().setMinTokens(50);
+        properties.getClones().setParallelism(2);
+        detector = new CloneDetector();
+        ReflectionTestUtils.setField(detector, "analysisProperties", properties);
+
+        Path sources = Files.createDirectories(tempDir.resolve("demo/src"));
+        Files.writeString(sources.resolve("Orders.java"),
+                "package demo;\n\nimport java.util.List;\n\nclass Orders {\n    private int count;\n" + METHOD + "}\n");
+        // Та же логика с другим форматированием и комментариями
+        Files.writeString(sources.resolve("Invoices.java"),
+                "package demo;\n\nclass Invoices {\n    // copied\n"
+                        + METHOD.replace("        int sum = 0;\n", "        int sum = 0; /* start */\n")
+                        .replace("    ", "  ")
+                        + "    void print() { System.out.println(\"invoices\"); }\n}\n");
+        Files.writeString(sources.resolve("Other.java"),
+                "class Other {\n    String name() { return \"other\"; }\n}\n");
+
+        manifest = new AnalysisManifest();
+        for (String file : List.of("src/Orders.java", "src/Invoices.java", "src/Other.java")) {
+            manifest.getFiles().put(file, new AnalysisManifest.Entry("hash", 1, 0));
+        }
+        project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(tempDir.resolve("demo").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        detector.shutdown();
+    }
+
+    @Test
+    void testAnalyze_ReportsBothSidesOfClone() {
+        Map<String, CodeProblem> byFile = detector.analyze(AnalysisScope.full(project, manifest)).stream()
+                .collect(Collectors.toMap(CodeProblem::getFilePath, problem -> problem));
+
+        assertEquals(Set.of("src/Orders.java", "src/Invoices.java"), byFile.keySet());
+        CodeProblem orders = byFile.get("src/Orders.java");
+        assertEquals(CloneDetector.RULE_ID, orders.getRuleId());
+        assertEquals(7, orders.getStartLine());
+        assertEquals(17, orders.getEndLine());
+        assertTrue(orders.getDescription().contains("also in src/Invoices.java:5-15"), orders.getDescription());
+        assertTrue(byFile.get("src/Invoices.java").getDescription().contains("also in src/Orders.java:7-17"));
+    }
+
+    @Test
+    void testAnalyze_IncrementalScopeWithSmallTokenCache() {
+        // Кэш меньше одного файла: токены читаются заново при каждом обращении
+        properties.getClones().setTokenCacheSize(10);
+        AnalysisScope scope = AnalysisScope.incremental(project, tempDir.resolve("demo"),
+                Set.of("src/Invoices.java"), Set.of(), manifest);
+
+        List<CodeProblem> problems = detector.analyze(scope);
+
+        assertEquals(1, problems.size());
+        assertEquals("src/Invoices.java", problems.get(0).getFilePath());
+        assertEquals(5, problems.get(0).getStartLine());
+    }
+}
@@ -0,0 +1,197 @@
+package com.sca.service.analysis.dependency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.AnalysisManifestService;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sca.service.analysis.analyzer.DependencyAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdvisoryDatabaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    private AdvisoryDatabase database;
+    private AdvisoryImporter importer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getDependencies().setDatabasePath(tempDir.resolve("index/advisories.idx").toString());
+
+        database = new AdvisoryDatabase();
+        ReflectionTestUtils.setField(database, "analysisProperties", properties);
+        importer = new AdvisoryImporter();
+        ReflectionTestUtils.setField(importer, "advisoryDatabase", database);
+        ReflectionTestUtils.setField(importer, "analysisProperties", properties);
+
+        Path osv = Files.createDirectories(tempDir.resolve("osv"));
+        Files.writeString(osv.resolve("GHSA-jfh8-c2jp-5v3q.json"), "{"
+                + "\"id\": \"GHSA-jfh8-c2jp-5v3q\", \"summary\": \"Remote code injection in Log4j\","
+                + "\"aliases\": [\"CVE-2021-44228\"], \"database_specific\": {\"severity\": \"CRITICAL\"},"
+                + "\"affected\": [{\"package\": {\"ecosystem\": \"Maven\", \"name\": \"org.apache.logging.log4j:log4j-core\"},"
+                + "  \"ranges\": [{\"type\": \"ECOSYSTEM\", \"events\": [{\"introduced\": \"2.13.0\"}, {\"fixed\": \"2.15.0\"},"
+                + "    {\"introduced\": \"2.0-beta9\"}, {\"fixed\": \"2.12.2\"}]}]}]}");
+        Files.writeString(osv.resolve("GHSA-35jh-r3h4-6jhm.json"), "{"
+                + "\"id\": \"GHSA-35jh-r3h4-6jhm\", \"details\": \"Command injection in lodash\","
+                + "\"database_specific\": {\"severity\": \"HIGH\"},"
+                + "\"affected\": [{\"package\": {\"ecosystem\": \"npm\", \"name\": \"lodash\"},"
+                + "  \"ranges\": [{\"type\": \"SEMVER\", \"events\": [{\"introduced\": \"0\"}, {\"fixed\": \"4.17.21\"}]}]}]}");
+        Files.writeString(osv.resolve("PYSEC-2021-1.json"), "{"
+                + "\"id\": \"PYSEC-2021-1\", \"summary\": \"SQL injection\","
+                + "\"affected\": [{\"package\": {\"ecosystem\": \"PyPI\", \"name\": \"Django\"},"
+                + "  \"ranges\": [{\"type\": \"ECOSYSTEM\", \"events\": [{\"introduced\": \"3.0\"}, {\"last_affected\": \"3.1.4\"}]}],"
+                + "  \"versions\": [\"2.2.1\"]}]}");
+        Files.writeString(osv.resolve("withdrawn.json"), "{\"id\": \"GHSA-old\", \"withdrawn\": \"2022-01-01T00:00:00Z\","
+                + "\"affected\": [{\"package\": {\"ecosystem\": \"npm\", \"name\": \"left-pad\"}, \"versions\": [\"1.0.0\"]}]}");
+
+        assertEquals(3, importer.importFrom(osv));
+    }
+
+    @Test
+    void testFind_MatchesVersionRanges() {
+        List<Advisory> log4j = database.find(new Dependency(Ecosystem.MAVEN, "org.apache.logging.log4j:log4j-core", "2.14.1", 0));
+        assertEquals(1, log4j.size());
+        assertEquals("GHSA-jfh8-c2jp-5v3q", log4j.get(0).getId());
+        assertEquals(List.of("CVE-2021-44228"), log4j.get(0).getAliases());
+        assertEquals(CodeProblem.ProblemSeverity.CRITICAL, log4j.get(0).getSeverity());
+        assertEquals("2.15.0", log4j.get(0).getFixedVersion());
+
+        assertEquals("2.12.2", database.find(new Dependency(Ecosystem.MAVEN, "org.apache.logging.log4j:log4j-core", "2.0", 0))
+                .get(0).getFixedVersion());
+        assertTrue(database.find(new Dependency(Ecosystem.MAVEN, "org.apache.logging.log4j:log4j-core", "2.0-beta8", 0)).isEmpty());
+        assertTrue(database.find(new Dependency(Ecosystem.MAVEN, "org.apache.logging.log4j:log4j-core", "2.12.2", 0)).isEmpty());
+        assertTrue(database.find(new Dependency(Ecosystem.MAVEN, "org.apache.logging.log4j:log4j-core", "2.15.0", 0)).isEmpty());
+
+        assertEquals(1, database.find(new Dependency(Ecosystem.NPM, "lodash", "4.17.20", 0)).size());
+        assertTrue(database.find(new Dependency(Ecosystem.NPM, "lodash", "4.17.21", 0)).isEmpty());
+        assertTrue(database.find(new Dependency(Ecosystem.NPM, "left-pad", "1.0.0", 0)).isEmpty());
+
+        // Имена PyPI нормализуются, last_affected включает саму версию
+        assertEquals(1, database.find(new Dependency(Ecosystem.PYPI, "django", "3.1.4", 0)).size());
+        assertEquals(1, database.find(new Dependency(Ecosystem.PYPI, "Django", "2.2.1", 0)).size());
+        assertTrue(database.find(new Dependency(Ecosystem.PYPI, "django", "3.1.5", 0)).isEmpty());
+        assertTrue(database.find(new Dependency(Ecosystem.PYPI, "requests", "2.0.0", 0)).isEmpty());
+    }
+
+    @Test
+    void testAnalyze_ReportsVulnerableDependenciesAtDeclaration() throws Exception {
+        Path workspace = Files.createDirectories(tempDir.resolve("demo/web"));
+        Files.writeString(workspace.getParent().resolve("pom.xml"),
+                "<project>\n"
+                        + "  <version>1.0</version>\n"
+                        + "  <properties><log4j.version>2.14.1</log4j.version></properties>\n"
+                        + "  <dependencies>\n"
+                        + "    <dependency>\n"
+                        + "      <groupId>org.apache.logging.log4j</groupId>\n"
+                        + "      <artifactId>log4j-core</artifactId>\n"
+                        + "      <version>${log4j.version}</version>\n"
+                        + "    </dependency>\n"
+                        + "  </dependencies>\n"
+                        + "</project>\n");
+        Files.writeString(workspace.resolve("package.json"), "{\"dependencies\": {\"lodash\": \"^4.17.0\"}}");
+        Files.writeString(workspace.resolve("package-lock.json"),
+                "{\n"
+                        + "  \"lockfileVersion\": 3,\n"
+                        + "  \"packages\": {\n"
+                        + "    \"\": {\"name\": \"web\"},\n"
+                        + "    \"node_modules/lodash\": {\"version\": \"4.17.20\"}\n"
+                        + "  }\n"
+                        + "}\n");
+        Files.writeString(workspace.resolve("requirements.txt"), "# web\nrequests>=2.0\nDjango==3.1.2  # pinned\n");
+
+        AnalysisManifest manifest = new AnalysisManifest();
+        for (String file : List.of("pom.xml", "web/package.json", "web/package-lock.json", "web/requirements.txt")) {
+            manifest.getFiles().put(file, new AnalysisManifest.Entry("hash", 1, 0));
+        }
+        Project project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(tempDir.resolve("demo").toString());
+
+        DependencyAnalyzer analyzer = new DependencyAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "advisoryDatabase", database);
+        ReflectionTestUtils.setField(analyzer, "parsers", List.of(new MavenPomParser(), new GradleBuildParser(),
+                new NpmManifestParser(), new PythonRequirementsParser()));
+
+        Map<String, CodeProblem> byFile = analyzer.analyze(AnalysisScope.full(project, manifest), null).stream()
+                .collect(Collectors.toMap(CodeProblem::getFilePath, problem -> problem));
+        assertEquals(3, byFile.size());
+
+        CodeProblem log4j = byFile.get("pom.xml");
+        assertEquals(CodeProblem.ProblemType.VULNERABILITY, log4j.getType());
+        assertEquals("GHSA-jfh8-c2jp-5v3q", log4j.getRuleId());
+        assertEquals(5, log4j.getStartLine());
+        assertTrue(log4j.getDescription().startsWith("org.apache.logging.log4j:log4j-core@2.14.1"));
+        assertTrue(log4j.getSolution().contains("2.15.0"));
+
+        assertEquals(5, byFile.get("web/package-lock.json").getStartLine());
+        assertEquals(3, byFile.get("web/requirements.txt").getStartLine());
+    }
+
+    @Test
+    void testAnalyze_IncrementalRunRechecksManifestsAfterNewImport() throws Exception {
+        Path workspace = Files.createDirectories(tempDir.resolve("demo"));
+        Files.writeString(workspace.resolve("requirements.txt"), "requests==2.19.0\n");
+        Files.writeString(workspace.resolve("App.py"), "print('demo')\n");
+        Project project = new Project();
+        project.setId(1L);
+        project.setWorkspacePath(workspace.toString());
+
+        AnalysisManifestService manifestService = new AnalysisManifestService();
+        ReflectionTestUtils.setField(manifestService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(manifestService, "advisoryDatabase", database);
+        ReflectionTestUtils.setField(manifestService, "manifestsPath", tempDir.resolve("manifests").toString());
+        ReflectionTestUtils.setField(manifestService, "tempPath", tempDir.resolve("temp").toString());
+        DependencyAnalyzer analyzer = new DependencyAnalyzer();
+        ReflectionTestUtils.setField(analyzer, "advisoryDatabase", database);
+        ReflectionTestUtils.setField(analyzer, "parsers", List.of(new PythonRequirementsParser()));
+
+        AnalysisScope full = manifestService.createScope(project, true);
+        assertTrue(analyzer.analyze(full, null).isEmpty());
+        manifestService.commit(full);
+
+        // Вторая база знает уязвимость requests; время импорта должно отличаться от первого
+        long firstImportedAt = database.getImportedAt();
+        while (System.currentTimeMillis() <= firstImportedAt) {
+            Thread.onSpinWait();
+        }
+        Path osv = Files.createDirectories(tempDir.resolve("osv-next"));
+        Files.writeString(osv.resolve("PYSEC-2018-28.json"), "{"
+                + "\"id\": \"PYSEC-2018-28\", \"summary\": \"Credentials leak on redirect\","
+                + "\"affected\": [{\"package\": {\"ecosystem\": \"PyPI\", \"name\": \"requests\"},"
+                + "  \"ranges\": [{\"type\": \"ECOSYSTEM\", \"events\": [{\"introduced\": \"0\"}, {\"fixed\": \"2.20.0\"}]}]}]}");
+        assertEquals(1, importer.importFrom(osv));
+
+        AnalysisScope incremental = manifestService.createScope(project, true);
+        try {
+            assertTrue(incremental.isIncremental());
+            assertEquals(Set.of("requirements.txt"), incremental.getAffectedFiles());
+            List<CodeProblem> problems = analyzer.analyze(incremental, null);
+            assertEquals(1, problems.size());
+            assertEquals("PYSEC-2018-28", problems.get(0).getRuleId());
+            manifestService.commit(incremental);
+        } finally {
+            manifestService.release(incremental);
+        }
+
+        AnalysisScope unchanged = manifestService.createScope(project, true);
+        assertTrue(unchanged.isEmpty());
+        manifestService.release(unchanged);
+    }
+}
@@ -0,0 +1,144 @@
+package com.sca.service.analysis.report;
+
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XmlReportParserTest {
+
+    private AnalysisScope scope;
+
+    @BeforeEach
+    void setUp() {
+        Project project = new Project();
+        project.setId(7L);
+        project.setWorkspacePath("/data/workspaces/demo");
+
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(Map.of(
+                "src/main/java/com/demo/Service.java", new AnalysisManifest.Entry("a", 1, 1),
+                "src/test/java/com/demo/ServiceTest.java", new AnalysisManifest.Entry("b", 1, 1)));
+        scope = AnalysisScope.full(project, manifest);
+    }
+
+    @Test
+    void testPmdReport() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\" version=\"7.1.0\">\n"
+                + "<file name=\"/workspace/demo/src/main/java/com/demo/Service.java\">\n"
+                + "<violation beginline=\"12\" endline=\"14\" begincolumn=\"9\" endcolumn=\"10\" rule=\"EmptyCatchBlock\""
+                + " ruleset=\"Error Prone\" priority=\"3\">\n"
+                + "Avoid empty catch blocks\n"
+                + "</violation>\n"
+                + "</file>\n"
+                + "<error filename=\"/workspace/demo/Broken.java\" msg=\"ParseException\"/>\n"
+                + "</pmd>";
+
+        List<CodeProblem> problems = parse(new PmdReportParser(), xml);
+
+        assertEquals(1, problems.size());
+        CodeProblem problem = problems.get(0);
+        assertEquals("src/main/java/com/demo/Service.java", problem.getFilePath());
+        assertEquals("EmptyCatchBlock", problem.getRuleId());
+        assertEquals("Avoid empty catch blocks", problem.getDescription());
+        assertEquals("Error Prone", problem.getCategory());
+        assertEquals(CodeProblem.ProblemSeverity.WARNING, problem.getSeverity());
+        assertEquals(12, problem.getStartLine());
+        assertEquals(14, problem.getEndLine());
+        assertEquals(9, problem.getStartColumn());
+        assertEquals(10, problem.getEndColumn());
+    }
+
+    @Test
+    void testCheckstyleReport() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<checkstyle version=\"10.12.5\">\n"
+                + "<file name=\"/workspace/demo/src/main/java/com/demo/Service.java\">\n"
+                + "<error line=\"3\" column=\"5\" severity=\"warning\" message=\"&apos;{&apos; is not preceded with whitespace.\""
+                + " source=\"com.puppycrawl.tools.checkstyle.checks.whitespace.WhitespaceAroundCheck\"/>\n"
+                + "<error line=\"7\" severity=\"error\" message=\"Line is longer than 100 characters\""
+                + " source=\"com.puppycrawl.tools.checkstyle.checks.sizes.LineLengthCheck\"/>\n"
+                + "</file>\n"
+                + "</checkstyle>";
+
+        List<CodeProblem> problems = parse(new CheckstyleReportParser(), xml);
+
+        assertEquals(2, problems.size());
+        assertEquals("WhitespaceAround", problems.get(0).getRuleId());
+        assertEquals("'{' is not preceded with whitespace.", problems.get(0).getDescription());
+        assertEquals(3, problems.get(0).getStartLine());
+        assertEquals(5, problems.get(0).getStartColumn());
+        assertEquals("LineLength", problems.get(1).getRuleId());
+        assertEquals(CodeProblem.ProblemSeverity.ERROR, problems.get(1).getSeverity());
+        assertNull(problems.get(1).getStartColumn());
+        assertEquals("src/main/java/com/demo/Service.java", problems.get(1).getFilePath());
+    }
+
+    @Test
+    void testSpotBugsReport_UsesPrimarySourceLine() {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<BugCollection version=\"4.8.3\">\n"
+                + "<BugInstance type=\"NP_NULL_ON_SOME_PATH\" priority=\"1\" rank=\"8\" category=\"CORRECTNESS\">\n"
+                + "<ShortMessage>Possible null pointer dereference</ShortMessage>\n"
+                + "<LongMessage>Possible null pointer dereference of value in com.demo.Service.run()</LongMessage>\n"
+                + "<Class classname=\"com.demo.Service\" primary=\"true\">\n"
+                + "<SourceLine classname=\"com.demo.Service\" start=\"1\" end=\"40\" sourcepath=\"com/demo/Service.java\"/>\n"
+                + "</Class>\n"
+                + "<Method classname=\"com.demo.Service\" name=\"run\" signature=\"()V\">\n"
+                + "<SourceLine classname=\"com.demo.Service\" start=\"10\" end=\"20\" sourcepath=\"com/demo/Service.java\"/>\n"
+                + "</Method>\n"
+                + "<SourceLine classname=\"com.demo.Service\" start=\"15\" end=\"15\" sourcepath=\"com/demo/Service.java\""
+                + " role=\"SOURCE_LINE_DEREF\"/>\n"
+                + "<SourceLine classname=\"com.demo.Service\" start=\"14\" end=\"14\" sourcepath=\"com/demo/Service.java\"/>\n"
+                + "</BugInstance>\n"
+                + "<BugInstance type=\"SE_BAD_FIELD\" priority=\"2\" rank=\"14\" category=\"BAD_PRACTICE\">\n"
+                + "<Class classname=\"com.demo.ServiceTest\">\n"
+                + "<SourceLine classname=\"com.demo.ServiceTest\" start=\"3\" end=\"30\" sourcepath=\"com/demo/ServiceTest.java\"/>\n"
+                + "</Class>\n"
+                + "</BugInstance>\n"
+                + "</BugCollection>";
+
+        List<CodeProblem> problems = parse(new SpotBugsReportParser(), xml);
+
+        assertEquals(2, problems.size());
+        CodeProblem nullPointer = problems.get(0);
+        assertEquals("NP_NULL_ON_SOME_PATH", nullPointer.getRuleId());
+        assertEquals("src/main/java/com/demo/Service.java", nullPointer.getFilePath());
+        assertEquals(14, nullPointer.getStartLine());
+        assertEquals(CodeProblem.ProblemSeverity.ERROR, nullPointer.getSeverity());
+        assertEquals(CodeProblem.ProblemType.BUG, nullPointer.getType());
+        assertTrue(nullPointer.getDescription().startsWith("Possible null pointer dereference of value"));
+
+        CodeProblem badField = problems.get(1);
+        assertEquals("src/test/java/com/demo/ServiceTest.java", badField.getFilePath());
+        assertEquals(3, badField.getStartLine());
+        assertEquals(CodeProblem.ProblemType.CODE_SMELL, badField.getType());
+    }
+
+    @Test
+    void testExternalEntitiesAreRejected() {
+        String xml = "<?xml version=\"1.0\"?>\n"
+                + "<!DOCTYPE pmd [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>\n"
+                + "<pmd><file name=\"a.java\"><violation rule=\"X\">&xxe;</violation></file></pmd>";
+
+        assertThrows(RuntimeException.class, () -> parse(new PmdReportParser(), xml));
+    }
+
+    private List<CodeProblem> parse(XmlReportParser parser, String xml) {
+        List<CodeProblem> problems = new ArrayList<>();
+        int count = parser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), scope, problems::add);
+        assertEquals(problems.size(), count);
+        return problems;
+    }
+}
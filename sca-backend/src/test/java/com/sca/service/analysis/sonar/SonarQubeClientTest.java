@@ -0,0 +1,197 @@
+package com.sca.service.analysis.sonar;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sca.config.AnalysisProperties;
+import com.sca.model.CodeProblem;
+import com.sca.model.Project;
+import com.sca.service.analysis.AnalysisManifest;
+import com.sca.service.analysis.AnalysisScope;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SonarQubeClientTest {
+
+    private HttpServer server;
+    private SonarQubeClient client;
+    private AnalysisScope scope;
+    private final AtomicInteger taskPolls = new AtomicInteger();
+    private final Set<String> requestedPages = ConcurrentHashMap.newKeySet();
+    private final Set<String> authorizations = ConcurrentHashMap.newKeySet();
+    private final Set<String> requestedSeverities = ConcurrentHashMap.newKeySet();
+    private volatile String taskStatus = "SUCCESS";
+    // Число проблем без фильтра и с фильтром MAJOR; null - обычный проект
+    private volatile int[] oversized;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/ce/task", exchange -> {
+            authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+            // Первый опрос - отчет еще обрабатывается
+            String status = taskPolls.incrementAndGet() == 1 ? "IN_PROGRESS" : taskStatus;
+            respond(exchange, "{\"task\":{\"id\":\"AX1\",\"status\":\"" + status + "\",\"errorMessage\":\"Unsupported language\"}}");
+        });
+        server.createContext("/api/issues/search", exchange -> {
+            Map<String, String> query = query(exchange);
+            assertEquals("sca-7", query.get("components"));
+            assertEquals("2", query.get("ps"));
+            String severity = query.get("severities");
+            if (oversized != null && severity == null) {
+                respond(exchange, emptyPage(oversized[0]));
+                return;
+            }
+            if (oversized != null) {
+                requestedSeverities.add(severity);
+                if (!"MAJOR".equals(severity) || oversized[1] > 10_000) {
+                    respond(exchange, emptyPage("MAJOR".equals(severity) ? oversized[1] : 0));
+                    return;
+                }
+            }
+            requestedPages.add(query.get("p"));
+            respond(exchange, issuesPage(Integer.parseInt(query.get("p"))));
+        });
+        server.start();
+
+        AnalysisProperties properties = new AnalysisProperties();
+        properties.getSonar().setHostUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        properties.getSonar().setToken("squ_test");
+        properties.getSonar().setPageSize(2);
+        properties.getSonar().setConcurrency(2);
+        properties.getSonar().setPollIntervalMillis(10);
+        client = new SonarQubeClient();
+        ReflectionTestUtils.setField(client, "analysisProperties", properties);
+        ReflectionTestUtils.setField(client, "objectMapper", new ObjectMapper());
+
+        Project project = new Project();
+        project.setId(7L);
+        project.setWorkspacePath("/data/workspaces/demo");
+        AnalysisManifest manifest = new AnalysisManifest();
+        manifest.setFiles(new HashMap<>());
+        scope = AnalysisScope.full(project, manifest);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        client.shutdown();
+    }
+
+    @Test
+    void testFetchProblems_PollsTaskAndPagesThroughIssues() {
+        List<CodeProblem> problems = client.fetchProblems(scope, "sca-7", "AX1").join();
+
+        assertEquals(2, taskPolls.get());
+        assertEquals(Set.of("1", "2", "3"), requestedPages);
+        assertEquals(Set.of("Basic c3F1X3Rlc3Q6"), authorizations);
+        // Проблема уровня проекта без файла пропускается
+        assertEquals(4, problems.size());
+
+        CodeProblem first = problems.get(0);
+        assertEquals("src/main/java/App.java", first.getFilePath());
+        assertEquals("java:S1481", first.getRuleId());
+        assertEquals(CodeProblem.ProblemSeverity.INFO, first.getSeverity());
+        assertEquals(CodeProblem.ProblemType.CODE_SMELL, first.getType());
+        assertEquals(3, first.getStartLine());
+        assertEquals(9, first.getStartColumn());
+        assertEquals(3, first.getEndLine());
+        assertEquals(14, first.getEndColumn());
+
+        CodeProblem bug = problems.get(3);
+        assertEquals("java:S2259", bug.getRuleId());
+        assertEquals(CodeProblem.ProblemSeverity.CRITICAL, bug.getSeverity());
+        assertEquals(CodeProblem.ProblemType.BUG, bug.getType());
+        assertEquals(40, bug.getStartLine());
+        assertNull(bug.getStartColumn());
+    }
+
+    @Test
+    void testFetchProblems_FailedTaskFailsWithServerMessage() {
+        taskStatus = "FAILED";
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.fetchProblems(scope, "sca-7", "AX1").join());
+
+        assertTrue(error.getCause().getMessage().contains("Unsupported language"));
+        assertTrue(requestedPages.isEmpty());
+    }
+
+    @Test
+    void testSearchIssues_OverTenThousand_SplitsBySeverity() {
+        oversized = new int[] {12_000, 5};
+
+        List<CodeProblem> problems = client.searchIssues(scope, "sca-7").join();
+
+        assertEquals(Set.of("BLOCKER", "CRITICAL", "MAJOR", "MINOR", "INFO"), requestedSeverities);
+        assertEquals(Set.of("1", "2", "3"), requestedPages);
+        assertEquals(4, problems.size());
+    }
+
+    @Test
+    void testSearchIssues_SeverityStillOverTenThousand_Fails() {
+        oversized = new int[] {12_000, 10_001};
+
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> client.searchIssues(scope, "sca-7").join());
+
+        assertTrue(error.getCause().getMessage().contains("MAJOR"));
+    }
+
+    private static String emptyPage(int total) {
+        return "{\"paging\":{\"pageIndex\":1,\"pageSize\":2,\"total\":" + total + "},\"issues\":[]}";
+    }
+
+    private static String issuesPage(int page) {
+        String issues = switch (page) {
+            case 1 -> issue("java:S1481", "MINOR", "CODE_SMELL", "src/main/java/App.java",
+                    "\"textRange\":{\"startLine\":3,\"endLine\":3,\"startOffset\":8,\"endOffset\":14}")
+                    + "," + issue("java:S1128", "MAJOR", "CODE_SMELL", "src/main/java/App.java",
+                    "\"textRange\":{\"startLine\":1,\"endLine\":1,\"startOffset\":0,\"endOffset\":20}");
+            case 2 -> issue("java:S1192", "CRITICAL", "CODE_SMELL", "src/main/java/Util.java",
+                    "\"textRange\":{\"startLine\":12,\"endLine\":12,\"startOffset\":4,\"endOffset\":30}")
+                    + ",{\"rule\":\"common-java:DuplicatedBlocks\",\"severity\":\"MAJOR\",\"type\":\"CODE_SMELL\","
+                    + "\"component\":\"sca-7\",\"message\":\"Project level\"}";
+            default -> issue("java:S2259", "BLOCKER", "BUG", "src/main/java/Util.java", "\"line\":40");
+        };
+        return "{\"paging\":{\"pageIndex\":" + page + ",\"pageSize\":2,\"total\":5},\"issues\":[" + issues + "]}";
+    }
+
+    private static String issue(String rule, String severity, String type, String file, String position) {
+        return "{\"rule\":\"" + rule + "\",\"severity\":\"" + severity + "\",\"type\":\"" + type
+                + "\",\"component\":\"sca-7:" + file + "\",\"message\":\"" + rule + " message\"," + position + "}";
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : exchange.getRequestURI().getQuery().split("&")) {
+            int separator = pair.indexOf('=');
+            parameters.put(pair.substring(0, separator), pair.substring(separator + 1));
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}